@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# 生成 AppCDS（类数据共享）归档，并给出使用归档启动的命令
+#
+# 用法：scripts/appcds.sh [jar] [额外的应用参数...]
+#   mvn -DskipTests package && scripts/appcds.sh target/user-module-1.0.0.jar --spring.profiles.active=fast-start
+#
+# CDS要求类从普通jar/目录加载，因此先把Spring Boot可执行jar解压为 classes + lib，
+# 以 -Dspring.context.exit=onRefresh 完成一次训练启动（上下文刷新后立即退出，不处理请求），
+# 退出时把加载过的类写入归档。训练与运行必须使用相同的JDK与classpath。
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=${1:-target/user-module-1.0.0.jar}
+shift || true
+OUT=${CDS_DIR:-target/cds}
+
+if [ ! -f "$JAR" ]; then
+  echo "找不到 $JAR，请先执行 mvn -DskipTests package" >&2
+  exit 1
+fi
+
+rm -rf "$OUT"
+mkdir -p "$OUT/app"
+(cd "$OUT/app" && jar -xf "$OLDPWD/$JAR")
+
+# classpath 顺序固定，保证训练与运行一致
+CP="$OUT/app/BOOT-INF/classes"
+for lib in $(ls "$OUT/app/BOOT-INF/lib/"*.jar | sort); do
+  CP="$CP:$lib"
+done
+echo "-cp $CP" > "$OUT/classpath.args"
+
+echo "训练启动，生成 $OUT/app.jsa ..."
+java -XX:ArchiveClassesAtExit="$OUT/app.jsa" -Dspring.context.exit=onRefresh \
+  @"$OUT/classpath.args" com.user.UserModuleApplication "$@"
+
+cat <<USAGE
+
+归档已生成：$OUT/app.jsa
+使用归档启动：
+  java -XX:SharedArchiveFile=$OUT/app.jsa @$OUT/classpath.args com.user.UserModuleApplication $*
+USAGE
@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# 测量从进程启动到 readiness 为UP、以及第一个成功请求的时间
+#
+# 用法：scripts/time-to-first-request.sh <启动命令...>
+#   scripts/time-to-first-request.sh java -jar target/user-module-1.0.0.jar --spring.profiles.active=fast-start
+#   scripts/time-to-first-request.sh java -XX:SharedArchiveFile=target/cds/app.jsa @target/cds/classpath.args \
+#       com.user.UserModuleApplication --spring.profiles.active=fast-start
+#
+# 环境变量：BASE_URL（默认 http://127.0.0.1:8080/api/user），MANAGEMENT_URL（默认 http://127.0.0.1:8081），TIMEOUT（秒，默认120）
+# 第一个成功请求定义为 GET /public-key 返回 {"code":200,...}
+set -uo pipefail
+
+if [ $# -eq 0 ]; then
+  echo "用法：$0 <启动命令...>" >&2
+  exit 1
+fi
+
+BASE_URL=${BASE_URL:-http://127.0.0.1:8080/api/user}
+MANAGEMENT_URL=${MANAGEMENT_URL:-http://127.0.0.1:8081}
+TIMEOUT=${TIMEOUT:-120}
+
+now_ms() { date +%s%3N; }
+
+mkdir -p target
+START=$(now_ms)
+"$@" > target/time-to-first-request.log 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null; wait $PID 2>/dev/null' EXIT
+
+FIRST_OK=""
+READY=""
+while [ $(( $(now_ms) - START )) -lt $(( TIMEOUT * 1000 )) ]; do
+  if ! kill -0 $PID 2>/dev/null; then
+    echo "应用已退出，见 target/time-to-first-request.log" >&2
+    exit 1
+  fi
+  if [ -z "$FIRST_OK" ] && curl -sf "$BASE_URL/public-key" 2>/dev/null | grep -q '^{"code":200'; then
+    FIRST_OK=$(( $(now_ms) - START ))
+  fi
+  if [ -z "$READY" ] && curl -sf "$MANAGEMENT_URL/actuator/health/readiness" 2>/dev/null | grep -q '"status":"UP"'; then
+    READY=$(( $(now_ms) - START ))
+  fi
+  if [ -n "$FIRST_OK" ] && [ -n "$READY" ]; then
+    break
+  fi
+  sleep 0.05
+done
+
+echo "first successful request: ${FIRST_OK:-timeout} ms"
+echo "readiness UP:             ${READY:-timeout} ms"
@@ -0,0 +1,137 @@
+package com.user.service.credential;
+
+import com.user.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CredentialDirectory 基准：邮箱命中、昵称命中与未命中的查找耗时，以及每用户占用的字节数
+ * 对照组为以 User 对象为值的两个 HashMap（邮箱、昵称各一个），即把 findByEmail/findByNickname 的结果直接缓存在堆上的做法；
+ * 与数据库查询的延迟对比见压测报告中的 auth.credential.lookup{source=directory|database}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=2g"})
+@State(Scope.Benchmark)
+public class CredentialDirectoryBenchmark {
+    private static final int QUERIES = 1024;
+    private static final String HEX = "0123456789abcdef";
+    private static final String BCRYPT = "./ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    /** 目录中的用户数 */
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private CredentialDirectory directory;
+    private Map<String, User> byEmail;
+    private final String[] emailQueries = new String[QUERIES];
+    private final String[] nicknameQueries = new String[QUERIES];
+    private final String[] missQueries = new String[QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        User[] generated = new User[users];
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setId(i + 1L);
+            user.setEmail("player" + i + "@example.com");
+            user.setNickname("player_" + Integer.toString(i, 36));
+            user.setPasswordHash("$2a$12$" + randomString(random, BCRYPT, CredentialDirectory.HASH_LENGTH - 7));
+            user.setPasswordSalt(randomString(random, HEX, CredentialDirectory.SALT_LENGTH));
+            user.setStatus((byte) 1);
+            user.setAvatarUrl("");
+            user.setCountry("CN");
+            user.setGender((byte) 0);
+            user.setCreatedAt(LocalDateTime.now());
+            user.setUpdatedAt(LocalDateTime.now());
+            generated[i] = user;
+        }
+
+        long before = usedHeap();
+        byEmail = new HashMap<>(users * 2);
+        Map<String, User> byNickname = new HashMap<>(users * 2);
+        for (User user : generated) {
+            User cached = copy(user);
+            byEmail.put(cached.getEmail(), cached);
+            byNickname.put(cached.getNickname(), cached);
+        }
+        long heapMaps = usedHeap() - before;
+
+        directory = new CredentialDirectory(users);
+        for (User user : generated) {
+            directory.put(user.getId(), user.getEmail(), user.getNickname(), user.getStatus(),
+                    user.getPasswordHash(), user.getPasswordSalt());
+        }
+        System.out.printf("%n%d 个用户：凭据目录堆外 %.1f MB（%.0f 字节/用户），User对象+HashMap 堆上 %.1f MB（%.0f 字节/用户）%n",
+                users, directory.allocatedBytes() / 1048576.0, (double) directory.allocatedBytes() / users,
+                heapMaps / 1048576.0, (double) heapMaps / users);
+
+        for (int i = 0; i < QUERIES; i++) {
+            User user = generated[random.nextInt(users)];
+            emailQueries[i] = user.getEmail();
+            nicknameQueries[i] = user.getNickname();
+            missQueries[i] = "nobody" + random.nextInt() + "@example.com";
+        }
+    }
+
+    @Benchmark
+    public CredentialDirectory.Credential directoryEmailHit() {
+        return directory.lookup(emailQueries[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public CredentialDirectory.Credential directoryNicknameHit() {
+        return directory.lookup(nicknameQueries[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public CredentialDirectory.Credential directoryMiss() {
+        return directory.lookup(missQueries[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public User heapMapEmailHit() {
+        return byEmail.get(emailQueries[next++ & (QUERIES - 1)]);
+    }
+
+    private static User copy(User source) {
+        User user = new User();
+        user.setId(source.getId());
+        user.setEmail(new String(source.getEmail()));
+        user.setNickname(new String(source.getNickname()));
+        user.setPasswordHash(new String(source.getPasswordHash()));
+        user.setPasswordSalt(new String(source.getPasswordSalt()));
+        user.setStatus(source.getStatus());
+        user.setAvatarUrl("");
+        user.setCountry("CN");
+        user.setGender(source.getGender());
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        return user;
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
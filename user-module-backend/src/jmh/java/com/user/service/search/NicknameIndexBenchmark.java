@@ -0,0 +1,106 @@
+package com.user.service.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NicknameIndex 基准：不同用户规模下前缀、子串、单字符与模糊查询的耗时，以及建索引后的堆占用
+ * 堆占用在 setUp 中以两次 GC 后的已用堆之差测得，与 estimatedBytes 的估计值一起打印
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class NicknameIndexBenchmark {
+    private static final String[] SYLLABLES = {
+            "xiao", "long", "feng", "yun", "tian", "shadow", "dragon", "star", "moon", "king",
+            "li", "wang", "zhang", "chen", "ace", "pro", "ninja", "wolf", "cat", "sky"
+    };
+    private static final int QUERIES = 1024;
+
+    /** 索引中的用户数 */
+    @Param({"100000", "1000000"})
+    public int users;
+
+    /** 每次查询返回的条数（第一页） */
+    @Param({"20"})
+    public int limit;
+
+    private NicknameIndex index;
+    private final String[] prefixQueries = new String[QUERIES];
+    private final String[] substringQueries = new String[QUERIES];
+    private final String[] fuzzyQueries = new String[QUERIES];
+    private final String[] singleCharQueries = new String[QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] nicknames = new String[users];
+        Set<String> used = new HashSet<>(users * 2);
+        for (int i = 0; i < users; i++) {
+            String nickname = SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + (random.nextBoolean() ? String.valueOf(random.nextInt(1000)) : "");
+            while (!used.add(nickname)) {
+                nickname = nickname + random.nextInt(10);
+            }
+            nicknames[i] = nickname;
+        }
+        used = null;
+
+        long before = usedHeap();
+        index = new NicknameIndex(20000);
+        for (int i = 0; i < users; i++) {
+            index.put(i + 1, nicknames[i]);
+        }
+        long after = usedHeap();
+        System.out.printf("%n索引 %d 个用户：实测堆占用约 %.1f MB，estimatedBytes %.1f MB%n",
+                users, (after - before) / 1048576.0, index.estimatedBytes() / 1048576.0);
+
+        for (int i = 0; i < QUERIES; i++) {
+            String nickname = nicknames[random.nextInt(users)];
+            prefixQueries[i] = nickname.substring(0, Math.min(3, nickname.length()));
+            int start = random.nextInt(Math.max(nickname.length() - 4, 1));
+            substringQueries[i] = nickname.substring(start, Math.min(start + 4, nickname.length()));
+            char[] chars = nickname.toCharArray();
+            chars[random.nextInt(chars.length)] = 'q';
+            fuzzyQueries[i] = new String(chars);
+            singleCharQueries[i] = nickname.substring(0, 1);
+        }
+    }
+
+    @Benchmark
+    public NicknameIndex.Result prefixQuery() {
+        return index.search(prefixQueries[next++ & (QUERIES - 1)], limit);
+    }
+
+    @Benchmark
+    public NicknameIndex.Result substringQuery() {
+        return index.search(substringQueries[next++ & (QUERIES - 1)], limit);
+    }
+
+    @Benchmark
+    public NicknameIndex.Result fuzzyQuery() {
+        return index.search(fuzzyQueries[next++ & (QUERIES - 1)], limit);
+    }
+
+    @Benchmark
+    public NicknameIndex.Result singleCharQuery() {
+        return index.search(singleCharQueries[next++ & (QUERIES - 1)], limit);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,51 @@
+package com.user.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt 哈希与校验基准
+ * cost 参数化以评估调整强度的代价，passwordHash* 直接走 PasswordHashUtil（固定cost=12）
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BCryptBenchmark {
+    private static final String PASSWORD = "Passw0rd!";
+
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private BCryptPasswordEncoder encoder;
+    private String encoded;
+    private String salt;
+    private String utilHash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(cost);
+        encoded = encoder.encode(PASSWORD);
+        salt = PasswordHashUtil.generateSalt();
+        utilHash = PasswordHashUtil.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String hash() {
+        return encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return encoder.matches(PASSWORD, encoded);
+    }
+
+    @Benchmark
+    public boolean passwordHashUtilVerify() {
+        return PasswordHashUtil.verifyPassword(PASSWORD, utilHash, salt);
+    }
+}
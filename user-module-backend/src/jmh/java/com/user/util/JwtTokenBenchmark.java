@@ -0,0 +1,53 @@
+package com.user.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtTokenUtil 基准：签发、校验（含 sid/ver 比对）、无校验解析userId与会话ID
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenBenchmark {
+
+    /** 昵称长度，影响载荷大小与Base64解码成本 */
+    @Param({"8", "64"})
+    public int nicknameLength;
+
+    private SecretKey signingKey;
+    private String nickname;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        signingKey = JwtTokenUtil.randomSigningKey();
+        nickname = "n".repeat(nicknameLength);
+        token = JwtTokenUtil.generateToken(signingKey, 123456789L, 42L, 3, "player@example.com", nickname, 86400000L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return JwtTokenUtil.generateToken(signingKey, 123456789L, 42L, 3, "player@example.com", nickname, 86400000L);
+    }
+
+    @Benchmark
+    public Long verifyToken() {
+        return JwtTokenUtil.verifyToken(token, signingKey, 42L, 3);
+    }
+
+    @Benchmark
+    public Long extractUserId() {
+        return JwtTokenUtil.extractUserId(token);
+    }
+
+    @Benchmark
+    public Long extractSessionId() {
+        return JwtTokenUtil.extractSessionId(token);
+    }
+}
@@ -0,0 +1,33 @@
+package com.user.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RsaCryptoUtil 解密基准，使用 classpath 中的2048位密钥对
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RsaCryptoBenchmark {
+
+    /** 明文密码长度 */
+    @Param({"8", "32"})
+    public int passwordLength;
+
+    private String encrypted;
+
+    @Setup
+    public void setUp() throws Exception {
+        encrypted = RsaCryptoUtil.encrypt("p".repeat(passwordLength));
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return RsaCryptoUtil.decryptWith(encrypted);
+    }
+}
@@ -0,0 +1,63 @@
+package com.user.vo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.user.vo.response.ApiResult;
+import com.user.vo.response.UserLoginResponse;
+import com.user.vo.response.UserVerifyResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiResult JSON序列化基准，ObjectMapper 配置与 Spring Boot 默认一致
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResultSerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private ApiResult<UserVerifyResponse> verifyResult;
+    private ApiResult<UserLoginResponse> loginResult;
+    private ApiResult<Void> errorResult;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        verifyResult = ApiResult.success(UserVerifyResponse.builder()
+                .userId(123456789L)
+                .email("player@example.com")
+                .nickname("player")
+                .valid(true)
+                .build());
+        loginResult = ApiResult.success(UserLoginResponse.builder()
+                .userId(123456789L)
+                .email("player@example.com")
+                .nickname("player")
+                .avatarUrl("https://cdn.example.com/avatar/123456789.png")
+                .token("eyJhbGciOiJIUzI1NiJ9." + "x".repeat(200) + "." + "y".repeat(43))
+                .build());
+        errorResult = ApiResult.error(401, "密码错误");
+    }
+
+    @Benchmark
+    public byte[] verifyResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(verifyResult);
+    }
+
+    @Benchmark
+    public byte[] loginResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(loginResult);
+    }
+
+    @Benchmark
+    public byte[] errorResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(errorResult);
+    }
+}
@@ -0,0 +1,69 @@
+package com.user.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口的压测统计：延迟直方图（微秒）、成功/失败计数
+ * 延迟从计划发出时间算起，包含排队时间，避免协调遗漏
+ */
+public class EndpointStats {
+    private final String name;
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        recorder.recordValue(toMicros(latencyNanos));
+        successes.increment();
+    }
+
+    public void recordError(long latencyNanos) {
+        recorder.recordValue(toMicros(latencyNanos));
+        errors.increment();
+    }
+
+    /** 在途请求超过上限未发出 */
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public Map<String, Object> summarize(double elapsedSeconds) {
+        Histogram histogram = recorder.getIntervalHistogram();
+        long total = successes.sum() + errors.sum();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", name);
+        summary.put("requests", total);
+        summary.put("throughputPerSec", round(total / elapsedSeconds));
+        summary.put("errors", errors.sum());
+        summary.put("dropped", dropped.sum());
+        summary.put("errorRate", total == 0 ? 0.0 : round((double) errors.sum() / total));
+        summary.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        summary.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(histogram.getMaxValue()));
+        return summary;
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1);
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
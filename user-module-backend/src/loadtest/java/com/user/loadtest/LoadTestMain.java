@@ -0,0 +1,490 @@
+package com.user.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.UserModuleApplication;
+import com.user.entity.User;
+import com.user.rpc.RpcClient;
+import com.user.rpc.RpcServer;
+import com.user.service.UserService;
+import com.user.util.PasswordHashUtil;
+import com.user.util.RsaCryptoUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * 端到端压测入口
+ * 在本地替身上启动完整应用，按开放模型发送 verify/login/register/发送验证码 的混合流量，
+ * 输出每个接口的吞吐、p50/p99/p999延迟与错误率
+ *
+ * 参数（均为 --key=value）：
+ *   rate=200             每秒发出的请求数
+ *   duration=60          压测时长（秒）
+ *   warmup=10            预热时长（秒），预热期间的数据不计入报告
+ *   mix=verify:90,login:8,register:2,code:0   流量配比
+ *                        rpc-verify / rpc-batch 走内部RPC，例如 mix=verify:50,rpc-verify:50 对比REST与RPC
+ *                        search 为昵称搜索（GET /user/search），例如 mix=verify:80,search:20
+ *   rpc-batch-size=32    rpc-batch 每个请求携带的Token数
+ *   users=50             预置的登录用户数
+ *   max-in-flight=5000   在途请求上限，超出时记为dropped
+ *   report=target/loadtest-report.json
+ *   mode=standalone      standalone=外部依赖替换为本地替身；embedded=使用应用的 embedded profile
+ *   shards=1             standalone 模式下大于1时为每个分片创建一个H2库并开启 app.sharding
+ *   fault=smtp-hang      压测期间注入的替身故障：smtp-down / smtp-hang / redis-down（见 LocalStandIns），默认不注入
+ *   fault-at=10          正式压测开始后第几秒注入故障
+ *   fault-duration=20    故障持续秒数，之后恢复替身，观察熔断器半开试探与恢复
+ *   其它以 spring. / app. / server. / management. / logging. 开头的参数原样传给应用
+ */
+public class LoadTestMain {
+    private static final String PASSWORD = "LoadTest#2024";
+    private static final String[] PASSTHROUGH_PREFIXES = {"spring.", "app.", "server.", "management.", "logging."};
+
+    private final Map<String, String> options;
+    private final LocalStandIns standIns;
+    private final ExecutorService workers = Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(workers)
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<String[]> logins = new ArrayList<>();
+    private final List<String> encryptedPasswords = new ArrayList<>();
+    private String baseUrl;
+    private RpcClient rpcClient;
+
+    public LoadTestMain(Map<String, String> options) {
+        this.options = options;
+        this.standIns = new LocalStandIns("embedded".equals(options.get("mode")),
+                Integer.parseInt(options.getOrDefault("shards", "1")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String trimmed = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = trimmed.indexOf('=');
+            if (eq > 0) {
+                options.put(trimmed.substring(0, eq), trimmed.substring(eq + 1));
+            }
+        }
+        new LoadTestMain(options).run();
+    }
+
+    public void run() throws Exception {
+        standIns.start();
+        ConfigurableApplicationContext context = null;
+        try {
+            // 以命令行参数传入，优先级高于 application.yaml
+            String[] args = applicationProperties().entrySet().stream()
+                    .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                    .toArray(String[]::new);
+            context = new SpringApplicationBuilder(UserModuleApplication.class).run(args);
+            Integer port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            baseUrl = "http://127.0.0.1:" + port + contextPath;
+
+            prepare(context.getBean(UserService.class));
+            if (mix(options).contains("rpc-")) {
+                rpcClient = new RpcClient("127.0.0.1", context.getBean(RpcServer.class).getPort());
+            }
+            double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+            long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "10"));
+            long durationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+            int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "5000"));
+            String mix = mix(options);
+
+            System.out.printf("预热 %ds ...%n", warmupSeconds);
+            newDriver(mix, maxInFlight, new LinkedHashMap<>()).run(rate, warmupSeconds * 1_000_000_000L);
+
+            System.out.printf("压测 %ds，到达率 %.0f/s，配比 %s%n", durationSeconds, rate, mix);
+            Map<String, EndpointStats> stats = new LinkedHashMap<>();
+            OpenModelDriver driver = newDriver(mix, maxInFlight, stats);
+            ScheduledExecutorService faults = scheduleFault();
+            long start = System.nanoTime();
+            try {
+                driver.run(rate, durationSeconds * 1_000_000_000L);
+            } finally {
+                if (faults != null) {
+                    faults.shutdownNow();
+                    standIns.clearFault();
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            report(stats, elapsed, rate, mix, resilienceCounters(registry), credentialLookups(registry));
+        } finally {
+            if (rpcClient != null) {
+                rpcClient.close();
+            }
+            if (context != null) {
+                context.close();
+            }
+            workers.shutdownNow();
+            standIns.close();
+        }
+    }
+
+    private ScheduledExecutorService scheduleFault() {
+        String fault = options.get("fault");
+        if (fault == null || fault.isBlank()) {
+            return null;
+        }
+        long faultAt = Long.parseLong(options.getOrDefault("fault-at", "10"));
+        long faultDuration = Long.parseLong(options.getOrDefault("fault-duration", "20"));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fault-injector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.schedule(() -> {
+            System.out.printf("注入故障: %s%n", fault);
+            standIns.injectFault(fault);
+            return null;
+        }, faultAt, TimeUnit.SECONDS);
+        scheduler.schedule(() -> {
+            System.out.printf("解除故障: %s%n", fault);
+            standIns.clearFault();
+            return null;
+        }, faultAt + faultDuration, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    /**
+     * resilience.calls 按 依赖/结果 汇总，例如 smtp.rejected_open
+     */
+    private static Map<String, Long> resilienceCounters(MeterRegistry registry) {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (Counter counter : registry.find("resilience.calls").counters()) {
+            counters.put(counter.getId().getTag("dependency") + "." + counter.getId().getTag("outcome"),
+                    (long) counter.count());
+        }
+        return counters;
+    }
+
+    /**
+     * 登录时按邮箱/昵称查找用户的耗时，按 来源/结果 汇总，例如 directory.hit、database.hit
+     * 开启 --app.credential-directory.enabled=true 时目录未命中的请求同时计入 directory.miss 与 database.*
+     */
+    private static Map<String, Map<String, Object>> credentialLookups(MeterRegistry registry) {
+        Map<String, Map<String, Object>> lookups = new LinkedHashMap<>();
+        for (Timer timer : registry.find("auth.credential.lookup").timers()) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", timer.count());
+            summary.put("meanUs", Math.round(timer.mean(TimeUnit.MICROSECONDS)));
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                summary.put("p" + Math.round(percentile.percentile() * 1000) + "Us",
+                        Math.round(percentile.value(TimeUnit.MICROSECONDS)));
+            }
+            lookups.put(timer.getId().getTag("source") + "." + timer.getId().getTag("outcome"), summary);
+        }
+        return lookups;
+    }
+
+    private Map<String, Object> applicationProperties() throws IOException {
+        Map<String, Object> props = standIns.springProperties();
+        props.put("server.port", 0);
+        // 压测不访问Actuator，关闭管理端口，避免与本机正在运行的实例抢占8081
+        props.put("management.server.port", -1);
+        // 压测客户端只有一个IP，放开发送验证码的IP与全局限流，保留邮箱冷却
+        props.put("app.verification-code.rate-limit.ip-limit", Integer.MAX_VALUE);
+        props.put("app.verification-code.rate-limit.global-limit", Integer.MAX_VALUE);
+        props.put("logging.level.com.user", "WARN");
+        // 压测自带预热阶段，且不等待readiness
+        props.put("app.warm-up.enabled", false);
+        // 缩短昵称索引与凭据目录的增量扫描间隔，启动时尚未加载完成的部分在预热阶段内补齐
+        props.put("app.search.catch-up-interval", "1s");
+        props.put("app.credential-directory.catch-up-interval", "1s");
+        if (mix(options).contains("rpc-")) {
+            props.put("app.rpc.enabled", true);
+            props.put("app.rpc.port", 0);
+        }
+        options.forEach((key, value) -> {
+            for (String prefix : PASSTHROUGH_PREFIXES) {
+                if (key.startsWith(prefix)) {
+                    props.put(key, value);
+                }
+            }
+        });
+        return props;
+    }
+
+    /**
+     * 预置用户并登录取得Token，预先生成RSA加密的密码载荷
+     */
+    private void prepare(UserService userService) throws Exception {
+        int users = Integer.parseInt(options.getOrDefault("users", "50"));
+        System.out.printf("预置 %d 个用户 ...%n", users);
+        List<User> seeded = IntStream.range(0, users).parallel().mapToObj(i -> {
+            String salt = PasswordHashUtil.generateSalt();
+            User user = new User();
+            user.setEmail("seed" + i + "@loadtest.local");
+            user.setNickname("seed" + i);
+            user.setPasswordHash(PasswordHashUtil.hashPassword(PASSWORD, salt));
+            user.setPasswordSalt(salt);
+            user.setAvatarUrl("");
+            user.setCountry("");
+            user.setGender((byte) 0);
+            user.setStatus((byte) 1);
+            return user;
+        }).toList();
+        // 经 UserService 写入：ID由应用分配，开启分片时写入各自的分片并登记到查找表
+        for (User user : seeded) {
+            userService.save(user);
+        }
+
+        for (int i = 0; i < 64; i++) {
+            encryptedPasswords.add(RsaCryptoUtil.encrypt(PASSWORD));
+        }
+        for (User user : seeded) {
+            String email = user.getEmail();
+            String encrypted = randomEncryptedPassword();
+            logins.add(new String[]{email, encrypted});
+            HttpResponse<String> response = httpClient.send(loginRequest(email, encrypted),
+                    HttpResponse.BodyHandlers.ofString());
+            String token = jsonField(response.body(), "token");
+            if (token == null) {
+                throw new IllegalStateException("预置用户登录失败: " + response.body());
+            }
+            tokens.add(token);
+        }
+    }
+
+    private OpenModelDriver newDriver(String mix, int maxInFlight, Map<String, EndpointStats> stats) {
+        OpenModelDriver driver = new OpenModelDriver(maxInFlight);
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            String name = kv[0].trim();
+            int weight = Integer.parseInt(kv[1].trim());
+            EndpointStats endpoint = stats.computeIfAbsent(name, EndpointStats::new);
+            switch (name) {
+                case "verify" -> driver.add(weight, endpoint, intended -> verify(intended, endpoint));
+                case "login" -> driver.add(weight, endpoint, intended -> login(intended, endpoint));
+                case "register" -> driver.add(weight, endpoint, intended -> register(intended,
+                        stats.computeIfAbsent("code", EndpointStats::new), endpoint));
+                case "code" -> driver.add(weight, endpoint, intended -> sendCode(intended, newEmail(), endpoint));
+                case "rpc-verify" -> driver.add(weight, endpoint, intended -> rpcVerify(intended, endpoint));
+                case "rpc-batch" -> driver.add(weight, endpoint, intended -> rpcBatchVerify(intended, endpoint));
+                case "search" -> driver.add(weight, endpoint, intended -> search(intended, endpoint));
+                default -> throw new IllegalArgumentException("未知的操作: " + name);
+            }
+        }
+        return driver;
+    }
+
+    private CompletableFuture<Boolean> verify(long intended, EndpointStats stats) {
+        String token = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/verify"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return send(request, intended, stats);
+    }
+
+    /**
+     * 昵称搜索：预置用户昵称为 seed0..seedN，随机取其中一个的前缀
+     */
+    private CompletableFuture<Boolean> search(long intended, EndpointStats stats) {
+        String nickname = "seed" + ThreadLocalRandom.current().nextInt(tokens.size());
+        String query = nickname.substring(0, 4 + ThreadLocalRandom.current().nextInt(nickname.length() - 3));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/user/search?q="
+                        + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+        return send(request, intended, stats);
+    }
+
+    private CompletableFuture<Boolean> rpcVerify(long intended, EndpointStats stats) {
+        String token = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+        return record(rpcClient.verify(token).thenApply(response -> Boolean.TRUE.equals(response.getValid())),
+                intended, stats);
+    }
+
+    /**
+     * 一次请求批量校验多个Token，延迟按整个批次计
+     */
+    private CompletableFuture<Boolean> rpcBatchVerify(long intended, EndpointStats stats) {
+        int batchSize = Integer.parseInt(options.getOrDefault("rpc-batch-size", "32"));
+        List<String> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(tokens.get(ThreadLocalRandom.current().nextInt(tokens.size())));
+        }
+        return record(rpcClient.batchVerify(batch).thenApply(responses -> responses.stream()
+                .allMatch(response -> Boolean.TRUE.equals(response.getValid()))), intended, stats);
+    }
+
+    private CompletableFuture<Boolean> login(long intended, EndpointStats stats) {
+        String[] login = logins.get(ThreadLocalRandom.current().nextInt(logins.size()));
+        return send(loginRequest(login[0], login[1]), intended, stats);
+    }
+
+    /**
+     * 注册流程：发送验证码 -> 从本地收件箱取码 -> 注册，两段分别计入 code 与 register
+     */
+    private CompletableFuture<Boolean> register(long intended, EndpointStats codeStats, EndpointStats registerStats) {
+        String email = newEmail();
+        return sendCode(intended, email, codeStats).thenCompose(sent -> {
+            if (!sent) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return standIns.awaitCode(email, 5000);
+                } catch (Exception e) {
+                    return null;
+                }
+            }, workers).thenCompose(code -> {
+                long start = System.nanoTime();
+                if (code == null) {
+                    registerStats.recordError(0);
+                    return CompletableFuture.completedFuture(false);
+                }
+                String body = "{\"email\":\"" + email + "\",\"nickname\":\"" + email.substring(0, email.indexOf('@'))
+                        + "\",\"encryptedPassword\":\"" + randomEncryptedPassword()
+                        + "\",\"verificationCode\":\"" + code + "\"}";
+                return send(jsonPost("/register", body), start, registerStats);
+            });
+        });
+    }
+
+    private CompletableFuture<Boolean> sendCode(long intended, String email, EndpointStats stats) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/email/send-verification-code"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("email=" + URLEncoder.encode(email, StandardCharsets.UTF_8)))
+                .build();
+        return send(request, intended, stats);
+    }
+
+    private CompletableFuture<Boolean> send(HttpRequest request, long intended, EndpointStats stats) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    long latency = System.nanoTime() - intended;
+                    // ApiResult 序列化时 code 为第一个字段
+                    boolean ok = error == null && response.statusCode() == 200
+                            && response.body().startsWith("{\"code\":200");
+                    if (ok) {
+                        stats.recordSuccess(latency);
+                    } else {
+                        stats.recordError(latency);
+                    }
+                    return ok;
+                });
+    }
+
+    private static CompletableFuture<Boolean> record(CompletableFuture<Boolean> call, long intended, EndpointStats stats) {
+        return call.handle((valid, error) -> {
+            long latency = System.nanoTime() - intended;
+            boolean ok = error == null && valid;
+            if (ok) {
+                stats.recordSuccess(latency);
+            } else {
+                stats.recordError(latency);
+            }
+            return ok;
+        });
+    }
+
+    private HttpRequest loginRequest(String username, String encryptedPassword) {
+        return jsonPost("/login", "{\"username\":\"" + username + "\",\"encryptedPassword\":\"" + encryptedPassword + "\"}");
+    }
+
+    private HttpRequest jsonPost(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String mix(Map<String, String> options) {
+        return options.getOrDefault("mix", "verify:90,login:8,register:2,code:0");
+    }
+
+    private String newEmail() {
+        return "lt" + sequence.incrementAndGet() + "@loadtest.local";
+    }
+
+    private String randomEncryptedPassword() {
+        return encryptedPasswords.get(ThreadLocalRandom.current().nextInt(encryptedPasswords.size()));
+    }
+
+    private static String jsonField(String json, String field) {
+        String marker = "\"" + field + "\":\"";
+        int start = json.indexOf(marker);
+        if (start < 0) {
+            return null;
+        }
+        start += marker.length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    private void report(Map<String, EndpointStats> stats, double elapsed, double rate, String mix,
+                        Map<String, Long> resilience,
+                        Map<String, Map<String, Object>> credentialLookups) throws Exception {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        System.out.println();
+        System.out.printf("%-10s %10s %10s %8s %8s %10s %10s %10s%n",
+                "endpoint", "requests", "rps", "errors", "dropped", "p50(ms)", "p99(ms)", "p999(ms)");
+        for (EndpointStats endpoint : stats.values()) {
+            Map<String, Object> summary = endpoint.summarize(elapsed);
+            endpoints.add(summary);
+            System.out.printf("%-10s %10s %10s %8s %8s %10s %10s %10s%n",
+                    summary.get("endpoint"), summary.get("requests"), summary.get("throughputPerSec"),
+                    summary.get("errors"), summary.get("dropped"),
+                    summary.get("p50Ms"), summary.get("p99Ms"), summary.get("p999Ms"));
+        }
+
+        if (!resilience.isEmpty()) {
+            System.out.println();
+            resilience.forEach((key, count) -> System.out.printf("resilience.calls %-24s %10d%n", key, count));
+        }
+
+        if (!credentialLookups.isEmpty()) {
+            System.out.println();
+            credentialLookups.forEach((key, summary) ->
+                    System.out.printf("auth.credential.lookup %-16s %s%n", key, summary));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rate", rate);
+        result.put("mix", mix);
+        result.put("elapsedSeconds", elapsed);
+        result.put("options", options);
+        result.put("endpoints", endpoints);
+        result.put("resilience", resilience);
+        result.put("credentialLookup", credentialLookups);
+        File file = new File(options.getOrDefault("report", "target/loadtest-report.json"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, result);
+        System.out.println("报告已写入: " + file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,254 @@
+package com.user.loadtest;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.mail.internet.MimeMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 压测用的本地替身：H2(MySQL模式)数据库、进程内Redis(jedis-mock)、本地SMTP收件箱(GreenMail)
+ * embedded 模式下数据库与验证码存储由应用自身的 embedded profile 提供，只启动SMTP收件箱
+ * injectFault/clearFault 在压测过程中让替身故障，用于观察舱壁与熔断器：
+ *   smtp-down   停止SMTP，连接被拒绝
+ *   smtp-hang   停止SMTP，在同一端口上只接受连接不应答，投递卡到超时
+ *   redis-down  停止Redis，恢复时在同一端口重新启动（数据不保留）
+ * shards 大于1时为每个分片创建一个H2库（user_db_0、user_db_1...）并开启 app.sharding，查找表使用0号分片
+ */
+public class LocalStandIns implements AutoCloseable {
+    private static final String JDBC_OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+    private static final Pattern CODE_PATTERN = Pattern.compile("(\\d{6})");
+
+    private final boolean embedded;
+    private final List<String> jdbcUrls = new ArrayList<>();
+    private RedisServer redisServer;
+    private GreenMail greenMail;
+    private int smtpPort;
+    private int redisPort;
+    private ServerSocket blackHole;
+    private String fault;
+
+    public LocalStandIns(boolean embedded, int shards) {
+        if (embedded && shards > 1) {
+            throw new IllegalArgumentException("embedded 模式不支持分片");
+        }
+        this.embedded = embedded;
+        if (shards > 1) {
+            for (int i = 0; i < shards; i++) {
+                jdbcUrls.add("jdbc:h2:mem:user_db_" + i + JDBC_OPTIONS);
+            }
+        } else {
+            jdbcUrls.add("jdbc:h2:mem:user_db" + JDBC_OPTIONS);
+        }
+    }
+
+    public void start() throws Exception {
+        smtpPort = freePort();
+        startSmtp();
+        if (!embedded) {
+            redisServer = RedisServer.newRedisServer().start();
+            redisPort = redisServer.getBindPort();
+            for (String url : jdbcUrls) {
+                createSchema(url);
+            }
+        }
+    }
+
+    public synchronized void injectFault(String kind) throws Exception {
+        clearFault();
+        switch (kind) {
+            case "smtp-down" -> greenMail.stop();
+            case "smtp-hang" -> {
+                greenMail.stop();
+                startBlackHole();
+            }
+            case "redis-down" -> {
+                if (redisServer == null) {
+                    throw new IllegalArgumentException("embedded 模式没有Redis替身");
+                }
+                redisServer.stop();
+            }
+            default -> throw new IllegalArgumentException("未知的故障类型: " + kind);
+        }
+        fault = kind;
+    }
+
+    public synchronized void clearFault() throws Exception {
+        if (fault == null) {
+            return;
+        }
+        switch (fault) {
+            case "smtp-down" -> startSmtp();
+            case "smtp-hang" -> {
+                blackHole.close();
+                startSmtp();
+            }
+            case "redis-down" -> redisServer = RedisServer.newRedisServer(redisPort).start();
+            default -> {
+            }
+        }
+        fault = null;
+    }
+
+    /**
+     * 指向替身的Spring配置，覆盖 application.yaml 中的MySQL/Redis/QQ SMTP
+     */
+    public Map<String, Object> springProperties() throws IOException {
+        Map<String, Object> props = new HashMap<>();
+        if (embedded) {
+            props.put("spring.profiles.active", "embedded");
+            props.put("app.embedded.data-dir", Files.createTempDirectory("user-loadtest").toString());
+            // 压测需要从收件箱读取验证码，改用真实SMTP投递到GreenMail
+            props.put("app.mail.log-only", "false");
+        } else {
+            props.put("spring.datasource.url", jdbcUrls.get(0));
+            props.put("spring.datasource.username", "sa");
+            props.put("spring.datasource.password", "");
+            props.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            if (jdbcUrls.size() > 1) {
+                props.put("app.sharding.enabled", true);
+                props.put("app.sharding.urls", String.join(",", jdbcUrls));
+                props.put("app.id.node-id", 0);
+            }
+            props.put("jwt.secret", "loadtest-" + UUID.randomUUID() + UUID.randomUUID());
+            props.put("spring.data.redis.host", "127.0.0.1");
+            props.put("spring.data.redis.port", redisServer.getBindPort());
+        }
+        props.put("spring.mail.host", "127.0.0.1");
+        props.put("spring.mail.port", smtpPort);
+        props.put("spring.mail.protocol", "smtp");
+        props.put("spring.mail.username", "");
+        props.put("spring.mail.password", "");
+        props.put("spring.mail.properties.mail.smtp.auth", "false");
+        props.put("spring.mail.properties.mail.smtp.ssl.enable", "false");
+        props.put("spring.mail.properties.mail.smtp.ssl.required", "false");
+        props.put("spring.mail.properties.mail.smtp.socketFactory.class", "javax.net.SocketFactory");
+        props.put("spring.mail.properties.mail.smtp.socketFactory.port", smtpPort);
+        props.put("spring.mail.properties.mail.smtp.socketFactory.fallback", "true");
+        // smtp-hang 故障下投递在超时后失败并计入熔断
+        props.put("spring.mail.properties.mail.smtp.connectiontimeout", "1000");
+        props.put("spring.mail.properties.mail.smtp.timeout", "1000");
+        props.put("app.mail.verify-switch-off", "false");
+        return props;
+    }
+
+    /**
+     * 轮询本地收件箱，取出发往该邮箱的最新验证码
+     */
+    public String awaitCode(String email, long timeoutMillis) throws Exception {
+        String domain = email.substring(email.indexOf('@') + 1);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            for (MimeMessage message : greenMail.getReceivedMessagesForDomain(domain)) {
+                if (email.equalsIgnoreCase(message.getAllRecipients()[0].toString())) {
+                    Matcher matcher = CODE_PATTERN.matcher(GreenMailUtil.getBody(message));
+                    if (matcher.find()) {
+                        return matcher.group(1);
+                    }
+                }
+            }
+            Thread.sleep(5);
+        }
+        return null;
+    }
+
+    /**
+     * 用 init.sql 建表：去掉 CREATE DATABASE/USE 以及H2不认识的表选项
+     */
+    private void createSchema(String jdbcUrl) throws Exception {
+        String sql;
+        try (InputStream is = LocalStandIns.class.getResourceAsStream("/init.sql")) {
+            if (is == null) {
+                throw new IllegalStateException("init.sql not found on classpath");
+            }
+            sql = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        StringBuilder cleaned = new StringBuilder();
+        for (String line : sql.split("\n")) {
+            String trimmed = line.trim().toUpperCase();
+            if (trimmed.startsWith("--") || trimmed.startsWith("CREATE DATABASE") || trimmed.startsWith("USE ")) {
+                continue;
+            }
+            cleaned.append(line).append('\n');
+        }
+        String ddl = cleaned.toString()
+                .replaceAll("\\)\\s*ENGINE=[^;]*;", ");")
+                .replace(" UNSIGNED", "");
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String part : ddl.split(";")) {
+                if (!part.isBlank()) {
+                    statement.execute(part);
+                }
+            }
+        }
+    }
+
+    private void startSmtp() {
+        greenMail = new GreenMail(new ServerSetup(smtpPort, "127.0.0.1", ServerSetup.PROTOCOL_SMTP));
+        greenMail.start();
+    }
+
+    /**
+     * 只接受连接、从不发送SMTP问候语，连接一直挂着直到故障解除
+     */
+    private void startBlackHole() throws IOException {
+        ServerSocket socket = new ServerSocket(smtpPort);
+        blackHole = socket;
+        Thread acceptor = new Thread(() -> {
+            List<Socket> accepted = new ArrayList<>();
+            try {
+                while (!socket.isClosed()) {
+                    accepted.add(socket.accept());
+                }
+            } catch (IOException ignored) {
+                // 故障解除时关闭监听
+            }
+            for (Socket client : accepted) {
+                try {
+                    client.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }, "smtp-black-hole");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (blackHole != null) {
+            blackHole.close();
+        }
+        if (greenMail != null) {
+            greenMail.stop();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+}
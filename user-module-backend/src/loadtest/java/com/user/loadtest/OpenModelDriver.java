@@ -0,0 +1,85 @@
+package com.user.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * 开放模型、恒定到达率的请求驱动
+ * 按固定间隔发出请求，不等待前一个请求完成；按权重随机选取操作
+ */
+public class OpenModelDriver {
+    private final List<WeightedOperation> operations = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxInFlight;
+    private int totalWeight;
+
+    public OpenModelDriver(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * 注册操作：入参为计划发出时间（nanoTime），返回完成信号
+     */
+    public void add(int weight, EndpointStats stats, LongFunction<CompletableFuture<?>> operation) {
+        if (weight <= 0) {
+            return;
+        }
+        totalWeight += weight;
+        operations.add(new WeightedOperation(totalWeight, stats, operation));
+    }
+
+    public void run(double ratePerSecond, long durationNanos) {
+        long interval = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            WeightedOperation op = pick();
+            if (inFlight.get() >= maxInFlight) {
+                op.stats.recordDropped();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            op.operation.apply(intended).whenComplete((r, e) -> inFlight.decrementAndGet());
+        }
+        // 等待在途请求结束
+        while (inFlight.get() > 0) {
+            LockSupport.parkNanos(1_000_000L);
+        }
+    }
+
+    private WeightedOperation pick() {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (WeightedOperation op : operations) {
+            if (r < op.cumulativeWeight) {
+                return op;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static final class WeightedOperation {
+        private final int cumulativeWeight;
+        private final EndpointStats stats;
+        private final LongFunction<CompletableFuture<?>> operation;
+
+        private WeightedOperation(int cumulativeWeight, EndpointStats stats,
+                                  LongFunction<CompletableFuture<?>> operation) {
+            this.cumulativeWeight = cumulativeWeight;
+            this.stats = stats;
+            this.operation = operation;
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.user;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.user.mapper")
+@EnableScheduling
 public class UserModuleApplication {
     public static void main(String[] args) {
         SpringApplication.run(UserModuleApplication.class, args);
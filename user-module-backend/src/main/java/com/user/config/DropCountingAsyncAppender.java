@@ -0,0 +1,34 @@
+package com.user.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计丢弃条数的 AsyncAppender
+ * 配合 neverBlock=true 使用：队列满时直接丢弃而不阻塞请求线程，剩余容量低于 discardingThreshold 时丢弃INFO及以下日志。
+ * 丢弃判断与父类一致但在入队前进行，并发下计数是近似值
+ */
+public class DropCountingAsyncAppender extends AsyncAppender {
+    private static final LongAdder DROPPED_INFO = new LongAdder();
+    private static final LongAdder DROPPED_WARN = new LongAdder();
+
+    /**
+     * 因队列满被丢弃的日志条数；level=info 包含INFO及以下，level=warn 包含WARN与ERROR
+     */
+    public static long dropped(boolean warnOrAbove) {
+        return warnOrAbove ? DROPPED_WARN.sum() : DROPPED_INFO.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        boolean warnOrAbove = event.getLevel().levelInt >= Level.WARN_INT;
+        if (remaining == 0 || (remaining < getDiscardingThreshold() && isDiscardable(event))) {
+            (warnOrAbove ? DROPPED_WARN : DROPPED_INFO).increment();
+        }
+        super.append(event);
+    }
+}
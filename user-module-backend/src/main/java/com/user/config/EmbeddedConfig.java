@@ -0,0 +1,20 @@
+package com.user.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * 无外部依赖运行所需的替代组件
+ * app.mail.log-only=true 时用日志代替SMTP投递（embedded profile 默认开启）
+ */
+@Configuration
+public class EmbeddedConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.mail.log-only", havingValue = "true")
+    public JavaMailSender logOnlyMailSender() {
+        return new LogOnlyMailSender();
+    }
+}
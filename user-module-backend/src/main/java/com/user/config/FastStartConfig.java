@@ -0,0 +1,18 @@
+package com.user.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * fast-start profile 开启 spring.main.lazy-initialization 后，本模块自身的Bean仍在启动时创建，
+ * 它们依赖的数据源、MyBatis与Redis客户端随之初始化；只有未被认证链路引用的框架Bean延迟到首次使用
+ */
+@Configuration(proxyBeanMethods = false)
+public class FastStartConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter authCriticalBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && beanType.getName().startsWith("com.user.");
+    }
+}
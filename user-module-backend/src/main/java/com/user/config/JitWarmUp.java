@@ -0,0 +1,226 @@
+package com.user.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.mapper.UserMapper;
+import com.user.mapper.UserTokenMapper;
+import com.user.sharding.ShardRouter;
+import com.user.util.AuthMetrics;
+import com.user.util.JwtTokenUtil;
+import com.user.util.PasswordHashUtil;
+import com.user.util.RsaCryptoUtil;
+import com.user.vo.request.UserLoginRequest;
+import com.user.vo.response.ApiResult;
+import com.user.vo.response.UserLoginResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 就绪前的JIT预热
+ * 应用就绪后在后台线程上反复执行认证链路的合成负载（RSA解密、JWT签发/校验、ApiResult序列化、请求反序列化、
+ * Mapper查询），直到每轮耗时趋于稳定或达到时长上限；完成前本指标为 OUT_OF_SERVICE，readiness 探针拒绝流量。
+ * RSA使用临时生成的密钥对，Mapper只查询不存在的ID与邮箱，不读写任何真实用户；预热期间的调用不计入 auth.* 指标
+ */
+@Component("warmUp")
+@Slf4j
+public class JitWarmUp implements HealthIndicator {
+    private static final int ITERATIONS_PER_ROUND = 200;
+    private static final int MAPPER_EVERY = 20;
+    private static final int WINDOW = 3;
+
+    private final UserMapper userMapper;
+    private final UserTokenMapper userTokenMapper;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration maxDuration;
+    private final int minRounds;
+    private final double tolerance;
+
+    private volatile Health health = Health.outOfService().withDetail("warmUp", "pending").build();
+    private volatile double firstRoundMicros;
+    private volatile double lastRoundMicros;
+    private volatile long durationMillis;
+    private long blackhole;
+
+    public JitWarmUp(UserMapper userMapper,
+                     UserTokenMapper userTokenMapper,
+                     ShardRouter shardRouter,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.warm-up.enabled:true}") boolean enabled,
+                     @Value("${app.warm-up.max-duration:30s}") Duration maxDuration,
+                     @Value("${app.warm-up.min-rounds:10}") int minRounds,
+                     @Value("${app.warm-up.tolerance:0.05}") double tolerance) {
+        this.userMapper = userMapper;
+        this.userTokenMapper = userTokenMapper;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxDuration = maxDuration;
+        this.minRounds = minRounds;
+        this.tolerance = tolerance;
+        if (!enabled) {
+            health = Health.up().withDetail("warmUp", "disabled").build();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                AuthMetrics.unrecorded(() -> {
+                    warmUp();
+                    return null;
+                });
+            } catch (Exception e) {
+                // 预热失败不应阻止节点接收流量，只是失去预热效果
+                log.warn("JIT warm-up failed, marking node ready without warm-up", e);
+                health = Health.up().withDetail("warmUp", "failed").build();
+            }
+        }, "jit-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    private void warmUp() throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        String[] encryptedPasswords = new String[8];
+        for (int i = 0; i < encryptedPasswords.length; i++) {
+            encryptedPasswords[i] = RsaCryptoUtil.encrypt("WarmUp#" + i, keyPair.getPublic());
+        }
+        SecretKey signingKey = JwtTokenUtil.randomSigningKey();
+        byte[] loginJson = objectMapper.writeValueAsBytes(
+                new UserLoginRequest("warmup@warmup.invalid", encryptedPasswords[0]));
+
+        // BCrypt单次耗时已是百毫秒级，内部循环在首次调用时即被OSR编译，少量调用即可
+        String salt = PasswordHashUtil.generateSalt();
+        String hash = PasswordHashUtil.hashPassword("WarmUp#0", salt);
+        PasswordHashUtil.verifyPassword("WarmUp#0", hash, salt);
+
+        List<Double> rounds = new ArrayList<>();
+        while (true) {
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < ITERATIONS_PER_ROUND; i++) {
+                iteration(i, keyPair, encryptedPasswords, signingKey, loginJson);
+            }
+            double micros = (System.nanoTime() - roundStart) / 1000.0 / ITERATIONS_PER_ROUND;
+            rounds.add(micros);
+            if (isSteady(rounds) || System.nanoTime() > deadline) {
+                break;
+            }
+        }
+
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        firstRoundMicros = rounds.get(0);
+        lastRoundMicros = rounds.get(rounds.size() - 1);
+        boolean steady = isSteady(rounds);
+        registerMetrics();
+        health = Health.up()
+                .withDetail("rounds", rounds.size())
+                .withDetail("steady", steady)
+                .withDetail("durationMillis", durationMillis)
+                .build();
+        log.info("JIT warm-up completed in {} ms after {} rounds (steady={}): {} us/iteration -> {} us/iteration",
+                durationMillis, rounds.size(), steady,
+                String.format("%.1f", firstRoundMicros), String.format("%.1f", lastRoundMicros));
+    }
+
+    private void iteration(int i, KeyPair keyPair, String[] encryptedPasswords,
+                           SecretKey signingKey, byte[] loginJson) throws Exception {
+        String plain = RsaCryptoUtil.decrypt(encryptedPasswords[i % encryptedPasswords.length], keyPair.getPrivate());
+        long userId = -1L - i;
+        String token = JwtTokenUtil.generateToken(signingKey, userId, userId, 0, "warmup@warmup.invalid", "warmup",
+                60_000L);
+        Long verified = JwtTokenUtil.verifyToken(token, signingKey, userId, 0);
+        Long extracted = JwtTokenUtil.extractUserId(token);
+        Long sessionId = JwtTokenUtil.extractSessionId(token);
+        byte[] verifyJson = objectMapper.writeValueAsBytes(ApiResult.success(UserVerifyResponse.builder()
+                .userId(userId)
+                .email("warmup@warmup.invalid")
+                .nickname("warmup")
+                .valid(true)
+                .build()));
+        byte[] loginResponseJson = objectMapper.writeValueAsBytes(ApiResult.success(UserLoginResponse.builder()
+                .userId(userId)
+                .email("warmup@warmup.invalid")
+                .nickname("warmup")
+                .token(token)
+                .build()));
+        UserLoginRequest request = objectMapper.readValue(loginJson, UserLoginRequest.class);
+        blackhole += plain.length() + verifyJson.length + loginResponseJson.length + request.getUsername().length()
+                + (verified != null ? verified : 0) + (extracted != null ? extracted : 0)
+                + (sessionId != null ? sessionId : 0);
+
+        if (i % MAPPER_EVERY == 0) {
+            // 负数ID与 .invalid 域名的邮箱不会命中任何真实用户
+            blackhole += userMapper.findById(userId) != null ? 1 : 0;
+            blackhole += shardRouter.on(0, () -> userMapper.findByEmail("warmup@warmup.invalid")) != null ? 1 : 0;
+            blackhole += userTokenMapper.findSessionWithUser(userId, userId) != null ? 1 : 0;
+        }
+    }
+
+    /**
+     * 最近两个窗口的平均每次迭代耗时相差不超过 tolerance 时视为稳定
+     */
+    private boolean isSteady(List<Double> rounds) {
+        int n = rounds.size();
+        if (n < Math.max(minRounds, WINDOW * 2)) {
+            return false;
+        }
+        double recent = 0;
+        double previous = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            recent += rounds.get(n - 1 - i);
+            previous += rounds.get(n - 1 - WINDOW - i);
+        }
+        return Math.abs(recent - previous) / previous <= tolerance;
+    }
+
+    private void registerMetrics() {
+        TimeGauge.builder("auth.warmup.duration", this, TimeUnit.MILLISECONDS, warmUp -> warmUp.durationMillis)
+                .description("JIT预热耗时")
+                .register(meterRegistry);
+        Gauge.builder("auth.warmup.iteration.latency", this, warmUp -> warmUp.firstRoundMicros)
+                .tag("phase", "before")
+                .baseUnit("microseconds")
+                .description("预热首轮每次合成迭代的平均耗时")
+                .register(meterRegistry);
+        Gauge.builder("auth.warmup.iteration.latency", this, warmUp -> warmUp.lastRoundMicros)
+                .tag("phase", "after")
+                .baseUnit("microseconds")
+                .description("预热末轮每次合成迭代的平均耗时")
+                .register(meterRegistry);
+    }
+}
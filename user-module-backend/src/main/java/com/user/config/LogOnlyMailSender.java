@@ -0,0 +1,33 @@
+package com.user.config;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 只写日志的邮件发送器，用于 embedded profile 等没有SMTP服务的环境
+ * 保留 JavaMailSenderImpl 的消息构建流程，只替换最终的投递
+ */
+@Slf4j
+public class LogOnlyMailSender extends JavaMailSenderImpl {
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        for (MimeMessage message : mimeMessages) {
+            try {
+                Address[] recipients = message.getAllRecipients();
+                log.info("[log-only mail] to={}, subject={}, text={}",
+                        recipients != null ? Arrays.toString(recipients) : "[]",
+                        message.getSubject(), message.getContent());
+            } catch (MessagingException | IOException e) {
+                throw new MailSendException("读取邮件内容失败", e);
+            }
+        }
+    }
+}
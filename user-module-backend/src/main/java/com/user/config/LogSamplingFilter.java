@@ -0,0 +1,89 @@
+package com.user.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按日志类别采样的 TurboFilter（配置见 logback-spring.xml）
+ * 每条规则形如 {@code com.user.service.UserLoginService=10}，表示该类别（按前缀匹配，取最长）的INFO及以下日志每10条保留1条；
+ * WARN与ERROR不采样。TurboFilter在格式化消息与创建日志事件之前执行，被丢弃的调用只付出一次计数的开销
+ */
+public class LogSamplingFilter extends TurboFilter {
+    private static final Rule NO_RULE = new Rule("", 1);
+    private static final LongAdder SAMPLED_OUT = new LongAdder();
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, Rule> rulesByLogger = new ConcurrentHashMap<>();
+
+    /**
+     * 被采样丢弃的日志条数，由 MetricsConfig 导出
+     */
+    public static long sampledOut() {
+        return SAMPLED_OUT.sum();
+    }
+
+    /**
+     * logback配置中每个 {@code <sample>} 元素调用一次
+     */
+    public void addSample(String sample) {
+        int separator = sample.lastIndexOf('=');
+        if (separator <= 0) {
+            addError("日志采样规则格式应为 category=N: " + sample);
+            return;
+        }
+        int keepOneIn = Integer.parseInt(sample.substring(separator + 1).trim());
+        if (keepOneIn > 1) {
+            rules.add(new Rule(sample.substring(0, separator).trim(), keepOneIn));
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.levelInt >= Level.WARN_INT || rules.isEmpty()) {
+            return FilterReply.NEUTRAL;
+        }
+        // 级别未开启的调用交给logback常规判断，不计入采样
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Rule rule = rulesByLogger.computeIfAbsent(logger.getName(), this::match);
+        if (rule == NO_RULE || rule.counter.getAndIncrement() % rule.keepOneIn == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        SAMPLED_OUT.increment();
+        return FilterReply.DENY;
+    }
+
+    private Rule match(String loggerName) {
+        Rule best = NO_RULE;
+        for (Rule rule : rules) {
+            boolean matches = loggerName.equals(rule.category)
+                    || (loggerName.startsWith(rule.category) && loggerName.charAt(rule.category.length()) == '.');
+            if (matches && rule.category.length() > best.category.length()) {
+                best = rule;
+            }
+        }
+        return best;
+    }
+
+    private static final class Rule {
+        private final String category;
+        private final int keepOneIn;
+        private final AtomicLong counter = new AtomicLong();
+
+        private Rule(String category, int keepOneIn) {
+            this.category = category;
+            this.keepOneIn = keepOneIn;
+        }
+    }
+}
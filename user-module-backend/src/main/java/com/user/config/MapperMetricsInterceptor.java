@@ -0,0 +1,55 @@
+package com.user.config;
+
+import com.user.diagnostics.AuthStageEvent;
+import com.user.util.AuthMetrics;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+/**
+ * MyBatis插件：为每条Mapper语句计时
+ * 指标名 auth.db.statement，statement 标签取 "Mapper.方法"，例如 UserMapper.findByEmail
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        AuthStageEvent event = AuthMetrics.startEvent();
+        long start = System.nanoTime();
+        String outcome = AuthMetrics.ERROR;
+        try {
+            Object result = invocation.proceed();
+            outcome = AuthMetrics.SUCCESS;
+            return result;
+        } finally {
+            AuthMetrics.record("auth.db.statement", outcome, System.nanoTime() - start, event,
+                    "statement", shortName(statement.getId()));
+        }
+    }
+
+    private static String shortName(String statementId) {
+        // com.user.mapper.UserMapper.findByEmail -> UserMapper.findByEmail
+        int method = statementId.lastIndexOf('.');
+        int type = method > 0 ? statementId.lastIndexOf('.', method - 1) : -1;
+        return statementId.substring(type + 1);
+    }
+}
@@ -0,0 +1,43 @@
+package com.user.config;
+
+import com.user.resilience.DependencyGuard;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * MyBatis插件：UserMapper/UserTokenMapper/OutboxMapper 的每条语句经过 mysqlGuard
+ * 熔断断开或舱壁已满时不再等待连接池，直接抛出 DependencyUnavailableException(503)；
+ * 该异常会被MyBatis包装为 MyBatisSystemException，由 GlobalExceptionHandler 解包
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class MapperResilienceInterceptor implements Interceptor {
+    private final DependencyGuard mysqlGuard;
+
+    public MapperResilienceInterceptor(@Qualifier("mysqlGuard") DependencyGuard mysqlGuard) {
+        this.mysqlGuard = mysqlGuard;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        return mysqlGuard.<Object, Exception>call(invocation::proceed);
+    }
+}
@@ -0,0 +1,44 @@
+package com.user.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标配置
+ * Hikari连接池与Lettuce命令延迟由Spring Boot自动注册；
+ * Lettuce连接池基于commons-pool2，通过JMX读取其活跃/空闲/等待数
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public CommonsObjectPool2Metrics commonsObjectPool2Metrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+
+    /**
+     * 日志管道：异步队列满时丢弃的条数与按类别采样丢弃的条数（logback在Spring之前初始化，计数保存在静态字段中）
+     */
+    @Bean
+    public MeterBinder loggingPipelineMetrics() {
+        return registry -> {
+            FunctionCounter.builder("logging.events.dropped", DropCountingAsyncAppender.class,
+                            appender -> DropCountingAsyncAppender.dropped(false))
+                    .tag("level", "info")
+                    .description("异步日志队列满时丢弃的日志条数")
+                    .register(registry);
+            FunctionCounter.builder("logging.events.dropped", DropCountingAsyncAppender.class,
+                            appender -> DropCountingAsyncAppender.dropped(true))
+                    .tag("level", "warn")
+                    .description("异步日志队列满时丢弃的日志条数")
+                    .register(registry);
+            FunctionCounter.builder("logging.events.sampled", LogSamplingFilter.class,
+                            filter -> LogSamplingFilter.sampledOut())
+                    .description("按类别采样丢弃的日志条数")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.user.config;
+
+import com.user.resilience.DependencyGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.time.Duration;
+
+/**
+ * MySQL与SMTP的舱壁和熔断器（Redis沿用 RedisCircuitBreaker 的PING探测与内存降级）
+ * 只有连接失败、超时这类依赖故障才计入熔断，SQL语法错误、唯一键冲突、收件地址非法等不计入
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public DependencyGuard mysqlGuard(MeterRegistry meterRegistry,
+                                      @Value("${app.resilience.mysql.max-concurrent:20}") int maxConcurrent,
+                                      @Value("${app.resilience.mysql.acquire-timeout:200ms}") Duration acquireTimeout,
+                                      @Value("${app.resilience.mysql.failure-threshold:5}") int failureThreshold,
+                                      @Value("${app.resilience.mysql.open-duration:10s}") Duration openDuration) {
+        return new DependencyGuard("mysql", maxConcurrent, acquireTimeout, failureThreshold, openDuration,
+                ResilienceConfig::isDatabaseOutage, meterRegistry);
+    }
+
+    @Bean
+    public DependencyGuard smtpGuard(MeterRegistry meterRegistry,
+                                     @Value("${app.resilience.smtp.max-concurrent:4}") int maxConcurrent,
+                                     @Value("${app.resilience.smtp.acquire-timeout:100ms}") Duration acquireTimeout,
+                                     @Value("${app.resilience.smtp.failure-threshold:3}") int failureThreshold,
+                                     @Value("${app.resilience.smtp.open-duration:30s}") Duration openDuration) {
+        return new DependencyGuard("smtp", maxConcurrent, acquireTimeout, failureThreshold, openDuration,
+                ResilienceConfig::isMailOutage, meterRegistry);
+    }
+
+    /**
+     * 沿cause链查找连接层故障：SQLState 08（连接异常）、JDBC的连接/可恢复异常、套接字超时与拒绝连接。
+     * 死锁、锁等待超时、语句超时（SQLTransientException 的其余子类）不计入；取连接超时本身也不计入——
+     * 本地并发许可超时和连接池忙都只是排队，只有cause里带着数据库连不上的原因（Hikari会附上最后一次建连失败）才算故障
+     */
+    static boolean isDatabaseOutage(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof SQLNonTransientConnectionException || t instanceof SQLRecoverableException
+                    || t instanceof SocketTimeoutException || t instanceof ConnectException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 邮件内容或地址有误属于请求本身的问题，其余发送失败（连接、认证、超时）都视为SMTP故障
+     */
+    static boolean isMailOutage(Throwable e) {
+        if (e instanceof MailParseException || e instanceof MailPreparationException) {
+            return false;
+        }
+        return e instanceof MailException || e instanceof java.io.IOException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.user.config;
+
+import com.user.sharding.ShardRouter;
+import com.user.sharding.ShardRoutingInterceptor;
+import com.user.sharding.ShardedDataSource;
+import com.user.sharding.UserLookupMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户数据分片（app.sharding.enabled=true）：用按分片路由的 ShardedDataSource 替换 spring.datasource 的单库数据源，
+ * MyBatis、事务管理器与健康检查都使用它；全局查找表 user_lookup 所在的库单独建连接池，
+ * 用独立的 SqlSessionFactory 访问，不经过分片路由，也不加入业务事务（每条语句自动提交）。
+ * 只覆盖servlet栈的MyBatis访问，响应式栈（mvn -Preactive）的R2DBC仍连接 spring.r2dbc 的单库
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardingConfig {
+    private final String username;
+    private final String password;
+    private final String driverClassName;
+    private final int poolSize;
+    private final Duration connectionTimeout;
+
+    public ShardingConfig(@Value("${app.sharding.username:${spring.datasource.username:}}") String username,
+                          @Value("${app.sharding.password:${spring.datasource.password:}}") String password,
+                          @Value("${app.sharding.driver-class-name:${spring.datasource.driver-class-name:}}") String driverClassName,
+                          @Value("${app.sharding.pool-size:10}") int poolSize,
+                          @Value("${app.sharding.connection-timeout:2s}") Duration connectionTimeout) {
+        this.username = username;
+        this.password = password;
+        this.driverClassName = driverClassName;
+        this.poolSize = poolSize;
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    @Bean
+    @Primary
+    public ShardedDataSource dataSource(@Value("${app.sharding.urls}") List<String> urls,
+                                        MeterRegistry meterRegistry) {
+        List<HikariDataSource> shards = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            shards.add(pool("shard-" + i, urls.get(i), poolSize, meterRegistry));
+        }
+        log.info("用户数据分片已启用: {}个分片", shards.size());
+        return new ShardedDataSource(shards);
+    }
+
+    /**
+     * 全局查找表所在的库，未配置 global-url 时与0号分片同库
+     */
+    @Bean
+    public HikariDataSource userLookupDataSource(@Value("${app.sharding.global-url:}") String globalUrl,
+                                                 @Value("${app.sharding.urls}") List<String> urls,
+                                                 @Value("${app.sharding.global-pool-size:5}") int globalPoolSize,
+                                                 MeterRegistry meterRegistry) {
+        return pool("user-lookup", globalUrl.isEmpty() ? urls.get(0) : globalUrl, globalPoolSize, meterRegistry);
+    }
+
+    /**
+     * 使用 JdbcTransactionFactory 而不是Spring托管的事务：查找表的写入在业务事务之外立即提交，
+     * 事务回滚后的补偿（afterCompletion 中释放预留）也不会把连接绑定到已结束的事务上
+     */
+    @Bean
+    public UserLookupMapper userLookupMapper(@Qualifier("userLookupDataSource") DataSource dataSource,
+                                             MapperMetricsInterceptor metricsInterceptor) throws Exception {
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factory = new SqlSessionFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setConfiguration(configuration);
+        factory.setTransactionFactory(new JdbcTransactionFactory());
+        factory.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/global/*.xml"));
+        factory.setPlugins(metricsInterceptor);
+        return new SqlSessionTemplate(factory.getObject()).getMapper(UserLookupMapper.class);
+    }
+
+    @Bean
+    public ShardRoutingInterceptor shardRoutingInterceptor(ShardRouter router) {
+        return new ShardRoutingInterceptor(router);
+    }
+
+    private HikariDataSource pool(String name, String url, int size, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (!driverClassName.isEmpty()) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        dataSource.setMinimumIdle(1);
+        dataSource.setMaximumPoolSize(size);
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+}
@@ -0,0 +1,85 @@
+package com.user.config;
+
+import com.user.service.RedisCircuitBreaker;
+import com.user.util.PasswordHashUtil;
+import com.user.util.RsaCryptoUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动后的依赖探测
+ * RSA密钥加载、BCrypt初始化与Redis探测不在启动路径上同步执行，而是在应用就绪后由后台线程完成；
+ * 完成前本指标为 OUT_OF_SERVICE，readiness 探针（management.endpoint.health.group.readiness）据此拒绝流量。
+ * Redis不可用不影响就绪：验证码与限流会降级到节点内存
+ */
+@Component("startupProbes")
+@Slf4j
+public class StartupProbes implements HealthIndicator {
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Health health = Health.outOfService().withDetail("probes", "pending").build();
+    private volatile long readyMillis = -1;
+
+    public StartupProbes(RedisCircuitBreaker redisCircuitBreaker, MeterRegistry meterRegistry) {
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::runProbes, "startup-probes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    private void runProbes() {
+        long start = System.nanoTime();
+        try {
+            RsaCryptoUtil.preload();
+        } catch (Exception e) {
+            log.error("RSA密钥加载失败，节点不接收流量", e);
+            health = Health.down(e).withDetail("probes", "rsa-keys").build();
+            return;
+        }
+
+        // BCrypt首次调用需要初始化SecureRandom
+        PasswordHashUtil.hashPassword("startup-probe", PasswordHashUtil.generateSalt());
+
+        String redis;
+        if (!redisCircuitBreaker.isEnabled()) {
+            redis = "disabled";
+        } else if (redisCircuitBreaker.checkNow()) {
+            redis = "up";
+        } else {
+            redis = "degraded";
+            log.warn("Redis不可用，验证码与限流使用节点内存");
+        }
+
+        long probeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        TimeGauge.builder("application.probes.ready.time", this, TimeUnit.MILLISECONDS, probes -> probes.readyMillis)
+                .description("JVM启动到依赖探测完成（readiness变为UP）的时间")
+                .register(meterRegistry);
+        health = Health.up()
+                .withDetail("redis", redis)
+                .withDetail("probeMillis", probeMillis)
+                .build();
+        log.info("Startup probes completed in {} ms, node ready {} ms after JVM start (redis={})",
+                probeMillis, readyMillis, redis);
+    }
+}
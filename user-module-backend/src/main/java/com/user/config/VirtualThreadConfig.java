@@ -0,0 +1,55 @@
+package com.user.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式的配套配置
+ * 请求处理与 @Scheduled 任务切换到虚拟线程由 spring.threads.virtual.enabled 控制（需要JDK 21运行时），
+ * 这里负责按连接池大小限制数据库并发
+ */
+@Configuration
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.db.concurrency-limit.enabled", havingValue = "true")
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment,
+                                                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                // 许可数默认等于Hikari最大连接数
+                int defaultPermits = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                int permits = environment.getProperty("app.db.concurrency-limit.permits", Integer.class, defaultPermits);
+                Duration timeout = environment.getProperty("app.db.concurrency-limit.acquire-timeout",
+                        Duration.class, Duration.ofSeconds(2));
+                ConcurrencyLimitedDataSource limited = new ConcurrencyLimitedDataSource(dataSource, permits, timeout);
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("db.concurrency.available", limited, ConcurrencyLimitedDataSource::availablePermits)
+                            .description("数据库并发许可剩余数")
+                            .register(registry);
+                    Gauge.builder("db.concurrency.waiting", limited, ConcurrencyLimitedDataSource::waitingThreads)
+                            .description("等待数据库并发许可的线程数")
+                            .register(registry);
+                });
+                log.info("数据库并发限制已启用: permits={}, acquireTimeout={}ms", permits, timeout.toMillis());
+                return limited;
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.user.controller;
+
+import com.user.service.analytics.AuthAnalytics;
+import com.user.vo.response.AuthStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 运维统计端点：GET /actuator/authstats?from=2024-05-01&to=2024-05-07&minutes=60
+ * 与 metrics/prometheus 一样走Actuator的暴露配置，不对普通用户开放；
+ * from/to 默认为今天，区间不超过 max-range-days 天，minutes 默认60、不超过分钟计数的保留时长
+ */
+@Component
+@Endpoint(id = "authstats")
+public class AuthStatsEndpoint {
+    private final AuthAnalytics authAnalytics;
+    private final int maxRangeDays;
+
+    public AuthStatsEndpoint(AuthAnalytics authAnalytics,
+                             @Value("${app.analytics.max-range-days:92}") int maxRangeDays) {
+        this.authAnalytics = authAnalytics;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    @ReadOperation
+    public AuthStatsResponse stats(@Nullable String from, @Nullable String to, @Nullable Integer minutes) {
+        LocalDate today = LocalDate.now(authAnalytics.getZone());
+        LocalDate start = parse("from", from, today);
+        LocalDate end = parse("to", to, today);
+        if (end.isBefore(start)) {
+            throw new InvalidEndpointRequestException("to 不能早于 from", "to before from");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxRangeDays) {
+            throw new InvalidEndpointRequestException("统计区间不能超过" + maxRangeDays + "天", "range too long");
+        }
+        int window = minutes != null ? minutes : 60;
+        long maxMinutes = authAnalytics.getMinuteRetention().toMinutes();
+        if (window < 0 || window > maxMinutes) {
+            throw new InvalidEndpointRequestException("minutes 取值范围为 0-" + maxMinutes, "minutes out of range");
+        }
+        return authAnalytics.stats(start, end, window);
+    }
+
+    private static LocalDate parse(String name, String value, LocalDate defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidEndpointRequestException(name + " 格式应为 yyyy-MM-dd", "invalid " + name);
+        }
+    }
+}
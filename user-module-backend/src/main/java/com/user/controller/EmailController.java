@@ -1,28 +1,55 @@
 package com.user.controller;
 
+import com.user.exception.BusinessException;
 import com.user.service.EmailService;
+import com.user.service.code.RateLimitResult;
+import com.user.service.code.SendCodeRateLimiter;
 import com.user.vo.response.ApiResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/email")
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "邮箱服务", description = "邮箱验证码发送相关接口")
 public class EmailController {
     private final EmailService emailService;
+    private final SendCodeRateLimiter rateLimiter;
+
+    @Value("${app.verification-code.rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
 
     @PostMapping("/send-verification-code")
     @Operation(summary = "发送验证码", description = "向指定邮箱发送验证码")
-    public ApiResult<Void> sendVerificationCode(@RequestParam String email) {
+    public ApiResult<Void> sendVerificationCode(@RequestParam String email, HttpServletRequest request) {
         log.info("收到发送验证码请求，邮箱: {}", email);
+        // 限流检查在生成验证码和任何存储/邮件I/O之前完成
+        RateLimitResult limit = rateLimiter.tryAcquire(email, clientIp(request));
+        if (!limit.isAllowed()) {
+            log.warn("发送验证码被限流，邮箱: {}，原因: {}", email, limit.getReason());
+            throw new BusinessException(429, "请求过于频繁，请" + limit.getRetryAfterSeconds() + "秒后再试");
+        }
         emailService.sendVerificationCode(email);
         log.info("验证码发送成功，邮箱: {}", email);
         return ApiResult.success();
     }
-}
 
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma > 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,161 @@
+package com.user.controller;
+
+import com.user.diagnostics.AuthRequestEvent;
+import com.user.diagnostics.AuthStageEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按需JFR录制端点，与 authstats 一样走Actuator的暴露配置：
+ * POST /actuator/jfr {"duration":"60s","settings":"default","threshold":"0ms"} 开始录制，到期自动停止；
+ * GET /actuator/jfr 查看状态；GET /actuator/jfr/dump 下载录制文件（录制中或已停止均可），用 JDK Mission Control 或 jfr print 查看；
+ * DELETE /actuator/jfr 停止并丢弃录制。
+ * settings 为 default（JDK默认配置，开销约1%）、profile（更多采样）或 none（只记录 com.user.AuthStage/AuthRequest 事件）；
+ * threshold 为 AuthStage 事件的最短时长，短于它的阶段不写入录制。同一时刻只保留一个录制。
+ * JDK配置会记录环境变量、系统属性与JVM启动参数（JWT_SECRET、数据库/Redis/SMTP密码都在其中），本端点创建的录制关闭这些事件；
+ * 端点默认不暴露，开启时只应暴露在 management.server 的内网端口上
+ */
+@Component
+@Endpoint(id = "jfr")
+@Slf4j
+public class JfrEndpoint {
+    private static final String RECORDING_NAME = "auth-diagnostics";
+    private static final String STAGE_EVENT = "com.user.AuthStage";
+    private static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+
+    private final Duration maxDuration;
+    private final long maxSize;
+    private final Path dumpFile;
+    private Recording recording;
+    private String settings;
+
+    public JfrEndpoint(@Value("${app.diagnostics.jfr.max-duration:10m}") Duration maxDuration,
+                       @Value("${app.diagnostics.jfr.max-size-mb:200}") long maxSizeMb,
+                       @Value("${app.diagnostics.jfr.directory:}") String directory) {
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSizeMb * 1024 * 1024;
+        String dumpDirectory = directory.isEmpty() ? System.getProperty("java.io.tmpdir") : directory;
+        this.dumpFile = Path.of(dumpDirectory, RECORDING_NAME + "-" + ProcessHandle.current().pid() + ".jfr");
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState().name());
+        status.put("settings", settings);
+        status.put("threshold", recording.getSettings().get(STAGE_EVENT + "#threshold"));
+        status.put("startTime", String.valueOf(recording.getStartTime()));
+        status.put("stopTime", String.valueOf(recording.getStopTime()));
+        status.put("duration", String.valueOf(recording.getDuration()));
+        status.put("sizeBytes", recording.getSize());
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> start(@Nullable Duration duration, @Nullable String settings,
+                                                  @Nullable Duration threshold) {
+        String configuration = settings == null || settings.isBlank() ? "default" : settings;
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new InvalidEndpointRequestException("已有录制在进行，先 DELETE /actuator/jfr 停止",
+                    "recording running");
+        }
+        Duration length = duration != null ? duration : Duration.ofMinutes(1);
+        if (length.isNegative() || length.isZero() || length.compareTo(maxDuration) > 0) {
+            throw new InvalidEndpointRequestException("duration 取值范围为 (0, " + maxDuration + "]",
+                    "duration out of range");
+        }
+        Recording next = newRecording(configuration);
+        SENSITIVE_EVENTS.forEach(next::disable);
+        next.enable(AuthStageEvent.class).withThreshold(threshold != null ? threshold : Duration.ZERO);
+        next.enable(AuthRequestEvent.class).withThreshold(Duration.ZERO);
+        next.setName(RECORDING_NAME);
+        next.setDuration(length);
+        next.setMaxSize(maxSize);
+        next.setToDisk(true);
+        discard();
+        recording = next;
+        this.settings = configuration;
+        recording.start();
+        log.info("JFR录制已开始: duration={}, settings={}", length, configuration);
+        return status();
+    }
+
+    /**
+     * 只支持 GET /actuator/jfr/dump
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized Resource dump(@Selector String action) {
+        if (!"dump".equals(action)) {
+            throw new InvalidEndpointRequestException("只支持 /actuator/jfr/dump", "unknown action");
+        }
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            throw new InvalidEndpointRequestException("没有可导出的录制", "no recording");
+        }
+        try {
+            Files.deleteIfExists(dumpFile);
+            recording.dump(dumpFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("导出JFR录制失败", e);
+        }
+        return new FileSystemResource(dumpFile);
+    }
+
+    @DeleteOperation
+    @PreDestroy
+    public synchronized void stop() {
+        discard();
+    }
+
+    private void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            log.info("JFR录制已停止并丢弃");
+        }
+        try {
+            Files.deleteIfExists(dumpFile);
+        } catch (IOException e) {
+            log.warn("删除JFR导出文件失败: {}, {}", dumpFile, e.getMessage());
+        }
+    }
+
+    private static Recording newRecording(String settings) {
+        if ("none".equals(settings)) {
+            return new Recording();
+        }
+        try {
+            return new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("settings 只支持 default、profile 或 none", "unknown settings");
+        }
+    }
+}
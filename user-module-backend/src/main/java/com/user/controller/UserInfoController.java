@@ -1,25 +1,72 @@
 package com.user.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.user.service.UserInfoService;
+import com.user.service.UserVersionCache;
+import com.user.service.search.NicknameSearchService;
+import com.user.util.HttpCacheMetrics;
 import com.user.vo.response.ApiResult;
+import com.user.vo.response.NicknameSearchResponse;
 import com.user.vo.response.UserInfoResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/user")
 @RequiredArgsConstructor
 @Tag(name = "用户信息", description = "用户信息查询相关接口")
 public class UserInfoController {
+    // 资料包含邮箱，只允许客户端私有缓存，且每次使用前凭ETag重新验证
+    private static final String USER_CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
     private final UserInfoService userInfoService;
+    private final UserVersionCache userVersionCache;
+    private final ObjectMapper objectMapper;
+    private final NicknameSearchService nicknameSearchService;
+
+    @GetMapping("/search")
+    @Operation(summary = "搜索昵称", description = "按昵称前缀、子串或近似拼写搜索用户，结果由内存索引提供并分页返回")
+    public ApiResult<NicknameSearchResponse> searchByNickname(@RequestParam("q") String query,
+                                                              @RequestParam(defaultValue = "0") int page,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        return ApiResult.success(nicknameSearchService.search(query, page, size));
+    }
 
     @GetMapping("/{userId}")
     @Operation(summary = "获取用户信息", description = "根据用户ID获取用户详细信息")
-    public ApiResult<UserInfoResponse> getUserInfoById(@PathVariable Long userId) {
+    public ApiResult<UserInfoResponse> getUserInfoById(@PathVariable Long userId, ServletWebRequest webRequest)
+            throws JsonProcessingException {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, USER_CACHE_CONTROL);
+
+        // 客户端持有的版本与缓存一致时不查询数据库
+        UserVersionCache.Entry cached = userVersionCache.get(userId);
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (cached != null && ifNoneMatch != null && ifNoneMatch.contains(cached.getEtag())
+                && webRequest.checkNotModified(cached.getEtag())) {
+            HttpCacheMetrics.notModified("user-info", cached.getBodyBytes());
+            return null;
+        }
+
         UserInfoResponse response = userInfoService.getUserInfoById(userId);
-        return ApiResult.success(response);
+        ApiResult<UserInfoResponse> result = ApiResult.success(response);
+        byte[] body = objectMapper.writeValueAsBytes(result);
+        String etag = UserVersionCache.etag(userId, body);
+        int bodyBytes = body.length;
+        userVersionCache.put(userId, etag, bodyBytes);
+        if (webRequest.checkNotModified(etag)) {
+            HttpCacheMetrics.notModified("user-info", bodyBytes);
+            return null;
+        }
+        HttpCacheMetrics.fullResponse("user-info");
+        return result;
     }
 }
 
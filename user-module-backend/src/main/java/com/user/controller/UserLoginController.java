@@ -1,52 +1,90 @@
 package com.user.controller;
 
+import com.user.service.IdempotencyService;
 import com.user.service.UserLoginService;
+import com.user.util.HttpCacheMetrics;
 import com.user.vo.request.UserLoginRequest;
+import com.user.vo.request.UserRefreshRequest;
 import com.user.vo.request.UserRegisterRequest;
 import com.user.vo.request.UserResetPasswordRequest;
 import com.user.vo.response.ApiResult;
 import com.user.vo.response.UserLoginResponse;
 import com.user.vo.response.UserRegisterResponse;
+import com.user.vo.response.UserSessionResponse;
 import com.user.vo.response.UserVerifyResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "用户认证", description = "用户注册、登录、登出等认证相关接口")
 public class UserLoginController {
+    // 公钥只在重新部署时轮换，客户端可缓存10分钟，之后凭ETag重新验证
+    private static final String PUBLIC_KEY_CACHE_CONTROL =
+            CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic().getHeaderValue();
+
     private final UserLoginService userLoginService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/")
     @Operation(summary = "API信息", description = "获取用户模块API信息")
     public ApiResult<String> index() {
-        return ApiResult.success("User Module API is running. Available endpoints: GET /public-key, POST /register, POST /login, GET /verify, POST /reset-password, POST /logout, POST /email/send-verification-code, GET /user/{userId}");
+        return ApiResult.success("User Module API is running. Available endpoints: GET /public-key, POST /register, POST /login, POST /refresh, GET /verify, POST /reset-password, POST /logout, GET /sessions, DELETE /sessions/{sessionId}, DELETE /sessions, POST /email/send-verification-code, GET /user/{userId}");
     }
 
     @GetMapping("/public-key")
     @Operation(summary = "获取RSA公钥", description = "获取用于密码加密的RSA公钥")
-    public ApiResult<String> publicKey() throws Exception {
-        String publicKey = userLoginService.publicKey();
-        return ApiResult.success(publicKey);
+    public ApiResult<String> publicKey(ServletWebRequest webRequest) throws Exception {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, PUBLIC_KEY_CACHE_CONTROL);
+        if (webRequest.checkNotModified(userLoginService.publicKeyETag())) {
+            HttpCacheMetrics.notModified("public-key",
+                    userLoginService.publicKey().getBytes(StandardCharsets.UTF_8).length);
+            return null;
+        }
+        HttpCacheMetrics.fullResponse("public-key");
+        return ApiResult.success(userLoginService.publicKey());
     }
 
     @PostMapping("/register")
     @Operation(summary = "用户注册", description = "新用户注册接口")
-    public ApiResult<UserRegisterResponse> register(@Valid @RequestBody UserRegisterRequest request) {
-        UserRegisterResponse response = userLoginService.register(request);
-        return ApiResult.success(response);
+    public ApiResult<UserRegisterResponse> register(
+            @Valid @RequestBody UserRegisterRequest request,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("register", idempotencyKey, request, UserRegisterResponse.class,
+                () -> ApiResult.success(userLoginService.register(request, userAgent)),
+                UserLoginService::withoutTokens,
+                stored -> userLoginService.reissueTokens(stored, userAgent));
     }
 
     @PostMapping("/login")
-    @Operation(summary = "用户登录", description = "用户登录接口")
-    public ApiResult<UserLoginResponse> login(@Valid @RequestBody UserLoginRequest request) {
-        UserLoginResponse response = userLoginService.login(request);
+    @Operation(summary = "用户登录", description = "用户登录接口，每次登录新建一个会话，不影响其他设备")
+    public ApiResult<UserLoginResponse> login(
+            @Valid @RequestBody UserLoginRequest request,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        UserLoginResponse response = userLoginService.login(request, userAgent);
+        return ApiResult.success(response);
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "刷新Token", description = "用刷新令牌换取新的访问令牌，刷新令牌同时轮换")
+    public ApiResult<UserLoginResponse> refresh(@Valid @RequestBody UserRefreshRequest request) {
+        UserLoginResponse response = userLoginService.refresh(request);
         return ApiResult.success(response);
     }
 
@@ -61,20 +99,44 @@ public class UserLoginController {
     @Operation(summary = "重置密码", description = "通过邮箱验证码重置密码（支持已登录用户验证身份）")
     public ApiResult<Void> resetPassword(
             @Valid @RequestBody UserResetPasswordRequest request,
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.debug("收到重置密码请求: email={}, verificationCode={}, encryptedNewPassword={}", 
                 request.getEmail(), 
                 request.getVerificationCode(), 
                 request.getEncryptedNewPassword() != null ? "***" : "null");
-        userLoginService.resetPassword(request, authorization);
-        return ApiResult.success();
+        return idempotencyService.execute("reset-password", idempotencyKey, request, Void.class, () -> {
+            userLoginService.resetPassword(request, authorization);
+            return ApiResult.success();
+        });
     }
 
     @PostMapping("/logout")
-    @Operation(summary = "用户登出", description = "用户登出接口，清除Token（需要提供有效的Token）")
+    @Operation(summary = "用户登出", description = "用户登出接口，结束当前设备的会话（需要提供有效的Token）")
     public ApiResult<Void> logout(@RequestHeader("Authorization") String authorization) {
         userLoginService.logout(authorization);
         return ApiResult.success();
     }
+
+    @GetMapping("/sessions")
+    @Operation(summary = "会话列表", description = "当前用户已登录的设备，最近活跃的在前，current 标记当前会话")
+    public ApiResult<List<UserSessionResponse>> sessions(@RequestHeader("Authorization") String authorization) {
+        return ApiResult.success(userLoginService.sessions(authorization));
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    @Operation(summary = "撤销会话", description = "让指定设备下线，只能撤销自己的会话")
+    public ApiResult<Void> revokeSession(@RequestHeader("Authorization") String authorization,
+                                        @PathVariable Long sessionId) {
+        userLoginService.revokeSession(authorization, sessionId);
+        return ApiResult.success();
+    }
+
+    @DeleteMapping("/sessions")
+    @Operation(summary = "撤销全部会话", description = "让所有设备下线，keepCurrent=true 时保留当前设备，返回撤销的会话数")
+    public ApiResult<Integer> revokeSessions(@RequestHeader("Authorization") String authorization,
+                                             @RequestParam(defaultValue = "false") boolean keepCurrent) {
+        return ApiResult.success(userLoginService.revokeSessions(authorization, keepCurrent));
+    }
 }
 
@@ -0,0 +1,34 @@
+package com.user.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次HTTP请求的JFR事件，由 SlowRequestFilter 产生；与同一线程上的 AuthStageEvent 按时间区间对应
+ */
+@Name("com.user.AuthRequest")
+@Label("Auth Request")
+@Category({"User Module", "Auth"})
+@Description("一次HTTP请求及其记录到的认证阶段数")
+@StackTrace(false)
+public class AuthRequestEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    int status;
+
+    @Label("Stages")
+    int stages;
+
+    @Label("Slow")
+    @Description("是否超过 app.diagnostics.slow-request.threshold")
+    boolean slow;
+}
@@ -0,0 +1,56 @@
+package com.user.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 认证链路一个阶段的JFR事件，由 AuthMetrics 在计时的同时产生，stage 与计时器同名（auth.crypto.rsa.decrypt、auth.db.statement 等）
+ * 没有录制进行时 begin/end 几乎没有开销，shouldCommit 为false，不会填充字段；默认不采集调用栈
+ */
+@Name("com.user.AuthStage")
+@Label("Auth Stage")
+@Category({"User Module", "Auth"})
+@Description("认证链路的一个阶段：验证码校验、凭据查找、RSA解密、BCrypt、Mapper语句、Redis命令、JWT签发、SMTP投递")
+@StackTrace(false)
+public class AuthStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Detail")
+    @Description("计时器标签，例如 statement=UserMapper.findByEmail")
+    String detail;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * 结束事件并在录制需要时提交
+     */
+    public void complete(String stage, String outcome, String... tags) {
+        end();
+        if (shouldCommit()) {
+            this.stage = stage;
+            this.detail = detail(tags);
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+    static String detail(String... tags) {
+        if (tags.length == 0) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i + 1 < tags.length; i += 2) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return builder.toString();
+    }
+}
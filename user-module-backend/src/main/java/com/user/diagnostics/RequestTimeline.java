@@ -0,0 +1,118 @@
+package com.user.diagnostics;
+
+import com.user.util.AuthMetrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前请求线程上的阶段时间线，由 SlowRequestFilter 开始与结束，AuthMetrics 每记录一次计时追加一个阶段
+ * 没有进行中的时间线（过滤器未启用、后台线程、预热）时 record 只读一次ThreadLocal；
+ * 在其他线程上执行的工作（异步发送等）不计入，超过 max-stages 的阶段只计数
+ */
+public final class RequestTimeline {
+    private static final ThreadLocal<RequestTimeline> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final int maxStages;
+    private final List<Stage> stages = new ArrayList<>();
+    private int dropped;
+
+    private RequestTimeline(int maxStages) {
+        this.maxStages = maxStages;
+    }
+
+    static RequestTimeline start(int maxStages) {
+        RequestTimeline timeline = new RequestTimeline(maxStages);
+        CURRENT.set(timeline);
+        return timeline;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void record(String name, String outcome, long elapsedNanos, String... tags) {
+        RequestTimeline timeline = CURRENT.get();
+        if (timeline != null) {
+            timeline.add(name, outcome, elapsedNanos, tags);
+        }
+    }
+
+    private void add(String name, String outcome, long elapsedNanos, String[] tags) {
+        if (stages.size() >= maxStages) {
+            dropped++;
+            return;
+        }
+        long offset = System.nanoTime() - elapsedNanos - startNanos;
+        stages.add(new Stage(name, tags, outcome, Math.max(offset, 0), elapsedNanos));
+    }
+
+    int size() {
+        return stages.size() + dropped;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 按开始时间排列的阶段明细，例如
+     * {@code +0.4ms auth.crypto.rsa.decrypt 2.1ms; +2.6ms auth.db.statement[UserMapper.findByEmail] 950.3ms; ...; 未计入阶段 12.0ms}
+     * 嵌套的阶段（凭据查找内的Mapper语句）各自列出，“未计入阶段”为不被任何阶段覆盖的时长
+     */
+    String describe(long totalNanos) {
+        List<Stage> ordered = new ArrayList<>(stages);
+        ordered.sort(Comparator.comparingLong(stage -> stage.offsetNanos));
+        StringBuilder builder = new StringBuilder();
+        long covered = 0;
+        long coveredUntil = 0;
+        for (Stage stage : ordered) {
+            builder.append('+').append(millis(stage.offsetNanos)).append("ms ").append(stage.name);
+            if (stage.tags.length > 0) {
+                builder.append('[');
+                for (int i = 1; i < stage.tags.length; i += 2) {
+                    builder.append(i > 1 ? "," : "").append(stage.tags[i]);
+                }
+                builder.append(']');
+            }
+            builder.append(' ').append(millis(stage.elapsedNanos)).append("ms");
+            if (!AuthMetrics.SUCCESS.equals(stage.outcome)) {
+                builder.append('(').append(stage.outcome).append(')');
+            }
+            builder.append("; ");
+            long end = stage.offsetNanos + stage.elapsedNanos;
+            if (end > coveredUntil) {
+                covered += end - Math.max(stage.offsetNanos, coveredUntil);
+                coveredUntil = end;
+            }
+        }
+        if (dropped > 0) {
+            builder.append("另有").append(dropped).append("个阶段未记录; ");
+        }
+        builder.append("未计入阶段 ").append(millis(Math.max(totalNanos - covered, 0))).append("ms");
+        return builder.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final String[] tags;
+        private final String outcome;
+        private final long offsetNanos;
+        private final long elapsedNanos;
+
+        private Stage(String name, String[] tags, String outcome, long offsetNanos, long elapsedNanos) {
+            this.name = name;
+            this.tags = tags;
+            this.outcome = outcome;
+            this.offsetNanos = offsetNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.user.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 慢请求阶段明细：为每个请求开启 RequestTimeline，耗时超过 threshold 时输出一条WARN日志，
+ * 按开始时间列出请求内各认证阶段（验证码校验、凭据查找、RSA解密、BCrypt、Mapper语句、Redis命令、JWT签发、SMTP）的耗时；
+ * 同时产生JFR事件 AuthRequestEvent。未超过阈值的请求只付出一次时间线对象与少量阶段记录的开销。
+ * Actuator端点不记录；响应式栈（mvn -Preactive）不经过servlet过滤器，不支持
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.diagnostics.slow-request.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class SlowRequestFilter extends OncePerRequestFilter {
+    private final long thresholdNanos;
+    private final int maxStages;
+
+    public SlowRequestFilter(@Value("${app.diagnostics.slow-request.threshold:1s}") Duration threshold,
+                             @Value("${app.diagnostics.slow-request.max-stages:64}") int maxStages) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxStages = maxStages;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getServletPath().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AuthRequestEvent event = new AuthRequestEvent();
+        event.begin();
+        RequestTimeline timeline = RequestTimeline.start(maxStages);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTimeline.clear();
+            event.end();
+            long elapsed = timeline.elapsedNanos();
+            boolean slow = elapsed >= thresholdNanos;
+            if (slow) {
+                log.warn("慢请求: {} {} status={} 耗时{}ms，阶段: {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), Duration.ofNanos(elapsed).toMillis(), timeline.describe(elapsed));
+            }
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.path = request.getRequestURI();
+                event.status = response.getStatus();
+                event.stages = timeline.size();
+                event.slow = slow;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.user.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class OutboxEvent {
+    private Long id;
+    private Long userId;
+    private String eventType;
+    private String payload;
+    private LocalDateTime createdAt;
+    private LocalDateTime deliveredAt;
+}
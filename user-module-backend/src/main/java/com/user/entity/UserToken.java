@@ -3,13 +3,22 @@ package com.user.entity;
 import lombok.Data;
 import java.time.LocalDateTime;
 
+/**
+ * 一个登录会话（一台设备）：id 即会话ID，写入访问令牌的 sid；tokenVersion 写入 ver，每次刷新加一。
+ * 刷新令牌是不透明的随机值，不参与访问令牌的签名
+ */
 @Data
 public class UserToken {
     private Long id;
     private Long userId;
     private String refreshToken;
+    private String previousRefreshToken;
+    private String device;
+    private Integer tokenVersion;
     private LocalDateTime expiresAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    /** 会话所属用户的 id/email/nickname，只有 UserTokenMapper.findSessionWithUser 填充 */
+    private User user;
 }
 
@@ -0,0 +1,28 @@
+package com.user.exception;
+
+/**
+ * 认证链路中预期内的失败结果
+ * 撞库、枚举账号或刷验证码时这些失败是常态，预先创建且不采集堆栈，抛出时没有 fillInStackTrace 的开销；
+ * 响应的 code 与 message 与原先逐次 new BusinessException 完全一致。真正的异常（500等）仍按原方式创建
+ */
+public final class AuthFailures {
+    public static final BusinessException USER_NOT_FOUND = expected(404, "用户不存在");
+    public static final BusinessException ACCOUNT_INACTIVE = expected(403, "账户未激活");
+    public static final BusinessException WRONG_PASSWORD = expected(401, "密码错误");
+    public static final BusinessException PASSWORD_DECRYPT_FAILED = expected(400, "密码解密失败");
+    public static final BusinessException TOKEN_MISSING = expected(401, "未提供Token");
+    public static final BusinessException TOKEN_INVALID = expected(401, "Token无效或已过期");
+    public static final BusinessException CODE_INVALID = expected(400, "验证码无效或已过期");
+    public static final BusinessException EMAIL_TAKEN = expected(400, "邮箱已被注册");
+    public static final BusinessException NICKNAME_TAKEN = expected(400, "昵称已被使用");
+    public static final BusinessException RESET_NOT_OWNER = expected(403, "只能重置自己的密码");
+    public static final BusinessException REFRESH_TOKEN_INVALID = expected(401, "刷新令牌无效或已过期");
+    public static final BusinessException SESSION_NOT_FOUND = expected(404, "会话不存在");
+
+    private AuthFailures() {
+    }
+
+    private static BusinessException expected(int code, String message) {
+        return new BusinessException(code, message, false);
+    }
+}
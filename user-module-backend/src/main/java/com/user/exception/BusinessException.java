@@ -9,20 +9,37 @@ import lombok.Getter;
 @Getter
 public class BusinessException extends RuntimeException {
     private final Integer code;
+
+    /**
+     * 预期内的失败（见 AuthFailures）：不采集堆栈，日志按采样输出
+     */
+    private final boolean expected;
     
     public BusinessException(Integer code, String message) {
         super(message);
         this.code = code;
+        this.expected = false;
     }
     
     public BusinessException(String message) {
         super(message);
         this.code = 500;
+        this.expected = false;
     }
     
     public BusinessException(Integer code, String message, Throwable cause) {
         super(message, cause);
         this.code = code;
+        this.expected = false;
+    }
+
+    /**
+     * 无堆栈、不可附加suppressed异常的实例，可预先创建并在线程间共享
+     */
+    BusinessException(Integer code, String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.code = code;
+        this.expected = !writableStackTrace;
     }
 }
 
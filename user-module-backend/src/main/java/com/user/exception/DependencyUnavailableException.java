@@ -0,0 +1,18 @@
+package com.user.exception;
+
+/**
+ * 下游依赖（MySQL、SMTP等）熔断或并发已满时快速失败
+ * 过载期间会大量出现，与 AuthFailures 一样不采集堆栈、日志按采样输出
+ */
+public class DependencyUnavailableException extends BusinessException {
+    private final String dependency;
+
+    public DependencyUnavailableException(String dependency, String message) {
+        super(503, message, false);
+        this.dependency = dependency;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+}
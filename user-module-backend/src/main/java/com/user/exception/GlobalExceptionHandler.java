@@ -1,10 +1,15 @@
 package com.user.exception;
 
+import com.user.util.LogSampler;
 import com.user.vo.response.ApiResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.MyBatisSystemException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,6 +17,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
 import java.util.stream.Collectors;
 
 /**
@@ -21,17 +27,46 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
+    private static final LogSampler EXPECTED_FAILURE_LOG = new LogSampler(Duration.ofSeconds(1));
 
     /**
      * 处理业务异常
+     * 预期内的认证失败（AuthFailures）只计数，每种失败每秒最多输出一条WARN
      */
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.OK)
     public ApiResult<?> handleBusinessException(BusinessException e) {
-        log.warn("业务异常: code={}, message={}", e.getCode(), e.getMessage());
+        if (e.isExpected()) {
+            Counter.builder("auth.failures")
+                    .description("预期内的认证失败次数")
+                    .tag("code", String.valueOf(e.getCode()))
+                    .register(Metrics.globalRegistry)
+                    .increment();
+            long suppressed = EXPECTED_FAILURE_LOG.sample(e);
+            if (suppressed >= 0) {
+                log.warn("业务异常: code={}, message={}, 上次输出后省略{}条", e.getCode(), e.getMessage(), suppressed);
+            }
+        } else {
+            log.warn("业务异常: code={}, message={}", e.getCode(), e.getMessage());
+        }
         return ApiResult.error(e.getCode(), e.getMessage());
     }
 
+    /**
+     * Mapper调用中抛出的业务异常（如 mysqlGuard 熔断时的 DependencyUnavailableException）会被MyBatis包装，
+     * 解包后按业务异常处理，其余仍按系统异常返回500
+     */
+    @ExceptionHandler(MyBatisSystemException.class)
+    public ResponseEntity<ApiResult<?>> handleMyBatisSystemException(MyBatisSystemException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof BusinessException businessException) {
+                return ResponseEntity.ok(handleBusinessException(businessException));
+            }
+        }
+        log.error("数据库访问异常", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiResult.error(500, "系统内部错误"));
+    }
+
     /**
      * 处理参数验证异常（@Valid）
      */
@@ -0,0 +1,16 @@
+package com.user.mapper;
+
+import com.user.entity.OutboxEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OutboxMapper {
+    int insert(OutboxEvent event);
+    List<OutboxEvent> findUndelivered(@Param("limit") int limit);
+    int markDelivered(@Param("ids") List<Long> ids, @Param("deliveredAt") LocalDateTime deliveredAt);
+    int purgeDelivered(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
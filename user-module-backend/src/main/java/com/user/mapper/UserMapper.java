@@ -3,6 +3,7 @@ package com.user.mapper;
 import com.user.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -14,6 +15,15 @@ public interface UserMapper {
     User findByEmail(@Param("email") String email);
     User findByNickname(@Param("nickname") String nickname);
     List<User> findAll();
+    Long findMaxId();
+    List<User> scanNicknames(@Param("afterId") Long afterId, @Param("limit") int limit);
+    List<User> scanNicknamesUpdatedSince(@Param("since") LocalDateTime since,
+                                         @Param("afterId") Long afterId,
+                                         @Param("limit") int limit);
+    List<User> scanCredentials(@Param("afterId") Long afterId, @Param("limit") int limit);
+    List<User> scanCredentialsUpdatedSince(@Param("since") LocalDateTime since,
+                                           @Param("afterId") Long afterId,
+                                           @Param("limit") int limit);
     boolean existsByEmail(@Param("email") String email);
     boolean existsByNickname(@Param("nickname") String nickname);
 }
@@ -4,15 +4,26 @@ import com.user.entity.UserToken;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Mapper
 public interface UserTokenMapper {
     int insert(UserToken userToken);
     int update(UserToken userToken);
     int deleteById(@Param("id") Long id);
     int deleteByUserId(@Param("userId") Long userId);
+    int deleteSession(@Param("userId") Long userId, @Param("id") Long id);
+    int deleteSessions(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    int deleteOtherSessions(@Param("userId") Long userId, @Param("keepId") Long keepId);
     UserToken findById(@Param("id") Long id);
-    UserToken findByUserId(@Param("userId") Long userId);
+    UserToken findSession(@Param("userId") Long userId, @Param("id") Long id);
+    UserToken findSessionWithUser(@Param("userId") Long userId, @Param("id") Long id);
+    List<UserToken> findByUserId(@Param("userId") Long userId);
     UserToken findByRefreshToken(@Param("refreshToken") String refreshToken);
-    int saveOrUpdate(UserToken userToken);
+    UserToken findByPreviousRefreshToken(@Param("refreshToken") String refreshToken);
+    int rotateRefreshToken(@Param("userId") Long userId,
+                           @Param("oldRefreshToken") String oldRefreshToken,
+                           @Param("newRefreshToken") String newRefreshToken,
+                           @Param("expiresAt") LocalDateTime expiresAt);
 }
-
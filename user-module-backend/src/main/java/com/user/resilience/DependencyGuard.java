@@ -0,0 +1,165 @@
+package com.user.resilience;
+
+import com.user.exception.DependencyUnavailableException;
+import com.user.util.AuthMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 单个下游依赖的舱壁与熔断器
+ * 舱壁：同时在途的调用数有上限，取许可只等待很短时间，等不到立即失败，慢依赖最多占住固定数量的请求线程；
+ * 熔断：连续失败达到阈值后断开，断开期间直接失败，open-duration 之后放行一个试探调用（半开），
+ * 试探成功闭合、失败重新断开。被拒绝的调用抛出 DependencyUnavailableException(503)，由调用方决定降级方式。
+ * 只有 failurePredicate 判定为依赖故障的异常才计入失败，唯一键冲突之类的业务错误不影响熔断
+ */
+@Slf4j
+public class DependencyGuard {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Predicate<Throwable> failurePredicate;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejectedOpen;
+    private final Counter rejectedFull;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    public DependencyGuard(String name, int maxConcurrent, Duration acquireTimeout, int failureThreshold,
+                           Duration openDuration, Predicate<Throwable> failurePredicate, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.failurePredicate = failurePredicate;
+        this.successes = calls(meterRegistry, "success");
+        this.failures = calls(meterRegistry, "failure");
+        this.rejectedOpen = calls(meterRegistry, "rejected_open");
+        this.rejectedFull = calls(meterRegistry, "rejected_full");
+        Gauge.builder("resilience.breaker.state", this, guard -> guard.state.ordinal())
+                .tag("dependency", name)
+                .description("熔断器状态：0=闭合 1=半开 2=断开")
+                .register(meterRegistry);
+        Gauge.builder("resilience.bulkhead.available", permits, Semaphore::availablePermits)
+                .tag("dependency", name)
+                .description("舱壁剩余许可数")
+                .register(meterRegistry);
+    }
+
+    public <T, E extends Exception> T call(AuthMetrics.Step<T, E> action) throws E {
+        boolean trial = admit();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            if (trial) {
+                // 试探调用没能执行，保持断开，下一个调用立即重新试探
+                state = State.OPEN;
+                trialInFlight.set(false);
+            }
+            rejectedFull.increment();
+            throw new DependencyUnavailableException(name, "服务繁忙，请稍后再试");
+        }
+        try {
+            T result = action.run();
+            onSuccess(trial);
+            return result;
+        } catch (Throwable e) {
+            if (failurePredicate.test(e)) {
+                onFailure(trial, e);
+            } else {
+                onSuccess(trial);
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 断开状态下只有超过 open-duration 后的第一个调用可以作为试探通过
+     */
+    private boolean admit() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return false;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos
+                && trialInFlight.compareAndSet(false, true)) {
+            state = State.HALF_OPEN;
+            log.info("依赖 {} 熔断时间已到，放行试探调用", name);
+            return true;
+        }
+        rejectedOpen.increment();
+        throw new DependencyUnavailableException(name, "服务暂不可用，请稍后再试");
+    }
+
+    private void onSuccess(boolean trial) {
+        successes.increment();
+        consecutiveFailures.set(0);
+        if (trial) {
+            state = State.CLOSED;
+            trialInFlight.set(false);
+            log.info("依赖 {} 试探调用成功，熔断器闭合", name);
+        }
+    }
+
+    private void onFailure(boolean trial, Throwable e) {
+        failures.increment();
+        if (trial) {
+            open();
+            trialInFlight.set(false);
+            log.warn("依赖 {} 试探调用失败，熔断器重新断开: {}", name, e.getMessage());
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state == State.CLOSED) {
+            open();
+            log.warn("依赖 {} 连续失败{}次，熔断器断开{}ms: {}", name, failureThreshold,
+                    TimeUnit.NANOSECONDS.toMillis(openDurationNanos), e.getMessage());
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        state = State.OPEN;
+    }
+
+    private Counter calls(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("resilience.calls")
+                .tags("dependency", name, "outcome", outcome)
+                .description("经过舱壁与熔断器的依赖调用")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,182 @@
+package com.user.rpc;
+
+import com.user.vo.response.UserInfoResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 内部RPC客户端
+ * 单连接多路复用：每个请求分配 requestId，不等待前一个响应即可继续发送（流水线），
+ * 响应到达后按 requestId 完成对应的 CompletableFuture。线程安全，可在多个线程间共享
+ */
+public class RpcClient implements Closeable {
+    private final EventLoopGroup group;
+    private final Channel channel;
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final Map<Long, Pending<?>> pending = new ConcurrentHashMap<>();
+
+    public RpcClient(String host, int port) {
+        this.group = new NioEventLoopGroup(1, new DefaultThreadFactory("rpc-client"));
+        try {
+            this.channel = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline()
+                                    .addLast(new LengthFieldBasedFrameDecoder(RpcProtocol.MAX_FRAME_LENGTH, 0, 4, 0, 4))
+                                    .addLast(new LengthFieldPrepender(4))
+                                    .addLast(new ResponseHandler());
+                        }
+                    })
+                    .connect(host, port)
+                    .syncUninterruptibly()
+                    .channel();
+        } catch (RuntimeException e) {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+            throw e;
+        }
+    }
+
+    public CompletableFuture<UserVerifyResponse> verify(String token) {
+        return send(RpcProtocol.OP_VERIFY, buf -> RpcProtocol.writeString(buf, token), RpcProtocol::readVerify);
+    }
+
+    public CompletableFuture<List<UserVerifyResponse>> batchVerify(List<String> tokens) {
+        if (tokens.size() > RpcProtocol.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batch too large: " + tokens.size());
+        }
+        return send(RpcProtocol.OP_BATCH_VERIFY, buf -> {
+            buf.writeShort(tokens.size());
+            for (String token : tokens) {
+                RpcProtocol.writeString(buf, token);
+            }
+        }, buf -> {
+            int count = buf.readUnsignedShort();
+            List<UserVerifyResponse> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(RpcProtocol.readVerify(buf));
+            }
+            return results;
+        });
+    }
+
+    /**
+     * 用户不存在时返回的 future 以 RpcException(status=NOT_FOUND) 结束
+     */
+    public CompletableFuture<UserInfoResponse> userInfo(long userId) {
+        return send(RpcProtocol.OP_USER_INFO, buf -> buf.writeLong(userId), RpcProtocol::readUserInfo);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private <T> CompletableFuture<T> send(byte op, Consumer<ByteBuf> payload,
+                                          Function<ByteBuf, T> decoder) {
+        long requestId = nextRequestId.incrementAndGet();
+        Pending<T> request = new Pending<>(decoder);
+        pending.put(requestId, request);
+        ByteBuf buf = channel.alloc().buffer();
+        buf.writeByte(op);
+        buf.writeLong(requestId);
+        payload.accept(buf);
+        channel.writeAndFlush(buf).addListener(f -> {
+            if (!f.isSuccess()) {
+                pending.remove(requestId);
+                request.future.completeExceptionally(f.cause());
+            }
+        });
+        return request.future;
+    }
+
+    private final class ResponseHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            byte status = frame.readByte();
+            long requestId = frame.readLong();
+            Pending<?> request = pending.remove(requestId);
+            if (request != null) {
+                request.complete(status, frame);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            RpcException closed = new RpcException(RpcProtocol.STATUS_ERROR, "connection closed");
+            pending.values().forEach(request -> request.future.completeExceptionally(closed));
+            pending.clear();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+
+    private static final class Pending<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Function<ByteBuf, T> decoder;
+
+        private Pending(Function<ByteBuf, T> decoder) {
+            this.decoder = decoder;
+        }
+
+        private void complete(byte status, ByteBuf frame) {
+            if (status != RpcProtocol.STATUS_OK) {
+                future.completeExceptionally(new RpcException(status, "rpc failed with status " + status));
+                return;
+            }
+            try {
+                future.complete(decoder.apply(frame));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 服务端返回非OK状态或连接断开
+     */
+    public static class RpcException extends RuntimeException {
+        private final byte status;
+
+        public RpcException(byte status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.user.rpc;
+
+import com.user.vo.response.UserInfoResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 内部RPC的帧格式
+ *
+ * <pre>
+ * 帧:   int32 length | body
+ * 请求: byte op     | int64 requestId | payload
+ * 响应: byte status | int64 requestId | payload（仅 status=OK 时有）
+ *
+ * VERIFY        请求 str token                 响应 verify
+ * BATCH_VERIFY  请求 u16 n, str token * n      响应 u16 n, verify * n（顺序与请求一致）
+ * USER_INFO     请求 int64 userId              响应 userInfo
+ *
+ * verify   = byte valid [int64 userId, str email, str nickname]（valid=1 时）
+ * userInfo = int64 userId, str email, str nickname, str avatarUrl, str country,
+ *            byte gender, byte status, int64 createdAtEpochMillis
+ * str      = u16 length | UTF-8 bytes
+ * </pre>
+ *
+ * 响应按完成顺序返回，客户端用 requestId 匹配，同一连接可以流水线化并发请求。
+ * 请求格式错误（不足9字节、未知op、载荷截断或有多余字节）时返回 status=BAD_REQUEST，连接保持；
+ * 不足9字节的帧无法取得 requestId，响应中的 requestId 为 UNKNOWN_REQUEST_ID（客户端从1开始分配）
+ */
+public final class RpcProtocol {
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+    public static final int MAX_BATCH_SIZE = 1024;
+    public static final int REQUEST_HEADER_LENGTH = 1 + 8;
+    public static final long UNKNOWN_REQUEST_ID = 0L;
+
+    public static final byte OP_VERIFY = 1;
+    public static final byte OP_BATCH_VERIFY = 2;
+    public static final byte OP_USER_INFO = 3;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_NOT_FOUND = 1;
+    public static final byte STATUS_BAD_REQUEST = 2;
+    public static final byte STATUS_BUSY = 3;
+    public static final byte STATUS_ERROR = 4;
+
+    private RpcProtocol() {
+    }
+
+    public static boolean isKnownOp(byte op) {
+        return op == OP_VERIFY || op == OP_BATCH_VERIFY || op == OP_USER_INFO;
+    }
+
+    public static void writeString(ByteBuf buf, String value) {
+        if (value == null || value.isEmpty()) {
+            buf.writeShort(0);
+            return;
+        }
+        int lengthIndex = buf.writerIndex();
+        buf.writeShort(0);
+        int length = buf.writeCharSequence(value, StandardCharsets.UTF_8);
+        if (length > 0xFFFF) {
+            throw new IllegalArgumentException("string too long: " + length);
+        }
+        buf.setShort(lengthIndex, length);
+    }
+
+    public static String readString(ByteBuf buf) {
+        int length = buf.readUnsignedShort();
+        if (length > buf.readableBytes()) {
+            // readCharSequence 只按容量校验，堆缓冲区会越过 writerIndex 读到旧数据
+            throw new IndexOutOfBoundsException("string length " + length + " exceeds readable " + buf.readableBytes());
+        }
+        return length == 0 ? "" : buf.readCharSequence(length, StandardCharsets.UTF_8).toString();
+    }
+
+    public static void writeVerify(ByteBuf buf, UserVerifyResponse response) {
+        boolean valid = Boolean.TRUE.equals(response.getValid());
+        buf.writeByte(valid ? 1 : 0);
+        if (valid) {
+            buf.writeLong(response.getUserId());
+            writeString(buf, response.getEmail());
+            writeString(buf, response.getNickname());
+        }
+    }
+
+    public static UserVerifyResponse readVerify(ByteBuf buf) {
+        if (buf.readByte() == 0) {
+            return UserVerifyResponse.builder().valid(false).build();
+        }
+        return UserVerifyResponse.builder()
+                .userId(buf.readLong())
+                .email(readString(buf))
+                .nickname(readString(buf))
+                .valid(true)
+                .build();
+    }
+
+    public static void writeUserInfo(ByteBuf buf, UserInfoResponse response) {
+        buf.writeLong(response.getUserId());
+        writeString(buf, response.getEmail());
+        writeString(buf, response.getNickname());
+        writeString(buf, response.getAvatarUrl());
+        writeString(buf, response.getCountry());
+        buf.writeByte(response.getGender() != null ? response.getGender() : 0);
+        buf.writeByte(response.getStatus() != null ? response.getStatus() : 0);
+        buf.writeLong(response.getCreatedAt() != null
+                ? response.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L);
+    }
+
+    public static UserInfoResponse readUserInfo(ByteBuf buf) {
+        UserInfoResponse.UserInfoResponseBuilder builder = UserInfoResponse.builder()
+                .userId(buf.readLong())
+                .email(readString(buf))
+                .nickname(readString(buf))
+                .avatarUrl(readString(buf))
+                .country(readString(buf))
+                .gender(buf.readByte())
+                .status(buf.readByte());
+        long createdAt = buf.readLong();
+        if (createdAt != 0L) {
+            builder.createdAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt), ZoneId.systemDefault()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.user.rpc;
+
+import com.user.service.UserInfoService;
+import com.user.service.UserLoginService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 供游戏服务器调用的内部RPC监听（帧格式见 RpcProtocol）
+ * 默认只绑定 127.0.0.1，不经过HTTP栈，底层复用 UserLoginService.verify 与 UserInfoService；
+ * 收到 ApplicationReadyEvent 后才开始监听（不随上下文刷新自动启动），此时启动探测与JIT预热已在后台线程开始；
+ * 关闭时先停止接收新连接再等待在途请求完成
+ */
+@Component
+@ConditionalOnProperty(name = "app.rpc.enabled", havingValue = "true")
+@Slf4j
+public class RpcServer implements SmartLifecycle {
+    private final UserLoginService userLoginService;
+    private final UserInfoService userInfoService;
+    private final String host;
+    private final int port;
+    private final int ioThreads;
+    private final ThreadPoolExecutor workers;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+    private volatile boolean running;
+
+    public RpcServer(UserLoginService userLoginService,
+                     UserInfoService userInfoService,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.rpc.host:127.0.0.1}") String host,
+                     @Value("${app.rpc.port:9090}") int port,
+                     @Value("${app.rpc.io-threads:2}") int ioThreads,
+                     @Value("${app.rpc.worker-threads:16}") int workerThreads,
+                     @Value("${app.rpc.queue-capacity:10000}") int queueCapacity) {
+        this.userLoginService = userLoginService;
+        this.userInfoService = userInfoService;
+        this.host = host;
+        this.port = port;
+        this.ioThreads = ioThreads;
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new DefaultThreadFactory("rpc-worker"));
+        Gauge.builder("auth.rpc.queue", workers, executor -> executor.getQueue().size())
+                .description("等待worker线程处理的RPC请求数")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        start();
+    }
+
+    /**
+     * 由 onApplicationReady 启动，上下文刷新时不启动；关闭时仍按 SmartLifecycle 停止
+     */
+    @Override
+    public boolean isAutoStartup() {
+        return false;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        RpcServerHandler handler = new RpcServerHandler(userLoginService, userInfoService, workers);
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("rpc-boss"));
+        workerGroup = new NioEventLoopGroup(ioThreads, new DefaultThreadFactory("rpc-io"));
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                                // 流水线请求的响应合并flush，减少系统调用
+                                .addLast(new FlushConsolidationHandler(256, true))
+                                .addLast(new LengthFieldBasedFrameDecoder(RpcProtocol.MAX_FRAME_LENGTH, 0, 4, 0, 4))
+                                .addLast(new LengthFieldPrepender(4))
+                                .addLast(handler);
+                    }
+                });
+        serverChannel = bootstrap.bind(host, port).syncUninterruptibly().channel();
+        running = true;
+        log.info("内部RPC监听已启动: {}", serverChannel.localAddress());
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+            workerGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+        }
+        log.info("内部RPC监听已关闭");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 实际监听端口，配置为0时由系统分配
+     */
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+}
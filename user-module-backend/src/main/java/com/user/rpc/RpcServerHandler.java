@@ -0,0 +1,159 @@
+package com.user.rpc;
+
+import com.user.exception.BusinessException;
+import com.user.service.UserInfoService;
+import com.user.service.UserLoginService;
+import com.user.util.AuthMetrics;
+import com.user.vo.response.UserInfoResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * RPC请求处理
+ * 在IO线程上只做解帧与参数解析，数据库访问放到 worker 线程池，完成后按 requestId 写回；
+ * 同一连接上的请求并发执行，响应不保证与请求同序
+ */
+@ChannelHandler.Sharable
+@Slf4j
+class RpcServerHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    private final UserLoginService userLoginService;
+    private final UserInfoService userInfoService;
+    private final ExecutorService workers;
+
+    RpcServerHandler(UserLoginService userLoginService, UserInfoService userInfoService, ExecutorService workers) {
+        this.userLoginService = userLoginService;
+        this.userInfoService = userInfoService;
+        this.workers = workers;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+        if (frame.readableBytes() < RpcProtocol.REQUEST_HEADER_LENGTH) {
+            log.debug("RPC请求帧过短: {}字节", frame.readableBytes());
+            writeStatus(ctx, RpcProtocol.UNKNOWN_REQUEST_ID, RpcProtocol.STATUS_BAD_REQUEST);
+            return;
+        }
+        byte op = frame.readByte();
+        long requestId = frame.readLong();
+        if (!RpcProtocol.isKnownOp(op)) {
+            log.debug("RPC请求op未知: requestId={}, op={}", requestId, op);
+            writeStatus(ctx, requestId, RpcProtocol.STATUS_BAD_REQUEST);
+            return;
+        }
+        Runnable task;
+        try {
+            task = switch (op) {
+                case RpcProtocol.OP_VERIFY -> {
+                    String token = RpcProtocol.readString(frame);
+                    yield () -> verify(ctx, requestId, token);
+                }
+                case RpcProtocol.OP_BATCH_VERIFY -> {
+                    int count = frame.readUnsignedShort();
+                    if (count > RpcProtocol.MAX_BATCH_SIZE) {
+                        throw new IllegalArgumentException("batch too large: " + count);
+                    }
+                    List<String> tokens = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        tokens.add(RpcProtocol.readString(frame));
+                    }
+                    yield () -> batchVerify(ctx, requestId, tokens);
+                }
+                case RpcProtocol.OP_USER_INFO -> {
+                    long userId = frame.readLong();
+                    yield () -> userInfo(ctx, requestId, userId);
+                }
+                default -> throw new IllegalArgumentException("unknown op: " + op);
+            };
+            if (frame.isReadable()) {
+                throw new IllegalArgumentException("trailing bytes: " + frame.readableBytes());
+            }
+        } catch (RuntimeException e) {
+            log.debug("RPC请求格式错误: requestId={}, {}", requestId, e.getMessage());
+            writeStatus(ctx, requestId, RpcProtocol.STATUS_BAD_REQUEST);
+            return;
+        }
+
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            writeStatus(ctx, requestId, RpcProtocol.STATUS_BUSY);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("RPC连接异常，关闭连接: remote={}, {}", ctx.channel().remoteAddress(), cause.getMessage());
+        ctx.close();
+    }
+
+    private void verify(ChannelHandlerContext ctx, long requestId, String token) {
+        try {
+            UserVerifyResponse response = AuthMetrics.time("auth.rpc.request",
+                    () -> userLoginService.verify(token), "op", "verify");
+            ByteBuf buf = header(ctx, RpcProtocol.STATUS_OK, requestId);
+            RpcProtocol.writeVerify(buf, response);
+            ctx.writeAndFlush(buf, ctx.voidPromise());
+        } catch (Exception e) {
+            fail(ctx, requestId, e);
+        }
+    }
+
+    private void batchVerify(ChannelHandlerContext ctx, long requestId, List<String> tokens) {
+        try {
+            List<UserVerifyResponse> responses = AuthMetrics.time("auth.rpc.request", () -> {
+                List<UserVerifyResponse> results = new ArrayList<>(tokens.size());
+                for (String token : tokens) {
+                    results.add(userLoginService.verify(token));
+                }
+                return results;
+            }, "op", "batch_verify");
+            ByteBuf buf = header(ctx, RpcProtocol.STATUS_OK, requestId);
+            buf.writeShort(responses.size());
+            for (UserVerifyResponse response : responses) {
+                RpcProtocol.writeVerify(buf, response);
+            }
+            ctx.writeAndFlush(buf, ctx.voidPromise());
+        } catch (Exception e) {
+            fail(ctx, requestId, e);
+        }
+    }
+
+    private void userInfo(ChannelHandlerContext ctx, long requestId, long userId) {
+        try {
+            UserInfoResponse response = AuthMetrics.time("auth.rpc.request",
+                    () -> userInfoService.getUserInfoById(userId), "op", "user_info");
+            ByteBuf buf = header(ctx, RpcProtocol.STATUS_OK, requestId);
+            RpcProtocol.writeUserInfo(buf, response);
+            ctx.writeAndFlush(buf, ctx.voidPromise());
+        } catch (BusinessException e) {
+            writeStatus(ctx, requestId, e.getCode() == 404 ? RpcProtocol.STATUS_NOT_FOUND : RpcProtocol.STATUS_ERROR);
+        } catch (Exception e) {
+            fail(ctx, requestId, e);
+        }
+    }
+
+    private void fail(ChannelHandlerContext ctx, long requestId, Exception e) {
+        log.error("RPC请求处理失败: requestId={}", requestId, e);
+        writeStatus(ctx, requestId, RpcProtocol.STATUS_ERROR);
+    }
+
+    private static void writeStatus(ChannelHandlerContext ctx, long requestId, byte status) {
+        ctx.writeAndFlush(header(ctx, status, requestId), ctx.voidPromise());
+    }
+
+    private static ByteBuf header(ChannelHandlerContext ctx, byte status, long requestId) {
+        ByteBuf buf = ctx.alloc().buffer();
+        buf.writeByte(status);
+        buf.writeLong(requestId);
+        return buf;
+    }
+}
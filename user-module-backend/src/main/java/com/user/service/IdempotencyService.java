@@ -0,0 +1,339 @@
+package com.user.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.exception.BusinessException;
+import com.user.util.AuthMetrics;
+import com.user.util.ExpiringMap;
+import com.user.vo.response.ApiResult;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Idempotency-Key 处理
+ * 同一作用域下的 key 与请求体指纹（SHA-256）对应一份保存的 ApiResult：重放时直接返回保存的结果，不再执行RSA解密与BCrypt；
+ * 并发的重复请求等待首个请求的结果（本节点内等待其 future，跨节点轮询Redis）。
+ * 只保存最终结果：成功与不可重试的4xx业务失败（如验证码错误、邮箱已注册）保存并重放；
+ * 可重试的失败（408/409/425/429限流与“处理中”）、5xx与意外异常释放 key，客户端稍后可用同一 key 重试。
+ * 访问令牌、刷新令牌等凭证不保存：调用方提供 strip 在保存前去掉，重放时由 restore 重新签发，
+ * 重放不会拿到已被轮换的刷新令牌，Redis中也不留可用的凭证。
+ * Redis熔断期间退化为节点内存，只能对落到同一节点的重试去重
+ */
+@Component
+@Slf4j
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final int FINGERPRINT_LENGTH = 64;
+    private static final char PENDING = 'P';
+    private static final char DONE = 'D';
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final Set<Integer> RETRYABLE_CODES = Set.of(408, 409, 425, 429);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lockTtl;
+    private final Duration waitTimeout;
+    private final ExpiringMap<String, String> memoryStore;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(ObjectProvider<StringRedisTemplate> redisTemplate,
+                              RedisCircuitBreaker circuitBreaker,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl:10m}") Duration ttl,
+                              @Value("${app.idempotency.lock-ttl:30s}") Duration lockTtl,
+                              @Value("${app.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                              @Value("${app.idempotency.memory-max-entries:10000}") int memoryMaxEntries) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+        this.memoryStore = new ExpiringMap<>(memoryMaxEntries, 1, TimeUnit.SECONDS, 512);
+    }
+
+    /**
+     * 结果中不含凭证时使用，保存与重放的都是原样的结果
+     */
+    public <T> ApiResult<T> execute(String scope, String key, Object request, Class<T> dataType,
+                                    Supplier<ApiResult<T>> action) {
+        return execute(scope, key, request, dataType, action, UnaryOperator.identity(), UnaryOperator.identity());
+    }
+
+    /**
+     * 未提供 key 时直接执行 action
+     *
+     * @param scope    接口名，不同接口的相同 key 互不影响
+     * @param request  请求体，用于计算指纹；同一 key 搭配不同请求体返回422
+     * @param dataType ApiResult.data 的类型，用于反序列化保存的结果
+     * @param strip    保存前去掉 data 中的凭证，返回副本，不修改本次返回给客户端的结果
+     * @param restore  重放成功结果时为去掉凭证的 data 重新签发凭证
+     */
+    public <T> ApiResult<T> execute(String scope, String key, Object request, Class<T> dataType,
+                                    Supplier<ApiResult<T>> action, UnaryOperator<T> strip, UnaryOperator<T> restore) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(400, HEADER + " 长度不能超过" + MAX_KEY_LENGTH);
+        }
+        String storeKey = KEY_PREFIX + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        JavaType resultType = objectMapper.getTypeFactory().constructParametricType(ApiResult.class, dataType);
+
+        while (true) {
+            CompletableFuture<String> mine = new CompletableFuture<>();
+            CompletableFuture<String> running = inFlight.putIfAbsent(storeKey, mine);
+            if (running != null) {
+                // 本节点上的并发重复请求：等待首个请求，首个请求意外失败时重新争抢执行权
+                String record = await(running);
+                if (record != null) {
+                    return replay(scope, record, fingerprint, resultType, restore);
+                }
+                continue;
+            }
+            try {
+                String existing = claim(storeKey, fingerprint);
+                if (existing == null) {
+                    return run(scope, storeKey, fingerprint, action, strip, mine);
+                }
+                if (existing.charAt(0) == PENDING) {
+                    checkFingerprint(scope, existing, fingerprint);
+                    existing = pollDone(storeKey);
+                    if (existing == null) {
+                        // 其他节点上的首个请求意外失败并释放了 key
+                        continue;
+                    }
+                }
+                mine.complete(existing);
+                return replay(scope, existing, fingerprint, resultType, restore);
+            } finally {
+                inFlight.remove(storeKey, mine);
+                mine.complete(null);
+            }
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void expire() {
+        memoryStore.expire();
+    }
+
+    private <T> ApiResult<T> run(String scope, String storeKey, String fingerprint, Supplier<ApiResult<T>> action,
+                                 UnaryOperator<T> strip, CompletableFuture<String> mine) {
+        ApiResult<T> result;
+        try {
+            result = action.get();
+        } catch (BusinessException e) {
+            if (isFinal(e.getCode())) {
+                String record = DONE + fingerprint + toJson(ApiResult.error(e.getCode(), e.getMessage()));
+                store(storeKey, record, ttl);
+                mine.complete(record);
+            } else {
+                release(storeKey);
+            }
+            count(scope, "executed");
+            throw e;
+        } catch (RuntimeException e) {
+            release(storeKey);
+            throw e;
+        }
+        T data = result.getData();
+        String record = DONE + fingerprint
+                + toJson(data != null ? new ApiResult<>(result.getCode(), result.getMessage(), strip.apply(data)) : result);
+        store(storeKey, record, ttl);
+        mine.complete(record);
+        count(scope, "executed");
+        return result;
+    }
+
+    /**
+     * 重放同一请求会得到相同结果的失败码；限流、处理中与服务端错误过后重试可能成功，不保存
+     */
+    private static boolean isFinal(Integer code) {
+        return code != null && code < 500 && !RETRYABLE_CODES.contains(code);
+    }
+
+    private <T> ApiResult<T> replay(String scope, String record, String fingerprint, JavaType resultType,
+                                    UnaryOperator<T> restore) {
+        checkFingerprint(scope, record, fingerprint);
+        count(scope, "replayed");
+        ApiResult<T> result;
+        try {
+            result = objectMapper.readValue(record.substring(1 + FINGERPRINT_LENGTH), resultType);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(500, "读取幂等结果失败", e);
+        }
+        if (result.getData() != null) {
+            result.setData(restore.apply(result.getData()));
+        }
+        return result;
+    }
+
+    private void checkFingerprint(String scope, String record, String fingerprint) {
+        if (!record.regionMatches(1, fingerprint, 0, FINGERPRINT_LENGTH)) {
+            count(scope, "conflict");
+            throw new BusinessException(422, HEADER + " 已用于内容不同的请求");
+        }
+    }
+
+    /**
+     * 写入 PENDING 占位，成功返回null，否则返回已有记录
+     */
+    private String claim(String storeKey, String fingerprint) {
+        String pending = PENDING + fingerprint;
+        while (true) {
+            if (circuitBreaker.allowRequest()) {
+                try {
+                    Boolean claimed = AuthMetrics.time("auth.redis.command",
+                            () -> redisTemplate.opsForValue().setIfAbsent(storeKey, pending, lockTtl),
+                            "command", "idempotency.claim");
+                    circuitBreaker.recordSuccess();
+                    if (Boolean.TRUE.equals(claimed)) {
+                        return null;
+                    }
+                    String existing = redisTemplate.opsForValue().get(storeKey);
+                    if (existing != null) {
+                        return existing;
+                    }
+                    // 占位恰好过期，重新写入
+                    continue;
+                } catch (Exception e) {
+                    log.warn("Redis写入幂等占位失败，降级到内存: {}", e.getMessage());
+                    circuitBreaker.recordFailure(e);
+                }
+            }
+            // 本节点内的并发已由 inFlight 串行化
+            String existing = memoryStore.get(storeKey);
+            if (existing != null) {
+                return existing;
+            }
+            memoryStore.put(storeKey, pending, lockTtl.toMillis(), TimeUnit.MILLISECONDS);
+            return null;
+        }
+    }
+
+    /**
+     * 等待其他节点上的首个请求完成；对方释放了 key 时返回null，超时返回409
+     */
+    private String pollDone(String storeKey) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            String record = get(storeKey);
+            if (record == null) {
+                return null;
+            }
+            if (record.charAt(0) == DONE) {
+                return record;
+            }
+        }
+        throw new BusinessException(409, "请求正在处理中，请稍后重试");
+    }
+
+    private String await(CompletableFuture<String> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new BusinessException(409, "请求正在处理中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(409, "请求正在处理中，请稍后重试");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private String get(String storeKey) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                String record = redisTemplate.opsForValue().get(storeKey);
+                circuitBreaker.recordSuccess();
+                if (record != null) {
+                    return record;
+                }
+            } catch (Exception e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        return memoryStore.get(storeKey);
+    }
+
+    private void store(String storeKey, String record, Duration ttl) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                redisTemplate.opsForValue().set(storeKey, record, ttl);
+                circuitBreaker.recordSuccess();
+                memoryStore.remove(storeKey);
+                return;
+            } catch (Exception e) {
+                log.warn("Redis保存幂等结果失败，降级到内存: {}", e.getMessage());
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        memoryStore.put(storeKey, record, ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void release(String storeKey) {
+        memoryStore.remove(storeKey);
+        if (circuitBreaker.allowRequest()) {
+            try {
+                redisTemplate.delete(storeKey);
+                circuitBreaker.recordSuccess();
+            } catch (Exception e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new BusinessException(500, "计算请求指纹失败", e);
+        }
+    }
+
+    private String toJson(ApiResult<?> result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(500, "保存幂等结果失败", e);
+        }
+    }
+
+    private static void count(String scope, String result) {
+        Metrics.counter("auth.idempotency", "scope", scope, "result", result).increment();
+    }
+}
@@ -0,0 +1,146 @@
+package com.user.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis熔断器
+ * 连续失败达到阈值后断开，断开期间后台定时PING探测，探测成功后自动恢复；
+ * app.redis.enabled=false 时（如 embedded profile）始终断开且不探测
+ * 状态导出为 resilience.breaker.state{dependency=redis}，取值与 DependencyGuard 一致（0=闭合 2=断开，PING探测期间不放行业务请求，没有半开）
+ * 舱壁由Lettuce连接池承担（spring.data.redis.lettuce.pool.max-active/max-wait）：取连接排队超时只让本次调用降级，不计入失败
+ */
+@Component
+@Slf4j
+public class RedisCircuitBreaker {
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final Duration probeInterval;
+    private final TaskScheduler taskScheduler;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile boolean open;
+    private ScheduledFuture<?> probeTask;
+
+    public RedisCircuitBreaker(ObjectProvider<StringRedisTemplate> redisTemplate,
+                               TaskScheduler taskScheduler,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.redis.enabled:true}") boolean enabled,
+                               @Value("${app.redis.breaker.failure-threshold:3}") int failureThreshold,
+                               @Value("${app.redis.breaker.probe-interval:5s}") Duration probeInterval) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled && this.redisTemplate != null;
+        this.failureThreshold = failureThreshold;
+        this.probeInterval = probeInterval;
+        this.open = !this.enabled;
+        Gauge.builder("resilience.breaker.state", this, breaker -> breaker.open ? 2 : 0)
+                .tag("dependency", "redis")
+                .description("熔断器状态：0=闭合 1=半开 2=断开")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 熔断器闭合时才允许访问Redis
+     */
+    public boolean allowRequest() {
+        return !open;
+    }
+
+    /**
+     * 是否配置了Redis，未配置时所有依赖Redis的组件只使用本地实现
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 立即探测一次Redis（启动后的就绪检查使用），失败时直接断开，避免前几个请求各自等待超时
+     */
+    public boolean checkNow() {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            recordSuccess();
+            return true;
+        } catch (Exception e) {
+            consecutiveFailures.set(failureThreshold);
+            trip(e);
+            return false;
+        }
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    public void recordFailure(Exception e) {
+        if (isPoolExhausted(e)) {
+            return;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        if (failures >= failureThreshold) {
+            trip(e);
+        }
+    }
+
+    /**
+     * commons-pool 等待空闲连接超时抛出 NoSuchElementException；建连失败时抛出的是连接异常本身，仍计入失败
+     */
+    static boolean isPoolExhausted(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof NoSuchElementException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void trip(Exception e) {
+        if (open || !enabled) {
+            return;
+        }
+        open = true;
+        log.warn("Redis连续失败{}次，熔断器断开，每{}ms探测一次: {}",
+                consecutiveFailures.get(), probeInterval.toMillis(), e.getMessage());
+        probeTask = taskScheduler.scheduleWithFixedDelay(this::probe,
+                Instant.now().plus(probeInterval), probeInterval);
+    }
+
+    private void probe() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+        } catch (Exception e) {
+            log.debug("Redis探测失败: {}", e.getMessage());
+            return;
+        }
+        close();
+    }
+
+    private synchronized void close() {
+        if (probeTask != null) {
+            probeTask.cancel(false);
+            probeTask = null;
+        }
+        consecutiveFailures.set(0);
+        open = false;
+        log.info("Redis探测成功，熔断器恢复闭合");
+    }
+}
@@ -0,0 +1,251 @@
+package com.user.service;
+
+import com.user.entity.User;
+import com.user.entity.UserToken;
+import com.user.exception.AuthFailures;
+import com.user.util.JwtTokenUtil;
+import com.user.util.PasswordHashUtil;
+import com.user.vo.request.UserRegisterRequest;
+import com.user.vo.response.UserLoginResponse;
+import com.user.vo.response.UserRegisterResponse;
+import com.user.vo.response.UserSessionResponse;
+import com.user.vo.response.UserVerifyResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 认证领域规则
+ * 不做任何I/O，阻塞实现（UserLoginService）与响应式实现共用同一套校验、令牌签发与响应组装逻辑
+ */
+@Component
+@Slf4j
+public class UserAuthPolicy {
+    private static final int REFRESH_TOKEN_DAYS = 7;
+    private static final int MAX_DEVICE_LENGTH = 128;
+
+    @Value("${jwt.expiration:86400000}")
+    private Long jwtExpiration;
+
+    @Value("${jwt.secret:}")
+    private String jwtSecret;
+
+    @Value("${jwt.allow-random-secret:false}")
+    private boolean allowRandomSecret;
+
+    @Value("${app.session.max-per-user:10}")
+    private int maxSessionsPerUser;
+
+    private SecretKey signingKey;
+
+    /**
+     * 未配置 jwt.secret 或不足32字节时启动失败；只有单节点的 embedded profile（jwt.allow-random-secret=true）
+     * 允许不配置，改用进程内随机密钥：重启后已签发的访问令牌不再有效，客户端需用刷新令牌重新换取
+     */
+    @PostConstruct
+    void initSigningKey() {
+        if (jwtSecret == null || jwtSecret.isEmpty()) {
+            if (!allowRandomSecret) {
+                throw new IllegalStateException("jwt.secret（环境变量 JWT_SECRET）未配置，至少需要32字节且各节点相同");
+            }
+            log.warn("jwt.secret is not configured, signing access tokens with a random per-process key");
+            signingKey = JwtTokenUtil.randomSigningKey();
+        } else {
+            signingKey = JwtTokenUtil.signingKey(jwtSecret);
+        }
+    }
+
+    /**
+     * 解密客户端RSA加密的密码，失败时返回400
+     */
+    public String decryptPassword(String encryptedPassword) {
+        try {
+            return PasswordHashUtil.decryptPassword(encryptedPassword);
+        } catch (Exception e) {
+            log.debug("Failed to decrypt password: {}", e.getMessage());
+            throw AuthFailures.PASSWORD_DECRYPT_FAILED;
+        }
+    }
+
+    public User newUser(UserRegisterRequest request, String passwordHash, String salt) {
+        User user = new User();
+        user.setEmail(request.getEmail());
+        user.setNickname(request.getNickname());
+        user.setPasswordHash(passwordHash);
+        user.setPasswordSalt(salt);
+        user.setAvatarUrl(request.getAvatarUrl() != null ? request.getAvatarUrl() : "");
+        user.setAvatarBase64(request.getAvatarBase64() != null ? request.getAvatarBase64() : "");
+        user.setCountry(request.getCountry() != null ? request.getCountry() : "");
+        user.setGender(request.getGender() != null ? request.getGender() : (byte) 0);
+        user.setStatus((byte) 1);
+        return user;
+    }
+
+    /**
+     * 登录前的账户检查：用户存在且已激活
+     */
+    public void checkLoginAllowed(User user) {
+        if (user == null) {
+            throw AuthFailures.USER_NOT_FOUND;
+        }
+        if (user.getStatus() != 1) {
+            throw AuthFailures.ACCOUNT_INACTIVE;
+        }
+    }
+
+    /**
+     * 新的刷新令牌（不透明的随机值），令牌版本从0开始
+     */
+    public UserToken newUserToken(Long userId) {
+        UserToken userToken = new UserToken();
+        userToken.setUserId(userId);
+        userToken.setRefreshToken(UUID.randomUUID().toString());
+        userToken.setTokenVersion(0);
+        userToken.setExpiresAt(LocalDateTime.now().plusDays(REFRESH_TOKEN_DAYS));
+        return userToken;
+    }
+
+    /**
+     * 新登录的会话，device 取自登录请求的 User-Agent，仅用于会话列表展示
+     */
+    public UserToken newSession(Long userId, String device) {
+        UserToken session = newUserToken(userId);
+        String trimmed = device == null ? "" : device.trim();
+        session.setDevice(trimmed.length() > MAX_DEVICE_LENGTH ? trimmed.substring(0, MAX_DEVICE_LENGTH) : trimmed);
+        return session;
+    }
+
+    /**
+     * 新会话写入后需要删除的会话：已过期的，以及超出 max-per-user 时最久未活跃的；新会话始终保留
+     * 并发登录时会话数可能短暂超出上限，下次登录时清理
+     *
+     * @param sessions 该用户的全部会话，最近活跃的在前
+     */
+    public List<Long> sessionsToEvict(List<UserToken> sessions, Long newSessionId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> evicted = new ArrayList<>();
+        int kept = 1;
+        for (UserToken session : sessions) {
+            if (session.getId().equals(newSessionId)) {
+                continue;
+            }
+            if (session.getExpiresAt().isBefore(now) || kept >= maxSessionsPerUser) {
+                evicted.add(session.getId());
+            } else {
+                kept++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 轮换后的刷新令牌：沿用会话ID，令牌版本与数据库中的 token_version + 1 一致
+     */
+    public UserToken rotatedUserToken(UserToken current) {
+        UserToken rotated = newUserToken(current.getUserId());
+        rotated.setId(current.getId());
+        rotated.setTokenVersion(current.getTokenVersion() + 1);
+        return rotated;
+    }
+
+    /**
+     * 为会话签发访问令牌：sid 为会话ID，ver 为会话当前的令牌版本，用服务端密钥签名
+     */
+    public String issueAccessToken(User user, UserToken session) {
+        return JwtTokenUtil.generateToken(
+                signingKey,
+                user.getId(),
+                session.getId(),
+                session.getTokenVersion(),
+                user.getEmail(),
+                user.getNickname(),
+                jwtExpiration
+        );
+    }
+
+    /**
+     * 去掉 "Bearer " 前缀，未提供时返回null
+     */
+    public String bearerToken(String authorization) {
+        if (authorization == null || authorization.isEmpty()) {
+            return null;
+        }
+        return authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+    }
+
+    /**
+     * 会话存在且未过期，JWT签名有效，并且签发于该会话的当前令牌版本（之后没有刷新过）
+     */
+    public boolean isTokenValid(String token, Long userId, UserToken userToken) {
+        if (userToken == null || userToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return false;
+        }
+        Long verifiedUserId = JwtTokenUtil.verifyToken(token, signingKey, userToken.getId(),
+                userToken.getTokenVersion());
+        return verifiedUserId != null && verifiedUserId.equals(userId);
+    }
+
+    /**
+     * 刷新令牌记录存在且未过期
+     */
+    public boolean isRefreshTokenUsable(UserToken userToken) {
+        return userToken != null && !userToken.getExpiresAt().isBefore(LocalDateTime.now());
+    }
+
+    public UserSessionResponse sessionResponse(UserToken session, Long currentSessionId) {
+        return UserSessionResponse.builder()
+                .sessionId(session.getId())
+                .device(session.getDevice())
+                .createdAt(session.getCreatedAt())
+                .lastActiveAt(session.getUpdatedAt())
+                .expiresAt(session.getExpiresAt())
+                .current(session.getId().equals(currentSessionId))
+                .build();
+    }
+
+    public UserVerifyResponse invalidToken() {
+        return UserVerifyResponse.builder().valid(false).build();
+    }
+
+    public UserVerifyResponse validToken(User user) {
+        return UserVerifyResponse.builder()
+                .userId(user.getId())
+                .email(user.getEmail())
+                .nickname(user.getNickname())
+                .valid(true)
+                .build();
+    }
+
+    public UserRegisterResponse registerResponse(User user, String token, String refreshToken) {
+        return UserRegisterResponse.builder()
+                .userId(user.getId())
+                .email(user.getEmail())
+                .nickname(user.getNickname())
+                .avatarUrl(user.getAvatarUrl())
+                .country(user.getCountry())
+                .gender(user.getGender())
+                .status(user.getStatus())
+                .createdAt(user.getCreatedAt())
+                .token(token)
+                .refreshToken(refreshToken)
+                .build();
+    }
+
+    public UserLoginResponse loginResponse(User user, String token, String refreshToken) {
+        return UserLoginResponse.builder()
+                .userId(user.getId())
+                .email(user.getEmail())
+                .nickname(user.getNickname())
+                .avatarUrl(user.getAvatarUrl())
+                .token(token)
+                .refreshToken(refreshToken)
+                .build();
+    }
+}
@@ -1,7 +1,7 @@
 package com.user.service;
 
 import com.user.entity.User;
-import com.user.exception.BusinessException;
+import com.user.exception.AuthFailures;
 import com.user.vo.response.UserInfoResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -14,7 +14,7 @@ public class UserInfoService {
     public UserInfoResponse getUserInfoById(Long userId) {
         User user = userService.findById(userId);
         if (user == null) {
-            throw new BusinessException(404, "用户不存在");
+            throw AuthFailures.USER_NOT_FOUND;
         }
 
         return UserInfoResponse.builder()
@@ -2,24 +2,32 @@ package com.user.service;
 
 import com.user.entity.User;
 import com.user.entity.UserToken;
+import com.user.exception.AuthFailures;
 import com.user.exception.BusinessException;
+import com.user.service.analytics.AuthAnalytics;
+import com.user.service.analytics.AuthEvent;
+import com.user.service.credential.CredentialDirectoryService;
+import com.user.service.outbox.UserEventOutbox;
+import com.user.service.outbox.UserEventType;
+import com.user.util.AuthMetrics;
 import com.user.util.JwtTokenUtil;
 import com.user.util.PasswordHashUtil;
 import com.user.util.RsaCryptoUtil;
 import com.user.vo.request.UserLoginRequest;
+import com.user.vo.request.UserRefreshRequest;
 import com.user.vo.request.UserRegisterRequest;
 import com.user.vo.request.UserResetPasswordRequest;
 import com.user.vo.response.UserLoginResponse;
 import com.user.vo.response.UserRegisterResponse;
+import com.user.vo.response.UserSessionResponse;
 import com.user.vo.response.UserVerifyResponse;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -28,9 +36,10 @@ public class UserLoginService {
     private final UserService userService;
     private final UserTokenService userTokenService;
     private final EmailService emailService;
-
-    @Value("${jwt.expiration:86400000}")
-    private Long jwtExpiration;
+    private final UserAuthPolicy authPolicy;
+    private final AuthAnalytics analytics;
+    private final UserEventOutbox eventOutbox;
+    private final CredentialDirectoryService credentialDirectory;
 
     public String publicKey() {
         try {
@@ -41,50 +50,48 @@ public class UserLoginService {
         }
     }
 
+    /**
+     * /public-key 的强ETag，由公钥ID派生
+     */
+    public String publicKeyETag() {
+        try {
+            return "\"" + RsaCryptoUtil.getPublicKeyId() + "\"";
+        } catch (Exception e) {
+            log.error("Failed to get public key id", e);
+            throw new BusinessException(500, "获取公钥失败");
+        }
+    }
+
     @Transactional(rollbackFor = Exception.class)
-    public UserRegisterResponse register(UserRegisterRequest request) {
+    public UserRegisterResponse register(UserRegisterRequest request, String device) {
         log.info("User registration started: email={}, nickname={}", request.getEmail(), request.getNickname());
+        analytics.record(AuthEvent.REGISTER_ATTEMPT);
 
         // Verify email code
         if (!emailService.verifyCode(request.getEmail(), request.getVerificationCode())) {
-            log.warn("Email verification failed for email={}", request.getEmail());
-            throw new BusinessException(400, "验证码无效或已过期");
+            log.debug("Email verification failed for email={}", request.getEmail());
+            throw AuthFailures.CODE_INVALID;
         }
 
         // Check email uniqueness
         if (userService.existsByEmail(request.getEmail())) {
-            throw new BusinessException(400, "邮箱已被注册");
+            throw AuthFailures.EMAIL_TAKEN;
         }
 
         // Check nickname uniqueness
         if (userService.existsByNickname(request.getNickname())) {
-            throw new BusinessException(400, "昵称已被使用");
+            throw AuthFailures.NICKNAME_TAKEN;
         }
 
         // Decrypt password
-        String plainPassword;
-        try {
-            plainPassword = PasswordHashUtil.decryptPassword(request.getEncryptedPassword());
-        } catch (Exception e) {
-            log.warn("Failed to decrypt password during registration: email={}", request.getEmail());
-            throw new BusinessException(400, "密码解密失败");
-        }
+        String plainPassword = authPolicy.decryptPassword(request.getEncryptedPassword());
 
         // Generate salt and hash password
         String salt = PasswordHashUtil.generateSalt();
         String passwordHash = PasswordHashUtil.hashPassword(plainPassword, salt);
 
         // Create user
-        User user = new User();
-        user.setEmail(request.getEmail());
-        user.setNickname(request.getNickname());
-        user.setPasswordHash(passwordHash);
-        user.setPasswordSalt(salt);
-        user.setAvatarUrl(request.getAvatarUrl() != null ? request.getAvatarUrl() : "");
-        user.setAvatarBase64(request.getAvatarBase64() != null ? request.getAvatarBase64() : "");
-        user.setCountry(request.getCountry() != null ? request.getCountry() : "");
-        user.setGender(request.getGender() != null ? request.getGender() : (byte) 0);
-        user.setStatus((byte) 1);
+        User user = authPolicy.newUser(request, passwordHash, salt);
 
         Long userId = userService.save(user);
         if (userId == null) {
@@ -97,63 +104,71 @@ public class UserLoginService {
             throw new BusinessException(500, "获取用户信息失败");
         }
 
-        // Generate tokens
-        String refreshToken = UUID.randomUUID().toString();
-        UserToken userToken = new UserToken();
-        userToken.setUserId(savedUser.getId());
-        userToken.setRefreshToken(refreshToken);
-        userToken.setExpiresAt(LocalDateTime.now().plusDays(7));
-        userTokenService.saveOrUpdate(userToken);
-
-        String token = JwtTokenUtil.generateToken(
-                savedUser.getId(),
-                savedUser.getEmail(),
-                savedUser.getNickname(),
-                refreshToken,
-                jwtExpiration
-        );
+        // Start a session and generate tokens
+        UserToken session = authPolicy.newSession(savedUser.getId(), device);
+        userTokenService.createSession(session);
+        String token = authPolicy.issueAccessToken(savedUser, session);
+        eventOutbox.append(savedUser.getId(), UserEventType.REGISTERED, savedUser);
 
         log.info("User registration completed successfully: userId={}, email={}", savedUser.getId(), savedUser.getEmail());
+        analytics.record(AuthEvent.REGISTERED);
+        analytics.active(savedUser.getId());
 
-        return UserRegisterResponse.builder()
-                .userId(savedUser.getId())
-                .email(savedUser.getEmail())
-                .nickname(savedUser.getNickname())
-                .avatarUrl(savedUser.getAvatarUrl())
-                .country(savedUser.getCountry())
-                .gender(savedUser.getGender())
-                .status(savedUser.getStatus())
-                .createdAt(savedUser.getCreatedAt())
-                .token(token)
-                .build();
+        return authPolicy.registerResponse(savedUser, token, session.getRefreshToken());
     }
 
-    public UserLoginResponse login(UserLoginRequest request) {
-        log.info("User login started: username={}", request.getUsername());
+    /**
+     * 幂等保存的注册结果不含令牌
+     */
+    public static UserRegisterResponse withoutTokens(UserRegisterResponse response) {
+        return response.toBuilder().token(null).refreshToken(null).build();
+    }
 
-        // Find user by email or nickname
-        User user = userService.findByEmail(request.getUsername());
+    /**
+     * 重放注册结果时为该用户新建一个会话并签发令牌，重放请求与首次请求的指纹相同（含验证码与加密后的密码）
+     */
+    public UserRegisterResponse reissueTokens(UserRegisterResponse stored, String device) {
+        User user = userService.findById(stored.getUserId());
         if (user == null) {
-            user = userService.findByNickname(request.getUsername());
+            throw AuthFailures.USER_NOT_FOUND;
         }
+        UserToken session = authPolicy.newSession(user.getId(), device);
+        userTokenService.createSession(session);
+        String token = authPolicy.issueAccessToken(user, session);
+        log.info("Registration replayed with new session: userId={}", user.getId());
+        return stored.toBuilder().token(token).refreshToken(session.getRefreshToken()).build();
+    }
 
-        if (user == null) {
-            throw new BusinessException(404, "用户不存在");
+    /**
+     * 每次登录新建一个会话，不影响该用户在其他设备上的会话
+     *
+     * @param device 客户端的 User-Agent，显示在会话列表中
+     */
+    public UserLoginResponse login(UserLoginRequest request, String device) {
+        try {
+            return authenticate(request, device);
+        } catch (BusinessException e) {
+            analytics.record(AuthEvent.LOGIN_FAILED);
+            throw e;
         }
+    }
 
-        // Check account status
-        if (user.getStatus() != 1) {
-            throw new BusinessException(403, "账户未激活");
+    private UserLoginResponse authenticate(UserLoginRequest request, String device) {
+        log.info("User login started: username={}", request.getUsername());
+
+        // Find user by email or nickname, from the credential directory when enabled
+        User user = credentialDirectory.find(request.getUsername());
+        boolean fromDirectory = user != null;
+        if (!fromDirectory) {
+            user = AuthMetrics.time("auth.credential.lookup", () -> findByUsername(request.getUsername()),
+                    found -> found != null ? "hit" : "miss", "source", "database");
         }
 
+        // Check existence and account status
+        authPolicy.checkLoginAllowed(user);
+
         // Decrypt password
-        String plainPassword;
-        try {
-            plainPassword = PasswordHashUtil.decryptPassword(request.getEncryptedPassword());
-        } catch (Exception e) {
-            log.warn("Failed to decrypt password during login: username={}", request.getUsername());
-            throw new BusinessException(400, "密码解密失败");
-        }
+        String plainPassword = authPolicy.decryptPassword(request.getEncryptedPassword());
 
         // Verify password
         boolean passwordMatches = PasswordHashUtil.verifyPassword(
@@ -163,92 +178,124 @@ public class UserLoginService {
         );
 
         if (!passwordMatches) {
-            log.warn("Invalid password for userId={}", user.getId());
-            throw new BusinessException(401, "密码错误");
+            log.debug("Invalid password for userId={}", user.getId());
+            throw AuthFailures.WRONG_PASSWORD;
         }
 
-        // Generate tokens
-        String refreshToken = UUID.randomUUID().toString();
-        UserToken userToken = new UserToken();
-        userToken.setUserId(user.getId());
-        userToken.setRefreshToken(refreshToken);
-        userToken.setExpiresAt(LocalDateTime.now().plusDays(7));
-        userTokenService.saveOrUpdate(userToken);
-
-        String token = JwtTokenUtil.generateToken(
-                user.getId(),
-                user.getEmail(),
-                user.getNickname(),
-                refreshToken,
-                jwtExpiration
-        );
+        if (fromDirectory) {
+            user = loadVerifiedProfile(user, plainPassword);
+        }
 
-        log.info("User login completed successfully: userId={}, email={}", user.getId(), user.getEmail());
+        // Start a session and generate tokens
+        UserToken session = authPolicy.newSession(user.getId(), device);
+        userTokenService.createSession(session);
+        String token = authPolicy.issueAccessToken(user, session);
 
-        return UserLoginResponse.builder()
-                .userId(user.getId())
-                .email(user.getEmail())
-                .nickname(user.getNickname())
-                .avatarUrl(user.getAvatarUrl())
-                .token(token)
-                .build();
+        log.info("User login completed successfully: userId={}, sessionId={}, email={}",
+                user.getId(), session.getId(), user.getEmail());
+        analytics.record(AuthEvent.LOGIN);
+        analytics.active(user.getId());
+
+        return authPolicy.loginResponse(user, token, session.getRefreshToken());
     }
 
-    public UserVerifyResponse verify(String authorization) {
-        if (authorization == null || authorization.isEmpty()) {
-            return UserVerifyResponse.builder().valid(false).build();
-        }
+    private User findByUsername(String username) {
+        User user = userService.findByEmail(username);
+        return user != null ? user : userService.findByNickname(username);
+    }
 
-        // Remove "Bearer " prefix if present
-        String token = authorization;
-        if (token.startsWith("Bearer ")) {
-            token = token.substring(7);
+    /**
+     * 凭据目录中的密码校验通过后按主键读取完整资料；目录中的哈希已过期（密码在其他节点修改且尚未同步）时以数据库为准重新校验
+     */
+    private User loadVerifiedProfile(User credential, String plainPassword) {
+        User user = userService.findById(credential.getId());
+        if (user == null) {
+            credentialDirectory.onDeleted(credential.getId());
+            throw AuthFailures.USER_NOT_FOUND;
         }
+        if (!user.getPasswordHash().equals(credential.getPasswordHash())) {
+            credentialDirectory.onSaved(user);
+            if (!PasswordHashUtil.verifyPassword(plainPassword, user.getPasswordHash(), user.getPasswordSalt())) {
+                log.debug("Invalid password for userId={}", user.getId());
+                throw AuthFailures.WRONG_PASSWORD;
+            }
+        }
+        authPolicy.checkLoginAllowed(user);
+        return user;
+    }
 
-        // Extract userId from JWT
-        Long userId = JwtTokenUtil.extractUserId(token);
-        if (userId == null) {
-            return UserVerifyResponse.builder().valid(false).build();
+    /**
+     * 用刷新令牌换取新的访问令牌并轮换刷新令牌，不做RSA解密与BCrypt校验
+     * 已被轮换掉的旧令牌再次出现说明令牌可能泄露，撤销该令牌所属的会话，要求该设备重新登录，其他设备不受影响。
+     * 不加事务：轮换是一条带条件的UPDATE，撤销在抛出401之前完成且不应回滚
+     */
+    public UserLoginResponse refresh(UserRefreshRequest request) {
+        String refreshToken = request.getRefreshToken();
+        UserToken current = userTokenService.findByRefreshToken(refreshToken);
+        if (current == null) {
+            UserToken reused = userTokenService.findByPreviousRefreshToken(refreshToken);
+            if (reused != null) {
+                log.warn("Refresh token reuse detected, revoking session: userId={}, sessionId={}",
+                        reused.getUserId(), reused.getId());
+                userTokenService.revoke(reused.getUserId(), reused.getId());
+                Metrics.counter("auth.refresh.reuse").increment();
+            }
+            throw AuthFailures.REFRESH_TOKEN_INVALID;
         }
+        if (!authPolicy.isRefreshTokenUsable(current)) {
+            throw AuthFailures.REFRESH_TOKEN_INVALID;
+        }
+
+        User user = userService.findById(current.getUserId());
+        authPolicy.checkLoginAllowed(user);
 
-        // Get refresh token from database
-        UserToken userToken = userTokenService.findByUserId(userId);
-        if (userToken == null) {
-            return UserVerifyResponse.builder().valid(false).build();
+        UserToken rotated = authPolicy.rotatedUserToken(current);
+        if (userTokenService.rotate(user.getId(), refreshToken, rotated) == 0) {
+            // 并发刷新：同一令牌的另一个请求已先完成轮换
+            throw AuthFailures.REFRESH_TOKEN_INVALID;
         }
+        String token = authPolicy.issueAccessToken(user, rotated);
+        log.info("Token refreshed: userId={}", user.getId());
+        analytics.record(AuthEvent.REFRESH);
+        analytics.active(user.getId());
 
-        // Check expiration
-        if (userToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-            return UserVerifyResponse.builder().valid(false).build();
+        return authPolicy.loginResponse(user, token, rotated.getRefreshToken());
+    }
+
+    public UserVerifyResponse verify(String authorization) {
+        // Remove "Bearer " prefix if present
+        String token = authPolicy.bearerToken(authorization);
+        if (token == null) {
+            return authPolicy.invalidToken();
         }
 
-        // Verify JWT signature
-        Long verifiedUserId = JwtTokenUtil.verifyToken(token, userToken.getRefreshToken());
-        if (verifiedUserId == null || !verifiedUserId.equals(userId)) {
-            return UserVerifyResponse.builder().valid(false).build();
+        // Extract userId from JWT
+        Long userId = JwtTokenUtil.extractUserId(token);
+        if (userId == null) {
+            return authPolicy.invalidToken();
         }
 
-        // Get user info
-        User user = userService.findById(userId);
-        if (user == null) {
-            return UserVerifyResponse.builder().valid(false).build();
+        // Check session expiration, JWT signature and token version; the session row is joined with its user,
+        // so this is the only query (no session for a deleted user)
+        UserToken session = userTokenService.findSessionWithUser(userId, JwtTokenUtil.extractSessionId(token));
+        if (!authPolicy.isTokenValid(token, userId, session)) {
+            return authPolicy.invalidToken();
         }
 
-        return UserVerifyResponse.builder()
-                .userId(user.getId())
-                .email(user.getEmail())
-                .nickname(user.getNickname())
-                .valid(true)
-                .build();
+        analytics.active(userId);
+        return authPolicy.validToken(session.getUser());
     }
 
-    @Transactional(rollbackFor = Exception.class)
+    /**
+     * 不加事务：校验请求头中的Token会读取Token所属用户的数据，开启分片时可能与被重置的用户不在同一分片；
+     * 写入新密码与删除令牌在 UserService.resetPassword 的事务中完成
+     */
     public void resetPassword(UserResetPasswordRequest request, String authorization) {
         log.info("Password reset started for email={}", request.getEmail());
 
         User user = userService.findByEmail(request.getEmail());
         if (user == null) {
-            throw new BusinessException(404, "用户不存在");
+            throw AuthFailures.USER_NOT_FOUND;
         }
 
         // 如果提供了 Token，验证是否是本人操作
@@ -257,7 +304,7 @@ public class UserLoginService {
             if (verifyResponse.getValid() != null && verifyResponse.getValid()) {
                 // 验证邮箱是否匹配
                 if (!verifyResponse.getEmail().equals(request.getEmail())) {
-                    throw new BusinessException(403, "只能重置自己的密码");
+                    throw AuthFailures.RESET_NOT_OWNER;
                 }
                 log.info("Password reset with token verification: userId={}", verifyResponse.getUserId());
             } else {
@@ -267,16 +314,11 @@ public class UserLoginService {
 
         // Verify email code
         if (!emailService.verifyCode(request.getEmail(), request.getVerificationCode())) {
-            throw new BusinessException(400, "验证码无效或已过期");
+            throw AuthFailures.CODE_INVALID;
         }
 
         // Decrypt new password
-        String plainNewPassword;
-        try {
-            plainNewPassword = PasswordHashUtil.decryptPassword(request.getEncryptedNewPassword());
-        } catch (Exception e) {
-            throw new BusinessException(400, "密码解密失败");
-        }
+        String plainNewPassword = authPolicy.decryptPassword(request.getEncryptedNewPassword());
 
         // Generate new salt and hash
         String newSalt = PasswordHashUtil.generateSalt();
@@ -285,33 +327,87 @@ public class UserLoginService {
         // Update user
         user.setPasswordHash(newPasswordHash);
         user.setPasswordSalt(newSalt);
-        userService.update(user);
 
-        // Delete user token to force re-login
-        userTokenService.deleteByUserId(user.getId());
+        // Update password and delete user token to force re-login
+        userService.resetPassword(user);
 
         log.info("Password reset completed successfully for userId={}, email={}", user.getId(), user.getEmail());
     }
 
+    /**
+     * 只结束当前设备的会话
+     */
     @Transactional
     public void logout(String authorization) {
-        if (authorization == null || authorization.isEmpty()) {
-            throw new BusinessException(401, "未提供Token");
+        UserToken session = currentSession(authorization);
+        Long userId = session.getUserId();
+        log.info("User logout started for userId={}, sessionId={}", userId, session.getId());
+
+        // 删除当前会话
+        userTokenService.revoke(userId, session.getId());
+        eventOutbox.append(userId, UserEventType.LOGGED_OUT, null);
+
+        log.info("User logout completed successfully for userId={}", userId);
+    }
+
+    /**
+     * 当前用户未过期的会话，最近活跃的在前，当前会话 current=true
+     */
+    public List<UserSessionResponse> sessions(String authorization) {
+        UserToken current = currentSession(authorization);
+        return userTokenService.listSessions(current.getUserId()).stream()
+                .map(session -> authPolicy.sessionResponse(session, current.getId()))
+                .toList();
+    }
+
+    /**
+     * 撤销当前用户的一个会话（可以是当前会话），该设备的访问令牌立即失效，刷新令牌不能再使用
+     */
+    @Transactional
+    public void revokeSession(String authorization, Long sessionId) {
+        UserToken current = currentSession(authorization);
+        Long userId = current.getUserId();
+        if (userTokenService.revoke(userId, sessionId) == 0) {
+            throw AuthFailures.SESSION_NOT_FOUND;
         }
+        eventOutbox.append(userId, UserEventType.LOGGED_OUT, null);
+        log.info("Session revoked: userId={}, sessionId={}", userId, sessionId);
+    }
 
-        // 验证 Token 并获取 userId
-        UserVerifyResponse verifyResponse = verify(authorization);
-        if (verifyResponse.getValid() == null || !verifyResponse.getValid()) {
-            throw new BusinessException(401, "Token无效或已过期");
+    /**
+     * 撤销当前用户的全部会话；keepCurrent 为true时保留当前会话，即“退出其他设备”
+     */
+    @Transactional
+    public int revokeSessions(String authorization, boolean keepCurrent) {
+        UserToken current = currentSession(authorization);
+        Long userId = current.getUserId();
+        int revoked = keepCurrent
+                ? userTokenService.revokeOthers(userId, current.getId())
+                : userTokenService.deleteByUserId(userId);
+        if (revoked > 0) {
+            eventOutbox.append(userId, UserEventType.LOGGED_OUT, null);
         }
+        log.info("Sessions revoked: userId={}, count={}, keepCurrent={}", userId, revoked, keepCurrent);
+        return revoked;
+    }
 
-        Long userId = verifyResponse.getUserId();
-        log.info("User logout started for userId={}", userId);
-        
-        // 删除用户的 Token
-        userTokenService.deleteByUserId(userId);
-        
-        log.info("User logout completed successfully for userId={}", userId);
+    /**
+     * 校验请求头中的访问令牌并返回其所属会话，未提供时401 TOKEN_MISSING，无效时401 TOKEN_INVALID
+     */
+    private UserToken currentSession(String authorization) {
+        String token = authPolicy.bearerToken(authorization);
+        if (token == null) {
+            throw AuthFailures.TOKEN_MISSING;
+        }
+        Long userId = JwtTokenUtil.extractUserId(token);
+        if (userId == null) {
+            throw AuthFailures.TOKEN_INVALID;
+        }
+        UserToken session = userTokenService.findSession(userId, JwtTokenUtil.extractSessionId(token));
+        if (!authPolicy.isTokenValid(token, userId, session)) {
+            throw AuthFailures.TOKEN_INVALID;
+        }
+        return session;
     }
 }
 
@@ -2,31 +2,123 @@ package com.user.service;
 
 import com.user.entity.User;
 import com.user.mapper.UserMapper;
+import com.user.service.credential.CredentialDirectoryService;
+import com.user.service.outbox.UserEventOutbox;
+import com.user.service.outbox.UserEventType;
+import com.user.service.search.NicknameSearchService;
+import com.user.sharding.ShardRouter;
+import com.user.sharding.UserIdGenerator;
+import com.user.sharding.UserLookupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserMapper userMapper;
+    private final UserVersionCache userVersionCache;
+    private final UserTokenService userTokenService;
+    private final NicknameSearchService nicknameSearchService;
+    private final UserEventOutbox eventOutbox;
+    private final CredentialDirectoryService credentialDirectory;
+    private final UserIdGenerator idGenerator;
+    private final ShardRouter shardRouter;
+    private final UserLookupService userLookup;
+    private volatile boolean idFloorLoaded;
 
+    /**
+     * 未开启分片时ID由数据库自增分配；开启分片时ID在写入前由 UserIdGenerator 分配，
+     * 先在全局查找表中预留邮箱与昵称，再写入用户所在的分片
+     */
     @Transactional
     public Long save(User user) {
+        if (shardRouter.isEnabled()) {
+            if (user.getId() == null) {
+                user.setId(nextUserId());
+            }
+            userLookup.reserve(user);
+        }
         int result = userMapper.insert(user);
+        if (result > 0) {
+            nicknameSearchService.onSaved(user);
+            credentialDirectory.onSaved(user);
+        }
         return result > 0 ? user.getId() : null;
     }
 
+    /**
+     * 第一次分配前读取各分片的最大ID，生成器跳过它所在的秒，重启前借用的秒数或时钟回拨都不会产生重复ID
+     */
+    private long nextUserId() {
+        if (!idFloorLoaded) {
+            synchronized (this) {
+                if (!idFloorLoaded) {
+                    shardRouter.collect(() -> Collections.singletonList(userMapper.findMaxId())).stream()
+                            .filter(Objects::nonNull)
+                            .max(Long::compare)
+                            .ifPresent(idGenerator::resumeAfter);
+                    idFloorLoaded = true;
+                }
+            }
+        }
+        return idGenerator.nextId();
+    }
+
     @Transactional
     public int update(User user) {
-        return userMapper.update(user);
+        return update(user, UserEventType.PROFILE_UPDATED);
+    }
+
+    /**
+     * @param event 同一事务中写入发件箱的事件类型
+     */
+    @Transactional
+    public int update(User user, UserEventType event) {
+        userVersionCache.evict(user.getId());
+        if (shardRouter.isEnabled() && (user.getEmail() != null || user.getNickname() != null)) {
+            User current = userMapper.findById(user.getId());
+            if (current != null) {
+                userLookup.reserveChanges(current, user);
+            }
+        }
+        int result = userMapper.update(user);
+        if (result > 0) {
+            nicknameSearchService.onUpdated(user);
+            credentialDirectory.onUpdated(user);
+            eventOutbox.append(user.getId(), event, event == UserEventType.PROFILE_UPDATED ? user : null);
+        }
+        return result;
+    }
+
+    /**
+     * 写入新的密码哈希并删除令牌，强制所有会话重新登录
+     */
+    @Transactional
+    public int resetPassword(User user) {
+        int result = update(user, UserEventType.PASSWORD_RESET);
+        userTokenService.deleteByUserId(user.getId());
+        return result;
     }
 
     @Transactional
     public int deleteById(Long id) {
-        return userMapper.deleteById(id);
+        userVersionCache.evict(id);
+        nicknameSearchService.onDeleted(id);
+        credentialDirectory.onDeleted(id);
+        User deleted = shardRouter.isEnabled() ? userMapper.findById(id) : null;
+        int result = userMapper.deleteById(id);
+        if (result > 0) {
+            eventOutbox.append(id, UserEventType.DELETED, null);
+            if (deleted != null) {
+                userLookup.releaseAfterCommit(deleted);
+            }
+        }
+        return result;
     }
 
     public User findById(Long id) {
@@ -34,23 +126,24 @@ public class UserService {
     }
 
     public User findByEmail(String email) {
-        return userMapper.findByEmail(email);
+        return shardRouter.isEnabled() ? userLookup.findByEmail(email) : userMapper.findByEmail(email);
     }
 
     public User findByNickname(String nickname) {
-        return userMapper.findByNickname(nickname);
+        return shardRouter.isEnabled() ? userLookup.findByNickname(nickname) : userMapper.findByNickname(nickname);
     }
 
     public List<User> findAll() {
-        return userMapper.findAll();
+        return shardRouter.collect(userMapper::findAll);
     }
 
     public boolean existsByEmail(String email) {
-        return userMapper.existsByEmail(email);
+        return shardRouter.isEnabled() ? userLookup.findByEmail(email) != null : userMapper.existsByEmail(email);
     }
 
     public boolean existsByNickname(String nickname) {
-        return userMapper.existsByNickname(nickname);
+        return shardRouter.isEnabled() ? userLookup.findByNickname(nickname) != null
+                : userMapper.existsByNickname(nickname);
     }
 }
 
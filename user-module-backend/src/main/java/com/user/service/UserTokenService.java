@@ -2,14 +2,25 @@ package com.user.service;
 
 import com.user.entity.UserToken;
 import com.user.mapper.UserTokenMapper;
+import com.user.sharding.ShardRouter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户会话：每次登录/注册新增一行，id 为会话ID，每个用户最多保留 app.session.max-per-user 个，超出时删除最久未活跃的
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class UserTokenService {
     private final UserTokenMapper userTokenMapper;
+    private final ShardRouter shardRouter;
+    private final UserAuthPolicy authPolicy;
 
     @Transactional
     public Long save(UserToken userToken) {
@@ -36,17 +47,73 @@ public class UserTokenService {
         return userTokenMapper.findById(id);
     }
 
-    public UserToken findByUserId(Long userId) {
-        return userTokenMapper.findByUserId(userId);
+    /**
+     * 新增会话并回填会话ID，同时清理该用户已过期的会话与超出上限的最久未活跃会话（UserAuthPolicy.sessionsToEvict）
+     */
+    @Transactional
+    public void createSession(UserToken session) {
+        userTokenMapper.insert(session);
+        List<Long> evicted = authPolicy.sessionsToEvict(userTokenMapper.findByUserId(session.getUserId()),
+                session.getId());
+        if (!evicted.isEmpty()) {
+            userTokenMapper.deleteSessions(session.getUserId(), evicted);
+            log.debug("清理会话: userId={}, sessions={}", session.getUserId(), evicted);
+        }
     }
 
-    public UserToken findByRefreshToken(String refreshToken) {
-        return userTokenMapper.findByRefreshToken(refreshToken);
+    /**
+     * 按主键读取访问令牌所属的会话；sessionId 为null（没有 sid 的令牌）时返回null
+     */
+    public UserToken findSession(Long userId, Long sessionId) {
+        return sessionId != null ? userTokenMapper.findSession(userId, sessionId) : null;
+    }
+
+    /**
+     * 同 findSession，同时带出会话所属用户的 email/nickname（UserToken.user），供 /verify 一次查询完成
+     */
+    public UserToken findSessionWithUser(Long userId, Long sessionId) {
+        return sessionId != null ? userTokenMapper.findSessionWithUser(userId, sessionId) : null;
+    }
+
+    /**
+     * 未过期的会话，最近活跃的在前
+     */
+    public List<UserToken> listSessions(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserToken> sessions = userTokenMapper.findByUserId(userId);
+        sessions.removeIf(session -> session.getExpiresAt().isBefore(now));
+        return sessions;
     }
 
     @Transactional
-    public int saveOrUpdate(UserToken userToken) {
-        return userTokenMapper.saveOrUpdate(userToken);
+    public int revoke(Long userId, Long sessionId) {
+        return userTokenMapper.deleteSession(userId, sessionId);
+    }
+
+    /**
+     * 撤销 keepSessionId 之外的全部会话
+     */
+    @Transactional
+    public int revokeOthers(Long userId, Long keepSessionId) {
+        return userTokenMapper.deleteOtherSessions(userId, keepSessionId);
+    }
+
+    /**
+     * 刷新令牌不含用户ID，开启分片时逐个分片查找（每个分片一次唯一索引查询）
+     */
+    public UserToken findByRefreshToken(String refreshToken) {
+        return shardRouter.first(() -> userTokenMapper.findByRefreshToken(refreshToken));
     }
-}
 
+    public UserToken findByPreviousRefreshToken(String refreshToken) {
+        return shardRouter.first(() -> userTokenMapper.findByPreviousRefreshToken(refreshToken));
+    }
+
+    /**
+     * 将 oldRefreshToken 轮换为 rotated 中的新令牌；当前令牌已不是 oldRefreshToken 时返回0
+     */
+    public int rotate(Long userId, String oldRefreshToken, UserToken rotated) {
+        return userTokenMapper.rotateRefreshToken(userId, oldRefreshToken,
+                rotated.getRefreshToken(), rotated.getExpiresAt());
+    }
+}
@@ -0,0 +1,82 @@
+package com.user.service;
+
+import com.user.util.ExpiringMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户资料的版本缓存，供 GET /user/{userId} 的条件请求使用
+ * 记录最近一次返回的ETag（由响应体的摘要派生），If-None-Match 命中时直接返回304而不查询数据库；
+ * 本节点修改用户时立即失效，其他节点的修改最多在TTL后可见
+ */
+@Component
+public class UserVersionCache {
+    private static final int WHEEL_SIZE = 512;
+
+    private final ExpiringMap<Long, Entry> versions;
+    private final long ttlMillis;
+
+    public UserVersionCache(@Value("${app.http-cache.user-version-ttl:30s}") Duration ttl,
+                            @Value("${app.http-cache.user-version-max-entries:100000}") int maxEntries,
+                            MeterRegistry meterRegistry) {
+        this.ttlMillis = ttl.toMillis();
+        this.versions = new ExpiringMap<>(maxEntries, 1, TimeUnit.SECONDS, WHEEL_SIZE);
+        Gauge.builder("http.cache.user_versions.size", versions, ExpiringMap::size)
+                .description("用户资料版本缓存当前条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 强ETag：用户ID与序列化后响应体的MD5。不用 updated_at：DATETIME只精确到秒，同一秒内的两次修改会得到相同的ETag
+     */
+    public static String etag(Long userId, byte[] body) {
+        return "\"u" + userId + "-" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    public Entry get(Long userId) {
+        return versions.get(userId);
+    }
+
+    public void put(Long userId, String etag, int bodyBytes) {
+        if (ttlMillis > 0) {
+            versions.put(userId, new Entry(etag, bodyBytes), ttlMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void evict(Long userId) {
+        versions.remove(userId);
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void expire() {
+        versions.expire();
+    }
+
+    /**
+     * 缓存的ETag，以及对应200响应体的字节数（用于统计304节省的流量）
+     */
+    public static class Entry {
+        private final String etag;
+        private final int bodyBytes;
+
+        Entry(String etag, int bodyBytes) {
+            this.etag = etag;
+            this.bodyBytes = bodyBytes;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public int getBodyBytes() {
+            return bodyBytes;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.user.service.analytics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次刷新写入的计数增量与活跃用户ID，每个key带各自的保留时长
+ */
+public class AnalyticsBatch {
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+    private final Map<String, Users> users = new LinkedHashMap<>();
+
+    public void counter(String key, long delta, Duration retention) {
+        counters.merge(key, new Counter(delta, retention),
+                (existing, added) -> new Counter(existing.getDelta() + added.getDelta(), retention));
+    }
+
+    public void users(String key, Collection<Long> userIds, Duration retention) {
+        if (!userIds.isEmpty()) {
+            users.put(key, new Users(userIds, retention));
+        }
+    }
+
+    public Map<String, Counter> counters() {
+        return counters;
+    }
+
+    public Map<String, Users> users() {
+        return users;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty() && users.isEmpty();
+    }
+
+    public static class Counter {
+        private final long delta;
+        private final Duration retention;
+
+        Counter(long delta, Duration retention) {
+            this.delta = delta;
+            this.retention = retention;
+        }
+
+        public long getDelta() {
+            return delta;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+    }
+
+    public static class Users {
+        private final Collection<Long> userIds;
+        private final Duration retention;
+
+        Users(Collection<Long> userIds, Duration retention) {
+            this.userIds = userIds;
+            this.retention = retention;
+        }
+
+        public Collection<Long> getUserIds() {
+            return userIds;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.user.service.analytics;
+
+import com.user.vo.response.AuthStatsResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 认证实时统计：日活/月活（HyperLogLog）、按分钟与按天的事件计数（登录、登录失败、注册漏斗）
+ * 认证链路上只做节点内的 LongAdder 累加与用户ID入集合，不访问Redis；
+ * 每秒由刷新线程把增量合并成一批写入 AuthAnalyticsStore，统计最多延迟约1秒。
+ * 分钟计数保留 minute-retention，天计数与日活/月活保留 day-retention；存储占用与用户数无关
+ */
+@Component
+@Slf4j
+public class AuthAnalytics {
+    private static final String KEY_PREFIX = "analytics:";
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final AuthEvent[] EVENTS = AuthEvent.values();
+    private static final DateTimeFormatter MINUTE_KEY = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+    private static final DateTimeFormatter DAY_KEY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter MONTH_KEY = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter MINUTE_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final AuthAnalyticsStore store;
+    private final boolean enabled;
+    private final Duration minuteRetention;
+    private final Duration dayRetention;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // 未刷新的计数：epochMinute -> 按 AuthEvent.ordinal 排列的累加器
+    private final Map<Long, LongAdder[]> pendingCounts = new ConcurrentHashMap<>();
+    // 未刷新的活跃用户：epochDay -> 用户ID，同一用户在一秒内多次活跃只写一次
+    private final Map<Long, Set<Long>> pendingUsers = new ConcurrentHashMap<>();
+
+    private volatile DayWindow today;
+
+    public AuthAnalytics(AuthAnalyticsStore store,
+                         @Value("${app.analytics.enabled:true}") boolean enabled,
+                         @Value("${app.analytics.minute-retention:48h}") Duration minuteRetention,
+                         @Value("${app.analytics.day-retention:400d}") Duration dayRetention) {
+        this.store = store;
+        this.enabled = enabled;
+        this.minuteRetention = minuteRetention;
+        this.dayRetention = dayRetention;
+        this.today = DayWindow.containing(System.currentTimeMillis(), zone);
+    }
+
+    public void record(AuthEvent event) {
+        if (enabled) {
+            pendingCounts.computeIfAbsent(System.currentTimeMillis() / MINUTE_MILLIS, minute -> newAdders())
+                    [event.ordinal()].increment();
+        }
+    }
+
+    /**
+     * 记录活跃用户（登录、注册、刷新令牌、Token校验通过），计入当天日活与当月月活
+     */
+    public void active(Long userId) {
+        if (enabled && userId != null) {
+            pendingUsers.computeIfAbsent(epochDay(), day -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        AnalyticsBatch batch = new AnalyticsBatch();
+        long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+        for (Map.Entry<Long, LongAdder[]> entry : pendingCounts.entrySet()) {
+            long minute = entry.getKey();
+            if (minute < currentMinute - 1) {
+                // 两分钟前的桶不会再有写入，取出最后的增量后移除
+                pendingCounts.remove(minute);
+            }
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(minute * MINUTE_MILLIS), zone);
+            for (AuthEvent event : EVENTS) {
+                long delta = entry.getValue()[event.ordinal()].sumThenReset();
+                if (delta > 0) {
+                    batch.counter(minuteKey(event, time), delta, minuteRetention);
+                    batch.counter(dayKey(event, time.toLocalDate()), delta, dayRetention);
+                }
+            }
+        }
+        long currentDay = epochDay();
+        for (Map.Entry<Long, Set<Long>> entry : pendingUsers.entrySet()) {
+            if (entry.getKey() < currentDay - 1) {
+                pendingUsers.remove(entry.getKey());
+            }
+            List<Long> userIds = new ArrayList<>();
+            for (Iterator<Long> it = entry.getValue().iterator(); it.hasNext(); ) {
+                userIds.add(it.next());
+                it.remove();
+            }
+            LocalDate day = LocalDate.ofEpochDay(entry.getKey());
+            batch.users(dailyUsersKey(day), userIds, dayRetention);
+            batch.users(monthlyUsersKey(YearMonth.from(day)), userIds, dayRetention);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            store.write(batch);
+        } catch (RuntimeException e) {
+            log.warn("写入认证统计失败，丢弃本批增量: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 统计区间 [from, to]（含两端）的日活/月活/事件次数，以及截至当前的最近 minutes 分钟登录次数
+     * 读取的key数量只与天数和分钟数有关，调用方负责限制区间长度
+     */
+    public AuthStatsResponse stats(LocalDate from, LocalDate to, int minutes) {
+        List<String> dayUserKeys = new ArrayList<>();
+        Map<String, Long> daily = new LinkedHashMap<>();
+        Set<YearMonth> months = new LinkedHashSet<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            String key = dailyUsersKey(day);
+            dayUserKeys.add(key);
+            daily.put(day.toString(), store.uniqueUsers(List.of(key)));
+            months.add(YearMonth.from(day));
+        }
+        Map<String, Long> monthly = new LinkedHashMap<>();
+        for (YearMonth month : months) {
+            monthly.put(month.toString(), store.uniqueUsers(List.of(monthlyUsersKey(month))));
+        }
+
+        List<String> eventKeys = new ArrayList<>();
+        for (AuthEvent event : EVENTS) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                eventKeys.add(dayKey(event, day));
+            }
+        }
+        long[] eventCounts = store.counts(eventKeys);
+        int days = dayUserKeys.size();
+        Map<String, Long> events = new LinkedHashMap<>();
+        for (AuthEvent event : EVENTS) {
+            long total = 0;
+            for (int i = 0; i < days; i++) {
+                total += eventCounts[event.ordinal() * days + i];
+            }
+            events.put(event.getKey(), total);
+        }
+        long logins = events.get(AuthEvent.LOGIN.getKey());
+        long failures = events.get(AuthEvent.LOGIN_FAILED.getKey());
+
+        List<String> minuteKeys = new ArrayList<>();
+        List<String> minuteLabels = new ArrayList<>();
+        long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+        for (long minute = currentMinute - minutes + 1; minute <= currentMinute; minute++) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(minute * MINUTE_MILLIS), zone);
+            minuteKeys.add(minuteKey(AuthEvent.LOGIN, time));
+            minuteLabels.add(time.format(MINUTE_LABEL));
+        }
+        long[] minuteCounts = store.counts(minuteKeys);
+        Map<String, Long> perMinute = new LinkedHashMap<>();
+        for (int i = 0; i < minuteCounts.length; i++) {
+            perMinute.put(minuteLabels.get(i), minuteCounts[i]);
+        }
+
+        return AuthStatsResponse.builder()
+                .from(from.toString())
+                .to(to.toString())
+                .activeUsers(store.uniqueUsers(dayUserKeys))
+                .dailyActiveUsers(daily)
+                .monthlyActiveUsers(monthly)
+                .events(events)
+                .loginFailureRate(logins + failures > 0 ? (double) failures / (logins + failures) : 0.0)
+                .loginsPerMinute(perMinute)
+                .build();
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public Duration getMinuteRetention() {
+        return minuteRetention;
+    }
+
+    private long epochDay() {
+        long now = System.currentTimeMillis();
+        DayWindow window = today;
+        if (now < window.start || now >= window.end) {
+            window = DayWindow.containing(now, zone);
+            today = window;
+        }
+        return window.epochDay;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[EVENTS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static String minuteKey(AuthEvent event, LocalDateTime time) {
+        return KEY_PREFIX + event.getKey() + ":m:" + time.format(MINUTE_KEY);
+    }
+
+    private static String dayKey(AuthEvent event, LocalDate day) {
+        return KEY_PREFIX + event.getKey() + ":d:" + day.format(DAY_KEY);
+    }
+
+    private static String dailyUsersKey(LocalDate day) {
+        return KEY_PREFIX + "dau:" + day.format(DAY_KEY);
+    }
+
+    private static String monthlyUsersKey(YearMonth month) {
+        return KEY_PREFIX + "mau:" + month.format(MONTH_KEY);
+    }
+
+    /**
+     * 当天在本地时区的起止毫秒，避免每次记录活跃用户都做时区换算
+     */
+    private static final class DayWindow {
+        private final long epochDay;
+        private final long start;
+        private final long end;
+
+        private DayWindow(long epochDay, long start, long end) {
+            this.epochDay = epochDay;
+            this.start = start;
+            this.end = end;
+        }
+
+        static DayWindow containing(long millis, ZoneId zone) {
+            LocalDate day = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            return new DayWindow(day.toEpochDay(),
+                    day.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.user.service.analytics;
+
+import java.util.List;
+
+/**
+ * 认证统计的存储抽象
+ * 计数器按key累加，活跃用户写入HyperLogLog；读取时多个key的去重用户数按并集估计
+ */
+public interface AuthAnalyticsStore {
+
+    void write(AnalyticsBatch batch);
+
+    /**
+     * 按顺序返回各计数器的值，不存在的key为0
+     */
+    long[] counts(List<String> keys);
+
+    /**
+     * 多个HyperLogLog合并后的去重用户数
+     */
+    long uniqueUsers(List<String> keys);
+}
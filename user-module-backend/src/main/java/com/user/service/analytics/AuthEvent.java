@@ -0,0 +1,24 @@
+package com.user.service.analytics;
+
+/**
+ * 计入分钟/天计数器的认证事件，name 用作存储key的一部分
+ * 注册漏斗：CODE_SENT -> REGISTER_ATTEMPT -> REGISTERED
+ */
+public enum AuthEvent {
+    LOGIN("login"),
+    LOGIN_FAILED("login_failed"),
+    REFRESH("refresh"),
+    CODE_SENT("code_sent"),
+    REGISTER_ATTEMPT("register_attempt"),
+    REGISTERED("registered");
+
+    private final String key;
+
+    AuthEvent(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,77 @@
+package com.user.service.analytics;
+
+import com.user.service.RedisCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 默认的认证统计存储：优先写Redis，熔断期间写入节点内存
+ * 读取时计数器为两者之和；去重用户无法跨存储合并，取两者中较大的估计值（降级期间为下限）
+ */
+@Component
+@ConditionalOnProperty(name = "app.redis.enabled", havingValue = "true", matchIfMissing = true)
+@Primary
+@Slf4j
+public class FailoverAuthAnalyticsStore implements AuthAnalyticsStore {
+    private final RedisAuthAnalyticsStore redisStore;
+    private final InMemoryAuthAnalyticsStore memoryStore;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public FailoverAuthAnalyticsStore(RedisAuthAnalyticsStore redisStore,
+                                      InMemoryAuthAnalyticsStore memoryStore,
+                                      RedisCircuitBreaker circuitBreaker) {
+        this.redisStore = redisStore;
+        this.memoryStore = memoryStore;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void write(AnalyticsBatch batch) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                redisStore.write(batch);
+                circuitBreaker.recordSuccess();
+                return;
+            } catch (Exception e) {
+                log.warn("Redis写入认证统计失败，降级到内存: {}", e.getMessage());
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        memoryStore.write(batch);
+    }
+
+    @Override
+    public long[] counts(List<String> keys) {
+        long[] counts = memoryStore.counts(keys);
+        if (circuitBreaker.allowRequest()) {
+            try {
+                long[] redisCounts = redisStore.counts(keys);
+                circuitBreaker.recordSuccess();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += redisCounts[i];
+                }
+            } catch (Exception e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public long uniqueUsers(List<String> keys) {
+        long unique = memoryStore.uniqueUsers(keys);
+        if (circuitBreaker.allowRequest()) {
+            try {
+                unique = Math.max(unique, redisStore.uniqueUsers(keys));
+                circuitBreaker.recordSuccess();
+            } catch (Exception e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        return unique;
+    }
+}
@@ -0,0 +1,92 @@
+package com.user.service.analytics;
+
+import com.user.util.ExpiringMap;
+import com.user.util.HyperLogLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 节点本地的认证统计存储：Redis不可用时作为降级方案；app.redis.enabled=false 时作为唯一实现
+ * 计数器为 AtomicLong，去重用户为本地 HyperLogLog（每个约16KB，数量受 memory-max-sketches 限制，超出按LRU淘汰最久未用的天）
+ * 只由 AuthAnalytics 的刷新线程写入
+ */
+@Component
+public class InMemoryAuthAnalyticsStore implements AuthAnalyticsStore {
+    // 1分钟一格，保留时长以小时/天计，条目跨圈由 expireAt 判断
+    private static final int WHEEL_SIZE = 512;
+
+    private final ExpiringMap<String, AtomicLong> counters;
+    private final ExpiringMap<String, HyperLogLog> sketches;
+
+    public InMemoryAuthAnalyticsStore(@Value("${app.analytics.memory-max-counters:50000}") int maxCounters,
+                                      @Value("${app.analytics.memory-max-sketches:64}") int maxSketches,
+                                      MeterRegistry meterRegistry) {
+        this.counters = new ExpiringMap<>(maxCounters, 1, TimeUnit.MINUTES, WHEEL_SIZE);
+        this.sketches = new ExpiringMap<>(maxSketches, 1, TimeUnit.MINUTES, WHEEL_SIZE);
+        Gauge.builder("auth.analytics.memory.sketches", sketches, ExpiringMap::size)
+                .description("内存认证统计中的HyperLogLog个数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void write(AnalyticsBatch batch) {
+        batch.counters().forEach((key, counter) -> {
+            AtomicLong value = counters.get(key);
+            if (value == null) {
+                value = new AtomicLong();
+                counters.put(key, value, counter.getRetention().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            value.addAndGet(counter.getDelta());
+        });
+        batch.users().forEach((key, users) -> {
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+                sketches.put(key, sketch, users.getRetention().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            for (Long userId : users.getUserIds()) {
+                sketch.add(userId);
+            }
+        });
+    }
+
+    @Override
+    public long[] counts(List<String> keys) {
+        long[] values = new long[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            AtomicLong value = counters.get(keys.get(i));
+            values[i] = value != null ? value.get() : 0;
+        }
+        return values;
+    }
+
+    @Override
+    public long uniqueUsers(List<String> keys) {
+        HyperLogLog merged = null;
+        for (String key : keys) {
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch == null) {
+                continue;
+            }
+            if (merged == null) {
+                merged = sketch.copy();
+            } else {
+                merged.merge(sketch);
+            }
+        }
+        return merged != null ? merged.estimate() : 0;
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void expire() {
+        counters.expire();
+        sketches.expire();
+    }
+}
@@ -0,0 +1,64 @@
+package com.user.service.analytics;
+
+import com.user.util.AuthMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 基于Redis的认证统计存储，多节点共享
+ * 计数器为 INCRBY，去重用户为 PFADD（每个HyperLogLog最多12KB），一次刷新的所有命令在同一个pipeline中发送；
+ * 多天/多月的去重用户数由 PFCOUNT 多个key 在服务端合并估计
+ */
+@Component
+@ConditionalOnProperty(name = "app.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisAuthAnalyticsStore implements AuthAnalyticsStore {
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisAuthAnalyticsStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void write(AnalyticsBatch batch) {
+        AuthMetrics.time("auth.redis.command", () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection commands = (StringRedisConnection) connection;
+            batch.counters().forEach((key, counter) -> {
+                commands.incrBy(key, counter.getDelta());
+                commands.pExpire(key, counter.getRetention().toMillis());
+            });
+            batch.users().forEach((key, users) -> {
+                commands.pfAdd(key, users.getUserIds().stream().map(String::valueOf).toArray(String[]::new));
+                commands.pExpire(key, users.getRetention().toMillis());
+            });
+            return null;
+        }), "command", "analytics.write");
+    }
+
+    @Override
+    public long[] counts(List<String> keys) {
+        List<String> values = AuthMetrics.time("auth.redis.command",
+                () -> redisTemplate.opsForValue().multiGet(keys), "command", "analytics.counts");
+        long[] counts = new long[keys.size()];
+        for (int i = 0; values != null && i < counts.length; i++) {
+            String value = values.get(i);
+            counts[i] = value != null ? Long.parseLong(value) : 0;
+        }
+        return counts;
+    }
+
+    @Override
+    public long uniqueUsers(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long size = AuthMetrics.time("auth.redis.command",
+                () -> redisTemplate.opsForHyperLogLog().size(keys.toArray(String[]::new)),
+                "command", "analytics.pfcount");
+        return size != null ? size : 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.user.service.code;
+
+import com.user.service.RedisCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 默认的验证码存储：优先使用Redis，熔断期间降级到节点内存
+ * Redis恢复后新验证码重新写入Redis，降级期间写入内存的验证码仍可在本节点校验
+ */
+@Component
+@ConditionalOnProperty(name = "app.redis.enabled", havingValue = "true", matchIfMissing = true)
+@Primary
+@Slf4j
+public class FailoverVerificationCodeStore implements VerificationCodeStore {
+    private final RedisVerificationCodeStore redisStore;
+    private final InMemoryVerificationCodeStore memoryStore;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public FailoverVerificationCodeStore(RedisVerificationCodeStore redisStore,
+                                         InMemoryVerificationCodeStore memoryStore,
+                                         RedisCircuitBreaker circuitBreaker) {
+        this.redisStore = redisStore;
+        this.memoryStore = memoryStore;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void save(String email, String code, Duration ttl) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                redisStore.save(email, code, ttl);
+                circuitBreaker.recordSuccess();
+                // 清除降级期间可能残留的旧验证码
+                memoryStore.remove(email);
+                return;
+            } catch (Exception e) {
+                log.warn("Redis存储验证码失败，降级到内存存储: {}", e.getMessage());
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        memoryStore.save(email, code, ttl);
+    }
+
+    @Override
+    public VerifyResult verify(String email, String code) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                VerifyResult result = redisStore.verify(email, code);
+                circuitBreaker.recordSuccess();
+                if (result != VerifyResult.NOT_FOUND) {
+                    return result;
+                }
+                // Redis中没有，可能是降级期间写入内存的验证码
+            } catch (Exception e) {
+                log.warn("Redis校验验证码失败，降级到内存存储: {}", e.getMessage());
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        return memoryStore.verify(email, code);
+    }
+
+    @Override
+    public void remove(String email) {
+        memoryStore.remove(email);
+        if (circuitBreaker.allowRequest()) {
+            try {
+                redisStore.remove(email);
+                circuitBreaker.recordSuccess();
+            } catch (Exception e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+    }
+}
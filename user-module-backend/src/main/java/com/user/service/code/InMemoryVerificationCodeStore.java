@@ -0,0 +1,94 @@
+package com.user.service.code;
+
+import com.user.util.ExpiringMap;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点本地的验证码存储：Redis不可用时作为降级方案；app.redis.enabled=false 时作为唯一实现
+ * 底层为有容量上限的时间轮过期Map，写满时按LRU淘汰最久未使用的验证码
+ */
+@Component
+@Slf4j
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+    // 1秒一格、512格的时间轮可覆盖约8.5分钟，大于验证码有效期，条目不会跨圈
+    private static final int WHEEL_SIZE = 512;
+
+    private final ExpiringMap<String, CodeEntry> storage;
+    private final int maxAttempts;
+
+    public InMemoryVerificationCodeStore(@Value("${app.verification-code.max-attempts:5}") int maxAttempts,
+                                         @Value("${app.verification-code.memory-max-entries:100000}") int maxEntries,
+                                         MeterRegistry meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.storage = new ExpiringMap<>(maxEntries, 1, TimeUnit.SECONDS, WHEEL_SIZE);
+
+        Gauge.builder("verification_code.memory.size", storage, ExpiringMap::size)
+                .description("内存验证码存储当前条目数")
+                .register(meterRegistry);
+        FunctionCounter.builder("verification_code.memory.expirations", storage, ExpiringMap::expirationCount)
+                .description("内存验证码存储过期清理的条目数")
+                .register(meterRegistry);
+        FunctionCounter.builder("verification_code.memory.evictions", storage, ExpiringMap::evictionCount)
+                .description("内存验证码存储因容量不足淘汰的条目数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(String email, String code, Duration ttl) {
+        storage.put(email, new CodeEntry(code), ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public VerifyResult verify(String email, String code) {
+        VerifyResult[] result = {VerifyResult.NOT_FOUND};
+        // computeIfPresent 在锁内执行，保证比对与删除的原子性
+        storage.computeIfPresent(email, (key, entry) -> {
+            if (entry.code.equals(code)) {
+                result[0] = VerifyResult.MATCHED;
+                return null;
+            }
+            entry.attempts++;
+            if (entry.attempts >= maxAttempts) {
+                result[0] = VerifyResult.ATTEMPTS_EXCEEDED;
+                return null;
+            }
+            result[0] = VerifyResult.MISMATCHED;
+            return entry;
+        });
+        return result[0];
+    }
+
+    @Override
+    public void remove(String email) {
+        storage.remove(email);
+    }
+
+    /**
+     * 每秒推进一次时间轮，只处理到期槽位
+     */
+    @Scheduled(fixedRate = 1000)
+    public void expire() {
+        storage.expire();
+    }
+
+    /**
+     * 验证码条目，attempts 仅在 computeIfPresent 回调中修改
+     */
+    private static class CodeEntry {
+        private final String code;
+        private int attempts;
+
+        CodeEntry(String code) {
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.user.service.code;
+
+import lombok.Getter;
+
+/**
+ * 发送验证码限流判定结果
+ */
+@Getter
+public class RateLimitResult {
+    public enum Reason {
+        /** 放行 */
+        ALLOWED,
+        /** 同一邮箱冷却中 */
+        EMAIL_COOLDOWN,
+        /** 同一IP在窗口内请求过多 */
+        IP_LIMITED,
+        /** 全局发送量达到上限 */
+        GLOBAL_LIMITED
+    }
+
+    private static final RateLimitResult ALLOWED = new RateLimitResult(Reason.ALLOWED, 0);
+
+    private final Reason reason;
+    private final long retryAfterMillis;
+
+    private RateLimitResult(Reason reason, long retryAfterMillis) {
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public static RateLimitResult allowed() {
+        return ALLOWED;
+    }
+
+    public static RateLimitResult rejected(Reason reason, long retryAfterMillis) {
+        return new RateLimitResult(reason, Math.max(retryAfterMillis, 0));
+    }
+
+    public boolean isAllowed() {
+        return reason == Reason.ALLOWED;
+    }
+
+    public long getRetryAfterSeconds() {
+        return (retryAfterMillis + 999) / 1000;
+    }
+}
@@ -0,0 +1,86 @@
+package com.user.service.code;
+
+import com.user.util.AuthMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于Redis的验证码存储
+ * 验证码以Hash保存（code/attempts），比对与删除在同一段Lua脚本中完成，多节点共享
+ */
+@Component
+@ConditionalOnProperty(name = "app.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisVerificationCodeStore implements VerificationCodeStore {
+    public static final String KEY_PREFIX = "email:verify:";
+
+    private static final RedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    // 返回值: 0=不存在 1=匹配 2=不匹配 3=尝试次数超限，响应式实现复用同一脚本
+    public static final RedisScript<Long> VERIFY_SCRIPT = new DefaultRedisScript<>(
+            "local code = redis.call('HGET', KEYS[1], 'code') " +
+            "if not code then return 0 end " +
+            "if code == ARGV[1] then redis.call('DEL', KEYS[1]) return 1 end " +
+            "local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1) " +
+            "if attempts >= tonumber(ARGV[2]) then redis.call('DEL', KEYS[1]) return 3 end " +
+            "return 2",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final int maxAttempts;
+
+    public RedisVerificationCodeStore(StringRedisTemplate redisTemplate,
+                                      @Value("${app.verification-code.max-attempts:5}") int maxAttempts) {
+        this.redisTemplate = redisTemplate;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(String email, String code, Duration ttl) {
+        AuthMetrics.time("auth.redis.command",
+                () -> redisTemplate.execute(SAVE_SCRIPT, keys(email), code, String.valueOf(ttl.toMillis())),
+                "command", "code.save");
+    }
+
+    @Override
+    public VerifyResult verify(String email, String code) {
+        Long result = AuthMetrics.time("auth.redis.command",
+                () -> redisTemplate.execute(VERIFY_SCRIPT, keys(email), code, String.valueOf(maxAttempts)),
+                "command", "code.verify");
+        return toVerifyResult(result);
+    }
+
+    public static VerifyResult toVerifyResult(Long result) {
+        if (result == null) {
+            return VerifyResult.NOT_FOUND;
+        }
+        return switch (result.intValue()) {
+            case 1 -> VerifyResult.MATCHED;
+            case 2 -> VerifyResult.MISMATCHED;
+            case 3 -> VerifyResult.ATTEMPTS_EXCEEDED;
+            default -> VerifyResult.NOT_FOUND;
+        };
+    }
+
+    @Override
+    public void remove(String email) {
+        AuthMetrics.time("auth.redis.command", () -> redisTemplate.delete(KEY_PREFIX + email),
+                "command", "code.remove");
+    }
+
+    private static List<String> keys(String email) {
+        return Collections.singletonList(KEY_PREFIX + email);
+    }
+}
@@ -0,0 +1,201 @@
+package com.user.service.code;
+
+import com.user.service.RedisCircuitBreaker;
+import com.user.util.AuthMetrics;
+import com.user.util.ExpiringMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送验证码限流器
+ * 邮箱冷却 + IP滑动窗口 + 全局滑动窗口，三项检查与计数在同一段Lua脚本中原子完成；
+ * Redis熔断期间退化为节点内存限流
+ */
+@Component
+@Slf4j
+public class SendCodeRateLimiter {
+    private static final String COOLDOWN_PREFIX = "ratelimit:code:cooldown:";
+    private static final String IP_PREFIX = "ratelimit:code:ip:";
+    private static final String GLOBAL_KEY = "ratelimit:code:global";
+    private static final int LOCAL_MAX_COOLDOWNS = 100000;
+    private static final int LOCAL_MAX_IP_WINDOWS = 100000;
+
+    // 返回 {原因, 需等待毫秒数}，原因: 0=放行 1=邮箱冷却 2=IP超限 3=全局超限
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) " +
+            "local ttl = redis.call('PTTL', KEYS[1]) " +
+            "if ttl > 0 then return {1, ttl} end " +
+            "local function full(key, window, limit) " +
+            "  redis.call('ZREMRANGEBYSCORE', key, 0, now - window) " +
+            "  if redis.call('ZCARD', key) < limit then return nil end " +
+            "  local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES') " +
+            "  return tonumber(oldest[2]) + window - now " +
+            "end " +
+            "local wait = full(KEYS[2], tonumber(ARGV[3]), tonumber(ARGV[4])) " +
+            "if wait then return {2, wait} end " +
+            "wait = full(KEYS[3], tonumber(ARGV[5]), tonumber(ARGV[6])) " +
+            "if wait then return {3, wait} end " +
+            "redis.call('SET', KEYS[1], '1', 'PX', ARGV[2]) " +
+            "redis.call('ZADD', KEYS[2], now, ARGV[7]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[3]) " +
+            "redis.call('ZADD', KEYS[3], now, ARGV[7]) " +
+            "redis.call('PEXPIRE', KEYS[3], ARGV[5]) " +
+            "return {0, 0}",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Map<RateLimitResult.Reason, Counter> counters = new EnumMap<>(RateLimitResult.Reason.class);
+
+    @Value("${app.verification-code.rate-limit.email-cooldown:60s}")
+    private Duration emailCooldown;
+
+    @Value("${app.verification-code.rate-limit.ip-window:1h}")
+    private Duration ipWindow;
+
+    @Value("${app.verification-code.rate-limit.ip-limit:10}")
+    private int ipLimit;
+
+    @Value("${app.verification-code.rate-limit.global-window:1m}")
+    private Duration globalWindow;
+
+    @Value("${app.verification-code.rate-limit.global-limit:300}")
+    private int globalLimit;
+
+    // 内存降级状态，仅在Redis熔断期间使用，所有访问在 acquireLocally 的锁内完成
+    // IP窗口在最后一次发送后 ip-window 到期，由时间轮清理，不会随不再出现的IP累积
+    private final ExpiringMap<String, Long> localCooldowns =
+            new ExpiringMap<>(LOCAL_MAX_COOLDOWNS, 1, TimeUnit.SECONDS, 128);
+    private final ExpiringMap<String, Deque<Long>> localIpWindows =
+            new ExpiringMap<>(LOCAL_MAX_IP_WINDOWS, 1, TimeUnit.SECONDS, 512);
+    private final Deque<Long> localGlobalWindow = new ArrayDeque<>();
+
+    public SendCodeRateLimiter(ObjectProvider<StringRedisTemplate> redisTemplate,
+                               RedisCircuitBreaker circuitBreaker,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        for (RateLimitResult.Reason reason : RateLimitResult.Reason.values()) {
+            counters.put(reason, Counter.builder("verification_code.rate_limit")
+                    .description("发送验证码限流判定次数")
+                    .tag("result", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 尝试占用一次发送配额，放行时同时记录冷却与窗口计数
+     */
+    public RateLimitResult tryAcquire(String email, String clientIp) {
+        RateLimitResult result = null;
+        if (circuitBreaker.allowRequest()) {
+            try {
+                result = acquireInRedis(email, clientIp);
+                circuitBreaker.recordSuccess();
+            } catch (Exception e) {
+                log.warn("Redis限流失败，降级到内存限流: {}", e.getMessage());
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        if (result == null) {
+            result = acquireLocally(email, clientIp);
+        }
+        counters.get(result.getReason()).increment();
+        return result;
+    }
+
+    private RateLimitResult acquireInRedis(String email, String clientIp) {
+        List<?> reply = AuthMetrics.time("auth.redis.command", () -> redisTemplate.execute(ACQUIRE_SCRIPT,
+                Arrays.asList(COOLDOWN_PREFIX + email, IP_PREFIX + clientIp, GLOBAL_KEY),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(emailCooldown.toMillis()),
+                String.valueOf(ipWindow.toMillis()),
+                String.valueOf(ipLimit),
+                String.valueOf(globalWindow.toMillis()),
+                String.valueOf(globalLimit),
+                UUID.randomUUID().toString()), "command", "ratelimit.acquire");
+        if (reply == null || reply.size() < 2) {
+            throw new IllegalStateException("限流脚本返回值异常: " + reply);
+        }
+        int code = ((Number) reply.get(0)).intValue();
+        long waitMillis = ((Number) reply.get(1)).longValue();
+        return toResult(code, waitMillis);
+    }
+
+    private synchronized RateLimitResult acquireLocally(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        Long cooldownUntil = localCooldowns.get(email);
+        if (cooldownUntil != null) {
+            return RateLimitResult.rejected(RateLimitResult.Reason.EMAIL_COOLDOWN, cooldownUntil - now);
+        }
+        Deque<Long> ipEvents = localIpWindows.get(clientIp);
+        if (ipEvents == null) {
+            ipEvents = new ArrayDeque<>();
+        }
+        long wait = windowWait(ipEvents, now, ipWindow.toMillis(), ipLimit);
+        if (wait > 0) {
+            return RateLimitResult.rejected(RateLimitResult.Reason.IP_LIMITED, wait);
+        }
+        wait = windowWait(localGlobalWindow, now, globalWindow.toMillis(), globalLimit);
+        if (wait > 0) {
+            return RateLimitResult.rejected(RateLimitResult.Reason.GLOBAL_LIMITED, wait);
+        }
+        localCooldowns.put(email, now + emailCooldown.toMillis(), emailCooldown.toMillis(), TimeUnit.MILLISECONDS);
+        ipEvents.addLast(now);
+        localIpWindows.put(clientIp, ipEvents, ipWindow.toMillis(), TimeUnit.MILLISECONDS);
+        localGlobalWindow.addLast(now);
+        localCooldowns.expire();
+        localIpWindows.expire();
+        return RateLimitResult.allowed();
+    }
+
+    /**
+     * Redis恢复后不再调用 acquireLocally，定时推进时间轮释放降级期间留下的条目
+     */
+    @Scheduled(fixedRate = 10000)
+    public void expireLocal() {
+        localCooldowns.expire();
+        localIpWindows.expire();
+    }
+
+    /**
+     * 清理窗口外的事件，窗口已满时返回需等待的毫秒数，否则返回0
+     */
+    private static long windowWait(Deque<Long> events, long now, long windowMillis, int limit) {
+        while (!events.isEmpty() && events.peekFirst() <= now - windowMillis) {
+            events.pollFirst();
+        }
+        if (events.size() < limit) {
+            return 0;
+        }
+        return Math.max(events.peekFirst() + windowMillis - now, 1);
+    }
+
+    private static RateLimitResult toResult(int code, long waitMillis) {
+        return switch (code) {
+            case 0 -> RateLimitResult.allowed();
+            case 1 -> RateLimitResult.rejected(RateLimitResult.Reason.EMAIL_COOLDOWN, waitMillis);
+            case 2 -> RateLimitResult.rejected(RateLimitResult.Reason.IP_LIMITED, waitMillis);
+            default -> RateLimitResult.rejected(RateLimitResult.Reason.GLOBAL_LIMITED, waitMillis);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.user.service.code;
+
+import java.time.Duration;
+
+/**
+ * 验证码存储抽象
+ * 负责验证码的保存与"比对即删除"，实现类需保证 verify 的原子性
+ */
+public interface VerificationCodeStore {
+
+    /**
+     * 保存验证码，同一邮箱的旧验证码及其尝试次数会被覆盖
+     */
+    void save(String email, String code, Duration ttl);
+
+    /**
+     * 原子地比对验证码：匹配则删除并返回 MATCHED，
+     * 不匹配则累加尝试次数，达到上限后删除并返回 ATTEMPTS_EXCEEDED
+     */
+    VerifyResult verify(String email, String code);
+
+    /**
+     * 删除验证码
+     */
+    void remove(String email);
+}
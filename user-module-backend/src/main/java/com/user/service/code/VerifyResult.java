@@ -0,0 +1,15 @@
+package com.user.service.code;
+
+/**
+ * 验证码比对结果
+ */
+public enum VerifyResult {
+    /** 验证码匹配，已被消费 */
+    MATCHED,
+    /** 验证码不匹配，尝试次数已累加 */
+    MISMATCHED,
+    /** 验证码不存在或已过期 */
+    NOT_FOUND,
+    /** 尝试次数达到上限，验证码已作废 */
+    ATTEMPTS_EXCEEDED
+}
@@ -0,0 +1,480 @@
+package com.user.service.credential;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 登录凭据目录：规范化的邮箱/昵称 -> (用户ID, 状态, BCrypt哈希, 盐)
+ * 全部数据放在四块堆外内存（direct ByteBuffer）中，不持有每个用户的 User/String/LocalDateTime 对象，GC只看到几个缓冲区：
+ * <ul>
+ *   <li>records：定长记录，每个用户一条，记录号即下标</li>
+ *   <li>keys：变长键区，每个键为 [记录号 int][长度 short][类型字节 + UTF-8]，键变化后旧键成为垃圾，重建时回收</li>
+ *   <li>keyTable / idTable：线性探测的开放寻址表，分别按键与按用户ID定位记录</li>
+ * </ul>
+ * 邮箱与昵称在同一张键表中，用类型字节区分，与数据库一样先按邮箱再按昵称查找。
+ * 读多写少，读写锁保护；删除的键留下墓碑，墓碑过多时原地重新散列
+ */
+public final class CredentialDirectory {
+    public static final int HASH_LENGTH = 60;
+    public static final int SALT_LENGTH = 32;
+
+    private static final byte EMAIL = 'E';
+    private static final byte NICKNAME = 'N';
+    private static final byte REMOVED = -1;
+
+    // 记录布局
+    private static final int ID = 0;
+    private static final int STATUS = 8;
+    private static final int EMAIL_KEY = 9;
+    private static final int NICKNAME_KEY = 13;
+    private static final int HASH = 17;
+    private static final int SALT = HASH + HASH_LENGTH;
+    private static final int RECORD_BYTES = SALT + SALT_LENGTH;
+
+    // 键表槽位：高32位为键的哈希，低32位为键在 keys 中的偏移；0=空，1=墓碑（键区从偏移8开始，不会与之冲突）
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = 1;
+    private static final int KEY_AREA_START = 8;
+    private static final int KEY_HEADER = 6;
+    // idTable 槽位：[用户ID long][记录号 int]，用户ID为0表示空
+    private static final int ID_SLOT_BYTES = 12;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer records;
+    private int recordCount;
+    private ByteBuffer keys;
+    private int keysUsed = KEY_AREA_START;
+    private long garbageKeyBytes;
+    private ByteBuffer keyTable;
+    private int keyMask;
+    private int liveKeys;
+    private int tombstones;
+    private ByteBuffer idTable;
+    private int idMask;
+    private int liveUsers;
+
+    public CredentialDirectory(int expectedUsers) {
+        int users = Math.max(expectedUsers, 1024);
+        records = ByteBuffer.allocateDirect(users * RECORD_BYTES);
+        keys = ByteBuffer.allocateDirect(users * 48);
+        int keySlots = tableSize(users * 2);
+        keyTable = ByteBuffer.allocateDirect(keySlots * Long.BYTES);
+        keyMask = keySlots - 1;
+        int idSlots = tableSize(users);
+        idTable = ByteBuffer.allocateDirect(idSlots * ID_SLOT_BYTES);
+        idMask = idSlots - 1;
+    }
+
+    /**
+     * 与数据库的 utf8mb4_unicode_ci 比较近似：去除首尾空白并转小写；不完全一致时只会导致目录未命中而回源数据库
+     */
+    public static String normalize(String key) {
+        return key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 先按邮箱再按昵称查找，未命中返回null
+     */
+    public Credential lookup(String username) {
+        String normalized = normalize(username);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        byte[] email = keyBytes(EMAIL, normalized);
+        byte[] nickname = keyBytes(NICKNAME, normalized);
+        lock.readLock().lock();
+        try {
+            int record = findKey(email);
+            if (record < 0) {
+                record = findKey(nickname);
+            }
+            return record < 0 ? null : readRecord(record);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 插入或更新一个用户；null 字段保持原值。用户尚不在目录中且缺少哈希、盐或状态时忽略，由下一次扫描补上。
+     * 哈希或盐长度不符合BCrypt/UUID格式的用户不放入目录，登录时回源数据库
+     */
+    public void put(long userId, String email, String nickname, Byte status, String passwordHash, String passwordSalt) {
+        if ((passwordHash != null && !isAscii(passwordHash, HASH_LENGTH))
+                || (passwordSalt != null && !isAscii(passwordSalt, SALT_LENGTH))) {
+            remove(userId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int record = findId(userId);
+            if (record < 0 || records.get(record * RECORD_BYTES + STATUS) == REMOVED) {
+                if (status == null || passwordHash == null || passwordSalt == null) {
+                    return;
+                }
+                if (record < 0) {
+                    record = newRecord(userId);
+                }
+                liveUsers++;
+            }
+            int base = record * RECORD_BYTES;
+            if (status != null) {
+                records.put(base + STATUS, status);
+            }
+            if (passwordHash != null) {
+                records.put(base + HASH, passwordHash.getBytes(StandardCharsets.US_ASCII));
+            }
+            if (passwordSalt != null) {
+                records.put(base + SALT, passwordSalt.getBytes(StandardCharsets.US_ASCII));
+            }
+            if (email != null) {
+                replaceKey(record, EMAIL_KEY, keyBytes(EMAIL, normalize(email)));
+            }
+            if (nickname != null) {
+                replaceKey(record, NICKNAME_KEY, keyBytes(NICKNAME, normalize(nickname)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            int record = findId(userId);
+            if (record < 0 || records.get(record * RECORD_BYTES + STATUS) == REMOVED) {
+                return;
+            }
+            replaceKey(record, EMAIL_KEY, null);
+            replaceKey(record, NICKNAME_KEY, null);
+            records.put(record * RECORD_BYTES + STATUS, REMOVED);
+            liveUsers--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveUsers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 四块堆外缓冲区的已分配容量
+     */
+    public long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) records.capacity() + keys.capacity() + keyTable.capacity() + idTable.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 键区中因键变化或删除而不再被引用的字节占比，过高时应重建
+     */
+    public double garbageRatio() {
+        lock.readLock().lock();
+        try {
+            return (double) garbageKeyBytes / keysUsed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Credential readRecord(int record) {
+        int base = record * RECORD_BYTES;
+        byte status = records.get(base + STATUS);
+        byte[] hash = new byte[HASH_LENGTH];
+        byte[] salt = new byte[SALT_LENGTH];
+        records.get(base + HASH, hash);
+        records.get(base + SALT, salt);
+        return new Credential(records.getLong(base + ID), status,
+                new String(hash, StandardCharsets.US_ASCII), new String(salt, StandardCharsets.US_ASCII));
+    }
+
+    private int newRecord(long userId) {
+        if ((long) (recordCount + 1) * RECORD_BYTES > records.capacity()) {
+            records = grow(records, (long) records.capacity() * 2);
+        }
+        int record = recordCount++;
+        int base = record * RECORD_BYTES;
+        records.putLong(base + ID, userId);
+        records.putInt(base + EMAIL_KEY, EMPTY);
+        records.putInt(base + NICKNAME_KEY, EMPTY);
+        putId(userId, record);
+        return record;
+    }
+
+    /**
+     * 把记录的某个键替换为 key（null 或只有类型字节表示去掉该键）；键已被其他用户占用时覆盖其指向
+     */
+    private void replaceKey(int record, int field, byte[] key) {
+        int base = record * RECORD_BYTES;
+        int oldOffset = records.getInt(base + field);
+        if (oldOffset != EMPTY) {
+            if (key != null && keyEquals(oldOffset, key)) {
+                return;
+            }
+            removeKey(oldOffset);
+            records.putInt(base + field, EMPTY);
+        }
+        if (key == null || key.length == 1) {
+            return;
+        }
+        int hash = hash(key);
+        int slot = locate(key, hash);
+        long existing = keyTable.getLong(slot * Long.BYTES);
+        if ((int) existing > TOMBSTONE) {
+            // 唯一键在数据库中已转移给本用户（另一用户改名后本用户取用），先解除旧用户的引用
+            int previousOwner = keys.getInt((int) existing);
+            int previousBase = previousOwner * RECORD_BYTES;
+            if (records.getInt(previousBase + EMAIL_KEY) == (int) existing) {
+                records.putInt(previousBase + EMAIL_KEY, EMPTY);
+            } else if (records.getInt(previousBase + NICKNAME_KEY) == (int) existing) {
+                records.putInt(previousBase + NICKNAME_KEY, EMPTY);
+            }
+            garbageKeyBytes += KEY_HEADER + keys.getShort((int) existing + 4);
+            liveKeys--;
+        } else if ((int) existing == TOMBSTONE) {
+            tombstones--;
+        }
+        int offset = appendKey(record, key);
+        keyTable.putLong(slot * Long.BYTES, ((long) hash << 32) | (offset & 0xFFFFFFFFL));
+        records.putInt(base + field, offset);
+        liveKeys++;
+        if ((liveKeys + tombstones) * 2 > keyMask + 1) {
+            rehashKeys(liveKeys * 2 > keyMask + 1 ? (keyMask + 1) * 2 : keyMask + 1);
+        }
+    }
+
+    /**
+     * 键已存在时返回其槽位，否则返回可插入的槽位（优先复用探测路径上的第一个墓碑）
+     */
+    private int locate(byte[] key, int hash) {
+        int firstTombstone = -1;
+        for (int slot = hash & keyMask; ; slot = (slot + 1) & keyMask) {
+            long value = keyTable.getLong(slot * Long.BYTES);
+            int offset = (int) value;
+            if (offset == EMPTY) {
+                return firstTombstone >= 0 ? firstTombstone : slot;
+            }
+            if (offset == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = slot;
+                }
+            } else if ((int) (value >>> 32) == hash && keyEquals(offset, key)) {
+                return slot;
+            }
+        }
+    }
+
+    private int findKey(byte[] key) {
+        int hash = hash(key);
+        for (int slot = hash & keyMask; ; slot = (slot + 1) & keyMask) {
+            long value = keyTable.getLong(slot * Long.BYTES);
+            int offset = (int) value;
+            if (offset == EMPTY) {
+                return -1;
+            }
+            if (offset != TOMBSTONE && (int) (value >>> 32) == hash && keyEquals(offset, key)) {
+                return keys.getInt(offset);
+            }
+        }
+    }
+
+    private void removeKey(int offset) {
+        int length = keys.getShort(offset + 4);
+        byte[] key = new byte[length];
+        keys.get(offset + KEY_HEADER, key);
+        for (int slot = hash(key) & keyMask; ; slot = (slot + 1) & keyMask) {
+            int value = (int) keyTable.getLong(slot * Long.BYTES);
+            if (value == EMPTY) {
+                return;
+            }
+            if (value == offset) {
+                keyTable.putLong(slot * Long.BYTES, TOMBSTONE);
+                tombstones++;
+                liveKeys--;
+                garbageKeyBytes += KEY_HEADER + length;
+                return;
+            }
+        }
+    }
+
+    private void rehashKeys(int slots) {
+        ByteBuffer old = keyTable;
+        int oldSlots = keyMask + 1;
+        keyTable = ByteBuffer.allocateDirect(slots * Long.BYTES);
+        keyMask = slots - 1;
+        tombstones = 0;
+        for (int i = 0; i < oldSlots; i++) {
+            long value = old.getLong(i * Long.BYTES);
+            if ((int) value > TOMBSTONE) {
+                int slot = (int) (value >>> 32) & keyMask;
+                while (keyTable.getLong(slot * Long.BYTES) != 0) {
+                    slot = (slot + 1) & keyMask;
+                }
+                keyTable.putLong(slot * Long.BYTES, value);
+            }
+        }
+    }
+
+    private int appendKey(int record, byte[] key) {
+        int needed = KEY_HEADER + key.length;
+        if (keysUsed + needed > keys.capacity()) {
+            keys = grow(keys, Math.max((long) keys.capacity() * 2, (long) keysUsed + needed));
+        }
+        int offset = keysUsed;
+        keys.putInt(offset, record);
+        keys.putShort(offset + 4, (short) key.length);
+        keys.put(offset + KEY_HEADER, key);
+        keysUsed += needed;
+        return offset;
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (keys.getShort(offset + 4) != key.length) {
+            return false;
+        }
+        int start = offset + KEY_HEADER;
+        for (int i = 0; i < key.length; i++) {
+            if (keys.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findId(long userId) {
+        for (int slot = mix(userId) & idMask; ; slot = (slot + 1) & idMask) {
+            long id = idTable.getLong(slot * ID_SLOT_BYTES);
+            if (id == 0) {
+                return -1;
+            }
+            if (id == userId) {
+                return idTable.getInt(slot * ID_SLOT_BYTES + Long.BYTES);
+            }
+        }
+    }
+
+    private void putId(long userId, int record) {
+        if (recordCount * 2 > idMask + 1) {
+            ByteBuffer old = idTable;
+            int oldSlots = idMask + 1;
+            idTable = ByteBuffer.allocateDirect(oldSlots * 2 * ID_SLOT_BYTES);
+            idMask = oldSlots * 2 - 1;
+            for (int i = 0; i < oldSlots; i++) {
+                long id = old.getLong(i * ID_SLOT_BYTES);
+                if (id != 0) {
+                    insertId(id, old.getInt(i * ID_SLOT_BYTES + Long.BYTES));
+                }
+            }
+        }
+        insertId(userId, record);
+    }
+
+    private void insertId(long userId, int record) {
+        int slot = mix(userId) & idMask;
+        while (idTable.getLong(slot * ID_SLOT_BYTES) != 0) {
+            slot = (slot + 1) & idMask;
+        }
+        idTable.putLong(slot * ID_SLOT_BYTES, userId);
+        idTable.putInt(slot * ID_SLOT_BYTES + Long.BYTES, record);
+    }
+
+    /**
+     * 单块缓冲区上限2GB（约1900万用户的记录区）
+     */
+    private static ByteBuffer grow(ByteBuffer buffer, long capacity) {
+        if (capacity > Integer.MAX_VALUE) {
+            capacity = Integer.MAX_VALUE - 8;
+            if (capacity <= buffer.capacity()) {
+                throw new IllegalStateException("凭据目录超过单块缓冲区上限");
+            }
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+        grown.put(0, buffer, 0, buffer.capacity());
+        return grown;
+    }
+
+    private static byte[] keyBytes(byte type, String normalized) {
+        byte[] text = normalized.getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[text.length + 1];
+        key[0] = type;
+        System.arraycopy(text, 0, key, 1, text.length);
+        return key;
+    }
+
+    // FNV-1a，再做一次混合使低位分布均匀
+    private static int hash(byte[] key) {
+        int h = 0x811C9DC5;
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(entries * 2 - 1, 16)) << 1;
+    }
+
+    private static boolean isAscii(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 目录中的一条凭据
+     */
+    public static final class Credential {
+        private final long userId;
+        private final byte status;
+        private final String passwordHash;
+        private final String passwordSalt;
+
+        Credential(long userId, byte status, String passwordHash, String passwordSalt) {
+            this.userId = userId;
+            this.status = status;
+            this.passwordHash = passwordHash;
+            this.passwordSalt = passwordSalt;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+
+        public String getPasswordHash() {
+            return passwordHash;
+        }
+
+        public String getPasswordSalt() {
+            return passwordSalt;
+        }
+    }
+}
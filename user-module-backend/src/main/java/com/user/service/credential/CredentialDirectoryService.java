@@ -0,0 +1,274 @@
+package com.user.service.credential;
+
+import com.user.entity.User;
+import com.user.mapper.UserMapper;
+import com.user.sharding.ShardRouter;
+import com.user.util.AuthMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 登录凭据目录（可选，app.credential-directory.enabled）：登录时按邮箱/昵称查找用户不再查询数据库
+ * 启动完成后在后台按主键分批扫描 user 表加载；本节点的注册、重置密码与资料修改在事务提交后立即更新目录；
+ * 其他节点的修改由按 updated_at 的增量扫描同步，扫描起点回退 catch-up-overlap 以覆盖晚提交的事务；开启分片时逐个分片扫描。
+ * 目录只用于定位用户与校验密码，不是权威数据：未命中时回源数据库，密码校验通过后仍按主键读取完整资料并核对哈希，
+ * 因此目录过期最多导致其他节点刚修改的新密码在同步前被拒绝，不会放行旧密码
+ */
+@Service
+@Slf4j
+public class CredentialDirectoryService {
+    private static final double REBUILD_GARBAGE_RATIO = 0.5;
+
+    private final UserMapper userMapper;
+    private final ShardRouter shardRouter;
+    private final ScheduledExecutorService loader;
+    private final boolean enabled;
+    private final int scanBatch;
+    private final int expectedUsers;
+    private final Duration catchUpInterval;
+    private final Duration catchUpOverlap;
+    private final Duration rebuildInterval;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile CredentialDirectory directory;
+    private volatile boolean ready;
+    // 以下字段由 this 保护
+    private LocalDateTime lastUpdatedAt;
+    private List<Consumer<CredentialDirectory>> rebuildLog;
+
+    public CredentialDirectoryService(UserMapper userMapper,
+                                      ShardRouter shardRouter,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.credential-directory.enabled:false}") boolean enabled,
+                                      @Value("${app.credential-directory.scan-batch:1000}") int scanBatch,
+                                      @Value("${app.credential-directory.expected-users:100000}") int expectedUsers,
+                                      @Value("${app.credential-directory.catch-up-interval:5s}") Duration catchUpInterval,
+                                      @Value("${app.credential-directory.catch-up-overlap:10s}") Duration catchUpOverlap,
+                                      @Value("${app.credential-directory.rebuild-interval:6h}") Duration rebuildInterval) {
+        this.userMapper = userMapper;
+        this.shardRouter = shardRouter;
+        this.loader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "credential-directory-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.enabled = enabled;
+        this.scanBatch = scanBatch;
+        this.expectedUsers = expectedUsers;
+        this.catchUpInterval = catchUpInterval;
+        this.catchUpOverlap = catchUpOverlap;
+        this.rebuildInterval = rebuildInterval;
+        this.directory = new CredentialDirectory(enabled ? expectedUsers : 0);
+        Gauge.builder("user.credential.directory.users", this, service -> service.directory.size())
+                .description("凭据目录中的用户数")
+                .register(meterRegistry);
+        Gauge.builder("user.credential.directory.bytes", this, service -> service.directory.allocatedBytes())
+                .description("凭据目录占用的堆外内存")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        loader.execute(this::rebuild);
+        loader.scheduleWithFixedDelay(this::catchUp, catchUpInterval.toMillis(), catchUpInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        if (!rebuildInterval.isZero()) {
+            loader.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis(), rebuildInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 按邮箱或昵称查找登录凭据；目录未开启、未加载完成或未命中时返回null，调用方回源数据库。
+     * 返回的 User 只填充 id、status、passwordHash、passwordSalt
+     */
+    public User find(String username) {
+        if (!ready) {
+            return null;
+        }
+        CredentialDirectory.Credential credential = AuthMetrics.time("auth.credential.lookup",
+                () -> directory.lookup(username), found -> found != null ? "hit" : "miss", "source", "directory");
+        if (credential == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(credential.getUserId());
+        user.setStatus(credential.getStatus());
+        user.setPasswordHash(credential.getPasswordHash());
+        user.setPasswordSalt(credential.getPasswordSalt());
+        return user;
+    }
+
+    /**
+     * 新用户写入或从数据库读到最新资料后调用（事务内调用时在提交后生效）
+     */
+    public void onSaved(User user) {
+        if (enabled && user.getId() != null) {
+            afterCommit(() -> apply(target -> put(target, user)));
+        }
+    }
+
+    /**
+     * 用户资料更新后调用，只合并非空字段（重置密码时为新的哈希与盐）
+     */
+    public void onUpdated(User user) {
+        onSaved(user);
+    }
+
+    public void onDeleted(Long userId) {
+        if (enabled && userId != null) {
+            afterCommit(() -> apply(target -> target.remove(userId)));
+        }
+    }
+
+    /**
+     * 读取 updated_at 不早于上次位置减去 catch-up-overlap 的用户；键区垃圾过多时改为整体重建
+     */
+    void catchUp() {
+        if (!ready || rebuilding.get()) {
+            return;
+        }
+        if (directory.garbageRatio() > REBUILD_GARBAGE_RATIO) {
+            rebuild();
+            return;
+        }
+        try {
+            LocalDateTime from;
+            synchronized (this) {
+                from = lastUpdatedAt.minus(catchUpOverlap);
+            }
+            LocalDateTime newest = from;
+            int updated = 0;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                LocalDateTime since = from;
+                long afterId = 0;
+                List<User> batch;
+                do {
+                    LocalDateTime cursor = since;
+                    long cursorId = afterId;
+                    batch = shardRouter.on(shard,
+                            () -> userMapper.scanCredentialsUpdatedSince(cursor, cursorId, scanBatch));
+                    for (User user : batch) {
+                        apply(target -> put(target, user));
+                        since = user.getUpdatedAt();
+                        afterId = user.getId();
+                        if (since.isAfter(newest)) {
+                            newest = since;
+                        }
+                    }
+                    updated += batch.size();
+                } while (batch.size() == scanBatch);
+            }
+            synchronized (this) {
+                if (newest.isAfter(lastUpdatedAt)) {
+                    lastUpdatedAt = newest;
+                }
+            }
+            log.debug("凭据目录增量扫描: {}个用户", updated);
+        } catch (Exception e) {
+            log.warn("凭据目录增量扫描失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在新目录上全量加载，期间的增量操作记录下来，加载完成后重放并替换当前目录
+     */
+    void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            rebuildLog = new ArrayList<>();
+        }
+        try {
+            CredentialDirectory fresh = new CredentialDirectory(Math.max(expectedUsers, directory.size()));
+            LocalDateTime newest = LocalDateTime.MIN;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                long afterId = 0;
+                List<User> batch;
+                do {
+                    long cursor = afterId;
+                    batch = shardRouter.on(shard, () -> userMapper.scanCredentials(cursor, scanBatch));
+                    for (User user : batch) {
+                        put(fresh, user);
+                        afterId = user.getId();
+                        if (user.getUpdatedAt() != null && user.getUpdatedAt().isAfter(newest)) {
+                            newest = user.getUpdatedAt();
+                        }
+                    }
+                } while (batch.size() == scanBatch);
+            }
+            synchronized (this) {
+                rebuildLog.forEach(op -> op.accept(fresh));
+                rebuildLog = null;
+                directory = fresh;
+                if (lastUpdatedAt == null || newest.isAfter(lastUpdatedAt)) {
+                    lastUpdatedAt = newest == LocalDateTime.MIN ? LocalDateTime.now() : newest;
+                }
+                ready = true;
+            }
+            log.info("凭据目录加载完成: users={}, 堆外约{}KB, 耗时{}ms", fresh.size(), fresh.allocatedBytes() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            synchronized (this) {
+                rebuildLog = null;
+            }
+            log.error("凭据目录加载失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private synchronized void apply(Consumer<CredentialDirectory> operation) {
+        operation.accept(directory);
+        if (rebuildLog != null) {
+            rebuildLog.add(operation);
+        }
+    }
+
+    private static void put(CredentialDirectory target, User user) {
+        target.put(user.getId(), user.getEmail(), user.getNickname(), user.getStatus(),
+                user.getPasswordHash(), user.getPasswordSalt());
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.user.service.outbox;
+
+import com.user.entity.OutboxEvent;
+import com.user.mapper.OutboxMapper;
+import com.user.service.RedisCircuitBreaker;
+import com.user.sharding.ShardRouter;
+import com.user.util.AuthMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 发件箱中继：按主键顺序批量读取 user_outbox 中未投递的事件，用一个pipeline XADD到Redis Stream，再用一条UPDATE批量标记已投递
+ * 同一时刻只有持有Redis租约的节点在中继，单线程按id顺序发布，因此同一用户的事件在Stream中保持写入顺序。
+ * 至少一次投递：XADD成功而标记失败、或租约在批次中途易主时，事件会被再次发布，
+ * 消费者按 userId 记录已处理的最大 eventId，丢弃不大于它的事件即可去重。
+ * 自增id在事务提交前就已分配，小id的事务可能晚提交；遇到id空洞时只发布空洞之前的事件，
+ * 空洞之后的事件写入超过 settle-time 仍未补齐（事务回滚留下的空洞）才越过，避免同一用户的事件乱序。
+ * 开启分片时每个分片的 user_outbox 各自有自增id，中继逐个分片发布并分别记录位置；
+ * 同一用户的事件都在其所在分片，eventId 对同一用户仍然递增，消费者的去重方式不变
+ */
+@Component
+@ConditionalOnProperty(name = {"app.redis.enabled", "app.outbox.enabled"}, havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+    private static final String LEASE_KEY = "outbox:relay:lease";
+
+    // 租约不存在时获取，属于自己时续期；返回1表示持有租约
+    private static final RedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1]) " +
+            "if owner == false then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end " +
+            "if owner == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end " +
+            "return 0",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final OutboxMapper outboxMapper;
+    private final ShardRouter shardRouter;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ScheduledExecutorService relay;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final String stream;
+    private final long streamMaxLength;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration settleTime;
+    private final Duration lease;
+    private final Duration retention;
+    private final int purgeBatch;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Counter published;
+    private final Timer batchTimer;
+    private final Timer lagTimer;
+
+    // 按分片记录最早的未投递事件的写入时间，0表示没有积压
+    private final AtomicLongArray oldestPendingCreatedAt;
+
+    // 以下字段只在中继线程上访问
+    private final Long[] lastPublishedId;
+    private long nextPurgeAt;
+    private volatile boolean leader;
+
+    public OutboxRelay(OutboxMapper outboxMapper,
+                       ShardRouter shardRouter,
+                       StringRedisTemplate redisTemplate,
+                       RedisCircuitBreaker circuitBreaker,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.stream:user:events}") String stream,
+                       @Value("${app.outbox.stream-max-length:1000000}") long streamMaxLength,
+                       @Value("${app.outbox.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.poll-interval:200ms}") Duration pollInterval,
+                       @Value("${app.outbox.settle-time:2s}") Duration settleTime,
+                       @Value("${app.outbox.lease:10s}") Duration lease,
+                       @Value("${app.outbox.retention:1d}") Duration retention,
+                       @Value("${app.outbox.purge-batch:5000}") int purgeBatch) {
+        this.outboxMapper = outboxMapper;
+        this.shardRouter = shardRouter;
+        this.lastPublishedId = new Long[shardRouter.shardCount()];
+        this.oldestPendingCreatedAt = new AtomicLongArray(shardRouter.shardCount());
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.relay = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.stream = stream;
+        this.streamMaxLength = streamMaxLength;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.settleTime = settleTime;
+        this.lease = lease;
+        this.retention = retention;
+        this.purgeBatch = purgeBatch;
+        this.published = Counter.builder("user.outbox.published")
+                .description("已发布到Redis Stream的用户事件数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("user.outbox.batch")
+                .description("一批事件的XADD与标记已投递耗时")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("user.outbox.lag")
+                .description("事件从写入发件箱到发布的延迟")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        Gauge.builder("user.outbox.pending.age", this, OutboxRelay::pendingAgeSeconds)
+                .description("最早的未投递事件已等待的秒数（非中继节点为0）")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("user.outbox.leader", this, r -> r.leader ? 1 : 0)
+                .description("本节点是否持有中继租约")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        relay.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relay.shutdownNow();
+        if (leader) {
+            try {
+                // 释放租约，其他节点无需等待过期即可接手
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY), nodeId);
+            } catch (Exception e) {
+                log.debug("释放发件箱中继租约失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 持有租约期间逐个分片连续发布满批，直到积压清空；一个分片失败不影响其他分片
+     */
+    void poll() {
+        if (!circuitBreaker.allowRequest() || !holdLease()) {
+            return;
+        }
+        for (int shard = 0; shard < lastPublishedId.length && leader; shard++) {
+            int current = shard;
+            try {
+                int count;
+                do {
+                    count = shardRouter.on(current, () -> relayBatch(current));
+                } while (count == batchSize && holdLease());
+            } catch (Exception e) {
+                log.warn("发件箱中继失败，下次轮询重试: shard={}, {}", current, e.getMessage());
+            }
+        }
+        try {
+            if (leader) {
+                purgeIfDue();
+            }
+        } catch (Exception e) {
+            log.warn("清理已投递的发件箱事件失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean holdLease() {
+        boolean held;
+        try {
+            Long result = AuthMetrics.time("auth.redis.command",
+                    () -> redisTemplate.execute(LEASE_SCRIPT, List.of(LEASE_KEY), nodeId, String.valueOf(lease.toMillis())),
+                    "command", "outbox.lease");
+            circuitBreaker.recordSuccess();
+            held = Long.valueOf(1).equals(result);
+        } catch (Exception e) {
+            circuitBreaker.recordFailure(e);
+            held = false;
+        }
+        if (held != leader) {
+            log.info(held ? "获得发件箱中继租约" : "失去发件箱中继租约");
+            leader = held;
+        }
+        if (!held) {
+            // 其他节点接手期间发布的位置本节点不知道，重新持有租约后第一条事件按 settle-time 判断
+            Arrays.fill(lastPublishedId, null);
+            for (int shard = 0; shard < oldestPendingCreatedAt.length(); shard++) {
+                oldestPendingCreatedAt.set(shard, 0);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * @return 本批读取的行数（不是发布数），满批表示可能还有积压
+     */
+    private int relayBatch(int shard) {
+        List<OutboxEvent> rows = outboxMapper.findUndelivered(batchSize);
+        long now = System.currentTimeMillis();
+        oldestPendingCreatedAt.set(shard, rows.isEmpty() ? 0 : epochMillis(rows.get(0).getCreatedAt()));
+        List<OutboxEvent> ready = publishable(rows, lastPublishedId[shard], now);
+        if (ready.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            publish(ready);
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            throw e;
+        }
+        List<Long> ids = new ArrayList<>(ready.size());
+        for (OutboxEvent event : ready) {
+            ids.add(event.getId());
+        }
+        outboxMapper.markDelivered(ids, LocalDateTime.now());
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        long publishedAt = System.currentTimeMillis();
+        for (OutboxEvent event : ready) {
+            lagTimer.record(Math.max(0, publishedAt - epochMillis(event.getCreatedAt())), TimeUnit.MILLISECONDS);
+        }
+        published.increment(ready.size());
+        lastPublishedId[shard] = ready.get(ready.size() - 1).getId();
+        oldestPendingCreatedAt.set(shard,
+                ready.size() < rows.size() ? epochMillis(rows.get(ready.size()).getCreatedAt()) : 0);
+        return ready.size() < rows.size() ? 0 : rows.size();
+    }
+
+    /**
+     * 从头取到第一个尚未稳定的id空洞为止
+     */
+    private List<OutboxEvent> publishable(List<OutboxEvent> rows, Long previousId, long now) {
+        long settledBefore = now - settleTime.toMillis();
+        int end = 0;
+        for (OutboxEvent row : rows) {
+            boolean contiguous = previousId != null && row.getId() == previousId + 1;
+            if (!contiguous && epochMillis(row.getCreatedAt()) > settledBefore) {
+                break;
+            }
+            previousId = row.getId();
+            end++;
+        }
+        return rows.subList(0, end);
+    }
+
+    private void publish(List<OutboxEvent> events) {
+        RedisStreamCommands.XAddOptions options = RedisStreamCommands.XAddOptions.maxlen(streamMaxLength)
+                .approximateTrimming(true);
+        AuthMetrics.time("auth.redis.command", () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection commands = (StringRedisConnection) connection;
+            for (OutboxEvent event : events) {
+                Map<String, String> fields = new LinkedHashMap<>();
+                fields.put("eventId", String.valueOf(event.getId()));
+                fields.put("userId", String.valueOf(event.getUserId()));
+                fields.put("type", event.getEventType());
+                fields.put("payload", event.getPayload());
+                fields.put("occurredAt", String.valueOf(epochMillis(event.getCreatedAt())));
+                commands.xAdd(StreamRecords.string(fields).withStreamKey(stream), options);
+            }
+            return null;
+        }), "command", "outbox.xadd");
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextPurgeAt) {
+            return;
+        }
+        nextPurgeAt = now + Math.min(retention.toMillis(), TimeUnit.MINUTES.toMillis(1));
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int total = 0;
+        for (int shard = 0; shard < lastPublishedId.length; shard++) {
+            int current = shard;
+            int purged;
+            do {
+                purged = shardRouter.on(current, () -> outboxMapper.purgeDelivered(before, purgeBatch));
+                total += purged;
+            } while (purged == purgeBatch);
+        }
+        if (total > 0) {
+            log.debug("清理已投递的发件箱事件: {}条", total);
+        }
+    }
+
+    private double pendingAgeSeconds() {
+        long oldest = 0;
+        for (int shard = 0; shard < oldestPendingCreatedAt.length(); shard++) {
+            long createdAt = oldestPendingCreatedAt.get(shard);
+            if (createdAt != 0 && (oldest == 0 || createdAt < oldest)) {
+                oldest = createdAt;
+            }
+        }
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private long epochMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,88 @@
+package com.user.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.entity.OutboxEvent;
+import com.user.entity.User;
+import com.user.exception.BusinessException;
+import com.user.mapper.OutboxMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 用户事件发件箱：事件与业务修改在同一个事务中写入 user_outbox，事务回滚则事件一并消失；
+ * 发布到下游由 OutboxRelay 异步完成。
+ * 载荷只包含下游缓存需要的资料字段（昵称、头像URL、国家、性别、状态），不含邮箱、密码与头像base64
+ */
+@Component
+public class UserEventOutbox {
+    private final OutboxMapper outboxMapper;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public UserEventOutbox(OutboxMapper outboxMapper,
+                           ObjectMapper objectMapper,
+                           @Value("${app.outbox.enabled:true}") boolean enabled) {
+        this.outboxMapper = outboxMapper;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 必须在调用方的事务中调用
+     *
+     * @param snapshot 本次写入的用户字段，null 表示事件不带载荷
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long userId, UserEventType type, User snapshot) {
+        if (enabled) {
+            outboxMapper.insert(newEvent(userId, type, snapshot));
+        }
+    }
+
+    /**
+     * 组装待写入的事件，响应式实现自行通过R2DBC写入
+     */
+    public OutboxEvent newEvent(Long userId, UserEventType type, User snapshot) {
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(userId);
+        event.setEventType(type.name());
+        event.setPayload(payload(snapshot));
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+
+    private String payload(User snapshot) {
+        if (snapshot == null) {
+            return "{}";
+        }
+        // update 只写入非空字段，载荷同样只带非空字段
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putIfPresent(fields, "nickname", snapshot.getNickname());
+        putIfPresent(fields, "avatarUrl", snapshot.getAvatarUrl());
+        putIfPresent(fields, "country", snapshot.getCountry());
+        putIfPresent(fields, "gender", snapshot.getGender());
+        putIfPresent(fields, "status", snapshot.getStatus());
+        try {
+            return objectMapper.writeValueAsString(fields);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(500, "序列化用户事件失败", e);
+        }
+    }
+
+    private static void putIfPresent(Map<String, Object> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.user.service.outbox;
+
+/**
+ * 写入 user_outbox 并由 OutboxRelay 发布到 Redis Stream 的用户生命周期事件
+ */
+public enum UserEventType {
+    REGISTERED,
+    PROFILE_UPDATED,
+    PASSWORD_RESET,
+    LOGGED_OUT,
+    DELETED
+}
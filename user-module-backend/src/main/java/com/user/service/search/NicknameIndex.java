@@ -0,0 +1,415 @@
+package com.user.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 昵称的二元组（bigram）倒排索引
+ * 昵称先归一化（NFKC、小写、只保留字母和数字），按码点切成相邻两字符的gram，每个gram对应一个按文档号递增的int数组；
+ * 开头额外补一个起始标记，单字符查询只走该gram（前缀匹配）。
+ * 查询时对各gram的倒排表求交得到子串候选，再逐个校验；结果不足时做模糊匹配：
+ * 编辑距离不超过k的子串至少保留 G-2k 个gram，只需合并最稀疏的 2k+1 个倒排表取候选，再用近似子串编辑距离校验。
+ * 改名或删除只把旧文档标记为删除，由整体重建回收；读写由读写锁保护，写入（注册、改名）远少于查询
+ */
+public class NicknameIndex {
+    private static final char START = '\u0002';
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int TIER_EXACT = 0;
+    private static final int TIER_PREFIX = 1;
+    private static final int TIER_SUBSTRING = 2;
+    private static final int TIER_FUZZY = 3;
+    private static final Postings NONE = new Postings();
+
+    private final int maxFuzzyCandidates;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByUser = new HashMap<>();
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private String[] nicknames = new String[INITIAL_CAPACITY];
+    private String[] normalized = new String[INITIAL_CAPACITY];
+    private int docs;
+    private int deleted;
+
+    /**
+     * @param maxFuzzyCandidates 模糊匹配最多校验的候选数，限制常见gram导致的最坏查询耗时
+     */
+    public NicknameIndex(int maxFuzzyCandidates) {
+        this.maxFuzzyCandidates = maxFuzzyCandidates;
+    }
+
+    /**
+     * 归一化：NFKC（全角转半角等）、小写、去掉空白与标点
+     */
+    public static String normalize(String nickname) {
+        if (nickname == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(nickname, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(folded.length());
+        folded.codePoints().filter(Character::isLetterOrDigit).forEach(sb::appendCodePoint);
+        return sb.toString();
+    }
+
+    /**
+     * 新增或更新用户的昵称
+     */
+    public void put(long userId, String nickname) {
+        if (nickname == null) {
+            remove(userId);
+            return;
+        }
+        String norm = normalize(nickname);
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByUser.get(userId);
+            if (existing != null) {
+                if (nickname.equals(nicknames[existing])) {
+                    return;
+                }
+                delete(existing);
+            }
+            if (norm.isEmpty()) {
+                return;
+            }
+            int doc = append(userId, nickname, norm);
+            docByUser.put(userId, doc);
+            for (String gram : grams(START + norm)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByUser.remove(userId);
+            if (existing != null) {
+                delete(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 排序规则：完全相同 > 前缀 > 子串 > 模糊（按编辑距离），同级按昵称长度、用户ID升序
+     *
+     * @param limit 最多返回的条数（分页时为 offset + size）
+     */
+    public Result search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new Result(0, List.of());
+        }
+        int[] qPoints = q.codePoints().toArray();
+        int maxEdits = qPoints.length <= 3 ? 0 : qPoints.length <= 6 ? 1 : 2;
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.reverseOrder());
+        int total = 0;
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            if (qPoints.length == 1) {
+                lists.add(postings.getOrDefault(START + q, NONE));
+            } else {
+                for (String gram : new HashSet<>(grams(q))) {
+                    lists.add(postings.getOrDefault(gram, NONE));
+                }
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Set<Integer> matched = new HashSet<>();
+            Postings rarest = lists.get(0);
+            for (int i = 0; i < rarest.size; i++) {
+                int doc = rarest.docs[i];
+                if (normalized[doc] == null || !containsAll(lists, doc, 1)) {
+                    continue;
+                }
+                String norm = normalized[doc];
+                int tier = norm.equals(q) ? TIER_EXACT
+                        : norm.startsWith(q) ? TIER_PREFIX
+                        : norm.contains(q) ? TIER_SUBSTRING : -1;
+                if (tier >= 0) {
+                    matched.add(doc);
+                    total++;
+                    offer(top, new Hit(doc, tier, 0, norm.length(), userIds[doc]), limit);
+                }
+            }
+
+            if (maxEdits > 0 && total < limit) {
+                total += fuzzy(qPoints, lists, maxEdits, matched, top, limit);
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(Comparator.naturalOrder());
+            List<Match> matches = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                matches.add(new Match(userIds[hit.doc], nicknames[hit.doc], hit.distance));
+            }
+            return new Result(total, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已标记删除的文档占比，超过一定比例时应整体重建
+     */
+    public double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            return docs == 0 ? 0 : (double) deleted / docs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 粗略估计的堆占用：文档数组、昵称字符串、倒排表数组以及两个HashMap的条目
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 3L * (16 + 8L * userIds.length);
+            for (int doc = 0; doc < docs; doc++) {
+                if (nicknames[doc] != null) {
+                    bytes += 2 * (40 + 2L * nicknames[doc].length());
+                }
+            }
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                bytes += 48 + 2L * entry.getKey().length() + 32 + 16 + 4L * entry.getValue().docs.length;
+            }
+            bytes += 64L * docByUser.size();
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 合并最稀疏的 2k+1 个倒排表取候选，统计每个候选命中的gram数，达到 G-2k 的再做近似子串编辑距离校验
+     */
+    private int fuzzy(int[] qPoints, List<Postings> lists, int maxEdits, Set<Integer> matched,
+                      PriorityQueue<Hit> top, int limit) {
+        int required = lists.size() - 2 * maxEdits;
+        if (required < 1) {
+            return 0;
+        }
+        int found = 0;
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < Math.min(2 * maxEdits + 1, lists.size()); i++) {
+            Postings candidates = lists.get(i);
+            for (int k = 0; k < candidates.size; k++) {
+                int doc = candidates.docs[k];
+                if (normalized[doc] == null || matched.contains(doc) || !seen.add(doc)) {
+                    continue;
+                }
+                if (seen.size() > maxFuzzyCandidates) {
+                    return found;
+                }
+                int shared = 0;
+                for (Postings list : lists) {
+                    if (list.contains(doc)) {
+                        shared++;
+                    }
+                }
+                if (shared < required) {
+                    continue;
+                }
+                int distance = substringDistance(qPoints, normalized[doc], maxEdits);
+                if (distance <= maxEdits) {
+                    found++;
+                    offer(top, new Hit(doc, TIER_FUZZY, distance, normalized[doc].length(), userIds[doc]), limit);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 查询串与昵称任意子串之间的最小编辑距离（Sellers算法：首行全为0），超过 maxEdits 时提前返回
+     */
+    static int substringDistance(int[] query, String text, int maxEdits) {
+        int[] t = text.codePoints().toArray();
+        int[] previous = new int[t.length + 1];
+        int[] current = new int[t.length + 1];
+        for (int i = 1; i <= query.length; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= t.length; j++) {
+                int cost = query[i - 1] == t[j - 1] ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = Integer.MAX_VALUE;
+        for (int value : previous) {
+            best = Math.min(best, value);
+        }
+        return best;
+    }
+
+    private static boolean containsAll(List<Postings> lists, int doc, int from) {
+        for (int i = from; i < lists.size(); i++) {
+            if (!lists.get(i).contains(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int limit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (hit.compareTo(top.peek()) < 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static List<String> grams(String s) {
+        int[] points = s.codePoints().toArray();
+        List<String> grams = new ArrayList<>(Math.max(points.length - 1, 0));
+        for (int i = 0; i + 1 < points.length; i++) {
+            grams.add(new String(points, i, 2));
+        }
+        return grams;
+    }
+
+    private int append(long userId, String nickname, String norm) {
+        if (docs == userIds.length) {
+            int capacity = userIds.length * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            nicknames = Arrays.copyOf(nicknames, capacity);
+            normalized = Arrays.copyOf(normalized, capacity);
+        }
+        userIds[docs] = userId;
+        nicknames[docs] = nickname;
+        normalized[docs] = norm;
+        return docs++;
+    }
+
+    private void delete(int doc) {
+        nicknames[doc] = null;
+        normalized[doc] = null;
+        deleted++;
+    }
+
+    /**
+     * 只追加的倒排表，文档号递增，天然有序
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+            }
+            docs[size++] = doc;
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+    }
+
+    private static final class Hit implements Comparable<Hit> {
+        private final int doc;
+        private final int tier;
+        private final int distance;
+        private final int length;
+        private final long userId;
+
+        Hit(int doc, int tier, int distance, int length, long userId) {
+            this.doc = doc;
+            this.tier = tier;
+            this.distance = distance;
+            this.length = length;
+            this.userId = userId;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int c = Integer.compare(tier, other.tier);
+            if (c == 0) {
+                c = Integer.compare(distance, other.distance);
+            }
+            if (c == 0) {
+                c = Integer.compare(length, other.length);
+            }
+            return c != 0 ? c : Long.compare(userId, other.userId);
+        }
+    }
+
+    public static class Match {
+        private final long userId;
+        private final String nickname;
+        private final int distance;
+
+        Match(long userId, String nickname, int distance) {
+            this.userId = userId;
+            this.nickname = nickname;
+            this.distance = distance;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        /** 模糊匹配的编辑距离，精确/前缀/子串匹配为0 */
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    public static class Result {
+        private final int total;
+        private final List<Match> matches;
+
+        Result(int total, List<Match> matches) {
+            this.total = total;
+            this.matches = matches;
+        }
+
+        /** 命中总数（模糊匹配部分只统计到候选上限为止） */
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Match> getMatches() {
+            return matches;
+        }
+    }
+}
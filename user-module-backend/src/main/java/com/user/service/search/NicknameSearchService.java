@@ -0,0 +1,321 @@
+package com.user.service.search;
+
+import com.user.entity.User;
+import com.user.exception.BusinessException;
+import com.user.mapper.UserMapper;
+import com.user.sharding.ShardRouter;
+import com.user.vo.response.NicknameSearchItem;
+import com.user.vo.response.NicknameSearchResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 昵称搜索：查询只访问节点内存中的 NicknameIndex，不查询数据库
+ * 启动完成后在后台按主键分批扫描 user 表建立索引；本节点的注册、改名、禁用在事务提交后立即更新索引；
+ * 其他节点的注册、改名与禁用由定时的增量扫描（updated_at 不早于上次位置减去 catch-up-overlap，走 idx_user_updated_at）补上，
+ * 其他节点删除的用户在下一次整体重建后消失。开启分片时逐个分片扫描，各分片共用同一个时间位置。
+ * 加载与扫描在专用线程上执行，不占用共享的定时任务线程
+ */
+@Service
+@Slf4j
+public class NicknameSearchService {
+    private static final byte STATUS_ACTIVE = 1;
+    private static final int MAX_QUERY_LENGTH = 64;
+    private static final double REBUILD_DELETED_RATIO = 0.25;
+
+    private final UserMapper userMapper;
+    private final ShardRouter shardRouter;
+    private final ScheduledExecutorService loader;
+    private final boolean enabled;
+    private final int scanBatch;
+    private final int maxPageSize;
+    private final int maxResults;
+    private final int maxFuzzyCandidates;
+    private final Duration catchUpInterval;
+    private final Duration catchUpOverlap;
+    private final Duration rebuildInterval;
+    private final Timer queryTimer;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile NicknameIndex index;
+    private volatile boolean ready;
+    // 以下字段由 this 保护
+    private LocalDateTime lastUpdatedAt;
+    private List<Consumer<NicknameIndex>> rebuildLog;
+
+    public NicknameSearchService(UserMapper userMapper,
+                                 ShardRouter shardRouter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.search.enabled:true}") boolean enabled,
+                                 @Value("${app.search.scan-batch:1000}") int scanBatch,
+                                 @Value("${app.search.max-page-size:50}") int maxPageSize,
+                                 @Value("${app.search.max-results:200}") int maxResults,
+                                 @Value("${app.search.max-fuzzy-candidates:20000}") int maxFuzzyCandidates,
+                                 @Value("${app.search.catch-up-interval:10s}") Duration catchUpInterval,
+                                 @Value("${app.search.catch-up-overlap:10s}") Duration catchUpOverlap,
+                                 @Value("${app.search.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.userMapper = userMapper;
+        this.shardRouter = shardRouter;
+        this.loader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "nickname-index-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.enabled = enabled;
+        this.scanBatch = scanBatch;
+        this.maxPageSize = maxPageSize;
+        this.maxResults = maxResults;
+        this.maxFuzzyCandidates = maxFuzzyCandidates;
+        this.catchUpInterval = catchUpInterval;
+        this.catchUpOverlap = catchUpOverlap;
+        this.rebuildInterval = rebuildInterval;
+        this.index = new NicknameIndex(maxFuzzyCandidates);
+        this.queryTimer = Timer.builder("user.search.query")
+                .description("昵称搜索查询耗时（仅索引部分）")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        Gauge.builder("user.search.index.users", this, service -> service.index.size())
+                .description("昵称索引中的用户数")
+                .register(meterRegistry);
+        Gauge.builder("user.search.index.bytes", this, service -> service.index.estimatedBytes())
+                .description("昵称索引估计占用的堆内存")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        loader.execute(this::rebuild);
+        loader.scheduleWithFixedDelay(this::catchUp, catchUpInterval.toMillis(), catchUpInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        if (!rebuildInterval.isZero()) {
+            loader.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis(), rebuildInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * @param page 从0开始的页码，page * size + size 不超过 max-results
+     */
+    public NicknameSearchResponse search(String query, int page, int size) {
+        if (!enabled) {
+            throw new BusinessException(404, "昵称搜索未开启");
+        }
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            throw new BusinessException(400, "搜索关键字长度应为1-" + MAX_QUERY_LENGTH);
+        }
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new BusinessException(400, "page 不能小于0，size 取值范围为 1-" + maxPageSize);
+        }
+        if ((long) (page + 1) * size > maxResults) {
+            throw new BusinessException(400, "最多只能查看前" + maxResults + "条结果");
+        }
+        int limit = (page + 1) * size;
+        if (!ready) {
+            throw new BusinessException(503, "搜索索引加载中，请稍后再试");
+        }
+        NicknameIndex.Result result = queryTimer.record(() -> index.search(query, limit));
+        List<NicknameIndex.Match> matches = result.getMatches();
+        List<NicknameSearchItem> items = new ArrayList<>(size);
+        for (int i = page * size; i < matches.size(); i++) {
+            NicknameIndex.Match match = matches.get(i);
+            items.add(NicknameSearchItem.builder()
+                    .userId(match.getUserId())
+                    .nickname(match.getNickname())
+                    .distance(match.getDistance())
+                    .build());
+        }
+        return NicknameSearchResponse.builder()
+                .query(query)
+                .page(page)
+                .size(size)
+                .total(result.getTotal())
+                .hasMore(result.getTotal() > limit && limit + size <= maxResults)
+                .items(items)
+                .build();
+    }
+
+    /**
+     * 新用户写入后调用（事务内调用时在提交后生效）
+     */
+    public void onSaved(User user) {
+        if (enabled && user.getId() != null) {
+            afterCommit(() -> apply(target -> indexUser(target, user.getId(), user.getNickname(), user.getStatus())));
+        }
+    }
+
+    /**
+     * 用户资料更新后调用；只更新了非昵称字段时不影响索引
+     */
+    public void onUpdated(User user) {
+        if (!enabled || user.getId() == null) {
+            return;
+        }
+        if (user.getStatus() != null && user.getStatus() != STATUS_ACTIVE) {
+            afterCommit(() -> apply(target -> target.remove(user.getId())));
+        } else if (user.getNickname() != null) {
+            afterCommit(() -> apply(target -> target.put(user.getId(), user.getNickname())));
+        }
+    }
+
+    public void onDeleted(Long userId) {
+        if (enabled && userId != null) {
+            afterCommit(() -> apply(target -> target.remove(userId)));
+        }
+    }
+
+    /**
+     * 读取 updated_at 不早于上次位置减去 catch-up-overlap 的用户（新注册、改名、禁用）；标记删除的文档过多时改为整体重建
+     */
+    void catchUp() {
+        if (!ready || rebuilding.get()) {
+            return;
+        }
+        if (index.deletedRatio() > REBUILD_DELETED_RATIO) {
+            rebuild();
+            return;
+        }
+        try {
+            LocalDateTime from;
+            synchronized (this) {
+                from = lastUpdatedAt.minus(catchUpOverlap);
+            }
+            LocalDateTime newest = from;
+            int updated = 0;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                LocalDateTime since = from;
+                long afterId = 0;
+                List<User> batch;
+                do {
+                    LocalDateTime cursor = since;
+                    long cursorId = afterId;
+                    batch = shardRouter.on(shard,
+                            () -> userMapper.scanNicknamesUpdatedSince(cursor, cursorId, scanBatch));
+                    for (User user : batch) {
+                        apply(target -> indexUser(target, user.getId(), user.getNickname(), user.getStatus()));
+                        since = user.getUpdatedAt();
+                        afterId = user.getId();
+                        if (since.isAfter(newest)) {
+                            newest = since;
+                        }
+                    }
+                    updated += batch.size();
+                } while (batch.size() == scanBatch);
+            }
+            synchronized (this) {
+                if (newest.isAfter(lastUpdatedAt)) {
+                    lastUpdatedAt = newest;
+                }
+            }
+            if (updated > 0) {
+                log.debug("昵称索引增量扫描: {}个用户", updated);
+            }
+        } catch (Exception e) {
+            log.warn("昵称索引增量扫描失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在新索引上全量加载，期间的增量操作记录下来，加载完成后重放并替换当前索引
+     */
+    void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            rebuildLog = new ArrayList<>();
+        }
+        try {
+            NicknameIndex fresh = new NicknameIndex(maxFuzzyCandidates);
+            LocalDateTime newest = LocalDateTime.MIN;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                long afterId = 0;
+                List<User> batch;
+                do {
+                    long cursor = afterId;
+                    batch = shardRouter.on(shard, () -> userMapper.scanNicknames(cursor, scanBatch));
+                    for (User user : batch) {
+                        indexUser(fresh, user.getId(), user.getNickname(), user.getStatus());
+                        afterId = user.getId();
+                        if (user.getUpdatedAt() != null && user.getUpdatedAt().isAfter(newest)) {
+                            newest = user.getUpdatedAt();
+                        }
+                    }
+                } while (batch.size() == scanBatch);
+            }
+            synchronized (this) {
+                rebuildLog.forEach(op -> op.accept(fresh));
+                rebuildLog = null;
+                index = fresh;
+                if (lastUpdatedAt == null || newest.isAfter(lastUpdatedAt)) {
+                    lastUpdatedAt = newest == LocalDateTime.MIN ? LocalDateTime.now() : newest;
+                }
+                ready = true;
+            }
+            log.info("昵称索引加载完成: users={}, 约{}KB, 耗时{}ms", fresh.size(), fresh.estimatedBytes() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            synchronized (this) {
+                rebuildLog = null;
+            }
+            log.error("昵称索引加载失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private synchronized void apply(Consumer<NicknameIndex> operation) {
+        operation.accept(index);
+        if (rebuildLog != null) {
+            rebuildLog.add(operation);
+        }
+    }
+
+    private static void indexUser(NicknameIndex target, Long userId, String nickname, Byte status) {
+        if (status == null || status == STATUS_ACTIVE) {
+            target.put(userId, nickname);
+        } else {
+            target.remove(userId);
+        }
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
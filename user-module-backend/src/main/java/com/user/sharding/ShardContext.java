@@ -0,0 +1,32 @@
+package com.user.sharding;
+
+/**
+ * 当前线程要访问的分片，由 ShardRouter.on 或 ShardRoutingInterceptor 设置，ShardedDataSource 取连接时读取
+ */
+final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return 之前的分片，用于 restore
+     */
+    static Integer set(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
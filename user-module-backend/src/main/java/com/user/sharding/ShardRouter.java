@@ -0,0 +1,119 @@
+package com.user.sharding;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 用户数据分片（app.sharding.enabled）：user、user_token、user_outbox 按用户ID哈希分布到 app.sharding.urls 的各个库
+ * 带用户ID的语句由 ShardRoutingInterceptor 自动路由；没有用户ID的语句（按刷新令牌查找、全表扫描、发件箱中继）
+ * 通过 on/first/collect 逐个分片执行。未开启分片时这些方法直接执行一次，不做任何路由。
+ * 分片数决定了每个用户所在的库，上线后不能直接修改，扩容需要按 shardOf 迁移数据
+ */
+@Component
+public class ShardRouter {
+    private final boolean enabled;
+    private final int shardCount;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private volatile TransactionTemplate outsideTransaction;
+
+    public ShardRouter(@Value("${app.sharding.enabled:false}") boolean enabled,
+                       @Value("${app.sharding.urls:}") List<String> urls,
+                       ObjectProvider<PlatformTransactionManager> transactionManager) {
+        if (enabled && urls.isEmpty()) {
+            throw new IllegalStateException("开启分片时需要配置 app.sharding.urls");
+        }
+        this.enabled = enabled;
+        this.shardCount = enabled ? urls.size() : 1;
+        this.transactionManager = transactionManager;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 时间递增的ID低位是节点号与序号，先混合再取模，避免同一节点或同一秒的用户集中在少数分片
+     */
+    public int shardOf(long userId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        long h = userId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) shardCount);
+    }
+
+    /**
+     * 在指定分片上执行 action 中的Mapper调用
+     * 当前线程处于事务中时先挂起事务：事务的连接已绑定在某个分片上，不能用于访问其他分片，
+     * 因此 action 读到的是其他事务已提交的数据，看不到本事务尚未提交的修改
+     */
+    public <T> T on(int shard, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return outsideTransaction().execute(status -> on(shard, action));
+        }
+        Integer previous = ShardContext.set(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    /**
+     * 依次在各分片上执行，返回第一个非null结果
+     */
+    public <T> T first(Supplier<T> query) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            T result = on(shard, query);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在所有分片上执行并合并结果，不保证顺序
+     */
+    public <T> List<T> collect(Supplier<List<T>> query) {
+        if (shardCount == 1) {
+            return on(0, query);
+        }
+        List<T> results = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            results.addAll(on(shard, query));
+        }
+        return results;
+    }
+
+    private TransactionTemplate outsideTransaction() {
+        TransactionTemplate template = outsideTransaction;
+        if (template == null) {
+            template = new TransactionTemplate(transactionManager.getObject());
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+            outsideTransaction = template;
+        }
+        return template;
+    }
+}
@@ -0,0 +1,127 @@
+package com.user.sharding;
+
+import com.user.entity.OutboxEvent;
+import com.user.entity.User;
+import com.user.entity.UserToken;
+import com.user.mapper.UserMapper;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+/**
+ * MyBatis插件（仅开启分片时注册）：按语句参数中的用户ID选择分片
+ * 分片键依次取：ShardRouter.on 指定的分片；参数中的 userId；UserMapper 语句的 id；User/UserToken/OutboxEvent 实体的用户ID。
+ * 都没有时抛出异常，而不是静默访问0号分片，例如 UserTokenMapper.findById 这类按令牌主键的语句需要调用方用 ShardRouter.on 指定分片。
+ * 事务内第一条语句决定事务所在的分片，之后访问其他分片的语句直接失败：分片库之间没有分布式事务
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class ShardRoutingInterceptor implements Interceptor {
+    private static final Object TRANSACTION_SHARD = new Object();
+    private static final String USER_MAPPER = UserMapper.class.getName() + ".";
+
+    private final ShardRouter router;
+
+    public ShardRoutingInterceptor(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Integer shard = ShardContext.current();
+        if (shard == null) {
+            Long userId = shardKey(statement, invocation.getArgs()[1]);
+            if (userId == null) {
+                throw new IllegalStateException("语句 " + statement.getId() + " 没有分片键，需要通过 ShardRouter 指定分片");
+            }
+            shard = router.shardOf(userId);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            bindToTransaction(shard, statement);
+        }
+        Integer previous = ShardContext.set(shard);
+        try {
+            return invocation.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private static Long shardKey(MappedStatement statement, Object parameter) {
+        if (parameter instanceof Map<?, ?> params) {
+            if (params.containsKey("userId")) {
+                return (Long) params.get("userId");
+            }
+            if (params.containsKey("id") && statement.getId().startsWith(USER_MAPPER)) {
+                return (Long) params.get("id");
+            }
+            return null;
+        }
+        if (parameter instanceof User user) {
+            return user.getId();
+        }
+        if (parameter instanceof UserToken token) {
+            return token.getUserId();
+        }
+        if (parameter instanceof OutboxEvent event) {
+            return event.getUserId();
+        }
+        return null;
+    }
+
+    private static void bindToTransaction(int shard, MappedStatement statement) {
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD);
+        if (bound == null) {
+            TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionShardBinding(shard));
+        } else if (bound != shard) {
+            throw new IllegalStateException("事务已在分片 " + bound + " 上，语句 " + statement.getId()
+                    + " 访问分片 " + shard + "：分片之间不支持跨库事务");
+        }
+    }
+
+    /**
+     * 事务挂起（ShardRouter.on、REQUIRES_NEW）时解除绑定，恢复时重新绑定，结束时清除
+     */
+    private static final class TransactionShardBinding implements TransactionSynchronization {
+        private final int shard;
+
+        private TransactionShardBinding(int shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+        }
+    }
+}
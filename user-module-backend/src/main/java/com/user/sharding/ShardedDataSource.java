@@ -0,0 +1,46 @@
+package com.user.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 开启分片时的主数据源：按 ShardContext 把连接请求路由到各分片库的连接池
+ * 事务开始时还不知道要访问哪个分片，外层的 LazyConnectionDataSourceProxy 把取连接推迟到第一条语句真正执行时，
+ * 此时 ShardRoutingInterceptor 已按语句参数设置好分片。未指定分片时（启动探测、健康检查等）使用0号分片
+ */
+public class ShardedDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+    private final List<HikariDataSource> shards;
+
+    public ShardedDataSource(List<HikariDataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return ShardContext.current();
+            }
+        };
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(shards.get(0));
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        setTargetDataSource(routing);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
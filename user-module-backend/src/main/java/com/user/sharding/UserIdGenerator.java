@@ -0,0 +1,109 @@
+package com.user.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 用户ID生成器（仅开启分片时使用）：按时间递增的ID，写入数据库之前就已确定，因此可以先按ID选定分片再写入；
+ * 未开启分片时用户ID仍由数据库自增分配。
+ * 布局（高位到低位）：11位恒为0 | 32位秒级时间戳（自2024-01-01起，可用到2160年）| 10位节点号 | 11位序号。
+ * 有效位只有53位，不超过 JavaScript Number 的安全整数范围，前端按 number 解析 userId 不会丢失精度。
+ * 同一节点每秒最多2048个ID，用完后借用下一秒；进程内时钟回拨时沿用已用到的秒数继续分配。
+ * 第一次分配时若仍处在进程启动的那一秒，先等到下一秒，避开同一秒内重启前已分配的序号；调用方再通过 resumeAfter
+ * 跳过已写入的最大ID，覆盖重启前借用了未来秒数或NTP回拨的情况。节点号必须显式配置且各节点不同，否则不同节点同一秒的ID会重复。
+ * 不同节点在同一秒内生成的ID只按节点号排序，不保证与提交顺序一致
+ */
+@Component
+public class UserIdGenerator {
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+    private static final long EPOCH_SECONDS = 1_704_067_200L; // 2024-01-01T00:00:00Z
+    private static final int SEQUENCE_BITS = 11;
+    private static final int TIMESTAMP_SHIFT = 10 + SEQUENCE_BITS;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final LongConsumer sleeper;
+    private final long startSecond;
+    // 以下字段由 this 保护
+    private boolean startSecondPassed;
+    private long lastSecond = -1;
+    private long sequence;
+
+    /**
+     * @param nodeId   app.id.node-id，未配置时为-1
+     * @param required 开启分片时为true，此时节点号未配置直接启动失败
+     */
+    @Autowired
+    public UserIdGenerator(@Value("${app.id.node-id:-1}") int nodeId,
+                           @Value("${app.sharding.enabled:false}") boolean required) {
+        this(required || nodeId >= 0 ? nodeId : 0, System::currentTimeMillis, UserIdGenerator::sleep);
+    }
+
+    /**
+     * @param clock   毫秒时间，测试中用于模拟同一秒内的大量分配与时钟回拨
+     * @param sleeper 等待指定毫秒数，测试中直接拨动时钟
+     */
+    UserIdGenerator(int nodeId, LongSupplier clock, LongConsumer sleeper) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("开启分片时必须为每个节点配置不同的 app.id.node-id，取值范围为 0-"
+                    + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.startSecond = currentSecond();
+    }
+
+    public synchronized long nextId() {
+        long second = currentSecond();
+        if (!startSecondPassed) {
+            while (second == startSecond) {
+                sleeper.accept(1000 - Math.floorMod(clock.getAsLong(), 1000L));
+                second = currentSecond();
+            }
+            startSecondPassed = true;
+        }
+        if (second <= lastSecond) {
+            second = lastSecond;
+            if (sequence == MAX_SEQUENCE) {
+                second++;
+                sequence = 0;
+            } else {
+                sequence++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastSecond = second;
+        return second << TIMESTAMP_SHIFT | nodeId << SEQUENCE_BITS | sequence;
+    }
+
+    /**
+     * 之后分配的ID都大于 issuedId 所在的秒：启动后用库中已有的最大ID调用一次
+     */
+    public synchronized void resumeAfter(long issuedId) {
+        long second = issuedId >>> TIMESTAMP_SHIFT;
+        if (second >= lastSecond) {
+            lastSecond = second;
+            sequence = MAX_SEQUENCE;
+        }
+    }
+
+    private long currentSecond() {
+        return clock.getAsLong() / 1000 - EPOCH_SECONDS;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待用户ID时钟进入下一秒时被中断", e);
+        }
+    }
+}
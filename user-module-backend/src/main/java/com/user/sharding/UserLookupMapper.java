@@ -0,0 +1,19 @@
+package com.user.sharding;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * 全局查找表 user_lookup：邮箱/昵称 -> 用户ID，位于 app.sharding.global-url 的库，不参与分片路由与业务事务
+ * 不在 @MapperScan 的包内，由 ShardingConfig 用单独的 SqlSessionFactory 创建，XML 位于 mapper/global/
+ */
+public interface UserLookupMapper {
+    Long findUserId(@Param("key") String key);
+    int insertIfAbsent(@Param("key") String key, @Param("userId") Long userId);
+    int reassign(@Param("key") String key,
+                 @Param("fromUserId") Long fromUserId,
+                 @Param("toUserId") Long toUserId,
+                 @Param("createdBefore") LocalDateTime createdBefore);
+    int delete(@Param("key") String key, @Param("userId") Long userId);
+}
@@ -0,0 +1,178 @@
+package com.user.sharding;
+
+import com.user.entity.User;
+import com.user.exception.AuthFailures;
+import com.user.exception.BusinessException;
+import com.user.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * 开启分片后按邮箱/昵称查找用户：先在全局查找表 user_lookup 中取得用户ID，再到该用户所在的分片读取
+ * 分片库各自的唯一索引只能保证分片内不重复，全局唯一由查找表的主键保证：写入分片之前先预留键，
+ * 事务回滚后释放新预留的键，改邮箱/昵称与删除用户在提交后释放旧键。
+ * 释放失败（节点宕机、全局库不可用）会留下指向不存在用户的预留，超过 reservation-timeout 后可被其他用户接管；
+ * 查找表可能比分片数据旧，读取时以分片中的用户资料为准
+ */
+@Service
+@Slf4j
+public class UserLookupService {
+    private final ShardRouter router;
+    private final UserMapper userMapper;
+    private final ObjectProvider<UserLookupMapper> lookupMapper;
+    private final Duration reservationTimeout;
+
+    public UserLookupService(ShardRouter router,
+                             UserMapper userMapper,
+                             ObjectProvider<UserLookupMapper> lookupMapper,
+                             @Value("${app.sharding.reservation-timeout:1m}") Duration reservationTimeout) {
+        this.router = router;
+        this.userMapper = userMapper;
+        this.lookupMapper = lookupMapper;
+        this.reservationTimeout = reservationTimeout;
+    }
+
+    public User findByEmail(String email) {
+        return find(emailKey(email), email, User::getEmail);
+    }
+
+    public User findByNickname(String nickname) {
+        return find(nicknameKey(nickname), nickname, User::getNickname);
+    }
+
+    /**
+     * 为新用户预留邮箱与昵称，已被其他用户占用时抛出 EMAIL_TAKEN/NICKNAME_TAKEN；事务回滚后释放
+     */
+    public void reserve(User user) {
+        reserveKey(emailKey(user.getEmail()), user.getId(), user.getEmail(), User::getEmail, AuthFailures.EMAIL_TAKEN);
+        reserveKey(nicknameKey(user.getNickname()), user.getId(), user.getNickname(), User::getNickname,
+                AuthFailures.NICKNAME_TAKEN);
+    }
+
+    /**
+     * 资料修改前调用：为变化的邮箱/昵称预留新键，提交后释放旧键，回滚后释放新键
+     *
+     * @param current 修改前的用户资料
+     * @param changes 只含要修改的字段
+     */
+    public void reserveChanges(User current, User changes) {
+        if (changed(current.getEmail(), changes.getEmail())) {
+            reserveKey(emailKey(changes.getEmail()), current.getId(), changes.getEmail(), User::getEmail,
+                    AuthFailures.EMAIL_TAKEN);
+            releaseAfterCommit(emailKey(current.getEmail()), current.getId());
+        }
+        if (changed(current.getNickname(), changes.getNickname())) {
+            reserveKey(nicknameKey(changes.getNickname()), current.getId(), changes.getNickname(), User::getNickname,
+                    AuthFailures.NICKNAME_TAKEN);
+            releaseAfterCommit(nicknameKey(current.getNickname()), current.getId());
+        }
+    }
+
+    /**
+     * 用户删除后释放其邮箱与昵称（事务内调用时在提交后生效）
+     */
+    public void releaseAfterCommit(User deleted) {
+        releaseAfterCommit(emailKey(deleted.getEmail()), deleted.getId());
+        releaseAfterCommit(nicknameKey(deleted.getNickname()), deleted.getId());
+    }
+
+    private User find(String key, String value, Function<User, String> field) {
+        if (key == null) {
+            return null;
+        }
+        Long userId = lookupMapper.getObject().findUserId(key);
+        if (userId == null) {
+            return null;
+        }
+        User user = router.on(router.shardOf(userId), () -> userMapper.findById(userId));
+        // 预留尚未提交、或旧键尚未释放时，查找表指向的用户与查询条件不符
+        return user != null && value.equalsIgnoreCase(field.apply(user)) ? user : null;
+    }
+
+    private void reserveKey(String key, Long userId, String value, Function<User, String> field,
+                            BusinessException taken) {
+        if (key == null) {
+            return;
+        }
+        UserLookupMapper mapper = lookupMapper.getObject();
+        if (mapper.insertIfAbsent(key, userId) == 0) {
+            Long owner = mapper.findUserId(key);
+            if (owner == null) {
+                // 占用者恰好释放了该键
+                if (mapper.insertIfAbsent(key, userId) == 0) {
+                    throw taken;
+                }
+            } else if (!owner.equals(userId)) {
+                User holder = router.on(router.shardOf(owner), () -> userMapper.findById(owner));
+                if (holder != null && value.equalsIgnoreCase(field.apply(holder))) {
+                    throw taken;
+                }
+                // 占用者不存在或已改用其他值：超时的预留可以接管，未超时的可能是尚未提交的注册
+                LocalDateTime staleBefore = LocalDateTime.now().minus(reservationTimeout);
+                if (mapper.reassign(key, owner, userId, staleBefore) == 0) {
+                    throw taken;
+                }
+                log.info("接管过期的查找表预留: key={}, from={}, to={}", key, owner, userId);
+            }
+        }
+        releaseAfterRollback(key, userId);
+    }
+
+    private void releaseAfterRollback(String key, Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(key, userId);
+                    }
+                }
+            });
+        }
+    }
+
+    private void releaseAfterCommit(String key, Long userId) {
+        if (key == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(key, userId);
+                }
+            });
+        } else {
+            release(key, userId);
+        }
+    }
+
+    private void release(String key, Long userId) {
+        try {
+            lookupMapper.getObject().delete(key, userId);
+        } catch (Exception e) {
+            log.warn("释放查找表预留失败，{}后可被接管: key={}, userId={}, {}", reservationTimeout, key, userId,
+                    e.getMessage());
+        }
+    }
+
+    private static boolean changed(String current, String updated) {
+        return updated != null && !updated.equalsIgnoreCase(current == null ? "" : current);
+    }
+
+    private static String emailKey(String email) {
+        return email == null || email.isEmpty() ? null : "e:" + email;
+    }
+
+    private static String nicknameKey(String nickname) {
+        return nickname == null || nickname.isEmpty() ? null : "n:" + nickname;
+    }
+}
@@ -0,0 +1,140 @@
+package com.user.util;
+
+import com.user.diagnostics.AuthStageEvent;
+import com.user.diagnostics.RequestTimeline;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 认证链路各阶段的计时工具
+ * 静态工具类无法注入 MeterRegistry，统一注册到 Metrics.globalRegistry（Spring Boot 会把自身的注册表加入其中），
+ * 每个计时器都带 outcome 标签；抛出异常时 outcome=error。注册后的计时器按（名称、outcome、标签）缓存，
+ * 热路径上不再经过注册表查找与 Tags 排序；标签取值来自有限集合（Mapper语句、Redis命令等），缓存大小有界。
+ * 同一次计时还会产生JFR事件 AuthStageEvent（有录制进行时才提交），并追加到当前请求的阶段时间线（慢请求日志）
+ */
+public final class AuthMetrics {
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    // 预热线程上的调用不计入指标，避免合成流量混入真实延迟分布
+    private static final ThreadLocal<Boolean> SUPPRESSED = new ThreadLocal<>();
+
+    private static final Map<TimerKey, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    private AuthMetrics() {
+    }
+
+    /**
+     * 可抛出受检异常的计时步骤
+     */
+    @FunctionalInterface
+    public interface Step<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * 计时并以 success/error 作为 outcome
+     */
+    public static <T, E extends Exception> T time(String name, Step<T, E> step, String... tags) throws E {
+        return time(name, step, value -> SUCCESS, tags);
+    }
+
+    /**
+     * 计时并根据返回值决定 outcome，例如密码是否匹配、Token是否有效
+     */
+    public static <T, E extends Exception> T time(String name, Step<T, E> step,
+                                                  Function<? super T, String> outcome, String... tags) throws E {
+        AuthStageEvent event = startEvent();
+        long start = System.nanoTime();
+        String result = ERROR;
+        try {
+            T value = step.run();
+            result = outcome.apply(value);
+            return value;
+        } finally {
+            record(name, result, System.nanoTime() - start, event, tags);
+        }
+    }
+
+    /**
+     * 在当前线程上执行且不记录任何 auth.* 计时
+     */
+    public static <T, E extends Exception> T unrecorded(Step<T, E> step) throws E {
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return step.run();
+        } finally {
+            SUPPRESSED.remove();
+        }
+    }
+
+    /**
+     * 调用方自行计时（如 MapperMetricsInterceptor）时，在开始计时前调用，结束后传给 record
+     */
+    public static AuthStageEvent startEvent() {
+        AuthStageEvent event = new AuthStageEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void record(String name, String outcome, long elapsedNanos, String... tags) {
+        record(name, outcome, elapsedNanos, null, tags);
+    }
+
+    public static void record(String name, String outcome, long elapsedNanos, AuthStageEvent event, String... tags) {
+        if (SUPPRESSED.get() != null) {
+            return;
+        }
+        timer(name, outcome, tags).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        RequestTimeline.record(name, outcome, elapsedNanos, tags);
+        if (event != null) {
+            event.complete(name, outcome, tags);
+        }
+    }
+
+    private static Timer timer(String name, String outcome, String[] tags) {
+        TimerKey key = new TimerKey(name, outcome, tags);
+        Timer timer = TIMERS.get(key);
+        if (timer == null) {
+            timer = TIMERS.computeIfAbsent(key, k -> Timer.builder(name)
+                    .tags(Tags.of(tags).and("outcome", outcome))
+                    .register(Metrics.globalRegistry));
+        }
+        return timer;
+    }
+
+    private static final class TimerKey {
+        private final String name;
+        private final String outcome;
+        private final String[] tags;
+        private final int hash;
+
+        private TimerKey(String name, String outcome, String[] tags) {
+            this.name = name;
+            this.outcome = outcome;
+            this.tags = tags;
+            this.hash = 31 * (31 * name.hashCode() + outcome.hashCode()) + Arrays.hashCode(tags);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TimerKey other)) {
+                return false;
+            }
+            return hash == other.hash && name.equals(other.name) && outcome.equals(other.outcome)
+                    && Arrays.equals(tags, other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.user.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * 有容量上限的过期Map
+ * 过期由哈希时间轮驱动：每个条目按过期tick挂到对应槽位的双向链表上，
+ * 推进时间轮只扫描走过的槽位，清理成本与到期条目数成正比；
+ * 超出容量时按LRU淘汰最久未访问的条目
+ */
+public class ExpiringMap<K, V> {
+    private final int capacity;
+    private final long tickMillis;
+    private final Node<K, V>[] wheel;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    // access-order 的 LinkedHashMap 维护LRU顺序
+    private final LinkedHashMap<K, Node<K, V>> entries;
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public ExpiringMap(int capacity, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.capacity = capacity;
+        this.tickMillis = Math.max(unit.toMillis(tickDuration), 1);
+        this.wheel = (Node<K, V>[]) new Node[size];
+        this.mask = size - 1;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    public void put(K key, V value, long ttl, TimeUnit unit) {
+        long expireAt = System.currentTimeMillis() + unit.toMillis(ttl);
+        lock.lock();
+        try {
+            Node<K, V> old = entries.remove(key);
+            if (old != null) {
+                unlink(old);
+            }
+            Node<K, V> node = new Node<>(key, value, expireAt);
+            entries.put(key, node);
+            link(node);
+            if (entries.size() > capacity) {
+                evictOne();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Node<K, V> node = entries.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.expireAt <= now) {
+                removeNode(node);
+                expirations.increment();
+                return null;
+            }
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public V remove(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = entries.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在锁内对未过期的条目执行计算，返回null表示删除，过期时间保持不变
+     */
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Node<K, V> node = entries.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.expireAt <= now) {
+                removeNode(node);
+                expirations.increment();
+                return null;
+            }
+            V value = remapping.apply(key, node.value);
+            if (value == null) {
+                removeNode(node);
+            } else {
+                node.value = value;
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进时间轮到当前时间，清理走过槽位中已到期的条目
+     *
+     * @return 本次清理的条目数
+     */
+    public int expire() {
+        long now = System.currentTimeMillis();
+        long targetTick = now / tickMillis;
+        int removed = 0;
+        lock.lock();
+        try {
+            // 超过一整圈时每个槽位只需扫描一次
+            long start = Math.max(currentTick, targetTick - mask);
+            for (long tick = start; tick <= targetTick; tick++) {
+                Node<K, V> node = wheel[(int) (tick & mask)];
+                while (node != null) {
+                    Node<K, V> next = node.next;
+                    if (node.expireAt <= now) {
+                        removeNode(node);
+                        removed++;
+                    }
+                    node = next;
+                }
+            }
+            currentTick = targetTick;
+        } finally {
+            lock.unlock();
+        }
+        expirations.add(removed);
+        return removed;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** 因过期被清理的条目总数 */
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    /** 因容量不足被淘汰的条目总数 */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void evictOne() {
+        Iterator<Map.Entry<K, Node<K, V>>> it = entries.entrySet().iterator();
+        Node<K, V> eldest = it.next().getValue();
+        it.remove();
+        unlink(eldest);
+        evictions.increment();
+    }
+
+    private void removeNode(Node<K, V> node) {
+        entries.remove(node.key);
+        unlink(node);
+    }
+
+    private void link(Node<K, V> node) {
+        int slot = (int) ((node.expireAt / tickMillis) & mask);
+        node.slot = slot;
+        node.next = wheel[slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        wheel[slot] = node;
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (wheel[node.slot] == node) {
+            wheel[node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final long expireAt;
+        private V value;
+        private int slot;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
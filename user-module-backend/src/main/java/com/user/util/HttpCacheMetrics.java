@@ -0,0 +1,33 @@
+package com.user.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * 条件请求的效果统计
+ * http.cache.requests{endpoint,result=not_modified|full} 与 http.cache.bytes.saved{endpoint}（304省下的响应体字节数）
+ */
+public final class HttpCacheMetrics {
+
+    private HttpCacheMetrics() {
+    }
+
+    public static void notModified(String endpoint, long bytesSaved) {
+        Counter.builder("http.cache.requests")
+                .tags("endpoint", endpoint, "result", "not_modified")
+                .register(Metrics.globalRegistry)
+                .increment();
+        Counter.builder("http.cache.bytes.saved")
+                .tags("endpoint", endpoint)
+                .baseUnit("bytes")
+                .register(Metrics.globalRegistry)
+                .increment(bytesSaved);
+    }
+
+    public static void fullResponse(String endpoint) {
+        Counter.builder("http.cache.requests")
+                .tags("endpoint", endpoint, "result", "full")
+                .register(Metrics.globalRegistry)
+                .increment();
+    }
+}
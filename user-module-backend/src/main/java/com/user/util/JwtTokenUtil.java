@@ -10,22 +10,66 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
+/**
+ * 访问令牌：由服务端密钥（jwt.secret）以HS256签名，载荷含 userId、sid（会话ID）与 ver（会话的令牌版本）。
+ * 刷新令牌只是随机的不透明值，从不作为密钥材料，持有它只能通过 /refresh 换取（并轮换）访问令牌
+ */
 @Slf4j
 public class JwtTokenUtil {
     private static final Long DEFAULT_EXPIRATION = 86400000L; // 24 hours
+    private static final int MIN_SECRET_BYTES = 32;
+
+    /**
+     * 由配置的密钥字符串得到签名密钥，不足32字节（HS256的最短长度）时抛出异常
+     */
+    public static SecretKey signingKey(String secret) {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("jwt.secret 至少需要" + MIN_SECRET_BYTES + "字节");
+        }
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    /**
+     * 进程内随机密钥，用于未配置 jwt.secret 的本地运行、预热与基准测试
+     */
+    public static SecretKey randomSigningKey() {
+        return Jwts.SIG.HS256.key().build();
+    }
+
+    /**
+     * @param sessionId 会话ID，写入 sid 声明
+     * @param version   会话的令牌版本，写入 ver 声明，刷新令牌轮换后旧的访问令牌随之失效
+     */
+    public static String generateToken(SecretKey signingKey, Long userId, Long sessionId, Integer version,
+                                       String email, String nickname, Long expiration) {
+        return AuthMetrics.time("auth.jwt.generate",
+                () -> doGenerateToken(signingKey, userId, sessionId, version, email, nickname, expiration));
+    }
 
-    public static String generateToken(Long userId, String email, String nickname, String refreshToken, Long expiration) {
+    /**
+     * 校验签名与有效期，并要求 sid、ver 与给定的会话一致，通过时返回令牌中的用户ID，否则返回null
+     */
+    public static Long verifyToken(String token, SecretKey signingKey, Long sessionId, Integer version) {
+        return AuthMetrics.time("auth.jwt.verify",
+                () -> doVerifyToken(token, signingKey, sessionId, version),
+                userId -> userId != null ? "valid" : "invalid");
+    }
+
+    private static String doGenerateToken(SecretKey signingKey, Long userId, Long sessionId, Integer version,
+                                          String email, String nickname, Long expiration) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
+        claims.put("sid", sessionId);
+        claims.put("ver", version);
         claims.put("email", email);
         claims.put("nickname", nickname);
 
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + (expiration != null ? expiration : DEFAULT_EXPIRATION));
 
-        SecretKey signingKey = createSigningKey(refreshToken);
-
         String token = Jwts.builder()
                 .claims(claims)
                 .subject(String.valueOf(userId))
@@ -38,10 +82,8 @@ public class JwtTokenUtil {
         return token;
     }
 
-    public static Long verifyToken(String token, String refreshToken) {
+    private static Long doVerifyToken(String token, SecretKey signingKey, Long sessionId, Integer version) {
         try {
-            SecretKey signingKey = createSigningKey(refreshToken);
-
             Claims claims = Jwts.parser()
                     .verifyWith(signingKey)
                     .build()
@@ -52,6 +94,11 @@ public class JwtTokenUtil {
                 log.warn("Token expired");
                 return null;
             }
+            if (!Objects.equals(claims.get("sid", Long.class), sessionId)
+                    || !Objects.equals(claims.get("ver", Integer.class), version)) {
+                log.debug("Token does not belong to the current session version: sid={}", sessionId);
+                return null;
+            }
 
             Long userId = claims.get("userId", Long.class);
             log.debug("Token verified successfully for userId={}", userId);
@@ -66,6 +113,21 @@ public class JwtTokenUtil {
     }
 
     public static Long extractUserId(String token) {
+        Long userId = extractClaim(token, "userId");
+        if (userId != null) {
+            log.debug("Extracted userId={} from JWT without verification", userId);
+        }
+        return userId;
+    }
+
+    /**
+     * 不校验签名取出会话ID，用于在校验签名前按主键读取会话
+     */
+    public static Long extractSessionId(String token) {
+        return extractClaim(token, "sid");
+    }
+
+    private static Long extractClaim(String token, String claim) {
         try {
             String[] parts = token.split("\\.");
             if (parts.length != 3) {
@@ -75,36 +137,23 @@ public class JwtTokenUtil {
 
             String payload = new String(java.util.Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
 
-            int userIdIndex = payload.indexOf("\"userId\":");
-            if (userIdIndex == -1) {
-                log.warn("userId not found in JWT payload");
+            String key = "\"" + claim + "\":";
+            int claimIndex = payload.indexOf(key);
+            if (claimIndex == -1) {
+                log.debug("{} not found in JWT payload", claim);
                 return null;
             }
 
-            int startIndex = userIdIndex + "\"userId\":".length();
+            int startIndex = claimIndex + key.length();
             int endIndex = payload.indexOf(",", startIndex);
             if (endIndex == -1) {
                 endIndex = payload.indexOf("}", startIndex);
             }
 
-            String userIdStr = payload.substring(startIndex, endIndex).trim();
-            Long userId = Long.parseLong(userIdStr);
-
-            log.debug("Extracted userId={} from JWT without verification", userId);
-            return userId;
+            return Long.parseLong(payload.substring(startIndex, endIndex).trim());
         } catch (Exception e) {
-            log.warn("Failed to extract userId from token: {}", e.getMessage());
+            log.warn("Failed to extract {} from token: {}", claim, e.getMessage());
             return null;
         }
     }
-
-    private static SecretKey createSigningKey(String refreshToken) {
-        String keyMaterial = refreshToken;
-        while (keyMaterial.getBytes(StandardCharsets.UTF_8).length < 32) {
-            keyMaterial = keyMaterial + refreshToken;
-        }
-        byte[] keyBytes = keyMaterial.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
-
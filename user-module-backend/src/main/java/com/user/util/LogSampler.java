@@ -0,0 +1,43 @@
+package com.user.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按键限频的日志采样：每个键在一个间隔内最多放行一条，其余只计数，下次放行时返回期间被丢弃的条数。
+ * 键的数量应当有限（例如 AuthFailures 中的预分配异常）
+ */
+public final class LogSampler {
+    private final long intervalNanos;
+    private final Map<Object, Window> windows = new ConcurrentHashMap<>();
+
+    public LogSampler(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * @return 本条应当输出时返回上次输出以来被丢弃的条数（>=0），否则返回 -1
+     */
+    public long sample(Object key) {
+        Window window = windows.computeIfAbsent(key, k -> new Window(System.nanoTime()));
+        long now = System.nanoTime();
+        long next = window.next.get();
+        if (now - next >= 0 && window.next.compareAndSet(next, now + intervalNanos)) {
+            return window.suppressed.sumThenReset();
+        }
+        window.suppressed.increment();
+        return -1;
+    }
+
+    private static final class Window {
+        private final AtomicLong next;
+        private final LongAdder suppressed = new LongAdder();
+
+        private Window(long next) {
+            this.next = new AtomicLong(next);
+        }
+    }
+}
@@ -12,12 +12,14 @@ public class PasswordHashUtil {
 
     public static String hashPassword(String plainPassword, String salt) {
         String saltedPassword = plainPassword + salt;
-        return passwordEncoder.encode(saltedPassword);
+        return AuthMetrics.time("auth.password.hash", () -> passwordEncoder.encode(saltedPassword));
     }
 
     public static boolean verifyPassword(String plainPassword, String hashedPassword, String salt) {
         String saltedPassword = plainPassword + salt;
-        return passwordEncoder.matches(saltedPassword, hashedPassword);
+        return AuthMetrics.time("auth.password.verify",
+                () -> passwordEncoder.matches(saltedPassword, hashedPassword),
+                matches -> matches ? "match" : "mismatch");
     }
 
     public static String decryptPassword(String encryptedPassword) throws Exception {
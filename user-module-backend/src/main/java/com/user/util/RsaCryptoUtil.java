@@ -2,22 +2,31 @@ package com.user.util;
 
 import javax.crypto.Cipher;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class RsaCryptoUtil {
     private static final String PUBLIC_KEY_RESOURCE = "/rsa-public.pem";
     private static final String PRIVATE_KEY_RESOURCE = "/rsa-private.pem";
 
+    // 使用 ReentrantLock 而不是 synchronized：首次加载需要读取资源文件，虚拟线程在 synchronized 块内阻塞会钉住载体线程
+    private static final ReentrantLock LOAD_LOCK = new ReentrantLock();
+
     private static volatile PublicKey cachedPublicKey = null;
     private static volatile PrivateKey cachedPrivateKey = null;
     private static volatile String cachedPublicKeyPem = null;
+    private static volatile String cachedPublicKeyId = null;
 
     public static String encrypt(String plainText) throws Exception {
-        PublicKey publicKey = getPublicKey();
+        return encrypt(plainText, getPublicKey());
+    }
+
+    public static String encrypt(String plainText, PublicKey publicKey) throws Exception {
         Cipher cipher = Cipher.getInstance("RSA");
         cipher.init(Cipher.ENCRYPT_MODE, publicKey);
         byte[] encryptedBytes = cipher.doFinal(plainText.getBytes("UTF-8"));
@@ -25,19 +34,49 @@ public final class RsaCryptoUtil {
     }
 
     public static String decryptWith(String encryptedBase64) throws Exception {
-        PrivateKey privateKey = getPrivateKey();
+        return AuthMetrics.time("auth.crypto.rsa.decrypt", () -> decrypt(encryptedBase64, getPrivateKey()));
+    }
+
+    /**
+     * 使用指定私钥解密，与 decryptWith 走同一段代码（JIT预热使用临时密钥对）
+     */
+    public static String decrypt(String encryptedBase64, PrivateKey privateKey) throws Exception {
         Cipher cipher = Cipher.getInstance("RSA");
         cipher.init(Cipher.DECRYPT_MODE, privateKey);
         byte[] decryptedBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedBase64));
         return new String(decryptedBytes, "UTF-8");
     }
 
+    /**
+     * 提前加载公钥与私钥，把首次读取资源文件与解析密钥的开销移出请求路径
+     */
+    public static void preload() throws Exception {
+        getPublicKeyPem();
+        getPublicKey();
+        getPrivateKey();
+        getPublicKeyId();
+    }
+
+    /**
+     * 公钥ID：DER编码公钥的SHA-256（base64url），密钥轮换后随之变化，用作 /public-key 的ETag
+     */
+    public static String getPublicKeyId() throws Exception {
+        if (cachedPublicKeyId == null) {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(getPublicKey().getEncoded());
+            cachedPublicKeyId = Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        }
+        return cachedPublicKeyId;
+    }
+
     public static String getPublicKeyPem() throws Exception {
         if (cachedPublicKeyPem == null) {
-            synchronized (RsaCryptoUtil.class) {
+            LOAD_LOCK.lock();
+            try {
                 if (cachedPublicKeyPem == null) {
                     cachedPublicKeyPem = readPemFromResource(PUBLIC_KEY_RESOURCE);
                 }
+            } finally {
+                LOAD_LOCK.unlock();
             }
         }
         return cachedPublicKeyPem;
@@ -45,10 +84,13 @@ public final class RsaCryptoUtil {
 
     private static PublicKey getPublicKey() throws Exception {
         if (cachedPublicKey == null) {
-            synchronized (RsaCryptoUtil.class) {
+            LOAD_LOCK.lock();
+            try {
                 if (cachedPublicKey == null) {
                     cachedPublicKey = readPublicKeyFromPem();
                 }
+            } finally {
+                LOAD_LOCK.unlock();
             }
         }
         return cachedPublicKey;
@@ -56,10 +98,13 @@ public final class RsaCryptoUtil {
 
     private static PrivateKey getPrivateKey() throws Exception {
         if (cachedPrivateKey == null) {
-            synchronized (RsaCryptoUtil.class) {
+            LOAD_LOCK.lock();
+            try {
                 if (cachedPrivateKey == null) {
                     cachedPrivateKey = readPrivateKeyFromPem();
                 }
+            } finally {
+                LOAD_LOCK.unlock();
             }
         }
         return cachedPrivateKey;
@@ -0,0 +1,16 @@
+package com.user.vo.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserRefreshRequest {
+    @NotBlank(message = "Refresh token cannot be blank")
+    private String refreshToken;
+}
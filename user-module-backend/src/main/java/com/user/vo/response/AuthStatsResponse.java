@@ -0,0 +1,33 @@
+package com.user.vo.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 认证统计（/actuator/authstats）
+ * 去重用户数为HyperLogLog估计值，标准误差约0.81%
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuthStatsResponse {
+    private String from;
+    private String to;
+    /** 区间内的去重活跃用户数（各天合并估计，不是每日之和） */
+    private Long activeUsers;
+    /** 每日活跃用户，key为 yyyy-MM-dd */
+    private Map<String, Long> dailyActiveUsers;
+    /** 区间涉及的各月的月活跃用户（整月），key为 yyyy-MM */
+    private Map<String, Long> monthlyActiveUsers;
+    /** 区间内各事件的次数：login、login_failed、refresh，以及注册漏斗 code_sent、register_attempt、registered */
+    private Map<String, Long> events;
+    /** login_failed / (login + login_failed)，无登录时为0 */
+    private Double loginFailureRate;
+    /** 最近N分钟每分钟的登录成功次数，key为 yyyy-MM-dd HH:mm，按时间升序 */
+    private Map<String, Long> loginsPerMinute;
+}
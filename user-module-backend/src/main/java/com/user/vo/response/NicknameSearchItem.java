@@ -0,0 +1,17 @@
+package com.user.vo.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NicknameSearchItem {
+    private Long userId;
+    private String nickname;
+    /** 模糊匹配的编辑距离，精确/前缀/子串匹配为0 */
+    private Integer distance;
+}
@@ -0,0 +1,23 @@
+package com.user.vo.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NicknameSearchResponse {
+    private String query;
+    private Integer page;
+    private Integer size;
+    /** 命中总数（模糊匹配部分只统计到候选上限为止） */
+    private Integer total;
+    /** 是否还有下一页（受 app.search.max-results 限制） */
+    private Boolean hasMore;
+    private List<NicknameSearchItem> items;
+}
@@ -15,5 +15,6 @@ public class UserLoginResponse {
     private String nickname;
     private String avatarUrl;
     private String token;
+    private String refreshToken;
 }
 
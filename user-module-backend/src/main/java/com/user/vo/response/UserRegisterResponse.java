@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class UserRegisterResponse {
     private Long userId;
     private String email;
@@ -20,5 +20,6 @@ public class UserRegisterResponse {
     private Byte status;
     private LocalDateTime createdAt;
     private String token;
+    private String refreshToken;
 }
 
@@ -0,0 +1,20 @@
+package com.user.vo.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserSessionResponse {
+    private Long sessionId;
+    private String device;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastActiveAt;
+    private LocalDateTime expiresAt;
+    private Boolean current;
+}
@@ -0,0 +1,56 @@
+-- embedded profile 的建表脚本（H2，MySQL兼容模式）
+-- 与 init.sql 保持同一结构，修改表结构时两处需同步
+
+CREATE TABLE IF NOT EXISTS `user` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT 'User ID',
+    `email` VARCHAR(128) DEFAULT '' COMMENT 'Bound email address',
+    `nickname` VARCHAR(64) DEFAULT '' COMMENT 'User nickname',
+    `password_hash` CHAR(60) NOT NULL COMMENT 'BCrypt password hash',
+    `password_salt` CHAR(32) NOT NULL COMMENT 'UUID-based password salt',
+    `avatar_url` VARCHAR(255) DEFAULT '' COMMENT 'Avatar URL',
+    `avatar_base64` CLOB COMMENT 'Avatar base64',
+    `country` VARCHAR(64) DEFAULT '' COMMENT 'Country',
+    `gender` TINYINT DEFAULT 0 COMMENT 'Gender (0=unknown, 1=male, 2=female)',
+    `status` TINYINT NOT NULL DEFAULT 1 COMMENT 'Account status (0=inactive, 1=active, 2=disabled, 3=deleted)',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Creation time',
+    `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update time',
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_user_email` UNIQUE (`email`),
+    CONSTRAINT `uk_user_nickname` UNIQUE (`nickname`)
+);
+
+CREATE INDEX IF NOT EXISTS `idx_user_updated_at` ON `user` (`updated_at`);
+
+CREATE TABLE IF NOT EXISTS `user_token` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT 'Session ID',
+    `user_id` BIGINT NOT NULL COMMENT 'User ID',
+    `refresh_token` VARCHAR(64) NOT NULL COMMENT 'Refresh Token (UUID)',
+    `previous_refresh_token` VARCHAR(64) DEFAULT NULL COMMENT 'Refresh token replaced by the last rotation',
+    `device` VARCHAR(128) NOT NULL DEFAULT '' COMMENT 'Client User-Agent at login',
+    `token_version` INT NOT NULL DEFAULT 0 COMMENT 'Incremented on every refresh, carried in the access token as ver',
+    `expires_at` TIMESTAMP NOT NULL COMMENT 'Expiration time',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Login time',
+    `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Last refresh time',
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_refresh_token` UNIQUE (`refresh_token`)
+);
+CREATE INDEX IF NOT EXISTS `idx_previous_refresh_token` ON `user_token` (`previous_refresh_token`);
+CREATE INDEX IF NOT EXISTS `idx_user_token_user_id` ON `user_token` (`user_id`);
+
+CREATE TABLE IF NOT EXISTS `user_outbox` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT 'Event ID, relayed in ascending order',
+    `user_id` BIGINT NOT NULL COMMENT 'User ID',
+    `event_type` VARCHAR(32) NOT NULL COMMENT 'Event type',
+    `payload` VARCHAR(1024) NOT NULL DEFAULT '{}' COMMENT 'Event payload (JSON)',
+    `created_at` TIMESTAMP(3) NOT NULL COMMENT 'Creation time',
+    `delivered_at` TIMESTAMP(3) DEFAULT NULL COMMENT 'Time the relay published the event, NULL = pending',
+    PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_delivered_at` ON `user_outbox` (`delivered_at`);
+
+CREATE TABLE IF NOT EXISTS `user_lookup` (
+    `lookup_key` VARCHAR(200) NOT NULL COMMENT 'e:<email> or n:<nickname>',
+    `user_id` BIGINT NOT NULL COMMENT 'User ID',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Reservation time',
+    PRIMARY KEY (`lookup_key`)
+);
@@ -19,20 +19,70 @@ CREATE TABLE IF NOT EXISTS `user` (
     `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update time',
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_user_email` (`email`),
-    UNIQUE KEY `uk_user_nickname` (`nickname`)
+    UNIQUE KEY `uk_user_nickname` (`nickname`),
+    KEY `idx_user_updated_at` (`updated_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='User Core Info Table';
 
 -- User token table
 CREATE TABLE IF NOT EXISTS `user_token` (
-    `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT 'Primary Key',
+    `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT 'Session ID, carried in the access token as sid',
     `user_id` BIGINT UNSIGNED NOT NULL COMMENT 'User ID',
     `refresh_token` VARCHAR(64) NOT NULL COMMENT 'Refresh Token (UUID)',
+    `previous_refresh_token` VARCHAR(64) DEFAULT NULL COMMENT 'Refresh token replaced by the last rotation, used for reuse detection',
+    `device` VARCHAR(128) NOT NULL DEFAULT '' COMMENT 'Client User-Agent at login, shown in the session list',
+    `token_version` INT UNSIGNED NOT NULL DEFAULT 0 COMMENT 'Incremented on every refresh, carried in the access token as ver',
     `expires_at` DATETIME NOT NULL COMMENT 'Expiration time',
-    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Creation time',
-    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update time',
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Login time',
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Last refresh time',
     PRIMARY KEY (`id`),
-    UNIQUE KEY `uk_user_id` (`user_id`),
     UNIQUE KEY `uk_refresh_token` (`refresh_token`),
+    KEY `idx_previous_refresh_token` (`previous_refresh_token`),
     KEY `idx_user_id` (`user_id`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='User Token Table';
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='User Session Table, one row per logged-in device';
+
+
+-- User lifecycle event outbox, written in the same transaction as the change and relayed to Redis Streams
+CREATE TABLE IF NOT EXISTS `user_outbox` (
+    `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT 'Event ID, relayed in ascending order',
+    `user_id` BIGINT UNSIGNED NOT NULL COMMENT 'User ID',
+    `event_type` VARCHAR(32) NOT NULL COMMENT 'REGISTERED, PROFILE_UPDATED, PASSWORD_RESET, LOGGED_OUT, DELETED',
+    `payload` VARCHAR(1024) NOT NULL DEFAULT '{}' COMMENT 'Event payload (JSON)',
+    `created_at` DATETIME(3) NOT NULL COMMENT 'Creation time',
+    `delivered_at` DATETIME(3) DEFAULT NULL COMMENT 'Time the relay published the event, NULL = pending',
+    PRIMARY KEY (`id`),
+    KEY `idx_delivered_at` (`delivered_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='User Event Outbox Table';
+
+
+-- Global email/nickname -> user id lookup, used only when user data is sharded (app.sharding.enabled).
+-- Lives in the database at app.sharding.global-url (shard 0 by default); each shard runs the tables above.
+CREATE TABLE IF NOT EXISTS `user_lookup` (
+    `lookup_key` VARCHAR(200) NOT NULL COMMENT 'e:<email> or n:<nickname>',
+    `user_id` BIGINT UNSIGNED NOT NULL COMMENT 'User ID, also determines the shard',
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Reservation time, stale reservations of missing users may be taken over',
+    PRIMARY KEY (`lookup_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='User Lookup Table';
+
 
+-- Existing databases created before refresh-token rotation need:
+-- ALTER TABLE `user_token`
+--     ADD COLUMN `previous_refresh_token` VARCHAR(64) DEFAULT NULL COMMENT 'Refresh token replaced by the last rotation, used for reuse detection' AFTER `refresh_token`,
+--     ADD KEY `idx_previous_refresh_token` (`previous_refresh_token`);
+--
+-- Existing databases created before multi-device sessions need:
+-- ALTER TABLE `user_token`
+--     DROP INDEX `uk_user_id`,
+--     ADD KEY `idx_user_id` (`user_id`),
+--     ADD COLUMN `device` VARCHAR(128) NOT NULL DEFAULT '' COMMENT 'Client User-Agent at login, shown in the session list' AFTER `previous_refresh_token`;
+--
+-- Existing databases created before server-signed access tokens need (access tokens issued earlier stop
+-- verifying, clients obtain new ones through POST /refresh):
+-- ALTER TABLE `user_token`
+--     ADD COLUMN `token_version` INT UNSIGNED NOT NULL DEFAULT 0 COMMENT 'Incremented on every refresh, carried in the access token as ver' AFTER `device`;
+--
+-- Existing databases created before the credential directory need:
+-- ALTER TABLE `user` ADD KEY `idx_user_updated_at` (`updated_at`);
+--
+-- With sharding enabled, user ids are assigned by the application (UserIdGenerator, app.id.node-id must be unique
+-- per node); without sharding AUTO_INCREMENT on `user`.`id` is still used. Enabling sharding on an existing database
+-- requires moving each user's rows (user, user_token, user_outbox) to the shard chosen by ShardRouter.shardOf and filling `user_lookup`.
@@ -0,0 +1,78 @@
+package com.user.reactive;
+
+import com.user.service.RedisCircuitBreaker;
+import com.user.service.code.InMemoryVerificationCodeStore;
+import com.user.service.code.RedisVerificationCodeStore;
+import com.user.service.code.VerifyResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 响应式验证码校验
+ * 与 RedisVerificationCodeStore 使用同一个Key与Lua脚本；Redis熔断、出错或未找到时回退到内存降级存储，
+ * 与 FailoverVerificationCodeStore 的行为一致
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveCodeVerifier {
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final InMemoryVerificationCodeStore memoryStore;
+    private final int maxAttempts;
+
+    public ReactiveCodeVerifier(ObjectProvider<ReactiveStringRedisTemplate> redisTemplate,
+                                RedisCircuitBreaker circuitBreaker,
+                                InMemoryVerificationCodeStore memoryStore,
+                                @Value("${app.verification-code.max-attempts:5}") int maxAttempts) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        this.memoryStore = memoryStore;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Mono<Boolean> verify(String email, String code) {
+        if (email == null || code == null || code.trim().isEmpty()) {
+            return Mono.just(false);
+        }
+        String trimmed = code.trim();
+        Mono<VerifyResult> result;
+        if (redisTemplate != null && circuitBreaker.allowRequest()) {
+            result = redisTemplate.execute(RedisVerificationCodeStore.VERIFY_SCRIPT,
+                            Collections.singletonList(RedisVerificationCodeStore.KEY_PREFIX + email),
+                            List.of(trimmed, String.valueOf(maxAttempts)))
+                    .next()
+                    .map(RedisVerificationCodeStore::toVerifyResult)
+                    .defaultIfEmpty(VerifyResult.NOT_FOUND)
+                    .doOnNext(r -> circuitBreaker.recordSuccess())
+                    .flatMap(r -> r == VerifyResult.NOT_FOUND ? verifyInMemory(email, trimmed) : Mono.just(r))
+                    .onErrorResume(e -> {
+                        circuitBreaker.recordFailure(e instanceof Exception ex ? ex : new RuntimeException(e));
+                        return verifyInMemory(email, trimmed);
+                    });
+        } else {
+            result = verifyInMemory(email, trimmed);
+        }
+        return result.map(r -> {
+            if (r != VerifyResult.MATCHED) {
+                log.warn("验证码校验未通过，邮箱: {}，结果: {}", email, r);
+            }
+            return r == VerifyResult.MATCHED;
+        });
+    }
+
+    /**
+     * 内存存储只持有短暂的锁，可以直接在事件循环上执行
+     */
+    private Mono<VerifyResult> verifyInMemory(String email, String code) {
+        return Mono.fromSupplier(() -> memoryStore.verify(email, code));
+    }
+}
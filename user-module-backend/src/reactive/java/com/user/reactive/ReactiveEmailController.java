@@ -0,0 +1,67 @@
+package com.user.reactive;
+
+import com.user.exception.BusinessException;
+import com.user.service.EmailService;
+import com.user.service.code.RateLimitResult;
+import com.user.service.code.SendCodeRateLimiter;
+import com.user.vo.response.ApiResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+
+/**
+ * EmailController 的响应式版本
+ * 发送验证码是低频操作，限流与SMTP投递复用阻塞实现，在 boundedElastic 上执行
+ */
+@RestController
+@RequestMapping("/email")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "邮箱服务", description = "邮箱验证码发送相关接口")
+public class ReactiveEmailController {
+    private final EmailService emailService;
+    private final SendCodeRateLimiter rateLimiter;
+
+    @Value("${app.verification-code.rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @PostMapping("/send-verification-code")
+    @Operation(summary = "发送验证码", description = "向指定邮箱发送验证码")
+    public Mono<ApiResult<Void>> sendVerificationCode(@RequestParam String email, ServerHttpRequest request) {
+        log.info("收到发送验证码请求，邮箱: {}", email);
+        String clientIp = clientIp(request);
+        return Mono.fromCallable(() -> {
+                    RateLimitResult limit = rateLimiter.tryAcquire(email, clientIp);
+                    if (!limit.isAllowed()) {
+                        log.warn("发送验证码被限流，邮箱: {}，原因: {}", email, limit.getReason());
+                        throw new BusinessException(429, "请求过于频繁，请" + limit.getRetryAfterSeconds() + "秒后再试");
+                    }
+                    emailService.sendVerificationCode(email);
+                    log.info("验证码发送成功，邮箱: {}", email);
+                    return ApiResult.<Void>success();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private String clientIp(ServerHttpRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeaders().getFirst("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma > 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "unknown";
+    }
+}
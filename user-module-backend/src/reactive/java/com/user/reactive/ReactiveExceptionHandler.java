@@ -0,0 +1,49 @@
+package com.user.reactive;
+
+import com.user.vo.response.ApiResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * WebFlux特有异常的处理，其余异常仍由 GlobalExceptionHandler 统一处理
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveExceptionHandler {
+
+    /**
+     * 处理参数验证异常（@Valid），对应Servlet下的 MethodArgumentNotValidException
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiResult<?> handleWebExchangeBindException(WebExchangeBindException e) {
+        String errorMessage = e.getFieldErrors().stream()
+                .map(FieldError::getDefaultMessage)
+                .collect(Collectors.joining(", "));
+        log.warn("参数验证异常: {}", errorMessage);
+        return ApiResult.error(400, "参数验证失败: " + errorMessage);
+    }
+
+    /**
+     * authCpuScheduler 排队已满，快速失败而不是无限堆积
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiResult<?> handleRejectedExecutionException(RejectedExecutionException e) {
+        log.warn("认证计算队列已满: {}", e.getMessage());
+        return ApiResult.error(503, "服务繁忙，请稍后再试");
+    }
+}
@@ -0,0 +1,29 @@
+package com.user.reactive;
+
+import com.user.entity.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * user_outbox 表的R2DBC写入，SQL与 mapper/OutboxMapper.xml 保持一致；中继仍由 OutboxRelay 通过MyBatis完成
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveOutboxRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Long> insert(OutboxEvent event) {
+        return databaseClient.sql("INSERT INTO `user_outbox` (user_id, event_type, payload, created_at) " +
+                        "VALUES (:userId, :eventType, :payload, :createdAt)")
+                .bind("userId", event.getUserId())
+                .bind("eventType", event.getEventType())
+                .bind("payload", event.getPayload())
+                .bind("createdAt", event.getCreatedAt())
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -0,0 +1,46 @@
+package com.user.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+
+/**
+ * 响应式构建（mvn -Preactive）的公共配置
+ * JDBC与R2DBC事务管理器同时存在，阻塞侧的 @Transactional 按类型查找时使用 @Primary 的JDBC事务管理器，
+ * 响应式侧通过 TransactionalOperator 显式使用R2DBC事务管理器
+ */
+@Configuration(proxyBeanMethods = false)
+public class ReactiveStackConfig {
+
+    @Bean
+    @Primary
+    public JdbcTransactionManager transactionManager(DataSource dataSource) {
+        return new JdbcTransactionManager(dataSource);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public TransactionalOperator reactiveTransactionalOperator(ReactiveTransactionManager reactiveTransactionManager) {
+        return TransactionalOperator.create(reactiveTransactionManager);
+    }
+
+    /**
+     * BCrypt与RSA专用的有界调度器：线程数固定，排队超过上限时拒绝，避免CPU密集任务占用事件循环
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public Scheduler authCpuScheduler(@Value("${app.reactive.cpu-threads:0}") int threads,
+                                      @Value("${app.reactive.cpu-queue:10000}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(size, queueCapacity, "auth-cpu");
+    }
+}
@@ -0,0 +1,101 @@
+package com.user.reactive;
+
+import com.user.entity.UserToken;
+import com.user.service.RedisCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * /verify 使用的会话缓存，键为 auth:token:{userId}:{sessionId}，存放在共享的Redis中
+ * 值为 "tokenVersion|expiresAtEpochMillis"（不缓存刷新令牌本身），TTL较短；命中但令牌版本不符时调用方会回源数据库，
+ * 因此其他节点（包括Servlet实现）轮换刷新令牌不会导致新JWT被误判。
+ * 响应式节点上的登出、撤销会话、重置密码与刷新令牌重用都在提交后清除对应的键，所有响应式节点立即生效。
+ * 不一致窗口：Servlet节点上的登出、撤销与刷新不清除缓存，删除失败（Redis异常）时同样如此，
+ * 这些情况下已撤销会话的访问令牌（或刷新前的访问令牌）在响应式节点上最多再有效一个TTL（默认5秒），设为0则完全不缓存。
+ * Redis不可用时直接回源
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveTokenCache {
+    private static final String KEY_PREFIX = "auth:token:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Duration ttl;
+
+    public ReactiveTokenCache(ObjectProvider<ReactiveStringRedisTemplate> redisTemplate,
+                              RedisCircuitBreaker circuitBreaker,
+                              @Value("${app.reactive.token-cache-ttl:5s}") Duration ttl) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        this.ttl = ttl;
+    }
+
+    public Mono<UserToken> get(Long userId, Long sessionId) {
+        if (!usable() || sessionId == null) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue().get(key(userId, sessionId))
+                .map(value -> decode(userId, sessionId, value))
+                .onErrorResume(e -> {
+                    log.debug("读取令牌缓存失败，回源数据库: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Void> put(UserToken userToken) {
+        if (!usable() || userToken == null) {
+            return Mono.empty();
+        }
+        long expiresAt = userToken.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Duration remaining = Duration.ofMillis(expiresAt - System.currentTimeMillis());
+        if (remaining.isNegative() || remaining.isZero()) {
+            return Mono.empty();
+        }
+        Duration effectiveTtl = remaining.compareTo(ttl) < 0 ? remaining : ttl;
+        return redisTemplate.opsForValue()
+                .set(key(userToken.getUserId(), userToken.getId()), userToken.getTokenVersion() + "|" + expiresAt,
+                        effectiveTtl)
+                .onErrorResume(e -> Mono.just(false))
+                .then();
+    }
+
+    public Mono<Void> evict(Long userId, Long sessionId) {
+        if (!usable()) {
+            return Mono.empty();
+        }
+        return redisTemplate.delete(key(userId, sessionId))
+                .onErrorResume(e -> Mono.just(0L))
+                .then();
+    }
+
+    private boolean usable() {
+        return redisTemplate != null && !ttl.isZero() && circuitBreaker.allowRequest();
+    }
+
+    private static String key(Long userId, Long sessionId) {
+        return KEY_PREFIX + userId + ":" + sessionId;
+    }
+
+    private static UserToken decode(Long userId, Long sessionId, String value) {
+        int separator = value.indexOf('|');
+        UserToken userToken = new UserToken();
+        userToken.setId(sessionId);
+        userToken.setUserId(userId);
+        userToken.setTokenVersion(Integer.parseInt(value.substring(0, separator)));
+        userToken.setExpiresAt(LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(Long.parseLong(value.substring(separator + 1))), ZoneId.systemDefault()));
+        return userToken;
+    }
+}
@@ -0,0 +1,88 @@
+package com.user.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.exception.AuthFailures;
+import com.user.service.UserVersionCache;
+import com.user.service.search.NicknameSearchService;
+import com.user.util.HttpCacheMetrics;
+import com.user.vo.response.ApiResult;
+import com.user.vo.response.NicknameSearchResponse;
+import com.user.vo.response.UserInfoResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/user")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Tag(name = "用户信息", description = "用户信息查询相关接口")
+public class ReactiveUserInfoController {
+    private static final String USER_CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final ReactiveUserRepository userRepository;
+    private final UserVersionCache userVersionCache;
+    private final ObjectMapper objectMapper;
+    private final NicknameSearchService nicknameSearchService;
+
+    /**
+     * 只读内存索引，直接在事件循环上执行
+     */
+    @GetMapping("/search")
+    @Operation(summary = "搜索昵称", description = "按昵称前缀、子串或近似拼写搜索用户，结果由内存索引提供并分页返回")
+    public Mono<ApiResult<NicknameSearchResponse>> searchByNickname(@RequestParam("q") String query,
+                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        return Mono.fromSupplier(() -> ApiResult.success(nicknameSearchService.search(query, page, size)));
+    }
+
+    @GetMapping("/{userId}")
+    @Operation(summary = "获取用户信息", description = "根据用户ID获取用户详细信息")
+    public Mono<ApiResult<UserInfoResponse>> getUserInfoById(@PathVariable Long userId, ServerWebExchange exchange) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.CACHE_CONTROL, USER_CACHE_CONTROL);
+
+        UserVersionCache.Entry cached = userVersionCache.get(userId);
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (cached != null && ifNoneMatch != null && ifNoneMatch.contains(cached.getEtag())
+                && exchange.checkNotModified(cached.getEtag())) {
+            HttpCacheMetrics.notModified("user-info", cached.getBodyBytes());
+            return Mono.empty();
+        }
+
+        return userRepository.findById(userId)
+                .switchIfEmpty(Mono.error(AuthFailures.USER_NOT_FOUND))
+                .flatMap(user -> {
+                    ApiResult<UserInfoResponse> result = ApiResult.success(UserInfoResponse.builder()
+                            .userId(user.getId())
+                            .email(user.getEmail())
+                            .nickname(user.getNickname())
+                            .avatarUrl(user.getAvatarUrl())
+                            .country(user.getCountry())
+                            .gender(user.getGender())
+                            .status(user.getStatus())
+                            .createdAt(user.getCreatedAt())
+                            .build());
+                    byte[] body;
+                    try {
+                        body = objectMapper.writeValueAsBytes(result);
+                    } catch (Exception e) {
+                        return Mono.error(e);
+                    }
+                    String etag = UserVersionCache.etag(userId, body);
+                    int bodyBytes = body.length;
+                    userVersionCache.put(userId, etag, bodyBytes);
+                    if (exchange.checkNotModified(etag)) {
+                        HttpCacheMetrics.notModified("user-info", bodyBytes);
+                        return Mono.empty();
+                    }
+                    HttpCacheMetrics.fullResponse("user-info");
+                    return Mono.just(result);
+                });
+    }
+}
@@ -0,0 +1,122 @@
+package com.user.reactive;
+
+import com.user.util.HttpCacheMetrics;
+import com.user.util.RsaCryptoUtil;
+import com.user.vo.request.UserLoginRequest;
+import com.user.vo.request.UserRefreshRequest;
+import com.user.vo.request.UserRegisterRequest;
+import com.user.vo.request.UserResetPasswordRequest;
+import com.user.vo.response.ApiResult;
+import com.user.vo.response.UserLoginResponse;
+import com.user.vo.response.UserRegisterResponse;
+import com.user.vo.response.UserSessionResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserLoginController 的响应式版本，路径与响应格式完全一致
+ */
+@RestController
+@RequestMapping
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Tag(name = "用户认证", description = "用户注册、登录、登出等认证相关接口")
+public class ReactiveUserLoginController {
+    private static final String PUBLIC_KEY_CACHE_CONTROL =
+            CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic().getHeaderValue();
+
+    private final ReactiveUserLoginService userLoginService;
+
+    @GetMapping("/")
+    @Operation(summary = "API信息", description = "获取用户模块API信息")
+    public ApiResult<String> index() {
+        return ApiResult.success("User Module API is running (reactive). Available endpoints: GET /public-key, POST /register, POST /login, POST /refresh, GET /verify, POST /reset-password, POST /logout, GET /sessions, DELETE /sessions/{sessionId}, DELETE /sessions, POST /email/send-verification-code, GET /user/{userId}");
+    }
+
+    @GetMapping("/public-key")
+    @Operation(summary = "获取RSA公钥", description = "获取用于密码加密的RSA公钥")
+    public Mono<ApiResult<String>> publicKey(ServerWebExchange exchange) throws Exception {
+        exchange.getResponse().getHeaders().set(HttpHeaders.CACHE_CONTROL, PUBLIC_KEY_CACHE_CONTROL);
+        if (exchange.checkNotModified("\"" + RsaCryptoUtil.getPublicKeyId() + "\"")) {
+            HttpCacheMetrics.notModified("public-key", RsaCryptoUtil.getPublicKeyPem().getBytes(StandardCharsets.UTF_8).length);
+            return Mono.empty();
+        }
+        HttpCacheMetrics.fullResponse("public-key");
+        return userLoginService.publicKey().map(ApiResult::success);
+    }
+
+    @PostMapping("/register")
+    @Operation(summary = "用户注册", description = "新用户注册接口")
+    public Mono<ApiResult<UserRegisterResponse>> register(
+            @Valid @RequestBody UserRegisterRequest request,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        return userLoginService.register(request, userAgent).map(ApiResult::success);
+    }
+
+    @PostMapping("/login")
+    @Operation(summary = "用户登录", description = "用户登录接口")
+    public Mono<ApiResult<UserLoginResponse>> login(
+            @Valid @RequestBody UserLoginRequest request,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        return userLoginService.login(request, userAgent).map(ApiResult::success);
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "刷新Token", description = "用刷新令牌换取新的访问令牌，刷新令牌同时轮换")
+    public Mono<ApiResult<UserLoginResponse>> refresh(@Valid @RequestBody UserRefreshRequest request) {
+        return userLoginService.refresh(request).map(ApiResult::success);
+    }
+
+    @GetMapping("/verify")
+    @Operation(summary = "验证Token", description = "验证JWT Token是否有效")
+    public Mono<ApiResult<UserVerifyResponse>> verify(@RequestHeader("Authorization") String authorization) {
+        return userLoginService.verify(authorization).map(ApiResult::success);
+    }
+
+    @PostMapping("/reset-password")
+    @Operation(summary = "重置密码", description = "通过邮箱验证码重置密码（支持已登录用户验证身份）")
+    public Mono<ApiResult<Void>> resetPassword(
+            @Valid @RequestBody UserResetPasswordRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        return userLoginService.resetPassword(request, authorization).then(Mono.fromSupplier(ApiResult::success));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "用户登出", description = "用户登出接口，结束当前设备的会话（需要提供有效的Token）")
+    public Mono<ApiResult<Void>> logout(@RequestHeader("Authorization") String authorization) {
+        return userLoginService.logout(authorization).then(Mono.fromSupplier(ApiResult::success));
+    }
+
+    @GetMapping("/sessions")
+    @Operation(summary = "会话列表", description = "当前用户已登录的设备，最近活跃的在前，current 标记当前会话")
+    public Mono<ApiResult<List<UserSessionResponse>>> sessions(@RequestHeader("Authorization") String authorization) {
+        return userLoginService.sessions(authorization).map(ApiResult::success);
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    @Operation(summary = "撤销会话", description = "让指定设备下线，只能撤销自己的会话")
+    public Mono<ApiResult<Void>> revokeSession(@RequestHeader("Authorization") String authorization,
+                                              @PathVariable Long sessionId) {
+        return userLoginService.revokeSession(authorization, sessionId).then(Mono.fromSupplier(ApiResult::success));
+    }
+
+    @DeleteMapping("/sessions")
+    @Operation(summary = "撤销全部会话", description = "让所有设备下线，keepCurrent=true 时保留当前设备，返回撤销的会话数")
+    public Mono<ApiResult<Integer>> revokeSessions(@RequestHeader("Authorization") String authorization,
+                                                   @RequestParam(defaultValue = "false") boolean keepCurrent) {
+        return userLoginService.revokeSessions(authorization, keepCurrent).map(ApiResult::success);
+    }
+}
@@ -0,0 +1,396 @@
+package com.user.reactive;
+
+import com.user.entity.User;
+import com.user.entity.UserToken;
+import com.user.exception.AuthFailures;
+import com.user.exception.BusinessException;
+import com.user.service.UserAuthPolicy;
+import com.user.service.analytics.AuthAnalytics;
+import com.user.service.analytics.AuthEvent;
+import com.user.service.outbox.UserEventOutbox;
+import com.user.service.outbox.UserEventType;
+import com.user.service.search.NicknameSearchService;
+import com.user.util.JwtTokenUtil;
+import com.user.util.PasswordHashUtil;
+import com.user.util.RsaCryptoUtil;
+import com.user.vo.request.UserLoginRequest;
+import com.user.vo.request.UserRefreshRequest;
+import com.user.vo.request.UserRegisterRequest;
+import com.user.vo.request.UserResetPasswordRequest;
+import com.user.vo.response.UserLoginResponse;
+import com.user.vo.response.UserRegisterResponse;
+import com.user.vo.response.UserSessionResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.micrometer.core.instrument.Metrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * UserLoginService 的响应式实现
+ * 校验规则、令牌签发与响应组装复用 UserAuthPolicy；BCrypt与RSA在 authCpuScheduler 上执行，
+ * 数据库与Redis访问全部非阻塞，事件循环上只做JWT的HMAC计算
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserLoginService {
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveUserTokenRepository userTokenRepository;
+    private final ReactiveCodeVerifier codeVerifier;
+    private final ReactiveTokenCache tokenCache;
+    private final UserAuthPolicy authPolicy;
+    private final TransactionalOperator transactionalOperator;
+    private final Scheduler authCpuScheduler;
+    private final AuthAnalytics analytics;
+    private final NicknameSearchService nicknameSearchService;
+    private final ReactiveOutboxRepository outboxRepository;
+    private final UserEventOutbox eventOutbox;
+
+    public Mono<String> publicKey() {
+        return onCpu(RsaCryptoUtil::getPublicKeyPem)
+                .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                    log.error("Failed to get public key", e);
+                    return new BusinessException(500, "获取公钥失败");
+                });
+    }
+
+    public Mono<UserRegisterResponse> register(UserRegisterRequest request, String device) {
+        log.info("User registration started: email={}, nickname={}", request.getEmail(), request.getNickname());
+        analytics.record(AuthEvent.REGISTER_ATTEMPT);
+
+        return codeVerifier.verify(request.getEmail(), request.getVerificationCode())
+                .flatMap(matched -> {
+                    if (!matched) {
+                        log.debug("Email verification failed for email={}", request.getEmail());
+                        return Mono.error(AuthFailures.CODE_INVALID);
+                    }
+                    return userRepository.existsByEmail(request.getEmail());
+                })
+                .flatMap(emailTaken -> emailTaken
+                        ? Mono.error(AuthFailures.EMAIL_TAKEN)
+                        : userRepository.existsByNickname(request.getNickname()))
+                .flatMap(nicknameTaken -> nicknameTaken
+                        ? Mono.error(AuthFailures.NICKNAME_TAKEN)
+                        : onCpu(() -> {
+                            String plainPassword = authPolicy.decryptPassword(request.getEncryptedPassword());
+                            String salt = PasswordHashUtil.generateSalt();
+                            String passwordHash = PasswordHashUtil.hashPassword(plainPassword, salt);
+                            return authPolicy.newUser(request, passwordHash, salt);
+                        }))
+                .flatMap(user -> userRepository.insert(user)
+                        .switchIfEmpty(Mono.error(new BusinessException(500, "用户保存失败")))
+                        .flatMap(userRepository::findById)
+                        .switchIfEmpty(Mono.error(new BusinessException(500, "获取用户信息失败")))
+                        .flatMap(savedUser -> {
+                            UserToken session = authPolicy.newSession(savedUser.getId(), device);
+                            return createSession(session)
+                                    .then(appendEvent(savedUser.getId(), UserEventType.REGISTERED, savedUser))
+                                    .then(Mono.fromSupplier(() -> issue(savedUser, session)));
+                        })
+                        .as(transactionalOperator::transactional))
+                .flatMap(issued -> tokenCache.put(issued.userToken)
+                        .then(Mono.fromSupplier(() -> {
+                            log.info("User registration completed successfully: userId={}, email={}",
+                                    issued.user.getId(), issued.user.getEmail());
+                            analytics.record(AuthEvent.REGISTERED);
+                            nicknameSearchService.onSaved(issued.user);
+                            analytics.active(issued.user.getId());
+                            return authPolicy.registerResponse(issued.user, issued.token, issued.userToken.getRefreshToken());
+                        })));
+    }
+
+    public Mono<UserLoginResponse> login(UserLoginRequest request, String device) {
+        log.info("User login started: username={}", request.getUsername());
+
+        return userRepository.findByEmail(request.getUsername())
+                .switchIfEmpty(Mono.defer(() -> userRepository.findByNickname(request.getUsername())))
+                .switchIfEmpty(Mono.error(AuthFailures.USER_NOT_FOUND))
+                .doOnNext(authPolicy::checkLoginAllowed)
+                .flatMap(user -> onCpu(() -> {
+                    String plainPassword = authPolicy.decryptPassword(request.getEncryptedPassword());
+                    return PasswordHashUtil.verifyPassword(plainPassword, user.getPasswordHash(), user.getPasswordSalt());
+                }).flatMap(passwordMatches -> {
+                    if (!passwordMatches) {
+                        log.debug("Invalid password for userId={}", user.getId());
+                        return Mono.error(AuthFailures.WRONG_PASSWORD);
+                    }
+                    UserToken session = authPolicy.newSession(user.getId(), device);
+                    return createSession(session)
+                            .then(Mono.defer(() -> tokenCache.put(session)))
+                            .then(Mono.fromSupplier(() -> {
+                                String token = authPolicy.issueAccessToken(user, session);
+                                log.info("User login completed successfully: userId={}, sessionId={}, email={}",
+                                        user.getId(), session.getId(), user.getEmail());
+                                analytics.record(AuthEvent.LOGIN);
+                                analytics.active(user.getId());
+                                return authPolicy.loginResponse(user, token, session.getRefreshToken());
+                            }));
+                }))
+                .doOnError(BusinessException.class, e -> analytics.record(AuthEvent.LOGIN_FAILED));
+    }
+
+    /**
+     * 与 UserLoginService.refresh 相同：条件UPDATE轮换刷新令牌，旧令牌被重用时撤销该令牌所属的会话
+     */
+    public Mono<UserLoginResponse> refresh(UserRefreshRequest request) {
+        String refreshToken = request.getRefreshToken();
+        return userTokenRepository.findByRefreshToken(refreshToken)
+                .switchIfEmpty(Mono.defer(() -> userTokenRepository.findByPreviousRefreshToken(refreshToken)
+                        .flatMap(reused -> {
+                            log.warn("Refresh token reuse detected, revoking session: userId={}, sessionId={}",
+                                    reused.getUserId(), reused.getId());
+                            Metrics.counter("auth.refresh.reuse").increment();
+                            return userTokenRepository.deleteSession(reused.getUserId(), reused.getId())
+                                    .then(tokenCache.evict(reused.getUserId(), reused.getId()));
+                        })
+                        .then(Mono.<UserToken>error(AuthFailures.REFRESH_TOKEN_INVALID))))
+                .filter(authPolicy::isRefreshTokenUsable)
+                .switchIfEmpty(Mono.error(AuthFailures.REFRESH_TOKEN_INVALID))
+                .flatMap(current -> userRepository.findById(current.getUserId())
+                        .switchIfEmpty(Mono.error(AuthFailures.USER_NOT_FOUND))
+                        .doOnNext(authPolicy::checkLoginAllowed)
+                        .flatMap(user -> {
+                            UserToken rotated = authPolicy.rotatedUserToken(current);
+                            return userTokenRepository.rotate(user.getId(), refreshToken, rotated)
+                                    .flatMap(updated -> updated == 0
+                                            ? Mono.error(AuthFailures.REFRESH_TOKEN_INVALID)
+                                            : tokenCache.put(rotated).then(Mono.fromSupplier(() -> {
+                                                String token = authPolicy.issueAccessToken(user, rotated);
+                                                log.info("Token refreshed: userId={}", user.getId());
+                                                analytics.record(AuthEvent.REFRESH);
+                                                analytics.active(user.getId());
+                                                return authPolicy.loginResponse(user, token, rotated.getRefreshToken());
+                                            })));
+                        }));
+    }
+
+    public Mono<UserVerifyResponse> verify(String authorization) {
+        String token = authPolicy.bearerToken(authorization);
+        if (token == null) {
+            return Mono.just(authPolicy.invalidToken());
+        }
+        Long userId = JwtTokenUtil.extractUserId(token);
+        if (userId == null) {
+            return Mono.just(authPolicy.invalidToken());
+        }
+
+        return validSession(token, userId)
+                .flatMap(valid -> userRepository.findById(userId))
+                .doOnNext(user -> analytics.active(userId))
+                .map(authPolicy::validToken)
+                .defaultIfEmpty(authPolicy.invalidToken());
+    }
+
+    public Mono<Void> resetPassword(UserResetPasswordRequest request, String authorization) {
+        log.info("Password reset started for email={}", request.getEmail());
+
+        return userRepository.findByEmail(request.getEmail())
+                .switchIfEmpty(Mono.error(AuthFailures.USER_NOT_FOUND))
+                .flatMap(user -> checkResetOwner(request.getEmail(), authorization).thenReturn(user))
+                .flatMap(user -> codeVerifier.verify(request.getEmail(), request.getVerificationCode())
+                        .flatMap(matched -> matched
+                                ? onCpu(() -> {
+                                    String plainNewPassword = authPolicy.decryptPassword(request.getEncryptedNewPassword());
+                                    String newSalt = PasswordHashUtil.generateSalt();
+                                    user.setPasswordHash(PasswordHashUtil.hashPassword(plainNewPassword, newSalt));
+                                    user.setPasswordSalt(newSalt);
+                                    return user;
+                                })
+                                : Mono.error(AuthFailures.CODE_INVALID)))
+                .flatMap(user -> userRepository.updatePassword(user.getId(), user.getPasswordHash(), user.getPasswordSalt())
+                        // Delete all sessions to force re-login on every device
+                        .then(deleteAllSessions(user.getId()))
+                        .flatMap(revoked -> appendEvent(user.getId(), UserEventType.PASSWORD_RESET, null).thenReturn(revoked))
+                        .as(transactionalOperator::transactional)
+                        .flatMap(revoked -> evictCached(user.getId(), revoked))
+                        .doOnSuccess(v -> log.info("Password reset completed successfully for userId={}, email={}",
+                                user.getId(), user.getEmail())));
+    }
+
+    /**
+     * 只结束当前设备的会话
+     */
+    public Mono<Void> logout(String authorization) {
+        return currentSession(authorization)
+                .flatMap(session -> {
+                    Long userId = session.getUserId();
+                    log.info("User logout started for userId={}, sessionId={}", userId, session.getId());
+                    return userTokenRepository.deleteSession(userId, session.getId())
+                            .then(appendEvent(userId, UserEventType.LOGGED_OUT, null))
+                            .as(transactionalOperator::transactional)
+                            .then(tokenCache.evict(userId, session.getId()))
+                            .doOnSuccess(v -> log.info("User logout completed successfully for userId={}", userId));
+                });
+    }
+
+    public Mono<List<UserSessionResponse>> sessions(String authorization) {
+        LocalDateTime now = LocalDateTime.now();
+        return currentSession(authorization)
+                .flatMap(current -> userTokenRepository.findByUserId(current.getUserId())
+                        .filter(session -> !session.getExpiresAt().isBefore(now))
+                        .map(session -> authPolicy.sessionResponse(session, current.getId()))
+                        .collectList());
+    }
+
+    public Mono<Void> revokeSession(String authorization, Long sessionId) {
+        return currentSession(authorization)
+                .flatMap(current -> {
+                    Long userId = current.getUserId();
+                    return userTokenRepository.deleteSession(userId, sessionId)
+                            .flatMap(deleted -> deleted == 0
+                                    ? Mono.error(AuthFailures.SESSION_NOT_FOUND)
+                                    : appendEvent(userId, UserEventType.LOGGED_OUT, null))
+                            .as(transactionalOperator::transactional)
+                            .then(tokenCache.evict(userId, sessionId))
+                            .doOnSuccess(v -> log.info("Session revoked: userId={}, sessionId={}", userId, sessionId));
+                });
+    }
+
+    /**
+     * keepCurrent 为true时保留当前会话，返回撤销的会话数
+     */
+    public Mono<Integer> revokeSessions(String authorization, boolean keepCurrent) {
+        return currentSession(authorization)
+                .flatMap(current -> {
+                    Long userId = current.getUserId();
+                    return userTokenRepository.findByUserId(userId)
+                            .map(UserToken::getId)
+                            .filter(id -> !keepCurrent || !id.equals(current.getId()))
+                            .collectList()
+                            .flatMap(ids -> ids.isEmpty()
+                                    ? Mono.just(ids)
+                                    : userTokenRepository.deleteSessions(userId, ids)
+                                            .then(appendEvent(userId, UserEventType.LOGGED_OUT, null))
+                                            .thenReturn(ids))
+                            .as(transactionalOperator::transactional)
+                            .flatMap(ids -> evictCached(userId, ids).thenReturn(ids.size()))
+                            .doOnNext(count -> log.info("Sessions revoked: userId={}, count={}, keepCurrent={}",
+                                    userId, count, keepCurrent));
+                });
+    }
+
+    /**
+     * 与 UserLoginService.currentSession 相同：校验请求头中的访问令牌并返回其所属会话
+     */
+    private Mono<UserToken> currentSession(String authorization) {
+        String token = authPolicy.bearerToken(authorization);
+        if (token == null) {
+            return Mono.error(AuthFailures.TOKEN_MISSING);
+        }
+        Long userId = JwtTokenUtil.extractUserId(token);
+        if (userId == null) {
+            return Mono.error(AuthFailures.TOKEN_INVALID);
+        }
+        return validSession(token, userId)
+                .switchIfEmpty(Mono.error(AuthFailures.TOKEN_INVALID));
+    }
+
+    /**
+     * 访问令牌所属的会话，按 sid 先查缓存；缓存未命中或缓存的令牌版本已被轮换时按主键回源数据库
+     */
+    private Mono<UserToken> validSession(String token, Long userId) {
+        Long sessionId = JwtTokenUtil.extractSessionId(token);
+        if (sessionId == null) {
+            return Mono.empty();
+        }
+        return tokenCache.get(userId, sessionId)
+                .filter(cached -> authPolicy.isTokenValid(token, userId, cached))
+                .switchIfEmpty(Mono.defer(() -> userTokenRepository.findSession(userId, sessionId)
+                        .flatMap(stored -> tokenCache.put(stored).thenReturn(stored))
+                        .filter(stored -> authPolicy.isTokenValid(token, userId, stored))));
+    }
+
+    /**
+     * 新增会话并回填会话ID，删除已过期与超出上限的会话，与 UserTokenService.createSession 相同
+     */
+    private Mono<Void> createSession(UserToken session) {
+        return userTokenRepository.insert(session)
+                .doOnNext(session::setId)
+                .thenMany(Flux.defer(() -> userTokenRepository.findByUserId(session.getUserId())))
+                .collectList()
+                .map(sessions -> authPolicy.sessionsToEvict(sessions, session.getId()))
+                .filter(evicted -> !evicted.isEmpty())
+                .flatMap(evicted -> userTokenRepository.deleteSessions(session.getUserId(), evicted)
+                        .then(evictCached(session.getUserId(), evicted)));
+    }
+
+    /**
+     * 删除用户的全部会话，返回被删除的会话ID，供提交后清除缓存
+     */
+    private Mono<List<Long>> deleteAllSessions(Long userId) {
+        return userTokenRepository.findByUserId(userId)
+                .map(UserToken::getId)
+                .collectList()
+                .flatMap(ids -> userTokenRepository.deleteByUserId(userId).thenReturn(ids));
+    }
+
+    private Mono<Void> evictCached(Long userId, List<Long> sessionIds) {
+        return Flux.fromIterable(sessionIds)
+                .flatMap(sessionId -> tokenCache.evict(userId, sessionId))
+                .then();
+    }
+
+    /**
+     * 提供了Token时只能重置自己的密码；Token无效时继续走邮箱验证码流程
+     */
+    private Mono<Void> checkResetOwner(String email, String authorization) {
+        if (authorization == null || authorization.isEmpty()) {
+            return Mono.empty();
+        }
+        return verify(authorization)
+                .flatMap(verifyResponse -> {
+                    if (verifyResponse.getValid() != null && verifyResponse.getValid()) {
+                        if (!verifyResponse.getEmail().equals(email)) {
+                            return Mono.error(AuthFailures.RESET_NOT_OWNER);
+                        }
+                        log.info("Password reset with token verification: userId={}", verifyResponse.getUserId());
+                    } else {
+                        log.warn("Invalid token provided for password reset, but continuing with email verification");
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 在调用方的事务内写入发件箱，与 UserEventOutbox.append 相同
+     */
+    private Mono<Void> appendEvent(Long userId, UserEventType type, User snapshot) {
+        if (!eventOutbox.isEnabled()) {
+            return Mono.empty();
+        }
+        return Mono.fromSupplier(() -> eventOutbox.newEvent(userId, type, snapshot))
+                .flatMap(outboxRepository::insert)
+                .then();
+    }
+
+    private Issued issue(User user, UserToken userToken) {
+        return new Issued(user, userToken, authPolicy.issueAccessToken(user, userToken));
+    }
+
+    private <T> Mono<T> onCpu(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(authCpuScheduler);
+    }
+
+    private static final class Issued {
+        private final User user;
+        private final UserToken userToken;
+        private final String token;
+
+        private Issued(User user, UserToken userToken, String token) {
+            this.user = user;
+            this.userToken = userToken;
+            this.token = token;
+        }
+    }
+}
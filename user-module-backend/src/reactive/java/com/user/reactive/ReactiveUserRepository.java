@@ -0,0 +1,104 @@
+package com.user.reactive;
+
+import com.user.entity.User;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * user 表的R2DBC访问，SQL与 mapper/UserMapper.xml 保持一致
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("SELECT * FROM `user` WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<User> findByEmail(String email) {
+        return databaseClient.sql("SELECT * FROM `user` WHERE email = :email")
+                .bind("email", email)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<User> findByNickname(String nickname) {
+        return databaseClient.sql("SELECT * FROM `user` WHERE nickname = :nickname")
+                .bind("nickname", nickname)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return databaseClient.sql("SELECT COUNT(1) FROM `user` WHERE email = :email")
+                .bind("email", email)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    public Mono<Boolean> existsByNickname(String nickname) {
+        return databaseClient.sql("SELECT COUNT(1) FROM `user` WHERE nickname = :nickname")
+                .bind("nickname", nickname)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    /**
+     * 插入用户并返回自增主键（响应式栈不支持分片，不使用 UserIdGenerator）
+     */
+    public Mono<Long> insert(User user) {
+        return databaseClient.sql("INSERT INTO `user` (email, nickname, password_hash, password_salt, avatar_url, avatar_base64, country, gender, status) " +
+                        "VALUES (:email, :nickname, :passwordHash, :passwordSalt, :avatarUrl, :avatarBase64, :country, :gender, :status)")
+                .bind("email", user.getEmail())
+                .bind("nickname", user.getNickname())
+                .bind("passwordHash", user.getPasswordHash())
+                .bind("passwordSalt", user.getPasswordSalt())
+                .bind("avatarUrl", user.getAvatarUrl())
+                .bind("avatarBase64", user.getAvatarBase64())
+                .bind("country", user.getCountry())
+                .bind("gender", user.getGender())
+                .bind("status", user.getStatus())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    public Mono<Long> updatePassword(Long id, String passwordHash, String passwordSalt) {
+        return databaseClient.sql("UPDATE `user` SET password_hash = :passwordHash, password_salt = :passwordSalt WHERE id = :id")
+                .bind("passwordHash", passwordHash)
+                .bind("passwordSalt", passwordSalt)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static User toUser(Readable row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setEmail(row.get("email", String.class));
+        user.setNickname(row.get("nickname", String.class));
+        user.setPasswordHash(row.get("password_hash", String.class));
+        user.setPasswordSalt(row.get("password_salt", String.class));
+        user.setAvatarUrl(row.get("avatar_url", String.class));
+        user.setAvatarBase64(row.get("avatar_base64", String.class));
+        user.setCountry(row.get("country", String.class));
+        user.setGender(row.get("gender", Byte.class));
+        user.setStatus(row.get("status", Byte.class));
+        user.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        user.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return user;
+    }
+}
@@ -0,0 +1,120 @@
+package com.user.reactive;
+
+import com.user.entity.UserToken;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * user_token 表的R2DBC访问，SQL与 mapper/UserTokenMapper.xml 保持一致
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserTokenRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<UserToken> findSession(Long userId, Long id) {
+        return databaseClient.sql("SELECT * FROM `user_token` WHERE id = :id AND user_id = :userId")
+                .bind("id", id)
+                .bind("userId", userId)
+                .map(ReactiveUserTokenRepository::toUserToken)
+                .one();
+    }
+
+    public Flux<UserToken> findByUserId(Long userId) {
+        return databaseClient.sql("SELECT * FROM `user_token` WHERE user_id = :userId ORDER BY updated_at DESC, id DESC")
+                .bind("userId", userId)
+                .map(ReactiveUserTokenRepository::toUserToken)
+                .all();
+    }
+
+    public Mono<UserToken> findByRefreshToken(String refreshToken) {
+        return databaseClient.sql("SELECT * FROM `user_token` WHERE refresh_token = :refreshToken")
+                .bind("refreshToken", refreshToken)
+                .map(ReactiveUserTokenRepository::toUserToken)
+                .one();
+    }
+
+    public Mono<UserToken> findByPreviousRefreshToken(String refreshToken) {
+        return databaseClient.sql("SELECT * FROM `user_token` WHERE previous_refresh_token = :refreshToken")
+                .bind("refreshToken", refreshToken)
+                .map(ReactiveUserTokenRepository::toUserToken)
+                .one();
+    }
+
+    /**
+     * 仅当当前刷新令牌仍是 oldRefreshToken 时轮换，返回受影响行数
+     */
+    public Mono<Long> rotate(Long userId, String oldRefreshToken, UserToken rotated) {
+        return databaseClient.sql("UPDATE `user_token` SET previous_refresh_token = refresh_token, " +
+                        "refresh_token = :newRefreshToken, token_version = token_version + 1, expires_at = :expiresAt " +
+                        "WHERE user_id = :userId AND refresh_token = :oldRefreshToken")
+                .bind("newRefreshToken", rotated.getRefreshToken())
+                .bind("expiresAt", rotated.getExpiresAt())
+                .bind("userId", userId)
+                .bind("oldRefreshToken", oldRefreshToken)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * 插入会话并返回自增的会话ID
+     */
+    public Mono<Long> insert(UserToken userToken) {
+        return databaseClient.sql("INSERT INTO `user_token` (user_id, refresh_token, device, token_version, expires_at) " +
+                        "VALUES (:userId, :refreshToken, :device, :tokenVersion, :expiresAt)")
+                .bind("userId", userToken.getUserId())
+                .bind("refreshToken", userToken.getRefreshToken())
+                .bind("device", userToken.getDevice())
+                .bind("tokenVersion", userToken.getTokenVersion())
+                .bind("expiresAt", userToken.getExpiresAt())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    public Mono<Long> deleteSession(Long userId, Long id) {
+        return databaseClient.sql("DELETE FROM `user_token` WHERE id = :id AND user_id = :userId")
+                .bind("id", id)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteSessions(Long userId, List<Long> ids) {
+        return databaseClient.sql("DELETE FROM `user_token` WHERE user_id = :userId AND id IN (:ids)")
+                .bind("userId", userId)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteByUserId(Long userId) {
+        return databaseClient.sql("DELETE FROM `user_token` WHERE user_id = :userId")
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static UserToken toUserToken(Readable row) {
+        UserToken userToken = new UserToken();
+        userToken.setId(row.get("id", Long.class));
+        userToken.setUserId(row.get("user_id", Long.class));
+        userToken.setRefreshToken(row.get("refresh_token", String.class));
+        userToken.setPreviousRefreshToken(row.get("previous_refresh_token", String.class));
+        userToken.setDevice(row.get("device", String.class));
+        userToken.setTokenVersion(row.get("token_version", Integer.class));
+        userToken.setExpiresAt(row.get("expires_at", LocalDateTime.class));
+        userToken.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        userToken.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return userToken;
+    }
+}
@@ -0,0 +1,161 @@
+package com.user;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.service.IdempotencyService;
+import com.user.service.code.VerificationCodeStore;
+import com.user.util.RsaCryptoUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 以 embedded profile 启动整个应用：H2 按 db/schema-embedded.sql 建表，Redis与SMTP使用节点内存和日志替代，
+ * 走一遍注册、登录、校验、登出，schema-embedded.sql 与 init.sql 或Mapper不一致时这里会失败
+ */
+@SpringBootTest(properties = {
+        "app.warm-up.enabled=false",
+        "management.server.port=0",
+        "logging.level.com.user=WARN"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class EmbeddedAuthFlowTest {
+    private static final String EMAIL = "flow@example.com";
+    private static final String NICKNAME = "flowplayer";
+    private static final String PASSWORD = "Passw0rd!";
+    private static final String CODE = "246810";
+
+    @TempDir
+    static Path dataDir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VerificationCodeStore codeStore;
+
+    @DynamicPropertySource
+    static void dataDir(DynamicPropertyRegistry registry) {
+        registry.add("app.embedded.data-dir", () -> dataDir.toString());
+    }
+
+    @Test
+    void registerLoginVerifyLogout() throws Exception {
+        // log-only 邮件不便解析，直接写入已知的验证码
+        codeStore.save(EMAIL, CODE, Duration.ofMinutes(5));
+        Map<String, Object> register = new LinkedHashMap<>();
+        register.put("email", EMAIL);
+        register.put("nickname", NICKNAME);
+        register.put("encryptedPassword", RsaCryptoUtil.encrypt(PASSWORD));
+        register.put("verificationCode", CODE);
+        JsonNode registered = call(post("/register"), register);
+        long userId = registered.path("userId").asLong();
+        assertThat(userId).isPositive();
+
+        Map<String, Object> login = new LinkedHashMap<>();
+        login.put("username", NICKNAME);
+        login.put("encryptedPassword", RsaCryptoUtil.encrypt(PASSWORD));
+        JsonNode loggedIn = call(post("/login"), login);
+        String token = loggedIn.path("token").asText();
+        assertThat(token).isNotEmpty();
+
+        JsonNode verified = call(get("/verify").header(HttpHeaders.AUTHORIZATION, "Bearer " + token), null);
+        assertThat(verified.path("valid").asBoolean()).isTrue();
+        assertThat(verified.path("userId").asLong()).isEqualTo(userId);
+        assertThat(verified.path("email").asText()).isEqualTo(EMAIL);
+        assertThat(verified.path("nickname").asText()).isEqualTo(NICKNAME);
+
+        // 注册时的会话与刚登录的会话互不影响
+        String registerToken = registered.path("token").asText();
+        call(post("/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token), null);
+
+        JsonNode afterLogout = call(get("/verify").header(HttpHeaders.AUTHORIZATION, "Bearer " + token), null);
+        assertThat(afterLogout.path("valid").asBoolean()).isFalse();
+        JsonNode otherSession = call(get("/verify").header(HttpHeaders.AUTHORIZATION, "Bearer " + registerToken), null);
+        assertThat(otherSession.path("valid").asBoolean()).isTrue();
+    }
+
+    @Test
+    void replayedRegistrationIssuesNewSessionInsteadOfStoredTokens() throws Exception {
+        codeStore.save("replay@example.com", CODE, Duration.ofMinutes(5));
+        Map<String, Object> register = new LinkedHashMap<>();
+        register.put("email", "replay@example.com");
+        register.put("nickname", "replayer");
+        register.put("encryptedPassword", RsaCryptoUtil.encrypt(PASSWORD));
+        register.put("verificationCode", CODE);
+        JsonNode first = call(post("/register").header(IdempotencyService.HEADER, "replay-1"), register);
+
+        // 首次响应中的刷新令牌已被轮换，重放不能再返回它，否则客户端使用时会触发复用检测
+        call(post("/refresh"), Map.of("refreshToken", first.path("refreshToken").asText()));
+        JsonNode replayed = call(post("/register").header(IdempotencyService.HEADER, "replay-1"), register);
+
+        assertThat(replayed.path("userId").asLong()).isEqualTo(first.path("userId").asLong());
+        assertThat(replayed.path("refreshToken").asText()).isNotEmpty()
+                .isNotEqualTo(first.path("refreshToken").asText());
+        JsonNode verified = call(get("/verify")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + replayed.path("token").asText()), null);
+        assertThat(verified.path("valid").asBoolean()).isTrue();
+        call(post("/refresh"), Map.of("refreshToken", replayed.path("refreshToken").asText()));
+    }
+
+    @Test
+    void wrongPasswordIsRejected() throws Exception {
+        codeStore.save("wrong@example.com", CODE, Duration.ofMinutes(5));
+        Map<String, Object> register = new LinkedHashMap<>();
+        register.put("email", "wrong@example.com");
+        register.put("nickname", "wrongpass");
+        register.put("encryptedPassword", RsaCryptoUtil.encrypt(PASSWORD));
+        register.put("verificationCode", CODE);
+        call(post("/register"), register);
+
+        Map<String, Object> login = new LinkedHashMap<>();
+        login.put("username", "wrong@example.com");
+        login.put("encryptedPassword", RsaCryptoUtil.encrypt("not-the-password"));
+        String body = mockMvc.perform(post("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = objectMapper.readTree(body);
+        assertThat(result.path("code").asInt()).isNotEqualTo(200);
+        assertThat(result.path("data").isNull() || result.path("data").isMissingNode()).isTrue();
+    }
+
+    /**
+     * 执行请求并断言 ApiResult 成功，返回 data
+     */
+    private JsonNode call(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+        }
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode result = objectMapper.readTree(response);
+        assertThat(result.path("code").asInt()).as(response).isEqualTo(200);
+        return result.path("data");
+    }
+}
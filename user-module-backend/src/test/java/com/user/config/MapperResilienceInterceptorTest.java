@@ -0,0 +1,123 @@
+package com.user.config;
+
+import com.user.exception.DependencyUnavailableException;
+import com.user.resilience.DependencyGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.plugin.Plugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通过 Plugin.wrap 走MyBatis真实的代理路径，异常经 Invocation 反射调用后再由插件解包
+ */
+class MapperResilienceInterceptorTest {
+    private final Executor target = mock(Executor.class);
+    private DependencyGuard mysqlGuard;
+    private Executor executor;
+
+    @BeforeEach
+    void setUp() {
+        mysqlGuard = new DependencyGuard("mysql", 4, Duration.ofMillis(50), 2, Duration.ofSeconds(30),
+                ResilienceConfig::isDatabaseOutage, new SimpleMeterRegistry());
+        executor = (Executor) Plugin.wrap(target, new MapperResilienceInterceptor(mysqlGuard));
+    }
+
+    @Test
+    void connectionFailuresOpenBreakerAndShortCircuitStatements() throws Exception {
+        when(target.update(any(), any())).thenThrow(deadDatabaseAcquireFailure());
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> executor.update(null, null)).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        assertThat(mysqlGuard.getState()).isEqualTo(DependencyGuard.State.OPEN);
+
+        assertThatThrownBy(() -> executor.update(null, null))
+                .isInstanceOf(DependencyUnavailableException.class);
+        verify(target, times(2)).update(any(), any());
+    }
+
+    @Test
+    void connectionSqlStateCountsAsOutage() throws Exception {
+        when(target.update(any(), any())).thenThrow(new SQLException("Communications link failure", "08S01"));
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> executor.update(null, null)).isInstanceOf(SQLException.class);
+        }
+
+        assertThat(mysqlGuard.getState()).isEqualTo(DependencyGuard.State.OPEN);
+    }
+
+    @Test
+    void duplicateKeyDoesNotTripBreaker() throws Exception {
+        when(target.update(any(), any())).thenThrow(
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'a@example.com'", "23000", 1062));
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> executor.update(null, null))
+                    .isInstanceOf(SQLIntegrityConstraintViolationException.class);
+        }
+
+        assertThat(mysqlGuard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+        verify(target, times(5)).update(any(), any());
+    }
+
+    @Test
+    void lockContentionAndLocalPermitTimeoutDoNotTripBreaker() throws Exception {
+        when(target.update(any(), any())).thenThrow(
+                new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213),
+                new SQLTransactionRollbackException("Lock wait timeout exceeded", "40001", 1205),
+                new SQLTimeoutException("Statement cancelled due to timeout"),
+                // ConcurrencyLimitedDataSource 的本地许可超时与数据库仍可用时的连接池排队超时
+                new SQLTransientConnectionException("等待数据库并发许可超时"),
+                new SQLTransientConnectionException("HikariPool-1 - Connection is not available, request timed out after 200ms."));
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> executor.update(null, null)).isInstanceOf(SQLException.class);
+        }
+
+        assertThat(mysqlGuard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+        verify(target, times(5)).update(any(), any());
+    }
+
+    @Test
+    void unsignedExecutorMethodsBypassOpenBreaker() throws Exception {
+        when(target.update(any(), any())).thenThrow(deadDatabaseAcquireFailure());
+        when(target.isClosed()).thenReturn(true);
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> executor.update(null, null)).isInstanceOf(SQLTransientConnectionException.class);
+        }
+
+        // 只有 @Signature 声明的 update/query 经过熔断器
+        assertThat(executor.isClosed()).isTrue();
+        executor.clearLocalCache();
+        verify(target).clearLocalCache();
+    }
+
+    /**
+     * 数据库宕机时Hikari取连接超时，cause为最后一次建连失败
+     */
+    private static SQLTransientConnectionException deadDatabaseAcquireFailure() {
+        return new SQLTransientConnectionException(
+                "HikariPool-1 - Connection is not available, request timed out after 200ms.", "08S01",
+                new SQLNonTransientConnectionException("Communications link failure", "08S01",
+                        new ConnectException("Connection refused")));
+    }
+}
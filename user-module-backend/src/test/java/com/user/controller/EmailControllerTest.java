@@ -0,0 +1,66 @@
+package com.user.controller;
+
+import com.user.exception.BusinessException;
+import com.user.service.EmailService;
+import com.user.service.code.RateLimitResult;
+import com.user.service.code.SendCodeRateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EmailControllerTest {
+    private static final String EMAIL = "a@example.com";
+
+    private final EmailService emailService = mock(EmailService.class);
+    private final SendCodeRateLimiter rateLimiter = mock(SendCodeRateLimiter.class);
+    private final EmailController controller = new EmailController(emailService, rateLimiter);
+
+    @Test
+    void forwardedForIsIgnoredUnlessTrusted() {
+        when(rateLimiter.tryAcquire(anyString(), anyString())).thenReturn(RateLimitResult.allowed());
+
+        controller.sendVerificationCode(EMAIL, request("203.0.113.7, 10.0.0.2"));
+
+        // 未开启 trust-forwarded-for 时客户端可以伪造该请求头绕过按IP限流
+        verify(rateLimiter).tryAcquire(EMAIL, "10.0.0.1");
+    }
+
+    @Test
+    void trustedForwardedForUsesFirstHop() {
+        ReflectionTestUtils.setField(controller, "trustForwardedFor", true);
+        when(rateLimiter.tryAcquire(anyString(), anyString())).thenReturn(RateLimitResult.allowed());
+
+        controller.sendVerificationCode(EMAIL, request(" 203.0.113.7 , 10.0.0.2"));
+        controller.sendVerificationCode("b@example.com", request(null));
+
+        verify(rateLimiter).tryAcquire(EMAIL, "203.0.113.7");
+        verify(rateLimiter).tryAcquire("b@example.com", "10.0.0.1");
+    }
+
+    @Test
+    void rejectedRequestDoesNotSendMail() {
+        when(rateLimiter.tryAcquire(anyString(), anyString()))
+                .thenReturn(RateLimitResult.rejected(RateLimitResult.Reason.EMAIL_COOLDOWN, 42_000));
+
+        assertThatThrownBy(() -> controller.sendVerificationCode(EMAIL, request(null)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("42秒");
+        verifyNoInteractions(emailService);
+    }
+
+    private static MockHttpServletRequest request(String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/email/send-verification-code");
+        request.setRemoteAddr("10.0.0.1");
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,46 @@
+package com.user.controller;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEndpointTest {
+    @TempDir
+    Path directory;
+
+    private JfrEndpoint endpoint;
+
+    @AfterEach
+    void tearDown() {
+        if (endpoint != null) {
+            endpoint.stop();
+        }
+    }
+
+    @Test
+    void recordingDoesNotContainEnvironmentOrSystemProperties() throws Exception {
+        endpoint = new JfrEndpoint(Duration.ofMinutes(1), 50, directory.toString());
+
+        Map<String, Object> status = endpoint.start(Duration.ofSeconds(30), "default", null);
+        assertThat(status.get("state")).isEqualTo("RUNNING");
+        Resource dump = endpoint.dump("dump");
+
+        List<String> types = RecordingFile.readAllEvents(dump.getFile().toPath()).stream()
+                .map(RecordedEvent::getEventType)
+                .map(type -> type.getName())
+                .distinct()
+                .toList();
+        assertThat(types).isNotEmpty()
+                .doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+    }
+}
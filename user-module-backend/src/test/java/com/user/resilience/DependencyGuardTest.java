@@ -0,0 +1,161 @@
+package com.user.resilience;
+
+import com.user.exception.DependencyUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 只有 IOException 视为依赖故障，IllegalStateException 代表业务错误
+ */
+class DependencyGuardTest {
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailureThreshold() {
+        DependencyGuard guard = guard(2);
+
+        fail(guard);
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+        fail(guard);
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.OPEN);
+
+        assertThatThrownBy(() -> guard.call(() -> "unreachable"))
+                .isInstanceOf(DependencyUnavailableException.class);
+        assertThat(count("rejected_open")).isEqualTo(1);
+        assertThat(count("failure")).isEqualTo(2);
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() throws Exception {
+        DependencyGuard guard = guard(2);
+
+        fail(guard);
+        assertThat(guard.call(() -> "ok")).isEqualTo("ok");
+        fail(guard);
+
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+    }
+
+    @Test
+    void businessErrorsDoNotCountAsFailures() {
+        DependencyGuard guard = guard(1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new IllegalStateException("Duplicate entry");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+        assertThat(count("failure")).isZero();
+        assertThat(count("success")).isEqualTo(5);
+    }
+
+    @Test
+    void halfOpenAdmitsSingleTrialAndClosesOnSuccess() throws Exception {
+        DependencyGuard guard = guard(1);
+        fail(guard);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        CountDownLatch trialStarted = new CountDownLatch(1);
+        CountDownLatch finishTrial = new CountDownLatch(1);
+        Future<String> trial = callers.submit(() -> guard.call(() -> {
+            trialStarted.countDown();
+            finishTrial.await();
+            return "trial";
+        }));
+        assertThat(trialStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 试探调用在途时其他调用直接被拒绝
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.HALF_OPEN);
+        assertThatThrownBy(() -> guard.call(() -> "second"))
+                .isInstanceOf(DependencyUnavailableException.class);
+
+        finishTrial.countDown();
+        assertThat(trial.get(5, TimeUnit.SECONDS)).isEqualTo("trial");
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+        assertThat(guard.call(() -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void failedTrialReopensForAnotherOpenDuration() throws Exception {
+        DependencyGuard guard = guard(1);
+        fail(guard);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        fail(guard);
+
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.OPEN);
+        assertThatThrownBy(() -> guard.call(() -> "too early"))
+                .isInstanceOf(DependencyUnavailableException.class);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        assertThat(guard.call(() -> "recovered")).isEqualTo("recovered");
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+    }
+
+    @Test
+    void rejectsWhenBulkheadPermitsAreExhausted() throws Exception {
+        DependencyGuard guard = new DependencyGuard("test", 1, Duration.ofMillis(20), 1, OPEN_DURATION,
+                e -> e instanceof IOException, meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return guard.call(() -> {
+                    holding.countDown();
+                    release.await();
+                    return "slow";
+                });
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, callers);
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> guard.call(() -> "queued"))
+                .isInstanceOf(DependencyUnavailableException.class);
+        assertThat(count("rejected_full")).isEqualTo(1);
+        // 舱壁拒绝不是依赖故障，不会让熔断器断开
+        assertThat(guard.getState()).isEqualTo(DependencyGuard.State.CLOSED);
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(guard.call(() -> "free")).isEqualTo("free");
+    }
+
+    private DependencyGuard guard(int failureThreshold) {
+        return new DependencyGuard("test", 4, Duration.ofMillis(50), failureThreshold, OPEN_DURATION,
+                e -> e instanceof IOException, meterRegistry);
+    }
+
+    private static void fail(DependencyGuard guard) {
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw new IOException("connection refused");
+        })).isInstanceOf(IOException.class);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("resilience.calls").tags("dependency", "test", "outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,88 @@
+package com.user.rpc;
+
+import com.user.vo.response.UserInfoResponse;
+import com.user.vo.response.UserVerifyResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RpcProtocolTest {
+    private final ByteBuf buf = Unpooled.buffer();
+
+    @AfterEach
+    void release() {
+        buf.release();
+    }
+
+    @Test
+    void stringRoundTripKeepsUtf8AndEmptyValues() {
+        RpcProtocol.writeString(buf, "玩家一号");
+        RpcProtocol.writeString(buf, "");
+        RpcProtocol.writeString(buf, null);
+
+        assertThat(RpcProtocol.readString(buf)).isEqualTo("玩家一号");
+        assertThat(RpcProtocol.readString(buf)).isEmpty();
+        assertThat(RpcProtocol.readString(buf)).isEmpty();
+        assertThat(buf.isReadable()).isFalse();
+    }
+
+    @Test
+    void stringLongerThanU16IsRejected() {
+        assertThatThrownBy(() -> RpcProtocol.writeString(buf, "a".repeat(0x10000)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stringLongerThanReadableBytesIsRejected() {
+        buf.writeShort(10);
+        buf.writeBytes(new byte[]{'a', 'b', 'c'});
+
+        assertThatThrownBy(() -> RpcProtocol.readString(buf))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void verifyRoundTrip() {
+        UserVerifyResponse valid = UserVerifyResponse.builder()
+                .userId(42L).email("player@example.com").nickname("player").valid(true).build();
+        RpcProtocol.writeVerify(buf, valid);
+        RpcProtocol.writeVerify(buf, UserVerifyResponse.builder().valid(false).build());
+
+        assertThat(RpcProtocol.readVerify(buf)).isEqualTo(valid);
+        assertThat(RpcProtocol.readVerify(buf).getValid()).isFalse();
+        assertThat(buf.isReadable()).isFalse();
+    }
+
+    @Test
+    void userInfoRoundTrip() {
+        UserInfoResponse info = UserInfoResponse.builder()
+                .userId(7L)
+                .email("player@example.com")
+                .nickname("player")
+                .avatarUrl("https://example.com/a.png")
+                .country("CN")
+                .gender((byte) 1)
+                .status((byte) 1)
+                .createdAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15))
+                .build();
+        RpcProtocol.writeUserInfo(buf, info);
+
+        assertThat(RpcProtocol.readUserInfo(buf)).isEqualTo(info);
+        assertThat(buf.isReadable()).isFalse();
+    }
+
+    @Test
+    void onlyDefinedOpsAreKnown() {
+        assertThat(RpcProtocol.isKnownOp(RpcProtocol.OP_VERIFY)).isTrue();
+        assertThat(RpcProtocol.isKnownOp(RpcProtocol.OP_BATCH_VERIFY)).isTrue();
+        assertThat(RpcProtocol.isKnownOp(RpcProtocol.OP_USER_INFO)).isTrue();
+        assertThat(RpcProtocol.isKnownOp((byte) 0)).isFalse();
+        assertThat(RpcProtocol.isKnownOp((byte) 99)).isFalse();
+    }
+}
@@ -0,0 +1,212 @@
+package com.user.rpc;
+
+import com.user.exception.AuthFailures;
+import com.user.service.UserInfoService;
+import com.user.service.UserLoginService;
+import com.user.vo.response.UserVerifyResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 直接向 RpcServerHandler 写入已解帧的请求体，worker 在调用线程上执行，响应同步出现在出站队列中
+ */
+class RpcServerHandlerTest {
+    private final UserLoginService userLoginService = mock(UserLoginService.class);
+    private final UserInfoService userInfoService = mock(UserInfoService.class);
+    private final InlineExecutor workers = new InlineExecutor();
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel(new RpcServerHandler(userLoginService, userInfoService, workers));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void verifyReturnsDecodedResponse() {
+        UserVerifyResponse valid = UserVerifyResponse.builder()
+                .userId(42L).email("player@example.com").nickname("player").valid(true).build();
+        when(userLoginService.verify("token-a")).thenReturn(valid);
+
+        ByteBuf request = request(RpcProtocol.OP_VERIFY, 5L);
+        RpcProtocol.writeString(request, "token-a");
+        channel.writeInbound(request);
+
+        ByteBuf response = channel.readOutbound();
+        assertStatus(response, RpcProtocol.STATUS_OK, 5L);
+        assertThat(RpcProtocol.readVerify(response)).isEqualTo(valid);
+        response.release();
+    }
+
+    @Test
+    void batchVerifyKeepsRequestOrder() {
+        when(userLoginService.verify("a")).thenReturn(UserVerifyResponse.builder().valid(false).build());
+        when(userLoginService.verify("b")).thenReturn(UserVerifyResponse.builder()
+                .userId(2L).email("b@example.com").nickname("b").valid(true).build());
+
+        ByteBuf request = request(RpcProtocol.OP_BATCH_VERIFY, 6L);
+        request.writeShort(2);
+        RpcProtocol.writeString(request, "a");
+        RpcProtocol.writeString(request, "b");
+        channel.writeInbound(request);
+
+        ByteBuf response = channel.readOutbound();
+        assertStatus(response, RpcProtocol.STATUS_OK, 6L);
+        assertThat(response.readUnsignedShort()).isEqualTo(2);
+        assertThat(RpcProtocol.readVerify(response).getValid()).isFalse();
+        assertThat(RpcProtocol.readVerify(response).getUserId()).isEqualTo(2L);
+        response.release();
+    }
+
+    @Test
+    void missingUserMapsToNotFound() {
+        when(userInfoService.getUserInfoById(anyLong())).thenThrow(AuthFailures.USER_NOT_FOUND);
+
+        ByteBuf request = request(RpcProtocol.OP_USER_INFO, 7L);
+        request.writeLong(1234L);
+        channel.writeInbound(request);
+
+        assertStatusOnly(RpcProtocol.STATUS_NOT_FOUND, 7L);
+    }
+
+    @Test
+    void truncatedPayloadIsBadRequestAndKeepsConnection() {
+        ByteBuf request = request(RpcProtocol.OP_VERIFY, 8L);
+        request.writeShort(10);
+        request.writeBytes(new byte[]{'a', 'b', 'c'});
+        channel.writeInbound(request);
+
+        assertStatusOnly(RpcProtocol.STATUS_BAD_REQUEST, 8L);
+        assertThat(channel.isActive()).isTrue();
+        verifyNoInteractions(userLoginService);
+    }
+
+    @Test
+    void frameShorterThanHeaderIsBadRequestWithUnknownId() {
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{RpcProtocol.OP_VERIFY, 0, 0, 0, 1}));
+
+        assertStatusOnly(RpcProtocol.STATUS_BAD_REQUEST, RpcProtocol.UNKNOWN_REQUEST_ID);
+        assertThat(channel.isActive()).isTrue();
+    }
+
+    @Test
+    void unknownOpIsBadRequest() {
+        ByteBuf request = request((byte) 99, 9L);
+        request.writeLong(1L);
+        channel.writeInbound(request);
+
+        assertStatusOnly(RpcProtocol.STATUS_BAD_REQUEST, 9L);
+        assertThat(channel.isActive()).isTrue();
+    }
+
+    @Test
+    void trailingBytesAreBadRequest() {
+        ByteBuf request = request(RpcProtocol.OP_USER_INFO, 10L);
+        request.writeLong(1L);
+        request.writeByte(0);
+        channel.writeInbound(request);
+
+        assertStatusOnly(RpcProtocol.STATUS_BAD_REQUEST, 10L);
+        verifyNoInteractions(userInfoService);
+    }
+
+    @Test
+    void rejectedTaskIsBusy() {
+        workers.rejecting = true;
+        ByteBuf request = request(RpcProtocol.OP_VERIFY, 11L);
+        RpcProtocol.writeString(request, "token");
+        channel.writeInbound(request);
+
+        assertStatusOnly(RpcProtocol.STATUS_BUSY, 11L);
+    }
+
+    @Test
+    void pipelinedRequestsAreAnsweredIndividually() {
+        when(userLoginService.verify("t")).thenReturn(UserVerifyResponse.builder().valid(false).build());
+        for (long id = 20; id < 23; id++) {
+            ByteBuf request = request(RpcProtocol.OP_VERIFY, id);
+            RpcProtocol.writeString(request, "t");
+            channel.writeInbound(request);
+        }
+        for (long id = 20; id < 23; id++) {
+            ByteBuf response = channel.readOutbound();
+            assertStatus(response, RpcProtocol.STATUS_OK, id);
+            response.release();
+        }
+    }
+
+    private static ByteBuf request(byte op, long requestId) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(op);
+        buf.writeLong(requestId);
+        return buf;
+    }
+
+    private void assertStatusOnly(byte status, long requestId) {
+        ByteBuf response = channel.readOutbound();
+        assertStatus(response, status, requestId);
+        assertThat(response.isReadable()).isFalse();
+        response.release();
+    }
+
+    private static void assertStatus(ByteBuf response, byte status, long requestId) {
+        assertThat(response).isNotNull();
+        assertThat(response.readByte()).isEqualTo(status);
+        assertThat(response.readLong()).isEqualTo(requestId);
+    }
+
+    private static final class InlineExecutor extends AbstractExecutorService {
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("queue full");
+            }
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.user.rpc;
+
+import com.user.service.UserInfoService;
+import com.user.service.UserLoginService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.Socket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RpcServerTest {
+
+    @Test
+    void listensOnlyAfterApplicationReady() throws IOException {
+        RpcServer server = new RpcServer(mock(UserLoginService.class), mock(UserInfoService.class),
+                new SimpleMeterRegistry(), "127.0.0.1", 0, 1, 1, 10);
+
+        // 上下文刷新时不由 SmartLifecycle 自动启动
+        assertThat(server.isAutoStartup()).isFalse();
+        assertThat(server.isRunning()).isFalse();
+
+        server.onApplicationReady();
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            assertThat(socket.isConnected()).isTrue();
+        } finally {
+            server.stop();
+        }
+        assertThat(server.isRunning()).isFalse();
+    }
+}
@@ -0,0 +1,121 @@
+package com.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.PoolException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisCircuitBreakerTest {
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+
+    @Test
+    void poolWaitTimeoutDoesNotTripBreaker() {
+        RedisCircuitBreaker breaker = breaker();
+        PoolException exhausted = new PoolException("Could not get a resource from the pool",
+                new NoSuchElementException("Timeout waiting for idle object, borrowMaxWaitDuration=PT0.1S"));
+
+        for (int i = 0; i < 10; i++) {
+            breaker.recordFailure(exhausted);
+        }
+
+        assertThat(breaker.allowRequest()).isTrue();
+        verify(taskScheduler, never()).scheduleWithFixedDelay(any(), any(), any());
+    }
+
+    @Test
+    void connectionFailuresTripBreakerEvenWhenRaisedByPool() {
+        RedisCircuitBreaker breaker = breaker();
+        PoolException createFailed = new PoolException("Could not get a resource from the pool",
+                new RedisConnectionFailureException("Unable to connect to 127.0.0.1:6379"));
+
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(createFailed);
+        }
+
+        assertThat(breaker.allowRequest()).isFalse();
+        verify(taskScheduler).scheduleWithFixedDelay(any(), any(), any());
+    }
+
+    @Test
+    void consecutiveFailuresOpenBreakerAndSuccessResetsCount() {
+        RedisCircuitBreaker breaker = breaker();
+        RedisConnectionFailureException down = new RedisConnectionFailureException("down");
+
+        breaker.recordFailure(down);
+        breaker.recordFailure(down);
+        breaker.recordSuccess();
+        breaker.recordFailure(down);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.recordFailure(down);
+        breaker.recordFailure(down);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void successfulProbeClosesBreaker() {
+        RedisCircuitBreaker breaker = breaker();
+        ScheduledFuture<?> probeTask = mock(ScheduledFuture.class);
+        ArgumentCaptor<Runnable> probe = ArgumentCaptor.forClass(Runnable.class);
+        doReturn(probeTask).when(taskScheduler).scheduleWithFixedDelay(probe.capture(), any(Instant.class), any());
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(breaker.checkNow()).isFalse();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        // 探测失败时保持断开
+        probe.getValue().run();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        reset(redisTemplate);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+        probe.getValue().run();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        verify(probeTask).cancel(false);
+    }
+
+    @Test
+    void disabledBreakerNeverAllowsRedis() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redisTemplate);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(provider, taskScheduler, new SimpleMeterRegistry(),
+                false, 3, Duration.ofSeconds(5));
+
+        breaker.recordSuccess();
+
+        assertThat(breaker.isEnabled()).isFalse();
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(breaker.checkNow()).isFalse();
+        verify(taskScheduler, never()).scheduleWithFixedDelay(any(), any(), any());
+    }
+
+    private RedisCircuitBreaker breaker() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redisTemplate);
+        return new RedisCircuitBreaker(provider, taskScheduler, new SimpleMeterRegistry(),
+                true, 3, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,35 @@
+package com.user.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserAuthPolicyTest {
+
+    @Test
+    void missingSecretFailsStartupUnlessRandomKeyAllowed() {
+        assertThatThrownBy(() -> policy("", false).initSigningKey())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JWT_SECRET");
+
+        assertThatCode(() -> policy("", true).initSigningKey()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void shortSecretFailsStartupEvenWhenRandomKeyAllowed() {
+        assertThatThrownBy(() -> policy("too-short-secret", true).initSigningKey())
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatCode(() -> policy("0123456789abcdef0123456789abcdef", false).initSigningKey())
+                .doesNotThrowAnyException();
+    }
+
+    private static UserAuthPolicy policy(String secret, boolean allowRandomSecret) {
+        UserAuthPolicy policy = new UserAuthPolicy();
+        ReflectionTestUtils.setField(policy, "jwtSecret", secret);
+        ReflectionTestUtils.setField(policy, "allowRandomSecret", allowRandomSecret);
+        return policy;
+    }
+}
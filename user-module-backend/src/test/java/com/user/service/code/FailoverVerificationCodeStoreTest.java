@@ -0,0 +1,113 @@
+package com.user.service.code;
+
+import com.user.service.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redis存储用mock模拟故障，内存存储与熔断器使用真实实现
+ */
+class FailoverVerificationCodeStoreTest {
+    private static final String EMAIL = "a@example.com";
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private final RedisVerificationCodeStore redisStore = mock(RedisVerificationCodeStore.class);
+    private final InMemoryVerificationCodeStore memoryStore =
+            new InMemoryVerificationCodeStore(3, 100, new SimpleMeterRegistry());
+    private final RedisCircuitBreaker breaker = breaker();
+    private final FailoverVerificationCodeStore store =
+            new FailoverVerificationCodeStore(redisStore, memoryStore, breaker);
+
+    @Test
+    void redisFailureFallsBackToMemory() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisStore).save(anyString(), anyString(), any());
+        when(redisStore.verify(anyString(), anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        store.save(EMAIL, "123456", TTL);
+
+        assertThat(store.verify(EMAIL, "123456")).isEqualTo(VerifyResult.MATCHED);
+        assertThat(store.verify(EMAIL, "123456")).isEqualTo(VerifyResult.NOT_FOUND);
+    }
+
+    @Test
+    void openBreakerSkipsRedisEntirely() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisStore).save(anyString(), anyString(), any());
+        store.save("x@example.com", "111111", TTL);
+        store.save("y@example.com", "222222", TTL);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        store.save(EMAIL, "123456", TTL);
+
+        assertThat(store.verify(EMAIL, "123456")).isEqualTo(VerifyResult.MATCHED);
+        verify(redisStore, times(2)).save(anyString(), anyString(), any());
+        verify(redisStore, never()).save(eq(EMAIL), anyString(), any());
+        verify(redisStore, never()).verify(anyString(), anyString());
+    }
+
+    @Test
+    void codeSavedDuringOutageIsStillVerifiedAfterRecovery() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisStore).save(anyString(), anyString(), any());
+        store.save(EMAIL, "123456", TTL);
+        // Redis已恢复，但其中没有降级期间写入内存的验证码
+        when(redisStore.verify(EMAIL, "123456")).thenReturn(VerifyResult.NOT_FOUND);
+
+        assertThat(store.verify(EMAIL, "123456")).isEqualTo(VerifyResult.MATCHED);
+    }
+
+    @Test
+    void savingToRedisClearsStaleMemoryCode() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisStore).save(EMAIL, "111111", TTL);
+        store.save(EMAIL, "111111", TTL);
+
+        store.save(EMAIL, "222222", TTL);
+        when(redisStore.verify(anyString(), anyString())).thenReturn(VerifyResult.NOT_FOUND);
+
+        assertThat(store.verify(EMAIL, "111111")).isEqualTo(VerifyResult.NOT_FOUND);
+    }
+
+    @Test
+    void memoryFallbackEnforcesMaxAttempts() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisStore).save(anyString(), anyString(), any());
+        when(redisStore.verify(anyString(), anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        store.save(EMAIL, "123456", TTL);
+
+        assertThat(store.verify(EMAIL, "000000")).isEqualTo(VerifyResult.MISMATCHED);
+        assertThat(store.verify(EMAIL, "000001")).isEqualTo(VerifyResult.MISMATCHED);
+        assertThat(store.verify(EMAIL, "000002")).isEqualTo(VerifyResult.ATTEMPTS_EXCEEDED);
+        // 超限后验证码作废，正确的验证码也不再通过
+        assertThat(store.verify(EMAIL, "123456")).isEqualTo(VerifyResult.NOT_FOUND);
+    }
+
+    @Test
+    void redisResultIsReturnedWithoutConsultingMemory() {
+        when(redisStore.verify(EMAIL, "000000")).thenReturn(VerifyResult.ATTEMPTS_EXCEEDED);
+
+        assertThat(store.verify(EMAIL, "000000")).isEqualTo(VerifyResult.ATTEMPTS_EXCEEDED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    private static RedisCircuitBreaker breaker() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mock(StringRedisTemplate.class));
+        return new RedisCircuitBreaker(provider, mock(TaskScheduler.class), new SimpleMeterRegistry(),
+                true, 2, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,119 @@
+package com.user.service.code;
+
+import com.user.service.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内存限流路径（Redis未配置或熔断）的冷却、IP窗口与全局窗口；Lua脚本路径只验证结果映射与失败降级
+ */
+class SendCodeRateLimiterTest {
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    @Test
+    void emailCooldownRejectsRepeatedSend() {
+        SendCodeRateLimiter limiter = limiter(false);
+
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1").isAllowed()).isTrue();
+        RateLimitResult again = limiter.tryAcquire("a@example.com", "10.0.0.2");
+
+        assertThat(again.getReason()).isEqualTo(RateLimitResult.Reason.EMAIL_COOLDOWN);
+        assertThat(again.getRetryAfterSeconds()).isBetween(1L, 60L);
+        assertThat(limiter.tryAcquire("b@example.com", "10.0.0.2").isAllowed()).isTrue();
+    }
+
+    @Test
+    void perIpLimitAppliesAcrossEmails() {
+        SendCodeRateLimiter limiter = limiter(false);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user" + i + "@example.com", "10.0.0.1").isAllowed()).isTrue();
+        }
+
+        RateLimitResult limited = limiter.tryAcquire("user3@example.com", "10.0.0.1");
+
+        assertThat(limited.getReason()).isEqualTo(RateLimitResult.Reason.IP_LIMITED);
+        assertThat(limited.getRetryAfterSeconds()).isBetween(1L, 3600L);
+        assertThat(limiter.tryAcquire("user3@example.com", "10.0.0.9").isAllowed()).isTrue();
+    }
+
+    @Test
+    void globalLimitAppliesAcrossIps() {
+        SendCodeRateLimiter limiter = limiter(false);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("user" + i + "@example.com", "10.0.1." + i).isAllowed()).isTrue();
+        }
+
+        RateLimitResult limited = limiter.tryAcquire("user5@example.com", "10.0.1.5");
+
+        assertThat(limited.getReason()).isEqualTo(RateLimitResult.Reason.GLOBAL_LIMITED);
+        assertThat(limited.getRetryAfterSeconds()).isBetween(1L, 60L);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeQuota() {
+        SendCodeRateLimiter limiter = limiter(false);
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1").isAllowed()).isTrue();
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1").isAllowed()).isFalse();
+        }
+
+        assertThat(limiter.tryAcquire("b@example.com", "10.0.0.1").isAllowed()).isTrue();
+        assertThat(limiter.tryAcquire("c@example.com", "10.0.0.1").isAllowed()).isTrue();
+    }
+
+    @Test
+    void redisScriptResultIsMapped() {
+        SendCodeRateLimiter limiter = limiter(true);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(2L, 1500L));
+
+        RateLimitResult result = limiter.tryAcquire("a@example.com", "10.0.0.1");
+
+        assertThat(result.getReason()).isEqualTo(RateLimitResult.Reason.IP_LIMITED);
+        assertThat(result.getRetryAfterSeconds()).isEqualTo(2);
+    }
+
+    @Test
+    void redisFailureFallsBackToLocalLimits() {
+        SendCodeRateLimiter limiter = limiter(true);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1").isAllowed()).isTrue();
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1").getReason())
+                .isEqualTo(RateLimitResult.Reason.EMAIL_COOLDOWN);
+    }
+
+    /**
+     * 冷却60秒；每个IP每小时3次；全局每分钟5次
+     */
+    private SendCodeRateLimiter limiter(boolean redisEnabled) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redisTemplate);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(provider, mock(TaskScheduler.class),
+                new SimpleMeterRegistry(), redisEnabled, 3, Duration.ofSeconds(5));
+        SendCodeRateLimiter limiter = new SendCodeRateLimiter(provider, breaker, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "emailCooldown", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(limiter, "ipWindow", Duration.ofHours(1));
+        ReflectionTestUtils.setField(limiter, "ipLimit", 3);
+        ReflectionTestUtils.setField(limiter, "globalWindow", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(limiter, "globalLimit", 5);
+        return limiter;
+    }
+}
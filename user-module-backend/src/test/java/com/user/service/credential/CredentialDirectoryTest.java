@@ -0,0 +1,153 @@
+package com.user.service.credential;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CredentialDirectoryTest {
+    private static final byte ACTIVE = 1;
+
+    private final CredentialDirectory directory = new CredentialDirectory(0);
+
+    @Test
+    void lookupByEmailOrNicknameIgnoresCaseAndWhitespace() {
+        directory.put(1L, "Alice@Example.com", "Alice", ACTIVE, hash('a'), salt('a'));
+
+        assertCredential(directory.lookup("  alice@example.COM "), 1L, 'a');
+        assertCredential(directory.lookup("ALICE"), 1L, 'a');
+        assertThat(directory.size()).isEqualTo(1);
+    }
+
+    @Test
+    void missingOrBlankUsernameIsNull() {
+        directory.put(1L, "alice@example.com", "alice", ACTIVE, hash('a'), salt('a'));
+
+        assertThat(directory.lookup("bob@example.com")).isNull();
+        assertThat(directory.lookup("")).isNull();
+        assertThat(directory.lookup(null)).isNull();
+    }
+
+    @Test
+    void emailAndNicknameWithSameTextAreDistinctKeys() {
+        directory.put(1L, "player@example.com", "one", ACTIVE, hash('a'), salt('a'));
+        directory.put(2L, "two@example.com", "player@example.com", ACTIVE, hash('b'), salt('b'));
+
+        // 与数据库一致，邮箱优先
+        assertCredential(directory.lookup("player@example.com"), 1L, 'a');
+        directory.remove(1L);
+        assertCredential(directory.lookup("player@example.com"), 2L, 'b');
+    }
+
+    @Test
+    void manyUsersSurviveCollisionsAndGrowth() {
+        // 期望用户数取下限1024，写入远超初始容量的用户，探测链冲突、键表扩容与各缓冲区增长都会发生
+        int users = 20_000;
+        for (long id = 1; id <= users; id++) {
+            directory.put(id, "user" + id + "@example.com", "nick" + id, ACTIVE, hash('h'), salt('s'));
+        }
+
+        assertThat(directory.size()).isEqualTo(users);
+        for (long id = 1; id <= users; id++) {
+            assertThat(directory.lookup("user" + id + "@example.com").getUserId()).isEqualTo(id);
+            assertThat(directory.lookup("nick" + id).getUserId()).isEqualTo(id);
+        }
+        assertThat(directory.lookup("user" + (users + 1) + "@example.com")).isNull();
+    }
+
+    @Test
+    void removedKeysLeaveTombstonesThatDoNotBreakProbing() {
+        int users = 3_000;
+        for (long id = 1; id <= users; id++) {
+            directory.put(id, "user" + id + "@example.com", "nick" + id, ACTIVE, hash('h'), salt('s'));
+        }
+        for (long id = 1; id <= users; id += 2) {
+            directory.remove(id);
+        }
+
+        assertThat(directory.size()).isEqualTo(users / 2);
+        for (long id = 1; id <= users; id++) {
+            if (id % 2 == 1) {
+                assertThat(directory.lookup("user" + id + "@example.com")).isNull();
+                assertThat(directory.lookup("nick" + id)).isNull();
+            } else {
+                assertThat(directory.lookup("nick" + id).getUserId()).isEqualTo(id);
+            }
+        }
+        assertThat(directory.garbageRatio()).isGreaterThan(0.0);
+
+        // 删除后重新写入需要完整字段，之后可再次查到
+        directory.put(1L, "user1@example.com", "nick1", ACTIVE, hash('n'), salt('n'));
+        assertCredential(directory.lookup("nick1"), 1L, 'n');
+        assertThat(directory.size()).isEqualTo(users / 2 + 1);
+    }
+
+    @Test
+    void repeatedRenamesReclaimTombstones() {
+        directory.put(1L, "alice@example.com", "alice", ACTIVE, hash('a'), salt('a'));
+
+        // 每次改名都留下一个墓碑，墓碑过多时原地重新散列，查找仍能在空槽处终止
+        for (int i = 0; i < 50_000; i++) {
+            directory.put(1L, null, "alice" + i, null, null, null);
+        }
+
+        assertThat(directory.lookup("alice0")).isNull();
+        assertThat(directory.lookup("alice49998")).isNull();
+        assertCredential(directory.lookup("alice49999"), 1L, 'a');
+        assertCredential(directory.lookup("alice@example.com"), 1L, 'a');
+        assertThat(directory.garbageRatio()).isGreaterThan(0.9);
+    }
+
+    @Test
+    void updateMergesNonNullFields() {
+        directory.put(1L, "alice@example.com", "alice", ACTIVE, hash('a'), salt('a'));
+
+        directory.put(1L, null, null, null, hash('b'), salt('b'));
+        assertCredential(directory.lookup("alice"), 1L, 'b');
+
+        directory.put(1L, "new@example.com", null, (byte) 0, null, null);
+        assertThat(directory.lookup("alice@example.com")).isNull();
+        assertThat(directory.lookup("new@example.com").getStatus()).isZero();
+        assertThat(directory.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keyTakenOverByAnotherUserMovesToNewOwner() {
+        directory.put(1L, "alice@example.com", "shared", ACTIVE, hash('a'), salt('a'));
+        directory.put(2L, "bob@example.com", "shared", ACTIVE, hash('b'), salt('b'));
+
+        assertCredential(directory.lookup("shared"), 2L, 'b');
+        // 用户1改名时不能误删已经属于用户2的键
+        directory.put(1L, null, "alice", null, null, null);
+        assertCredential(directory.lookup("shared"), 2L, 'b');
+        assertCredential(directory.lookup("alice"), 1L, 'a');
+    }
+
+    @Test
+    void incompleteOrMalformedCredentialsAreNotStored() {
+        directory.put(1L, "alice@example.com", "alice", ACTIVE, null, salt('a'));
+        directory.put(2L, "bob@example.com", "bob", ACTIVE, "not-a-bcrypt-hash", salt('b'));
+        assertThat(directory.lookup("alice")).isNull();
+        assertThat(directory.lookup("bob")).isNull();
+
+        // 已存在的用户改成非法哈希时移出目录，登录回源数据库
+        directory.put(3L, "carol@example.com", "carol", ACTIVE, hash('c'), salt('c'));
+        directory.put(3L, null, null, null, "short", null);
+        assertThat(directory.lookup("carol")).isNull();
+        assertThat(directory.size()).isZero();
+    }
+
+    private static void assertCredential(CredentialDirectory.Credential credential, long userId, char fill) {
+        assertThat(credential).isNotNull();
+        assertThat(credential.getUserId()).isEqualTo(userId);
+        assertThat(credential.getPasswordHash()).isEqualTo(hash(fill));
+        assertThat(credential.getPasswordSalt()).isEqualTo(salt(fill));
+    }
+
+    private static String hash(char fill) {
+        return String.valueOf(fill).repeat(CredentialDirectory.HASH_LENGTH);
+    }
+
+    private static String salt(char fill) {
+        return String.valueOf(fill).repeat(CredentialDirectory.SALT_LENGTH);
+    }
+}
@@ -0,0 +1,125 @@
+package com.user.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NicknameIndexTest {
+    private final NicknameIndex index = new NicknameIndex(1000);
+
+    @Test
+    void normalizeFoldsWidthCaseAndPunctuation() {
+        assertThat(NicknameIndex.normalize("Ｐｌａｙｅｒ_One!")).isEqualTo("playerone");
+        assertThat(NicknameIndex.normalize(" 张 三 ")).isEqualTo("张三");
+        assertThat(NicknameIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void cjkNicknamesMatchBySubstring() {
+        index.put(1L, "张三丰");
+        index.put(2L, "小张三");
+        index.put(3L, "李四");
+
+        assertThat(userIds(index.search("张三", 10))).containsExactly(1L, 2L);
+        assertThat(userIds(index.search("三丰", 10))).containsExactly(1L);
+        assertThat(userIds(index.search("王五", 10))).isEmpty();
+    }
+
+    @Test
+    void supplementaryCharactersAreSingleCodePoints() {
+        // 扩展B区汉字占两个char，按码点切gram
+        index.put(1L, "𠀀𠀁𠀂");
+
+        assertThat(userIds(index.search("𠀁𠀂", 10))).containsExactly(1L);
+        assertThat(userIds(index.search("𠀀", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void nicknamesShorterThanBigramAreFoundByPrefix() {
+        index.put(1L, "A");
+        index.put(2L, "李");
+        index.put(3L, "ab");
+        index.put(4L, "ba");
+
+        assertThat(userIds(index.search("a", 10))).containsExactly(1L, 3L);
+        assertThat(userIds(index.search("李", 10))).containsExactly(2L);
+        assertThat(userIds(index.search("ab", 10))).containsExactly(3L);
+    }
+
+    @Test
+    void blankNicknameOrQueryIsNotIndexed() {
+        index.put(1L, "!!!");
+
+        assertThat(index.size()).isZero();
+        assertThat(index.search("   ", 10).getTotal()).isZero();
+    }
+
+    @Test
+    void nicknameChangeReplacesIndexedDocument() {
+        index.put(1L, "oldname");
+        index.put(1L, "freshname");
+
+        assertThat(index.search("oldname", 10).getMatches()).isEmpty();
+        List<NicknameIndex.Match> matches = index.search("freshname", 10).getMatches();
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).getUserId()).isEqualTo(1L);
+        assertThat(matches.get(0).getNickname()).isEqualTo("freshname");
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.deletedRatio()).isEqualTo(0.5);
+
+        index.put(1L, null);
+        assertThat(index.search("freshname", 10).getMatches()).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void resultsOrderedByTierThenLengthThenUserId() {
+        index.put(5L, "xxgamerxx");
+        index.put(4L, "gamers");
+        index.put(3L, "gamer");
+        index.put(2L, "gamerx");
+        index.put(1L, "megamer");
+        index.put(6L, "gamre1");
+
+        NicknameIndex.Result result = index.search("gamer", 10);
+
+        // 完全相同、前缀（同长度按用户ID）、子串（按长度）、模糊
+        assertThat(userIds(result)).containsExactly(3L, 2L, 4L, 1L, 5L, 6L);
+        assertThat(result.getMatches().get(5).getDistance()).isEqualTo(1);
+        assertThat(result.getTotal()).isEqualTo(6);
+    }
+
+    @Test
+    void limitKeepsBestHitsAndReportsTotal() {
+        for (long id = 1; id <= 50; id++) {
+            index.put(id, "hero" + (100 - id));
+        }
+        index.put(99L, "hero");
+
+        NicknameIndex.Result result = index.search("hero", 3);
+
+        assertThat(result.getTotal()).isEqualTo(51);
+        assertThat(userIds(result)).containsExactly(99L, 1L, 2L);
+        assertThat(index.search("hero", 0).getMatches()).isEmpty();
+    }
+
+    @Test
+    void fuzzyMatchToleratesTypos() {
+        index.put(1L, "dragonslayer");
+        index.put(2L, "unrelated");
+
+        NicknameIndex.Result result = index.search("dragnslayer", 10);
+
+        assertThat(userIds(result)).containsExactly(1L);
+        assertThat(result.getMatches().get(0).getDistance()).isEqualTo(1);
+        // 三个字符以内不做模糊匹配
+        index.put(3L, "abc");
+        assertThat(index.search("abd", 10).getMatches()).isEmpty();
+    }
+
+    private static List<Long> userIds(NicknameIndex.Result result) {
+        return result.getMatches().stream().map(NicknameIndex.Match::getUserId).toList();
+    }
+}
@@ -0,0 +1,85 @@
+package com.user.service.search;
+
+import com.user.entity.User;
+import com.user.mapper.UserMapper;
+import com.user.sharding.ShardRouter;
+import com.user.vo.response.NicknameSearchItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 其他节点的修改只能通过增量扫描进入本节点的索引
+ */
+class NicknameSearchServiceTest {
+    private static final LocalDateTime LOADED_AT = LocalDateTime.of(2025, 6, 1, 12, 0, 0);
+
+    private final UserMapper userMapper = mock(UserMapper.class);
+    private final NicknameSearchService service = new NicknameSearchService(userMapper,
+            new ShardRouter(false, List.of(),
+                    new StaticListableBeanFactory().getBeanProvider(PlatformTransactionManager.class)),
+            new SimpleMeterRegistry(), true, 100, 50, 200, 20000,
+            Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ZERO);
+
+    @Test
+    void catchUpAppliesRenamesAndBansFromOtherNodes() {
+        when(userMapper.scanNicknames(anyLong(), anyInt())).thenReturn(List.of(
+                user(1L, "alice", 1, LOADED_AT.minusHours(1)),
+                user(2L, "bobby", 1, LOADED_AT)));
+        service.rebuild();
+        assertThat(ids("alice")).containsExactly(1L);
+
+        when(userMapper.scanNicknamesUpdatedSince(any(), anyLong(), anyInt())).thenReturn(List.of(
+                user(1L, "alicia", 1, LOADED_AT.plusMinutes(1)),
+                user(2L, "bobby", 2, LOADED_AT.plusMinutes(2)),
+                user(3L, "carol", 1, LOADED_AT.plusMinutes(3))));
+        service.catchUp();
+
+        assertThat(service.search("alicia", 0, 10).getItems()).extracting(NicknameSearchItem::getNickname)
+                .containsExactly("alicia");
+        assertThat(ids("bobby")).isEmpty();
+        assertThat(ids("carol")).containsExactly(3L);
+        // 起点为加载时最新的 updated_at 回退 catch-up-overlap
+        verify(userMapper).scanNicknamesUpdatedSince(eq(LOADED_AT.minusSeconds(10)), eq(0L), eq(100));
+    }
+
+    @Test
+    void catchUpResumesFromNewestUpdateSeen() {
+        when(userMapper.scanNicknames(anyLong(), anyInt())).thenReturn(List.of(user(1L, "alice", 1, LOADED_AT)));
+        service.rebuild();
+        when(userMapper.scanNicknamesUpdatedSince(any(), anyLong(), anyInt()))
+                .thenReturn(List.of(user(2L, "bobby", 1, LOADED_AT.plusMinutes(5))), List.of());
+
+        service.catchUp();
+        service.catchUp();
+
+        verify(userMapper).scanNicknamesUpdatedSince(eq(LOADED_AT.plusMinutes(5).minusSeconds(10)), eq(0L), eq(100));
+    }
+
+    private List<Long> ids(String query) {
+        return service.search(query, 0, 10).getItems().stream().map(NicknameSearchItem::getUserId).toList();
+    }
+
+    private static User user(Long id, String nickname, int status, LocalDateTime updatedAt) {
+        User user = new User();
+        user.setId(id);
+        user.setNickname(nickname);
+        user.setStatus((byte) status);
+        user.setUpdatedAt(updatedAt);
+        return user;
+    }
+}
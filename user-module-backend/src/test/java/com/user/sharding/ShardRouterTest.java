@@ -0,0 +1,78 @@
+package com.user.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardRouterTest {
+
+    @Test
+    void shardOfIsStableAndInRange() {
+        ShardRouter router = router(true, 3);
+        ShardRouter restarted = router(true, 3);
+
+        for (long userId = 1; userId <= 10_000; userId++) {
+            int shard = router.shardOf(userId);
+            assertThat(shard).isBetween(0, 2);
+            assertThat(router.shardOf(userId)).isEqualTo(shard);
+            assertThat(restarted.shardOf(userId)).isEqualTo(shard);
+        }
+    }
+
+    @Test
+    void idsFromOneNodeAndSecondSpreadAcrossShards() {
+        ShardRouter router = router(true, 4);
+        AtomicLong clock = new AtomicLong(1_760_000_000_000L);
+        UserIdGenerator generator = new UserIdGenerator(7, clock::get, clock::addAndGet);
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 2048; i++) {
+            counts[router.shardOf(generator.nextId())]++;
+        }
+
+        // 同一节点同一秒的ID只有序号不同，混合后仍应大致均匀
+        for (int count : counts) {
+            assertThat(count).isBetween(412, 612);
+        }
+    }
+
+    @Test
+    void disabledRouterRunsOnceWithoutRouting() {
+        ShardRouter router = router(false, 0);
+
+        assertThat(router.shardCount()).isEqualTo(1);
+        assertThat(router.shardOf(123L)).isZero();
+        assertThat(router.on(3, () -> ShardContext.current())).isNull();
+        assertThat(router.collect(() -> List.of("only"))).containsExactly("only");
+    }
+
+    @Test
+    void onSetsAndRestoresShardContext() {
+        ShardRouter router = router(true, 2);
+
+        Integer inner = router.on(0, () -> router.on(1, ShardContext::current));
+
+        assertThat(inner).isEqualTo(1);
+        assertThat(ShardContext.current()).isNull();
+        assertThat(router.first(() -> ShardContext.current() == 1 ? "second" : null)).isEqualTo("second");
+        assertThat(router.collect(() -> List.of(ShardContext.current()))).containsExactly(0, 1);
+    }
+
+    @Test
+    void enabledWithoutUrlsFailsFast() {
+        assertThatThrownBy(() -> router(true, 0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ShardRouter router(boolean enabled, int shards) {
+        List<String> urls = IntStream.range(0, shards).mapToObj(i -> "jdbc:h2:mem:shard" + i).toList();
+        return new ShardRouter(enabled, urls,
+                new StaticListableBeanFactory().getBeanProvider(PlatformTransactionManager.class));
+    }
+}
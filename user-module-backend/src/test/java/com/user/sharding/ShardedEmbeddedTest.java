@@ -0,0 +1,102 @@
+package com.user.sharding;
+
+import com.user.entity.User;
+import com.user.mapper.UserMapper;
+import com.user.service.UserService;
+import com.user.util.PasswordHashUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * embedded profile 加两个H2内存库作为分片：每个库连接时执行 schema-embedded.sql 建表，
+ * 经 UserService 写入的用户只落在 shardOf 选定的库中，不指定分片的读取由 ShardRoutingInterceptor 按ID路由回该库
+ */
+@SpringBootTest(properties = {
+        "app.warm-up.enabled=false",
+        "management.server.port=0",
+        "logging.level.com.user=WARN",
+        "app.sharding.enabled=true",
+        "app.id.node-id=1",
+        "app.sharding.urls=" + ShardedEmbeddedTest.SHARD_0 + "," + ShardedEmbeddedTest.SHARD_1
+})
+@ActiveProfiles("embedded")
+class ShardedEmbeddedTest {
+    private static final String H2_OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE"
+            + ";DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:db/schema-embedded.sql'";
+    static final String SHARD_0 = "jdbc:h2:mem:user_shard0" + H2_OPTIONS;
+    static final String SHARD_1 = "jdbc:h2:mem:user_shard1" + H2_OPTIONS;
+
+    @TempDir
+    static Path dataDir;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserLookupService userLookup;
+
+    @Autowired
+    private ShardRouter router;
+
+    @DynamicPropertySource
+    static void dataDir(DynamicPropertyRegistry registry) {
+        registry.add("app.embedded.data-dir", () -> dataDir.toString());
+    }
+
+    @Test
+    void userWrittenToItsShardIsReadBackThroughRouter() {
+        assertThat(router.shardCount()).isEqualTo(2);
+        List<User> saved = new ArrayList<>();
+        boolean[] used = new boolean[2];
+        // 写入足够多的用户，两个分片都至少有一个
+        for (int i = 0; i < 16; i++) {
+            User user = newUser("shard" + i);
+            userService.save(user);
+            saved.add(user);
+            used[router.shardOf(user.getId())] = true;
+        }
+        assertThat(used).containsOnly(true);
+
+        for (User user : saved) {
+            long userId = user.getId();
+            int home = router.shardOf(userId);
+
+            assertThat(router.on(home, () -> userMapper.findById(userId))).isNotNull();
+            assertThat(router.on(1 - home, () -> userMapper.findById(userId))).isNull();
+
+            User routed = userMapper.findById(userId);
+            assertThat(routed).isNotNull();
+            assertThat(routed.getEmail()).isEqualTo(user.getEmail());
+            assertThat(userLookup.findByEmail(user.getEmail()).getId()).isEqualTo(userId);
+            assertThat(userLookup.findByNickname(user.getNickname()).getId()).isEqualTo(userId);
+        }
+    }
+
+    private static User newUser(String name) {
+        String salt = PasswordHashUtil.generateSalt();
+        User user = new User();
+        user.setEmail(name + "@example.com");
+        user.setNickname(name);
+        user.setPasswordHash(PasswordHashUtil.hashPassword("Passw0rd!", salt));
+        user.setPasswordSalt(salt);
+        user.setAvatarUrl("");
+        user.setCountry("");
+        user.setGender((byte) 0);
+        user.setStatus((byte) 1);
+        return user;
+    }
+}
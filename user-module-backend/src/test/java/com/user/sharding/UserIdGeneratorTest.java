@@ -0,0 +1,132 @@
+package com.user.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserIdGeneratorTest {
+    private static final long NOW = 1_760_000_000_123L;
+    private static final int SEQUENCE_BITS = 11;
+    private static final int TIMESTAMP_SHIFT = 21;
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private final UserIdGenerator generator = new UserIdGenerator(5, clock::get, clock::addAndGet);
+
+    @Test
+    void idsWithinSameMillisecondAreStrictlyIncreasing() {
+        long previous = generator.nextId();
+        for (int i = 0; i < 1000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(previous & ((1L << SEQUENCE_BITS) - 1)).isEqualTo(1000);
+    }
+
+    @Test
+    void layoutKeepsNodeIdAndStaysWithinSafeInteger() {
+        long id = generator.nextId();
+
+        assertThat((id >>> SEQUENCE_BITS) & UserIdGenerator.MAX_NODE_ID).isEqualTo(5);
+        assertThat(id).isPositive().isLessThanOrEqualTo(MAX_SAFE_INTEGER);
+
+        clock.addAndGet(1000);
+        long nextSecond = generator.nextId();
+        assertThat((nextSecond >>> TIMESTAMP_SHIFT) - (id >>> TIMESTAMP_SHIFT)).isEqualTo(1);
+        assertThat(nextSecond & ((1L << SEQUENCE_BITS) - 1)).isZero();
+    }
+
+    @Test
+    void sequenceOverflowBorrowsNextSecond() {
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 1; i < 1 << SEQUENCE_BITS; i++) {
+            last = generator.nextId();
+        }
+        assertThat(last >>> TIMESTAMP_SHIFT).isEqualTo(first >>> TIMESTAMP_SHIFT);
+
+        long borrowed = generator.nextId();
+
+        assertThat(borrowed).isGreaterThan(last);
+        assertThat((borrowed >>> TIMESTAMP_SHIFT) - (first >>> TIMESTAMP_SHIFT)).isEqualTo(1);
+        assertThat(borrowed & ((1L << SEQUENCE_BITS) - 1)).isZero();
+
+        // 时钟真正走到被借用的那一秒时继续累加序号，而不是从0重新开始
+        clock.addAndGet(1000);
+        assertThat(generator.nextId()).isEqualTo(borrowed + 1);
+    }
+
+    @Test
+    void clockRollbackKeepsIdsUniqueAndIncreasing() {
+        long before = generator.nextId();
+        clock.set(NOW - 60_000);
+
+        Set<Long> ids = new HashSet<>();
+        long previous = before;
+        for (int i = 0; i < 5000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(ids.add(id)).isTrue();
+            previous = id;
+        }
+    }
+
+    @Test
+    void firstIdWaitsOutStartSecond() {
+        long startSecond = NOW / 1000;
+
+        generator.nextId();
+
+        assertThat(clock.get() / 1000).isEqualTo(startSecond + 1);
+        assertThat(clock.get() % 1000).isZero();
+    }
+
+    @Test
+    void restartWithinSameSecondDoesNotReuseIds() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(generator.nextId());
+        }
+
+        UserIdGenerator restarted = new UserIdGenerator(5, clock::get, clock::addAndGet);
+        for (int i = 0; i < 100; i++) {
+            assertThat(ids.add(restarted.nextId())).isTrue();
+        }
+    }
+
+    @Test
+    void resumeAfterSkipsIdsIssuedBeforeClockStepBack() {
+        long issued = generator.nextId();
+
+        clock.addAndGet(-60_000);
+        UserIdGenerator restarted = new UserIdGenerator(5, clock::get, clock::addAndGet);
+        restarted.resumeAfter(issued);
+
+        long id = restarted.nextId();
+        assertThat(id).isGreaterThan(issued);
+        assertThat((id >>> TIMESTAMP_SHIFT) - (issued >>> TIMESTAMP_SHIFT)).isEqualTo(1);
+
+        // 库中最大ID比当前进度更早时不回退
+        restarted.resumeAfter(issued - (5L << TIMESTAMP_SHIFT));
+        assertThat(restarted.nextId()).isEqualTo(id + 1);
+    }
+
+    @Test
+    void requiresNodeIdWhenShardingEnabled() {
+        assertThatThrownBy(() -> new UserIdGenerator(-1, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("app.id.node-id");
+        assertThatThrownBy(() -> new UserIdGenerator(UserIdGenerator.MAX_NODE_ID + 1, true))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new UserIdGenerator(UserIdGenerator.MAX_NODE_ID + 1, false))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(new UserIdGenerator(-1, false).nextId()).isPositive();
+    }
+}
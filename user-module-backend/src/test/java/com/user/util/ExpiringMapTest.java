@@ -0,0 +1,113 @@
+package com.user.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 时间轮用 10ms tick、4 个槽位，一圈只有 40ms，便于用较短的 sleep 覆盖跨圈的情况
+ */
+class ExpiringMapTest {
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 4;
+
+    private final ExpiringMap<String, String> map = new ExpiringMap<>(3, TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+
+    @Test
+    void entryOutlivingSeveralRotationsExpiresOnlyAfterTtl() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        map.put("long", "v", 400, TimeUnit.MILLISECONDS);
+        map.put("short", "v", 20, TimeUnit.MILLISECONDS);
+
+        // 推进两圈以上，long 所在槽位已被扫描过但尚未到期
+        while (System.currentTimeMillis() - start < 100) {
+            Thread.sleep(TICK_MILLIS);
+            map.expire();
+        }
+        assertThat(map.get("short")).isNull();
+        assertThat(map.get("long")).isEqualTo("v");
+
+        Thread.sleep(400);
+        assertThat(map.expire()).isEqualTo(1);
+        assertThat(map.size()).isZero();
+        assertThat(map.expirationCount()).isEqualTo(2);
+    }
+
+    @Test
+    void expireAfterLongPauseScansWholeWheel() throws InterruptedException {
+        map.put("a", "v", 10, TimeUnit.MILLISECONDS);
+        map.put("b", "v", 20, TimeUnit.MILLISECONDS);
+        map.put("c", "v", 30, TimeUnit.MILLISECONDS);
+
+        // 间隔远超一圈，每个槽位只扫描一次也要清理全部条目
+        Thread.sleep(200);
+        assertThat(map.expire()).isEqualTo(3);
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void putBeyondCapacityEvictsLeastRecentlyUsed() {
+        map.put("a", "1", 1, TimeUnit.MINUTES);
+        map.put("b", "2", 1, TimeUnit.MINUTES);
+        map.put("c", "3", 1, TimeUnit.MINUTES);
+        // 访问 a 后 b 成为最久未访问的条目
+        map.get("a");
+
+        map.put("d", "4", 1, TimeUnit.MINUTES);
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.evictionCount()).isEqualTo(1);
+        assertThat(map.get("b")).isNull();
+        assertThat(map.get("a")).isEqualTo("1");
+        assertThat(map.get("c")).isEqualTo("3");
+        assertThat(map.get("d")).isEqualTo("4");
+    }
+
+    @Test
+    void rePutResetsTtl() throws InterruptedException {
+        map.put("k", "old", 40, TimeUnit.MILLISECONDS);
+        Thread.sleep(20);
+        map.put("k", "new", 1, TimeUnit.MINUTES);
+        Thread.sleep(60);
+
+        assertThat(map.expire()).isZero();
+        assertThat(map.get("k")).isEqualTo("new");
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.expirationCount()).isZero();
+    }
+
+    @Test
+    void removeUnlinksScheduledEntry() throws InterruptedException {
+        map.put("a", "1", 20, TimeUnit.MILLISECONDS);
+        map.put("b", "2", 20, TimeUnit.MILLISECONDS);
+        map.put("c", "3", 20, TimeUnit.MILLISECONDS);
+
+        // 同一槽位链表的头、中间节点分别移除
+        assertThat(map.remove("c")).isEqualTo("3");
+        assertThat(map.remove("b")).isEqualTo("2");
+        assertThat(map.remove("b")).isNull();
+
+        Thread.sleep(40);
+        assertThat(map.expire()).isEqualTo(1);
+        assertThat(map.size()).isZero();
+        assertThat(map.expirationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void computeIfPresentKeepsExpiryAndRemovesOnNull() throws InterruptedException {
+        map.put("k", "1", 30, TimeUnit.MILLISECONDS);
+
+        assertThat(map.computeIfPresent("k", (key, value) -> value + "1")).isEqualTo("11");
+        assertThat(map.computeIfPresent("missing", (key, value) -> "x")).isNull();
+
+        Thread.sleep(50);
+        assertThat(map.computeIfPresent("k", (key, value) -> "x")).isNull();
+        assertThat(map.size()).isZero();
+
+        map.put("k", "1", 1, TimeUnit.MINUTES);
+        assertThat(map.computeIfPresent("k", (key, value) -> null)).isNull();
+        assertThat(map.containsKey("k")).isFalse();
+    }
+}
@@ -0,0 +1,86 @@
+package com.user.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void largeCardinalityStaysWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        // 连续的用户ID是最常见的输入，依赖 mix 把它们打散
+        for (long userId = 1; userId <= 100_000; userId++) {
+            sketch.add(userId);
+        }
+
+        assertThat((double) sketch.estimate()).isCloseTo(100_000, within(2_000.0));
+    }
+
+    @Test
+    void duplicatesDoNotGrowEstimate() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int round = 0; round < 5; round++) {
+            for (long userId = 1; userId <= 50_000; userId++) {
+                sketch.add(userId);
+            }
+        }
+
+        assertThat((double) sketch.estimate()).isCloseTo(50_000, within(1_000.0));
+    }
+
+    @Test
+    void smallRangeUsesLinearCounting() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long userId = 1; userId <= 1_000; userId++) {
+            sketch.add(userId);
+        }
+
+        // 原始调和平均估计在小基数下偏差很大，线性计数在16384个寄存器上几乎精确
+        assertThat((double) sketch.estimate()).isCloseTo(1_000, within(10.0));
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long userId = 1; userId <= 60_000; userId++) {
+            left.add(userId);
+            union.add(userId);
+        }
+        // 与 left 有 20000 个重叠
+        for (long userId = 40_001; userId <= 100_000; userId++) {
+            right.add(userId);
+            union.add(userId);
+        }
+
+        left.merge(right);
+
+        assertThat(left.estimate()).isEqualTo(union.estimate());
+        assertThat((double) left.estimate()).isCloseTo(100_000, within(2_000.0));
+    }
+
+    @Test
+    void copyIsIndependentOfOriginal() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long userId = 1; userId <= 1_000; userId++) {
+            sketch.add(userId);
+        }
+        HyperLogLog snapshot = sketch.copy();
+        long before = snapshot.estimate();
+
+        for (long userId = 1_001; userId <= 2_000; userId++) {
+            sketch.add(userId);
+        }
+
+        assertThat(snapshot.estimate()).isEqualTo(before);
+        assertThat(sketch.estimate()).isGreaterThan(before);
+    }
+}
@@ -10,6 +10,7 @@ import type {
   UserResetPasswordRequest,
 } from '../types/api';
 import { encryptPassword } from '../utils/crypto';
+import { clearAuth, getRefreshToken, saveTokens } from '../utils/auth';
 
 const api = axios.create({
   baseURL: '/api/user',
@@ -32,17 +33,58 @@ api.interceptors.request.use(
   }
 );
 
-// 响应拦截器：处理错误
+// 同一时刻只发起一次刷新，并发请求共用结果
+let refreshing: Promise<boolean> | null = null;
+
+/**
+ * 用刷新令牌换取新的访问令牌，避免访问令牌过期后重新输入密码登录
+ */
+function refreshTokens(): Promise<boolean> {
+  const refreshToken = getRefreshToken();
+  if (!refreshToken) {
+    return Promise.resolve(false);
+  }
+  if (!refreshing) {
+    refreshing = axios
+      .post<ApiResult<UserLoginResponse>>('/api/user/refresh', { refreshToken })
+      .then((response) => {
+        if (response.data.code !== 200) {
+          return false;
+        }
+        saveTokens(response.data.data.token, response.data.data.refreshToken);
+        return true;
+      })
+      .catch(() => false)
+      .finally(() => {
+        refreshing = null;
+      });
+  }
+  return refreshing;
+}
+
+function redirectToLogin() {
+  // 刷新失败，清除本地存储并跳转到登录页
+  clearAuth();
+  window.location.href = '/login';
+}
+
+// 响应拦截器：访问令牌失效时先尝试刷新并重试一次，仍失败再跳转登录
 api.interceptors.response.use(
-  (response) => {
+  async (response) => {
+    const config = response.config as typeof response.config & { _retried?: boolean };
+    if (response.data?.code === 401 && config.headers?.Authorization && !config._retried) {
+      if (await refreshTokens()) {
+        config._retried = true;
+        config.headers.Authorization = localStorage.getItem('token');
+        return api.request(config);
+      }
+      redirectToLogin();
+    }
     return response;
   },
   (error) => {
     if (error.response?.status === 401) {
-      // Token过期，清除本地存储并跳转到登录页
-      localStorage.removeItem('token');
-      localStorage.removeItem('userInfo');
-      window.location.href = '/login';
+      redirectToLogin();
     }
     return Promise.reject(error);
   }
@@ -81,7 +123,7 @@ export const apiService = {
     });
     if (response.data.code === 200) {
       // 保存token和用户信息
-      localStorage.setItem('token', response.data.data.token);
+      saveTokens(response.data.data.token, response.data.data.refreshToken);
       localStorage.setItem('userInfo', JSON.stringify(response.data.data));
     }
     return response.data.data;
@@ -98,18 +140,22 @@ export const apiService = {
     });
     if (response.data.code === 200) {
       // 保存token和用户信息
-      localStorage.setItem('token', response.data.data.token);
+      saveTokens(response.data.data.token, response.data.data.refreshToken);
       localStorage.setItem('userInfo', JSON.stringify(response.data.data));
     }
     return response.data.data;
   },
 
   /**
-   * 验证token
+   * 验证token，访问令牌失效时先尝试刷新
    */
   async verify(): Promise<UserVerifyResponse> {
     // token已通过请求拦截器自动添加
     const response = await api.get<ApiResult<UserVerifyResponse>>('/verify');
+    if (!response.data.data?.valid && (await refreshTokens())) {
+      const retried = await api.get<ApiResult<UserVerifyResponse>>('/verify');
+      return retried.data.data;
+    }
     return response.data.data;
   },
 
@@ -150,8 +196,7 @@ export const apiService = {
         'X-USER-ID': userId.toString(),
       },
     });
-    localStorage.removeItem('token');
-    localStorage.removeItem('userInfo');
+    clearAuth();
   },
 };
 
@@ -26,6 +26,7 @@ export interface UserLoginResponse {
   nickname: string;
   avatarUrl?: string;
   token: string;
+  refreshToken: string;
 }
 
 export interface UserRegisterResponse {
@@ -38,6 +39,7 @@ export interface UserRegisterResponse {
   status: number;
   createdAt: string;
   token: string;
+  refreshToken: string;
 }
 
 export interface UserInfoResponse {
@@ -54,6 +56,7 @@ export interface UserInfoResponse {
 }
 
 export interface UserVerifyResponse {
+  valid: boolean;
   userId: number;
   email: string;
   nickname: string;
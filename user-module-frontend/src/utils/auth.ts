@@ -7,6 +7,21 @@ export function getToken(): string | null {
   return localStorage.getItem('token');
 }
 
+/**
+ * 获取存储的刷新令牌
+ */
+export function getRefreshToken(): string | null {
+  return localStorage.getItem('refreshToken');
+}
+
+/**
+ * 保存登录、注册或刷新返回的令牌
+ */
+export function saveTokens(token: string, refreshToken: string): void {
+  localStorage.setItem('token', token);
+  localStorage.setItem('refreshToken', refreshToken);
+}
+
 /**
  * 获取存储的用户信息
  */
@@ -34,6 +49,7 @@ export function isAuthenticated(): boolean {
  */
 export function clearAuth(): void {
   localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
   localStorage.removeItem('userInfo');
 }
 